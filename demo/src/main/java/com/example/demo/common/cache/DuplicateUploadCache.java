@@ -0,0 +1,129 @@
+package com.example.demo.common.cache;
+
+import com.example.demo.config.AppProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 重复上传短路：按 (导入类型, 用户) 记住最近一次导入的 文件SHA-256 -> 报告(JSON)，
+ * 同一用户在 app.duplicate-upload.window-minutes 内再次上传相同内容的文件时直接返回上次报告。
+ * 每个 (类型, 用户) 只保留最近一次导入，A -> B -> A 的第二次 A 会正常重新导入。
+ * 本地 Caffeine 有界缓存在前，Redis 在后（多实例共享、重启不丢）；Redis 不可用时只用本地缓存。
+ */
+@Slf4j
+@Component
+public class DuplicateUploadCache {
+
+    public static final String KIND_ORDER = "order";
+    public static final String KIND_HARDWARE_PRICE = "hardware-price";
+
+    private static final String REDIS_KEY_PREFIX = "import:dedup:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration window;
+    private final Cache<String, Map<String, String>> local;
+
+    public DuplicateUploadCache(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper,
+                                AppProperties appProperties) {
+        AppProperties.DuplicateUpload cfg = appProperties.getDuplicateUpload();
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = cfg.isEnabled() && cfg.getWindowMinutes() > 0;
+        this.window = Duration.ofMinutes(Math.max(1, cfg.getWindowMinutes()));
+        this.local = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(Math.max(1, cfg.getMaxEntries()))
+                .build();
+    }
+
+    /**
+     * 查找该用户最近一次导入中同一文件的报告，没有或已过期返回 null；每次返回新反序列化的副本
+     */
+    public <T> T find(String kind, String operator, String fileHash, Class<T> type) {
+        if (!enabled || fileHash == null) {
+            return null;
+        }
+        Map<String, String> reports = load(kind, operator);
+        String json = reports == null ? null : reports.get(fileHash);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            log.warn("重复上传报告反序列化失败，按新文件导入: kind={}, operator={}", kind, operator, e);
+            return null;
+        }
+    }
+
+    /**
+     * 用本次导入的 文件哈希 -> 报告 替换该用户上一次的记录
+     */
+    public void remember(String kind, String operator, Map<String, ?> reportsByHash) {
+        if (!enabled || reportsByHash.isEmpty()) {
+            return;
+        }
+        Map<String, String> reports = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, ?> e : reportsByHash.entrySet()) {
+                reports.put(e.getKey(), objectMapper.writeValueAsString(e.getValue()));
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("导入报告序列化失败，不记录重复上传: kind={}, operator={}", kind, operator, e);
+            return;
+        }
+        String key = key(kind, operator);
+        local.put(key, reports);
+        try {
+            redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + key, reports, window);
+        } catch (RuntimeException e) {
+            log.warn("重复上传记录写入 Redis 失败，仅保留本地缓存: {}", key, e);
+        }
+    }
+
+    /**
+     * 忘记该用户最近一次导入，之后相同文件会正常重新导入
+     */
+    public void forget(String kind, String operator) {
+        String key = key(kind, operator);
+        local.invalidate(key);
+        try {
+            redisTemplate.delete(REDIS_KEY_PREFIX + key);
+        } catch (RuntimeException e) {
+            log.warn("重复上传记录从 Redis 删除失败: {}", key, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> load(String kind, String operator) {
+        String key = key(kind, operator);
+        Map<String, String> reports = local.getIfPresent(key);
+        if (reports != null) {
+            return reports;
+        }
+        try {
+            Object value = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + key);
+            if (value instanceof Map<?, ?> map) {
+                // 不回填本地缓存：本地按写入计时，回填会让窗口超过 Redis 中的剩余有效期
+                reports = (Map<String, String>) map;
+            }
+        } catch (RuntimeException e) {
+            log.warn("读取 Redis 重复上传记录失败，按新文件导入: {}", key, e);
+        }
+        return reports;
+    }
+
+    private static String key(String kind, String operator) {
+        return kind + ":" + operator;
+    }
+}
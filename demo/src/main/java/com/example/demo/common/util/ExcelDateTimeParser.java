@@ -0,0 +1,171 @@
+package com.example.demo.common.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Excel 文本时间解析与导出格式化（订单 DOM/流式读取、结算导出共用）。
+ * <p>
+ * 支持的形态：年-月-日 / 年/月/日 / 年.月.日 / 2024年03月05日，4 位或 2 位年份（2 位按 20xx），
+ * 可选的 " HH:mm" 或 " HH:mm:ss"，日期与时间之间可为空白、'T' 或 '日'。
+ * 月、日、时、分、秒均为两位数字；日超出当月天数时按月末处理，24:00 视为次日零点。
+ * 手写扫描器实现，正常路径不抛异常、不走正则，无法识别时返回 null。
+ */
+public final class ExcelDateTimeParser {
+
+    private static final DateTimeFormatter EXPORT_MINUTE = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm");
+    private static final DateTimeFormatter ORDER_MINUTE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private ExcelDateTimeParser() {
+    }
+
+    public static LocalDateTime parse(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        char[] buf = normalize(text);
+        if (buf == null) {
+            return null;
+        }
+        Cursor c = new Cursor(buf);
+
+        // 年：4 位或 2 位
+        int yearStart = c.pos;
+        int year = c.digits(4);
+        int yearLen = c.pos - yearStart;
+        if (yearLen == 2) {
+            year += 2000;
+        } else if (yearLen != 4) {
+            return null;
+        }
+        if (!c.expect('-')) return null;
+        int month = c.twoDigits();
+        if (!c.expect('-')) return null;
+        int day = c.twoDigits();
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+        int monthLength = YearMonth.of(year, month).lengthOfMonth();
+        if (year == 0 && (day > monthLength || !c.atEnd())) {
+            // yyyy 是公元纪年、没有 0 年，原实现只有纯日期经 ISO（严格校验日）兜底能解析出 0 年
+            return null;
+        }
+        LocalDate date = LocalDate.of(year, month, Math.min(day, monthLength));
+        if (c.atEnd()) {
+            return date.atStartOfDay();
+        }
+
+        if (!c.expect(' ')) return null;
+        int hour = c.twoDigits();
+        if (!c.expect(':')) return null;
+        int minute = c.twoDigits();
+        int second = 0;
+        if (!c.atEnd()) {
+            if (!c.expect(':')) return null;
+            second = c.twoDigits();
+            if (second < 0) return null;
+        }
+        if (!c.atEnd() || hour < 0 || minute < 0 || minute > 59 || second > 59) {
+            return null;
+        }
+        if (hour == 24 && minute == 0 && second == 0) {
+            return date.plusDays(1).atStartOfDay();
+        }
+        if (hour > 23) {
+            return null;
+        }
+        return date.atTime(hour, minute, second);
+    }
+
+    /**
+     * 结算导出时间列：yyyy/MM/dd HH:mm，空值或 MIN 返回空串。
+     */
+    public static String formatExport(LocalDateTime time) {
+        if (time == null || LocalDateTime.MIN.equals(time)) {
+            return "";
+        }
+        return EXPORT_MINUTE.format(time);
+    }
+
+    /**
+     * 订单导出时间列：yyyy-MM-dd HH:mm。
+     */
+    public static String formatOrder(LocalDateTime time) {
+        return time == null ? "" : ORDER_MINUTE.format(time);
+    }
+
+    /**
+     * 分隔符归一：年/月、'/'、'.' -> '-'；日、'T'、空白 -> ' '；连续空白折叠，首尾空白去除。
+     * 出现其它非数字、非 ':' 字符时直接判定不可识别。
+     */
+    private static char[] normalize(String text) {
+        char[] out = new char[text.length()];
+        int n = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            char mapped;
+            if (ch >= '0' && ch <= '9' || ch == ':') {
+                mapped = ch;
+            } else if (ch == '-' || ch == '/' || ch == '.' || ch == '年' || ch == '月') {
+                mapped = '-';
+            } else if (ch == '日' || ch == 'T' || ch <= ' ') {
+                mapped = ' ';
+            } else {
+                return null;
+            }
+            if (mapped == ' ' && (n == 0 || out[n - 1] == ' ')) {
+                continue;
+            }
+            out[n++] = mapped;
+        }
+        while (n > 0 && out[n - 1] == ' ') {
+            n--;
+        }
+        if (n == 0) {
+            return null;
+        }
+        char[] trimmed = new char[n];
+        System.arraycopy(out, 0, trimmed, 0, n);
+        return trimmed;
+    }
+
+    private static final class Cursor {
+        private final char[] buf;
+        private int pos;
+
+        Cursor(char[] buf) {
+            this.buf = buf;
+        }
+
+        boolean atEnd() {
+            return pos >= buf.length;
+        }
+
+        boolean expect(char ch) {
+            if (pos < buf.length && buf[pos] == ch) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        // 读取最多 max 位数字，返回数值（无数字时返回 -1）
+        int digits(int max) {
+            int start = pos;
+            int value = 0;
+            while (pos < buf.length && pos - start < max && buf[pos] >= '0' && buf[pos] <= '9') {
+                value = value * 10 + (buf[pos++] - '0');
+            }
+            return pos == start ? -1 : value;
+        }
+
+        // 恰好两位数字，否则返回 -1
+        int twoDigits() {
+            int start = pos;
+            int value = digits(2);
+            return pos - start == 2 ? value : -1;
+        }
+    }
+}
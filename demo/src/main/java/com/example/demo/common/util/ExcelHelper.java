@@ -4,17 +4,18 @@ import com.example.demo.hardware.dto.HardwarePriceExcelParseResult;
 import com.example.demo.hardware.entity.HardwarePrice;
 import com.example.demo.order.entity.OrderRecord;
 import com.example.demo.order.util.TrackingCategoryUtil;
-import com.example.demo.settlement.entity.SettlementRecord;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
@@ -34,11 +35,16 @@ import org.apache.poi.hssf.usermodel.HSSFFont;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.hssf.util.HSSFColor;
 import org.apache.poi.hssf.usermodel.HSSFPalette;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public final class ExcelHelper {
 
+    private static final Logger log = LoggerFactory.getLogger(ExcelHelper.class);
+
     // 样式采集开关：默认仅采集单元格自身填充色与删除线，忽略条件格式/表格条纹，避免误判导致“未导入也上色”
     private static final boolean ENABLE_CONDITIONAL_BG = false;
     private static final boolean ENABLE_TABLE_STRIPE_BG = false;
@@ -57,9 +63,10 @@ public final class ExcelHelper {
         }
         try (Workbook workbook = WorkbookFactory.create(inputStream)) {
             Sheet sheet = workbook.getSheetAt(0);
+            ExcelStyleCache styles = ExcelStyleCache.forWorkbook(workbook);
             for (int i = 0; i <= sheet.getLastRowNum(); i++) {
                 Row row = sheet.getRow(i);
-                if (row == null || rowHasStrikethrough(row)) {
+                if (row == null || rowHasStrikethrough(row, styles)) {
                     continue;
                 }
                 String itemName = readString(row.getCell(0));
@@ -88,311 +95,153 @@ public final class ExcelHelper {
         return result;
     }
 
+    /**
+     * 读取订单 Excel：.xlsx 走流式（SAX 事件模型）解析，.xls 等其它格式回退到 DOM 解析。
+     */
     public static List<OrderRecord> readOrders(InputStream inputStream, String operator) throws IOException {
         List<OrderRecord> result = new ArrayList<>();
+        streamOrders(inputStream, operator, result::add);
+        return result;
+    }
+
+    /**
+     * 逐行读取订单并回调 sink，按文件头魔数选择流式（OOXML）或 DOM（OLE2 .xls）路径。
+     */
+    public static void streamOrders(InputStream inputStream, String operator, Consumer<OrderRecord> sink) throws IOException {
+        InputStream in = FileMagic.prepareToCheckMagic(inputStream);
+        if (FileMagic.valueOf(in) == FileMagic.OOXML) {
+            OrderSheetStreamReader.read(in, operator, sink);
+        } else {
+            readOrdersFromWorkbook(in, operator, sink);
+        }
+    }
+
+    /**
+     * 从文件逐行读取订单：.xlsx 直接按文件打开（不把整个压缩包读入内存），其它格式回退到 DOM 解析。
+     */
+    public static void streamOrders(Path file, String operator, Consumer<OrderRecord> sink) throws IOException {
+        if (FileMagic.valueOf(file.toFile()) == FileMagic.OOXML) {
+            OrderSheetStreamReader.read(file, operator, sink);
+        } else {
+            try (InputStream in = Files.newInputStream(file)) {
+                readOrdersFromWorkbook(in, operator, sink);
+            }
+        }
+    }
+
+    private static void readOrdersFromWorkbook(InputStream inputStream, String operator, Consumer<OrderRecord> sink) throws IOException {
         try (Workbook workbook = WorkbookFactory.create(inputStream)) {
             Sheet sheet = workbook.getSheetAt(0);
-            LocalDateTime lastDateTime = null;
-            String lastTracking = null;
-            int startRow = detectDataStartRow(sheet);
+            OrderRowAssembler assembler = new OrderRowAssembler(operator, detectDataStartRow(sheet));
+            // 合并区域索引与样式缓存每次导入只构建一次
+            MergedRegionIndex mergedIndex = MergedRegionIndex.of(sheet);
+            ExcelStyleCache styles = ExcelStyleCache.forWorkbook(workbook);
 
-            // ID列从第0列移到第9列（J列）
-            int idColumnIndex = 9;
-
-            for (int i = startRow; i <= sheet.getLastRowNum(); i++) {
+            for (int i = assembler.getStartRow(); i <= sheet.getLastRowNum(); i++) {
                 Row row = sheet.getRow(i);
                 if (row == null) {
                     continue;
                 }
-                int cellCount = row.getLastCellNum();
-                // 简单格式：时间, 运单号, 型号, SN, 备注 (5列，不含ID)
-                // 完整格式：时间, 运单号, 型号, SN, 备注E, 备注F, 金额, ?, 客户名, ID (10列)
-                boolean simpleFormat = cellCount <= 5;
-                if (simpleFormat) {
-                    // 新的列顺序：时间(A), 运单号(B), 型号(C), SN(D), 备注(E)
-                    // 时间（第0列，A列）
-                    LocalDateTime dateTime = parseDateTime(row.getCell(0));
-                    if (dateTime == null) {
-                        dateTime = lastDateTime;
-                    } else {
-                        lastDateTime = dateTime;
-                    }
-
-                    // 运单号（第1列，B列）
-                    Cell trackingCell = row.getCell(1);
-                    String tracking = normalizeTracking(readString(trackingCell));
-                    if (tracking == null || tracking.isBlank()) {
-                        tracking = lastTracking;
-                    } else {
-                        lastTracking = tracking;
-                    }
-
-                    // 型号（第2列，C列）
-                    Cell modelCell = row.getCell(2);
-                    String model = readString(modelCell);
-
-                    // SN（第3列，D列）
-                    Cell snCell = row.getCell(3);
-                    String sn = readString(snCell);
-
-                    if (sn == null || sn.isBlank() || tracking == null || tracking.isBlank()) {
-                        continue;
-                    }
-
-                    // 备注（第4列，E列），考虑合并单元格
-                    Cell remarkCell = row.getCell(4);
-                    String remark = readMergedAwareString(sheet, i, 4);
-
-                    // ID不再从Excel读取，改用SN+物流单号进行匹配
-
-                    OrderRecord record = new OrderRecord();
-                    record.setOrderTime(dateTime);
-                    if (dateTime != null) {
-                        record.setOrderDate(dateTime.toLocalDate());
-                    }
-                    record.setTrackingNumber(tracking);
-                    record.setModel(model);
-                    record.setSn(sn);
-                    record.setRemark(remark);
-                    // 金额不从 Excel 导入（由结账管理写入）
-                    record.setAmount(null);
-                    record.setStatus("UNPAID");
-                    record.setCurrency("CNY");
-                    record.setCategory(TrackingCategoryUtil.resolve(tracking));
-                    record.setCreatedBy(operator);
-
-                    // 样式采集（列：B-E -> tracking/model/sn/remark），不处理金额样式；备注样式考虑合并单元格
-                    Cell remarkStyleCell = mergedTopLeftCell(sheet, i, 4);
-                    applyCellStyleToRecord(record, trackingCell, modelCell, snCell, null, remarkStyleCell);
-
-                    // 行号基准（用于位置对齐）
-                    record.setExcelRowIndex(i - startRow);
-
-                    result.add(record);
-                } else {
-                    // 完整格式：时间(A), 运单号(B), 型号(C), SN(D), 备注E(E), 备注F(F), 金额(G), ?(H), 客户名(I), ID(J)
-                    // 时间（第0列，A列）
-                    LocalDateTime dateTime = parseDateTime(row.getCell(0));
-                    if (dateTime == null) {
-                        dateTime = lastDateTime;
-                    } else {
-                        lastDateTime = dateTime;
-                    }
-
-                    // 运单号（第1列，B列）
-                    Cell trackingCell = row.getCell(1);
-                    String tracking = normalizeTracking(readString(trackingCell));
-                    if (tracking == null || tracking.isBlank()) {
-                        tracking = lastTracking;
-                    } else {
-                        lastTracking = tracking;
-                    }
-
-                    // 型号（第2列，C列）
-                    Cell modelCell = row.getCell(2);
-
-                    // SN（第3列，D列）
-                    Cell snCell = row.getCell(3);
-
-                    // 备注在第4和第5列（E、F列），合并写入 remark（合并单元格兼容）
-                    String remarkE = readMergedAwareString(sheet, i, 4);
-                    String remarkF = readMergedAwareString(sheet, i, 5);
-                    String mergedRemark = (remarkE == null || remarkE.isBlank()) ? (remarkF == null ? null : remarkF)
-                                          : (remarkF == null || remarkF.isBlank() ? remarkE : (remarkE + " " + remarkF));
-
-                    // ID不再从Excel读取，改用SN+物流单号进行匹配
-
-                    OrderRecord record = new OrderRecord();
-                    if (dateTime != null) {
-                        record.setOrderTime(dateTime);
-                        record.setOrderDate(dateTime.toLocalDate());
-                    }
-                    record.setTrackingNumber(tracking);
-                    record.setModel(readString(modelCell));
-                    record.setSn(readString(snCell));
-                    record.setRemark(mergedRemark);
-                    // 分类仍按单号自动识别
-                    record.setCategory(TrackingCategoryUtil.resolve(tracking));
-                    record.setStatus("UNPAID");
-
-                    // 金额不从 Excel 导入（由结账管理写入）
-                    record.setAmount(null);
-                    record.setCurrency("CNY");
-                    record.setCreatedBy(operator);
-                    record.setCustomerName(readString(row.getCell(8))); // 客户名在第8列（I列）
-
-                    if (record.getTrackingNumber() == null || record.getTrackingNumber().isBlank()) {
-                        continue;
-                    }
-                    if (record.getSn() == null || record.getSn().isBlank()) {
-                        continue;
-                    }
-
-                    // 样式采集：备注优先取第5列样式（F列），否则取第4列（E列）；备注样式考虑合并单元格顶格单元
-                    Cell remarkStyleCell = mergedTopLeftCell(sheet, i, 5);
-                    if (remarkStyleCell == null) remarkStyleCell = mergedTopLeftCell(sheet, i, 4);
-                    applyCellStyleToRecord(record, trackingCell, modelCell, snCell, null, remarkStyleCell);
-
-                    record.setExcelRowIndex(i - startRow);
-
-                    result.add(record);
-                }
-            }
-        }
-        return result;
-    }
-
-public static byte[] writeSettlements(List<SettlementRecord> records) throws IOException {
-    try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-        Sheet sheet = workbook.createSheet("待结账");
-
-        // 表头
-        Row header = sheet.createRow(0);
-        header.createCell(0).setCellValue("时间");
-        header.createCell(1).setCellValue("订单号");
-        header.createCell(2).setCellValue("商品名");
-        header.createCell(3).setCellValue("SN/条码");
-        header.createCell(4).setCellValue("价格");
-        header.createCell(5).setCellValue("备注");
-        header.createCell(6).setCellValue(" ");
-        header.createCell(7).setCellValue(" ");
-        header.createCell(8).setCellValue(" ");
-        header.createCell(9).setCellValue("归属人");
-        header.createCell(10).setCellValue("提交人");
-
-        // --- 1. 按“归属人”进行顶级分组 ---
-        Map<String, List<SettlementRecord>> byOwner = records.stream()
-            .collect(Collectors.groupingBy(r -> safe(r.getOwnerUsername())));
-
-        // --- 2. 按归属人名称排序，确保输出顺序稳定 ---
-        List<Map.Entry<String, List<SettlementRecord>>> sortedOwnerGroups = new ArrayList<>(byOwner.entrySet());
-        sortedOwnerGroups.sort(Map.Entry.comparingByKey());
-
-        // --- 3. 遍历每个归属人，并处理其下的所有记录 ---
-        int rowIndex = 1;
-        boolean firstOwner = true;
-
-        for (Map.Entry<String, List<SettlementRecord>> ownerEntry : sortedOwnerGroups) {
-            String currentOwner = ownerEntry.getKey();
-            List<SettlementRecord> ownerRecords = ownerEntry.getValue();
-
-            // 在不同归属人之间插入3行空白
-            if (!firstOwner) {
-                for (int i = 0; i < 3; i++) {
-                    sheet.createRow(rowIndex++);
+                // 简单格式：时间(A), 运单号(B), 型号(C), SN(D), 备注(E) (5列，不含ID)
+                // 完整格式：时间(A), 运单号(B), 型号(C), SN(D), 备注E(E), 备注F(F), 金额(G), ?(H), 客户名(I), ID(J)
+                boolean simpleFormat = OrderRowAssembler.isSimpleFormat(row.getLastCellNum());
+                Cell trackingCell = row.getCell(1);
+                Cell modelCell = row.getCell(2);
+                Cell snCell = row.getCell(3);
+
+                // 备注考虑合并单元格；完整格式下 E、F 两列合并写入 remark，客户名在第8列（I列）
+                String remarkE = readMergedAwareString(sheet, mergedIndex, i, 4);
+                String remarkF = simpleFormat ? null : readMergedAwareString(sheet, mergedIndex, i, 5);
+                String customerName = simpleFormat ? null : readString(row.getCell(8));
+
+                OrderRecord record = assembler.assemble(i, simpleFormat, parseDateTime(row.getCell(0)),
+                        readString(trackingCell), readString(modelCell), readString(snCell), remarkE, remarkF, customerName);
+                if (record == null) {
+                    continue;
                 }
-            }
-            firstOwner = false;
-
-            // --- 3a. 在当前归属人内部，按「时间 + 单号」进行次级分组 ---
-            Map<String, List<SettlementRecord>> trackingGroups = new HashMap<>();
-            Map<String, LocalDateTime> groupTimeMap = new HashMap<>();
-            for (SettlementRecord r : ownerRecords) {
-                if (r.getTrackingNumber() == null || r.getTrackingNumber().isBlank()) continue;
-                LocalDateTime time = candidateTime(r) != null ? candidateTime(r) : LocalDateTime.MIN;
-                String key = buildGroupKey(r.getTrackingNumber().trim(), time);
-                trackingGroups.computeIfAbsent(key, k -> new ArrayList<>()).add(r);
-                groupTimeMap.putIfAbsent(key, time);
-            }
 
-            // --- 3b. 对次级分组按时间排序 ---
-            List<Map.Entry<String, List<SettlementRecord>>> sortedTrackingGroups = new ArrayList<>(trackingGroups.entrySet());
-            sortedTrackingGroups.sort((a, b) -> {
-                LocalDateTime ta = groupTimeMap.getOrDefault(a.getKey(), LocalDateTime.MIN);
-                LocalDateTime tb = groupTimeMap.getOrDefault(b.getKey(), LocalDateTime.MIN);
-                int cmp = ta.compareTo(tb);
-                return cmp != 0 ? cmp : extractTracking(a.getKey()).compareTo(extractTracking(b.getKey()));
-            });
-
-            // --- 3c. 输出当前归属人的所有记录 ---
-            for (Map.Entry<String, List<SettlementRecord>> trackingEntry : sortedTrackingGroups) {
-                List<SettlementRecord> group = trackingEntry.getValue();
-                String tracking = extractTracking(trackingEntry.getKey());
-                String timeText = formatDateTime(groupTimeMap.getOrDefault(trackingEntry.getKey(), LocalDateTime.MIN));
-
-                for (int i = 0; i < group.size(); i++) {
-                    SettlementRecord r = group.get(i);
-                    Row row = sheet.createRow(rowIndex++);
-
-                    // 仅在每个单号组的第一行显示时间和单号
-                    if (i == 0) {
-                        row.createCell(0).setCellValue(timeText);
-                        row.createCell(1).setCellValue(tracking);
-                    } else {
-                        row.createCell(0).setCellValue("");
-                        row.createCell(1).setCellValue("");
-                    }
+                // 样式采集（列：B-E -> tracking/model/sn/remark），不处理金额样式；
+                // 备注样式考虑合并单元格顶格单元，完整格式优先取F列，否则取E列
+                Cell remarkStyleCell = mergedTopLeftCell(sheet, mergedIndex, i, simpleFormat ? 4 : 5);
+                if (remarkStyleCell == null && !simpleFormat) remarkStyleCell = mergedTopLeftCell(sheet, mergedIndex, i, 4);
+                applyCellStyleToRecord(record, styles, trackingCell, modelCell, snCell, null, remarkStyleCell);
 
-                    row.createCell(2).setCellValue(safe(r.getModel()));
-                    row.createCell(3).setCellValue(safe(r.getOrderSn()));
-                    row.createCell(4).setCellValue(r.getAmount() == null ? 0 : r.getAmount().doubleValue());
-                    row.createCell(5).setCellValue(safe(r.getRemark()));
-                    row.createCell(6).setCellValue("    ");
-                    row.createCell(7).setCellValue("    ");
-                    row.createCell(8).setCellValue("    ");
-                    row.createCell(9).setCellValue(currentOwner);
-                    row.createCell(10).setCellValue(safe(r.getSubmitterUsername()));
-                }
+                sink.accept(record);
             }
+            log.info("订单导入(DOM)合并区域索引: {}；样式缓存: {}", mergedIndex.summary(), styles.summary());
         }
-        // 自动列宽
-        for (int c = 0; c <= 10; c++) sheet.autoSizeColumn(c);
-
-        workbook.write(baos);
-        return baos.toByteArray();
-    }
-    }
-
-    // 找到组内最早时间，允许任意年份；为空则返回 MIN 以便排序时置前并显示为空
-    private static LocalDateTime earliestValidTime(List<SettlementRecord> list) {
-        return list.stream()
-            .map(ExcelHelper::candidateTime)
-            .filter(Objects::nonNull)
-            .min(LocalDateTime::compareTo)
-            .orElse(LocalDateTime.MIN);
-    }
-
-    private static String formatDateTime(LocalDateTime time) {
-        if (time == null || LocalDateTime.MIN.equals(time)) {
-            return "";
-        }
-        return time.format(DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm"));
     }
 
     /**
-     * 为导出排序/展示提供候选时间：
-     * 优先 orderTime，其次 confirmedAt、createdAt、updatedAt。
+     * 订单行组装：DOM 与流式两条读取路径共用，负责时间/运单号向下填充、跳过规则与字段默认值。
      */
-    private static LocalDateTime candidateTime(SettlementRecord record) {
-        if (record == null) {
-            return null;
-        }
-        if (record.getOrderTime() != null) {
-            return record.getOrderTime();
-        }
-        if (record.getConfirmedAt() != null) {
-            return record.getConfirmedAt();
-        }
-        if (record.getCreatedAt() != null) {
-            return record.getCreatedAt();
-        }
-        if (record.getUpdatedAt() != null) {
-            return record.getUpdatedAt();
+    static final class OrderRowAssembler {
+        private final String operator;
+        private final int startRow;
+        private LocalDateTime lastDateTime;
+        private String lastTracking;
+
+        OrderRowAssembler(String operator, int startRow) {
+            this.operator = operator;
+            this.startRow = startRow;
         }
-        return null;
-    }
 
-    private static String buildGroupKey(String tracking, LocalDateTime time) {
-        return tracking + "|" + (time == null ? "" : time.toString());
-    }
+        int getStartRow() {
+            return startRow;
+        }
 
-    private static String extractTracking(String groupKey) {
-        int idx = groupKey.indexOf('|');
-        return idx >= 0 ? groupKey.substring(0, idx) : groupKey;
-    }
+        static boolean isSimpleFormat(int cellCount) {
+            return cellCount <= 5;
+        }
 
-    private static String safe(String input) {
-        return input == null ? "" : input;
+        /**
+         * @return 组装后的记录；运单号或 SN 为空时返回 null（跳过该行）
+         */
+        OrderRecord assemble(int rowIndex, boolean simpleFormat, LocalDateTime parsedTime, String trackingText,
+                             String model, String sn, String remarkE, String remarkF, String customerName) {
+            LocalDateTime dateTime = parsedTime;
+            if (dateTime == null) {
+                dateTime = lastDateTime;
+            } else {
+                lastDateTime = dateTime;
+            }
+            String tracking = normalizeTracking(trackingText);
+            if (tracking == null || tracking.isBlank()) {
+                tracking = lastTracking;
+            } else {
+                lastTracking = tracking;
+            }
+            if (sn == null || sn.isBlank() || tracking == null || tracking.isBlank()) {
+                return null;
+            }
+            String remark = simpleFormat ? remarkE
+                : (remarkE == null || remarkE.isBlank()) ? remarkF
+                : (remarkF == null || remarkF.isBlank() ? remarkE : (remarkE + " " + remarkF));
+
+            // ID不再从Excel读取，改用SN+物流单号进行匹配
+            OrderRecord record = new OrderRecord();
+            if (dateTime != null) {
+                record.setOrderTime(dateTime);
+                record.setOrderDate(dateTime.toLocalDate());
+            }
+            record.setTrackingNumber(tracking);
+            record.setModel(model);
+            record.setSn(sn);
+            record.setRemark(remark);
+            // 分类仍按单号自动识别
+            record.setCategory(TrackingCategoryUtil.resolve(tracking));
+            record.setStatus("UNPAID");
+            // 金额不从 Excel 导入（由结账管理写入）
+            record.setAmount(null);
+            record.setCurrency("CNY");
+            record.setCreatedBy(operator);
+            if (!simpleFormat) {
+                record.setCustomerName(customerName);
+            }
+            // 行号基准（用于位置对齐）
+            record.setExcelRowIndex(rowIndex - startRow);
+            return record;
+        }
     }
 
     private static String readString(Cell cell) {
@@ -421,40 +270,11 @@ public static byte[] writeSettlements(List<SettlementRecord> records) throws IOE
                 }
             }
         } catch (Throwable ignored) {}
-        String text = readString(cell, null);
-        if (text == null || text.isBlank()) return null;
-        String normalized = text.trim()
-            .replace('年','-').replace("月","-").replace("日"," ")
-            .replace('/', '-')
-            .replace('.', '-')
-            .replace("T", " ")
-            .replaceAll("\\s+", " ");
-        String[] patterns = new String[] {
-            "yyyy-MM-dd HH:mm:ss",
-            "yyyy-MM-dd HH:mm",
-            "yyyy-MM-dd",
-            "yy-MM-dd HH:mm:ss",
-            "yy-MM-dd HH:mm",
-            "yy-MM-dd"
-        };
-        for (String p : patterns) {
-            try {
-                DateTimeFormatter f = DateTimeFormatter.ofPattern(p);
-                if (p.endsWith("dd")) {
-                    return LocalDate.parse(normalized, f).atStartOfDay();
-                } else {
-                    return LocalDateTime.parse(normalized, f);
-                }
-            } catch (Exception ignored) {}
-        }
-        // 尝试 ISO 解析
-        try { return LocalDateTime.parse(normalized); } catch (Exception ignored) {}
-        try { return LocalDate.parse(normalized).atStartOfDay(); } catch (Exception ignored) {}
-        return null;
+        return ExcelDateTimeParser.parse(readString(cell, null));
     }
 
     // 规范化运单号文本（去除 Excel 前缀/空白/末尾 - 等）
-    private static String normalizeTracking(String s) {
+    static String normalizeTracking(String s) {
         if (s == null) return null;
         String v = cleanExcelText(s);
         if (v == null) return null;
@@ -467,21 +287,18 @@ public static byte[] writeSettlements(List<SettlementRecord> records) throws IOE
     /**
      * 当单元格为空时，若处于合并单元格区域，则返回该区域左上角单元格的文本。
      */
-    private static String readMergedAwareString(Sheet sheet, int rowIndex, int colIndex) {
+    private static String readMergedAwareString(Sheet sheet, MergedRegionIndex mergedIndex, int rowIndex, int colIndex) {
         Row row = sheet.getRow(rowIndex);
         Cell cell = (row == null) ? null : row.getCell(colIndex);
         String v = readString(cell, null);
         if (v != null && !v.isBlank()) return v;
-        // 查找合并区域
-        int count = sheet.getNumMergedRegions();
-        for (int i = 0; i < count; i++) {
-            CellRangeAddress r = sheet.getMergedRegion(i);
-            if (r != null && r.isInRange(rowIndex, colIndex)) {
-                Row top = sheet.getRow(r.getFirstRow());
-                Cell tl = (top == null) ? null : top.getCell(r.getFirstColumn());
-                String base = readString(tl, null);
-                if (base != null && !base.isBlank()) return base;
-            }
+        // 查找合并区域（索引查询，避免逐个遍历）
+        CellRangeAddress r = mergedIndex.find(rowIndex, colIndex);
+        if (r != null) {
+            Row top = sheet.getRow(r.getFirstRow());
+            Cell tl = (top == null) ? null : top.getCell(r.getFirstColumn());
+            String base = readString(tl, null);
+            if (base != null && !base.isBlank()) return base;
         }
         return v;
     }
@@ -489,21 +306,22 @@ public static byte[] writeSettlements(List<SettlementRecord> records) throws IOE
     /**
      * 返回合并区域的左上角单元格（若非合并则返回自身单元格），用于读取样式。
      */
-    private static Cell mergedTopLeftCell(Sheet sheet, int rowIndex, int colIndex) {
+    private static Cell mergedTopLeftCell(Sheet sheet, MergedRegionIndex mergedIndex, int rowIndex, int colIndex) {
         Row row = sheet.getRow(rowIndex);
         Cell cell = (row == null) ? null : row.getCell(colIndex);
-        int count = sheet.getNumMergedRegions();
-        for (int i = 0; i < count; i++) {
-            CellRangeAddress r = sheet.getMergedRegion(i);
-            if (r != null && r.isInRange(rowIndex, colIndex)) {
-                Row top = sheet.getRow(r.getFirstRow());
-                return (top == null) ? cell : top.getCell(r.getFirstColumn());
-            }
+        CellRangeAddress r = mergedIndex.find(rowIndex, colIndex);
+        if (r != null) {
+            Row top = sheet.getRow(r.getFirstRow());
+            return (top == null) ? cell : top.getCell(r.getFirstColumn());
         }
         return cell;
     }
 
-    private static String cleanExcelText(String value) {
+    static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    static String cleanExcelText(String value) {
         if (value == null) {
             return null;
         }
@@ -523,17 +341,12 @@ public static byte[] writeSettlements(List<SettlementRecord> records) throws IOE
         return normalized;
     }
 
-    private static boolean rowHasStrikethrough(Row row) {
+    private static boolean rowHasStrikethrough(Row row, ExcelStyleCache styles) {
         if (row == null) return false;
         for (int i = row.getFirstCellNum(); i < row.getLastCellNum(); i++) {
             Cell cell = row.getCell(i);
             if (cell == null) continue;
-            try {
-                CellStyle style = cell.getCellStyle();
-                if (style == null) continue;
-                Font f = cell.getSheet().getWorkbook().getFontAt(style.getFontIndex());
-                if (f != null && f.getStrikeout()) return true;
-            } catch (Throwable ignored) {}
+            if (styles.resolve(cell).strike()) return true;
         }
         return false;
     }
@@ -552,54 +365,73 @@ public static byte[] writeSettlements(List<SettlementRecord> records) throws IOE
         }
     }
 
-    private static void applyCellStyleToRecord(OrderRecord record, Cell trackingCell, Cell modelCell, Cell snCell, Cell amountCell, Cell remarkCell) {
-        if (trackingCell != null) {
-            record.setTrackingBgColor(getEffectiveBgHex(trackingCell));
-            record.setTrackingFontColor(getFontHex(trackingCell));
-            record.setTrackingStrike(isStrike(trackingCell));
-            record.setTrackingBold(isBold(trackingCell));
-        }
-        if (modelCell != null) {
-            record.setModelBgColor(getEffectiveBgHex(modelCell));
-            record.setModelFontColor(getFontHex(modelCell));
-            record.setModelStrike(isStrike(modelCell));
-            record.setModelBold(isBold(modelCell));
-        }
-        if (snCell != null) {
-            record.setSnBgColor(getEffectiveBgHex(snCell));
-            record.setSnFontColor(getFontHex(snCell));
-            record.setSnStrike(isStrike(snCell));
-            record.setSnBold(isBold(snCell));
-        }
-        if (amountCell != null) {
-            record.setAmountBgColor(getEffectiveBgHex(amountCell));
-            record.setAmountFontColor(getFontHex(amountCell));
-            record.setAmountStrike(isStrike(amountCell));
-            record.setAmountBold(isBold(amountCell));
-        }
-        if (remarkCell != null) {
-            record.setRemarkBgColor(getEffectiveBgHex(remarkCell));
-            record.setRemarkFontColor(getFontHex(remarkCell));
-            record.setRemarkStrike(isStrike(remarkCell));
-            record.setRemarkBold(isBold(remarkCell));
+    private static void applyCellStyleToRecord(OrderRecord record, ExcelStyleCache styles, Cell trackingCell, Cell modelCell, Cell snCell, Cell amountCell, Cell remarkCell) {
+        if (trackingCell != null) applyStyle(record, "tracking", effectiveStyle(trackingCell, styles));
+        if (modelCell != null) applyStyle(record, "model", effectiveStyle(modelCell, styles));
+        if (snCell != null) applyStyle(record, "sn", effectiveStyle(snCell, styles));
+        if (amountCell != null) applyStyle(record, "amount", effectiveStyle(amountCell, styles));
+        if (remarkCell != null) applyStyle(record, "remark", effectiveStyle(remarkCell, styles));
+    }
+
+    /**
+     * 将归一化样式写入记录对应字段（DOM 与流式读取共用）。
+     */
+    static void applyStyle(OrderRecord record, String field, ExcelStyleCache.CellStyleInfo info) {
+        switch (field) {
+            case "tracking" -> {
+                record.setTrackingBgColor(info.bgColor());
+                record.setTrackingFontColor(info.fontColor());
+                record.setTrackingStrike(info.strike());
+                record.setTrackingBold(info.bold());
+            }
+            case "model" -> {
+                record.setModelBgColor(info.bgColor());
+                record.setModelFontColor(info.fontColor());
+                record.setModelStrike(info.strike());
+                record.setModelBold(info.bold());
+            }
+            case "sn" -> {
+                record.setSnBgColor(info.bgColor());
+                record.setSnFontColor(info.fontColor());
+                record.setSnStrike(info.strike());
+                record.setSnBold(info.bold());
+            }
+            case "amount" -> {
+                record.setAmountBgColor(info.bgColor());
+                record.setAmountFontColor(info.fontColor());
+                record.setAmountStrike(info.strike());
+                record.setAmountBold(info.bold());
+            }
+            case "remark" -> {
+                record.setRemarkBgColor(info.bgColor());
+                record.setRemarkFontColor(info.fontColor());
+                record.setRemarkStrike(info.strike());
+                record.setRemarkBold(info.bold());
+            }
+            default -> {
+            }
         }
     }
 
     /**
-     * 获取单元格的有效背景色：优先 单元格填充 -> 条件格式 -> 表格条纹
+     * 获取单元格的有效样式：背景色优先 单元格填充（按样式索引缓存） -> 条件格式 -> 表格条纹
      */
-    private static String getEffectiveBgHex(Cell cell) {
-        String direct = getBgHex(cell);
-        if (direct != null && !direct.isBlank()) return direct;
+    private static ExcelStyleCache.CellStyleInfo effectiveStyle(Cell cell, ExcelStyleCache styles) {
+        ExcelStyleCache.CellStyleInfo info = styles.resolve(cell);
+        if (info.bgColor() != null && !info.bgColor().isBlank()) return info;
+        // 条件格式/表格条纹与单元格位置相关，无法按样式索引缓存
+        String fallback = null;
         if (ENABLE_CONDITIONAL_BG) {
             String fromCf = getConditionalBgHex(cell);
-            if (fromCf != null && !fromCf.isBlank()) return fromCf;
+            if (fromCf != null && !fromCf.isBlank()) fallback = fromCf;
         }
-        if (ENABLE_TABLE_STRIPE_BG) {
+        if (fallback == null && ENABLE_TABLE_STRIPE_BG) {
             String fromTable = getTableStripeBgHex(cell);
-            if (fromTable != null && !fromTable.isBlank()) return fromTable;
+            if (fromTable != null && !fromTable.isBlank()) fallback = fromTable;
         }
-        return null;
+        // 绝大多数单元格没有位置相关的背景色，直接返回缓存的样式；只有取到条件格式/条纹色时才新建
+        if (fallback == null) return info;
+        return new ExcelStyleCache.CellStyleInfo(fallback, info.fontColor(), info.strike(), info.bold());
     }
 
     private static String getConditionalBgHex(Cell cell) {
@@ -707,10 +539,11 @@ public static byte[] writeSettlements(List<SettlementRecord> records) throws IOE
         return null;
     }
 
-    private static String getBgHex(Cell cell) {
+    /**
+     * 样式自身的填充色（由 {@link ExcelStyleCache} 按样式索引调用一次）。
+     */
+    static String styleBgHex(CellStyle style, Workbook wb) {
         try {
-            if (cell == null) return null;
-            CellStyle style = cell.getCellStyle();
             if (style == null) return null;
 
             // 无填充时返回空（避免误判）
@@ -732,49 +565,24 @@ public static byte[] writeSettlements(List<SettlementRecord> records) throws IOE
                 if (idx == HSSFColor.HSSFColorPredefined.AUTOMATIC.getIndex()) {
                     idx = hs.getFillBackgroundColor();
                 }
-                return toHexHSSF(idx, cell.getSheet().getWorkbook());
+                return toHexHSSF(idx, wb);
             }
         } catch (Throwable ignored) {}
         return null;
     }
 
-    private static String getFontHex(Cell cell) {
+    static String fontHex(Font f, Workbook wb) {
         try {
-            if (cell == null) return null;
-            CellStyle style = cell.getCellStyle();
-            if (style == null) return null;
-            Font f = cell.getSheet().getWorkbook().getFontAt(style.getFontIndex());
             if (f instanceof XSSFFont xf) {
-                XSSFColor c = xf.getXSSFColor();
-                return toHexXSSF(c);
+                return toHexXSSF(xf.getXSSFColor());
             } else if (f instanceof HSSFFont hf) {
                 short idx = hf.getColor();
-                return toHexHSSF(idx, cell.getSheet().getWorkbook());
+                return toHexHSSF(idx, wb);
             }
         } catch (Throwable ignored) {}
         return null;
     }
 
-    private static boolean isStrike(Cell cell) {
-        try {
-            CellStyle style = cell.getCellStyle();
-            if (style == null) return false;
-            Font f = cell.getSheet().getWorkbook().getFontAt(style.getFontIndex());
-            return f != null && f.getStrikeout();
-        } catch (Throwable ignored) {}
-        return false;
-    }
-
-    private static boolean isBold(Cell cell) {
-        try {
-            CellStyle style = cell.getCellStyle();
-            if (style == null) return false;
-            Font f = cell.getSheet().getWorkbook().getFontAt(style.getFontIndex());
-            return f != null && f.getBold();
-        } catch (Throwable ignored) {}
-        return false;
-    }
-
     private static String toHexXSSF(XSSFColor color) {
         if (color == null) return null;
         byte[] rgb = color.getRGBWithTint();
@@ -823,11 +631,23 @@ public static byte[] writeSettlements(List<SettlementRecord> records) throws IOE
         if (r0 == null) return 0;
         int last = r0.getLastCellNum();
         if (last <= 0) return 0;
-        int headerScore = 0;
         int limit = Math.min(last, 10);
+        String[] texts = new String[limit];
+        for (int c = 0; c < limit; c++) {
+            texts[c] = readString(r0.getCell(c), null);
+        }
+        return detectDataStartRow(texts, last);
+    }
+
+    /**
+     * 根据首行文本判断数据起始行（流式读取直接传入首行各列文本）。
+     */
+    static int detectDataStartRow(String[] firstRowTexts, int cellCount) {
+        if (cellCount <= 0 || firstRowTexts == null) return 0;
+        int headerScore = 0;
+        int limit = Math.min(Math.min(cellCount, 10), firstRowTexts.length);
         for (int c = 0; c < limit; c++) {
-            Cell cell = r0.getCell(c);
-            String text = readString(cell, null);
+            String text = firstRowTexts[c];
             if (text == null) continue;
             String t = text.trim().toLowerCase(Locale.ROOT);
             if (t.equals("id") || t.equals("日期") || t.equals("时间") || t.equals("下单日期") || t.equals("下单时间")
@@ -880,7 +700,7 @@ public static byte[] writeSettlements(List<SettlementRecord> records) throws IOE
 
                 // 时间（A列，第0列）
                 if (record.getOrderTime() != null) {
-                    row.createCell(0).setCellValue(record.getOrderTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+                    row.createCell(0).setCellValue(ExcelDateTimeParser.formatOrder(record.getOrderTime()));
                 } else if (record.getOrderDate() != null) {
                     row.createCell(0).setCellValue(record.getOrderDate().format(DATE_FORMATTER));
                 } else {
@@ -0,0 +1,131 @@
+package com.example.demo.common.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.model.StylesTable;
+
+/**
+ * 单个工作簿内的样式解析缓存：按样式索引（及字体索引）把 CellStyle/Font 归一化为不可变的
+ * {@link CellStyleInfo}，每个索引只解析一次。一个工作簿通常只有几十种样式，
+ * 避免对每个单元格重复做字体查找、XSSFColor tint 计算与十六进制格式化。
+ * 非线程安全，仅在单次读取内使用。
+ */
+final class ExcelStyleCache {
+
+    /**
+     * 归一化后的单元格样式：背景色、字体色（#RRGGBB，取不到为 null）、删除线、加粗。
+     */
+    record CellStyleInfo(String bgColor, String fontColor, boolean strike, boolean bold) {
+        static final CellStyleInfo NONE = new CellStyleInfo(null, null, false, false);
+    }
+
+    private record FontInfo(String color, boolean strike, boolean bold) {
+        static final FontInfo NONE = new FontInfo(null, false, false);
+    }
+
+    private final Workbook workbook;
+    private final IntFunction<CellStyle> styleLookup;
+    private final IntFunction<Font> fontLookup;
+    private final Map<Integer, CellStyleInfo> byStyleIndex = new HashMap<>();
+    private final Map<Integer, FontInfo> byFontIndex = new HashMap<>();
+
+    // 统计：命中/解析次数与解析耗时
+    private long hits;
+    private long misses;
+    private long resolveNanos;
+
+    private ExcelStyleCache(Workbook workbook, IntFunction<CellStyle> styleLookup, IntFunction<Font> fontLookup) {
+        this.workbook = workbook;
+        this.styleLookup = styleLookup;
+        this.fontLookup = fontLookup;
+    }
+
+    static ExcelStyleCache forWorkbook(Workbook workbook) {
+        return new ExcelStyleCache(workbook, workbook::getCellStyleAt, workbook::getFontAt);
+    }
+
+    /**
+     * 流式读取使用：样式来自 xlsx 的 styles.xml，颜色解析不依赖 Workbook。
+     */
+    static ExcelStyleCache forStylesTable(StylesTable styles) {
+        return new ExcelStyleCache(null, styles::getStyleAt, styles::getFontAt);
+    }
+
+    CellStyleInfo resolve(Cell cell) {
+        if (cell == null) {
+            return CellStyleInfo.NONE;
+        }
+        CellStyle style;
+        try {
+            style = cell.getCellStyle();
+        } catch (Throwable ignored) {
+            return CellStyleInfo.NONE;
+        }
+        if (style == null) {
+            return CellStyleInfo.NONE;
+        }
+        CellStyleInfo cached = byStyleIndex.get((int) style.getIndex());
+        if (cached != null) {
+            hits++;
+            return cached;
+        }
+        return resolveAndCache(style.getIndex(), style);
+    }
+
+    CellStyleInfo resolve(int styleIndex) {
+        CellStyleInfo cached = byStyleIndex.get(styleIndex);
+        if (cached != null) {
+            hits++;
+            return cached;
+        }
+        CellStyle style;
+        try {
+            style = styleLookup.apply(styleIndex);
+        } catch (Throwable ignored) {
+            style = null;
+        }
+        return resolveAndCache(styleIndex, style);
+    }
+
+    String summary() {
+        return String.format("styles=%d, fonts=%d, hits=%d, misses=%d, resolve=%.2fms",
+                byStyleIndex.size(), byFontIndex.size(), hits, misses, resolveNanos / 1_000_000.0);
+    }
+
+    private CellStyleInfo resolveAndCache(int styleIndex, CellStyle style) {
+        long start = System.nanoTime();
+        misses++;
+        CellStyleInfo info;
+        if (style == null) {
+            info = CellStyleInfo.NONE;
+        } else {
+            FontInfo font = resolveFont(style.getFontIndex());
+            info = new CellStyleInfo(ExcelHelper.styleBgHex(style, workbook), font.color(), font.strike(), font.bold());
+        }
+        byStyleIndex.put(styleIndex, info);
+        resolveNanos += System.nanoTime() - start;
+        return info;
+    }
+
+    private FontInfo resolveFont(int fontIndex) {
+        FontInfo cached = byFontIndex.get(fontIndex);
+        if (cached != null) {
+            return cached;
+        }
+        FontInfo info;
+        try {
+            Font f = fontLookup.apply(fontIndex);
+            info = f == null ? FontInfo.NONE
+                    : new FontInfo(ExcelHelper.fontHex(f, workbook), f.getStrikeout(), f.getBold());
+        } catch (Throwable ignored) {
+            info = FontInfo.NONE;
+        }
+        byFontIndex.put(fontIndex, info);
+        return info;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.common.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 上传文件内容哈希（SHA-256，小写十六进制），用于识别同一份文件的重复上传。
+ */
+public final class FileHashUtil {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileHashUtil() {
+    }
+
+    public static String sha256Hex(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return sha256Hex(in);
+        }
+    }
+
+    /**
+     * 读完整个流并返回其哈希，不关闭流
+     */
+    public static String sha256Hex(InputStream in) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, n);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // JDK 必须提供 SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.demo.common.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * 合并区域索引：每次导入按工作表构建一次，按列存放按首行排序的区域区间，
+ * 查询某单元格所在区域为 O(log n)，替代逐个遍历 sheet.getMergedRegion(i)。
+ * 结果与按原始顺序线性遍历的首个命中区域一致（重叠的非法区域也按原始顺序取最小序号）。
+ * 非线程安全，仅在单次读取内使用。
+ */
+public final class MergedRegionIndex {
+
+    private final List<CellRangeAddress> regions;
+    private final Map<Integer, ColumnIntervals> byColumn = new HashMap<>();
+
+    // 统计：构建耗时、查询次数与累计耗时
+    private final long buildNanos;
+    private long lookups;
+    private long lookupNanos;
+
+    private MergedRegionIndex(List<CellRangeAddress> regions) {
+        long start = System.nanoTime();
+        this.regions = regions;
+        Map<Integer, List<Integer>> ordinalsByColumn = new HashMap<>();
+        for (int i = 0; i < regions.size(); i++) {
+            CellRangeAddress r = regions.get(i);
+            if (r == null) continue;
+            for (int c = r.getFirstColumn(); c <= r.getLastColumn(); c++) {
+                ordinalsByColumn.computeIfAbsent(c, k -> new ArrayList<>()).add(i);
+            }
+        }
+        ordinalsByColumn.forEach((col, ordinals) -> byColumn.put(col, new ColumnIntervals(regions, ordinals)));
+        this.buildNanos = System.nanoTime() - start;
+    }
+
+    public static MergedRegionIndex of(Sheet sheet) {
+        int count = sheet == null ? 0 : sheet.getNumMergedRegions();
+        List<CellRangeAddress> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(sheet.getMergedRegion(i));
+        }
+        return new MergedRegionIndex(list);
+    }
+
+    public static MergedRegionIndex of(List<CellRangeAddress> regions) {
+        return new MergedRegionIndex(regions);
+    }
+
+    /**
+     * @return 包含 (row, col) 的区域在原始列表中的序号；不在任何合并区域内返回 -1
+     */
+    public int indexOf(int row, int col) {
+        long start = System.nanoTime();
+        ColumnIntervals intervals = byColumn.get(col);
+        int result = intervals == null ? -1 : intervals.find(row);
+        lookups++;
+        lookupNanos += System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * @return 包含 (row, col) 的合并区域；不在合并区域内返回 null
+     */
+    public CellRangeAddress find(int row, int col) {
+        int idx = indexOf(row, col);
+        return idx < 0 ? null : regions.get(idx);
+    }
+
+    public int size() {
+        return regions.size();
+    }
+
+    public String summary() {
+        return String.format("regions=%d, build=%.2fms, lookups=%d, lookupTotal=%.2fms",
+                regions.size(), buildNanos / 1_000_000.0, lookups, lookupNanos / 1_000_000.0);
+    }
+
+    /**
+     * 单列的区间表：按首行升序，附带末行前缀最大值，用于二分后向前回溯重叠区间。
+     */
+    private static final class ColumnIntervals {
+        private final int[] ordinals;
+        private final int[] firstRows;
+        private final int[] lastRows;
+        private final int[] maxLastRows;
+
+        ColumnIntervals(List<CellRangeAddress> regions, List<Integer> ordinalList) {
+            Integer[] sorted = ordinalList.toArray(new Integer[0]);
+            Arrays.sort(sorted, (a, b) -> {
+                int cmp = Integer.compare(regions.get(a).getFirstRow(), regions.get(b).getFirstRow());
+                return cmp != 0 ? cmp : Integer.compare(a, b);
+            });
+            int n = sorted.length;
+            ordinals = new int[n];
+            firstRows = new int[n];
+            lastRows = new int[n];
+            maxLastRows = new int[n];
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < n; i++) {
+                CellRangeAddress r = regions.get(sorted[i]);
+                ordinals[i] = sorted[i];
+                firstRows[i] = r.getFirstRow();
+                lastRows[i] = r.getLastRow();
+                max = Math.max(max, r.getLastRow());
+                maxLastRows[i] = max;
+            }
+        }
+
+        int find(int row) {
+            // 最后一个首行 <= row 的位置
+            int lo = 0, hi = firstRows.length - 1, pos = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (firstRows[mid] <= row) {
+                    pos = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            int best = -1;
+            for (int i = pos; i >= 0 && maxLastRows[i] >= row; i--) {
+                if (lastRows[i] >= row && (best < 0 || ordinals[i] < best)) {
+                    best = ordinals[i];
+                }
+            }
+            return best;
+        }
+    }
+}
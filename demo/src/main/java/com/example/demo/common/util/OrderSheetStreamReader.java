@@ -0,0 +1,399 @@
+package com.example.demo.common.util;
+
+import com.example.demo.order.entity.OrderRecord;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.xml.parsers.ParserConfigurationException;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.util.XMLHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * .xlsx 订单流式读取器：基于 POI 事件模型（XSSFReader + 共享字符串表 + 样式表）逐行解析第一个工作表，
+ * 不构建整本 DOM。列规则、向下填充、样式采集与合并备注单元格的处理与 {@link ExcelHelper} 的 DOM 路径一致。
+ */
+final class OrderSheetStreamReader {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderSheetStreamReader.class);
+
+    // 读取的列范围：A(0) ~ J(9)
+    private static final int MAX_COLUMNS = 10;
+    // 备注所在列（E、F），仅这两列需要合并单元格感知
+    private static final int REMARK_E = 4;
+    private static final int REMARK_F = 5;
+
+    private OrderSheetStreamReader() {
+    }
+
+    /**
+     * 从文件读取：按需从 zip 中解压各部件，工作表 XML 不整体读入内存（优先使用）
+     */
+    static void read(Path file, String operator, Consumer<OrderRecord> sink) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+        } catch (InvalidFormatException e) {
+            throw new IOException("无法打开 xlsx 文件", e);
+        }
+        read(pkg, operator, sink);
+    }
+
+    /**
+     * 从输入流读取：POI 会把每个 zip 条目（含解压后的工作表 XML）读入内存，仅供拿不到文件的调用方使用
+     */
+    static void read(InputStream inputStream, String operator, Consumer<OrderRecord> sink) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(inputStream);
+        } catch (OpenXML4JException e) {
+            throw new IOException("无法打开 xlsx 文件", e);
+        }
+        read(pkg, operator, sink);
+    }
+
+    private static void read(OPCPackage pkg, String operator, Consumer<OrderRecord> sink) throws IOException {
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable stylesTable = reader.getStylesTable();
+            ExcelStyleCache styles = stylesTable == null ? null : ExcelStyleCache.forStylesTable(stylesTable);
+            boolean date1904 = isDate1904(reader);
+
+            // 第一遍：<mergeCells> 位于 <sheetData> 之后，先单独扫描一遍收集备注列的合并区域
+            List<CellRangeAddress> remarkRegions = new ArrayList<>();
+            try (InputStream sheet = openFirstSheet(reader)) {
+                parse(sheet, new MergeCellCollector(remarkRegions));
+            }
+
+            // 第二遍：逐行解析并组装订单
+            MergedRegionIndex mergedIndex = MergedRegionIndex.of(remarkRegions);
+            RowHandler handler = new RowHandler(sharedStrings, styles, date1904, remarkRegions, mergedIndex, operator, sink);
+            try (InputStream sheet = openFirstSheet(reader)) {
+                parse(sheet, handler);
+            }
+            log.info("订单导入(流式)合并区域索引: {}；样式缓存: {}", mergedIndex.summary(),
+                    styles == null ? "-" : styles.summary());
+        } catch (OpenXML4JException | SAXException e) {
+            throw new IOException("Excel 解析失败", e);
+        } finally {
+            // 只读打开，不回写
+            pkg.revert();
+        }
+    }
+
+    private static InputStream openFirstSheet(XSSFReader reader) throws IOException, OpenXML4JException {
+        XSSFReader.SheetIterator it = (XSSFReader.SheetIterator) reader.getSheetsData();
+        if (!it.hasNext()) {
+            throw new IOException("Excel 中没有工作表");
+        }
+        return it.next();
+    }
+
+    private static void parse(InputStream in, DefaultHandler handler) throws IOException, SAXException {
+        XMLReader xmlReader;
+        try {
+            xmlReader = XMLHelper.newXMLReader();
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+        xmlReader.setContentHandler(handler);
+        xmlReader.parse(new InputSource(in));
+    }
+
+    // workbook.xml 中 <workbookPr date1904="1"/> 决定数值日期的纪元
+    private static boolean isDate1904(XSSFReader reader) throws IOException, OpenXML4JException, SAXException {
+        boolean[] flag = new boolean[1];
+        try (InputStream wb = reader.getWorkbookData()) {
+            parse(wb, new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attrs) {
+                    if ("workbookPr".equals(localName)) {
+                        String v = attrs.getValue("date1904");
+                        flag[0] = "1".equals(v) || "true".equalsIgnoreCase(v);
+                    }
+                }
+            });
+        }
+        return flag[0];
+    }
+
+    private static final class MergeCellCollector extends DefaultHandler {
+        private final List<CellRangeAddress> regions;
+
+        MergeCellCollector(List<CellRangeAddress> regions) {
+            this.regions = regions;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attrs) {
+            if (!"mergeCell".equals(localName)) {
+                return;
+            }
+            String ref = attrs.getValue("ref");
+            if (ref == null || ref.isBlank()) {
+                return;
+            }
+            try {
+                CellRangeAddress r = CellRangeAddress.valueOf(ref);
+                if (r.getFirstColumn() <= REMARK_F && r.getLastColumn() >= REMARK_E) {
+                    regions.add(r);
+                }
+            } catch (RuntimeException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 合并区域左上角单元格的快照（值与样式），供同区域后续行读取。
+     */
+    private record TopLeft(String value, int styleIndex, boolean present) {
+    }
+
+    private static final class RowHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final ExcelStyleCache styles;
+        private final boolean date1904;
+        private final List<CellRangeAddress> remarkRegions;
+        private final MergedRegionIndex mergedIndex;
+        private final Map<Integer, List<Integer>> regionsByFirstRow = new HashMap<>();
+        private final Map<Integer, TopLeft> topLeftByRegion = new HashMap<>();
+        private final String operator;
+        private final Consumer<OrderRecord> sink;
+
+        private ExcelHelper.OrderRowAssembler assembler;
+
+        // 当前行状态
+        private int rowIndex = -1;
+        private int lastColumn = -1;
+        private final String[] values = new String[MAX_COLUMNS];
+        private final Double[] numbers = new Double[MAX_COLUMNS];
+        private final int[] styleIndexes = new int[MAX_COLUMNS];
+        private final boolean[] present = new boolean[MAX_COLUMNS];
+
+        // 当前单元格状态
+        private int column = -1;
+        private String cellType;
+        private int cellStyle;
+        private boolean inValue;
+        private boolean inInlineText;
+        private boolean inPhonetic;
+        private final StringBuilder text = new StringBuilder();
+
+        RowHandler(ReadOnlySharedStringsTable sharedStrings, ExcelStyleCache styles, boolean date1904,
+                   List<CellRangeAddress> remarkRegions, MergedRegionIndex mergedIndex,
+                   String operator, Consumer<OrderRecord> sink) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.remarkRegions = remarkRegions;
+            this.mergedIndex = mergedIndex;
+            this.operator = operator;
+            this.sink = sink;
+            for (int i = 0; i < remarkRegions.size(); i++) {
+                regionsByFirstRow.computeIfAbsent(remarkRegions.get(i).getFirstRow(), k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attrs) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attrs.getValue("r");
+                    rowIndex = r == null ? rowIndex + 1 : Integer.parseInt(r) - 1;
+                    lastColumn = -1;
+                    for (int i = 0; i < MAX_COLUMNS; i++) {
+                        values[i] = null;
+                        numbers[i] = null;
+                        styleIndexes[i] = 0;
+                        present[i] = false;
+                    }
+                }
+                case "c" -> {
+                    String ref = attrs.getValue("r");
+                    column = ref == null ? lastColumn + 1 : new CellReference(ref).getCol();
+                    lastColumn = Math.max(lastColumn, column);
+                    cellType = attrs.getValue("t");
+                    String s = attrs.getValue("s");
+                    cellStyle = s == null ? 0 : Integer.parseInt(s);
+                    text.setLength(0);
+                }
+                case "v" -> {
+                    inValue = true;
+                    text.setLength(0);
+                }
+                case "rPh" -> inPhonetic = true;
+                case "t" -> inInlineText = "inlineStr".equals(cellType) && !inPhonetic;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue || inInlineText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v" -> inValue = false;
+                case "t" -> inInlineText = false;
+                case "rPh" -> inPhonetic = false;
+                case "c" -> endCell();
+                case "row" -> endRow();
+                default -> {
+                }
+            }
+        }
+
+        private void endCell() {
+            if (column < 0 || column >= MAX_COLUMNS) {
+                return;
+            }
+            present[column] = true;
+            styleIndexes[column] = cellStyle;
+            String raw = text.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                // 数值（含数值型公式缓存值）；无 <v> 为空白单元格
+                if (!raw.isEmpty()) {
+                    try {
+                        double d = Double.parseDouble(raw);
+                        numbers[column] = d;
+                        values[column] = String.valueOf((long) d);
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+                return;
+            }
+            String value;
+            switch (cellType) {
+                case "s" -> {
+                    try {
+                        value = sharedStrings.getItemAt(Integer.parseInt(raw.trim())).getString();
+                    } catch (RuntimeException ex) {
+                        value = null;
+                    }
+                }
+                case "b" -> value = "1".equals(raw.trim()) ? "TRUE" : "FALSE";
+                // 错误单元格按空处理
+                case "e" -> value = null;
+                default -> value = raw;  // inlineStr / str（公式字符串）/ d
+            }
+            values[column] = ExcelHelper.blankToNull(ExcelHelper.cleanExcelText(value));
+        }
+
+        private void endRow() {
+            rememberTopLefts();
+            if (assembler == null) {
+                // 首个出现的行若为第1行，则按表头关键字判断数据起始行；否则从第1行开始读
+                int startRow = rowIndex == 0 ? ExcelHelper.detectDataStartRow(values, lastColumn + 1) : 0;
+                assembler = new ExcelHelper.OrderRowAssembler(operator, startRow);
+            }
+            if (rowIndex < assembler.getStartRow()) {
+                return;
+            }
+            int cellCount = lastColumn + 1;
+            boolean simpleFormat = ExcelHelper.OrderRowAssembler.isSimpleFormat(cellCount);
+
+            String remarkE = mergedAwareValue(REMARK_E);
+            String remarkF = simpleFormat ? null : mergedAwareValue(REMARK_F);
+            OrderRecord record = assembler.assemble(rowIndex, simpleFormat, parseDateTime(), values[1], values[2],
+                    values[3], remarkE, remarkF, simpleFormat ? null : values[8]);
+            if (record == null) {
+                return;
+            }
+
+            // 样式采集（B-E -> tracking/model/sn/remark），备注样式取合并区域顶格单元，完整格式优先 F 列
+            applyStyle(record, "tracking", present[1] ? styleIndexes[1] : -1);
+            applyStyle(record, "model", present[2] ? styleIndexes[2] : -1);
+            applyStyle(record, "sn", present[3] ? styleIndexes[3] : -1);
+            int remarkStyle = simpleFormat ? mergedTopLeftStyle(REMARK_E) : mergedTopLeftStyle(REMARK_F);
+            if (remarkStyle < 0 && !simpleFormat) {
+                remarkStyle = mergedTopLeftStyle(REMARK_E);
+            }
+            applyStyle(record, "remark", remarkStyle);
+
+            sink.accept(record);
+        }
+
+        // 当前行是某些合并区域的首行时，记录左上角单元格的值与样式
+        private void rememberTopLefts() {
+            List<Integer> starting = regionsByFirstRow.remove(rowIndex);
+            if (starting == null) {
+                return;
+            }
+            for (Integer idx : starting) {
+                // 备注列相关区域的首列必然 <= F 列，位于读取范围内
+                int col = remarkRegions.get(idx).getFirstColumn();
+                topLeftByRegion.put(idx, new TopLeft(values[col], styleIndexes[col], present[col]));
+            }
+        }
+
+        private String mergedAwareValue(int col) {
+            String v = values[col];
+            if (v != null) {
+                return v;
+            }
+            int region = mergedIndex.indexOf(rowIndex, col);
+            if (region >= 0) {
+                TopLeft tl = topLeftByRegion.get(region);
+                if (tl != null && tl.value() != null) {
+                    return tl.value();
+                }
+            }
+            return null;
+        }
+
+        // 返回合并区域左上角单元格的样式索引（非合并则为自身）；单元格不存在时返回 -1
+        private int mergedTopLeftStyle(int col) {
+            int region = mergedIndex.indexOf(rowIndex, col);
+            TopLeft tl = region < 0 ? null : topLeftByRegion.get(region);
+            if (tl != null) {
+                return tl.present() ? tl.styleIndex() : -1;
+            }
+            // 非合并单元格，或顶格行不存在时退回自身单元格
+            return present[col] ? styleIndexes[col] : -1;
+        }
+
+        private LocalDateTime parseDateTime() {
+            if (numbers[0] != null) {
+                double d = numbers[0];
+                if (DateUtil.isValidExcelDate(d)) {
+                    return DateUtil.getLocalDateTime(d, date1904);
+                }
+            }
+            return ExcelDateTimeParser.parse(values[0]);
+        }
+
+        private void applyStyle(OrderRecord record, String field, int styleIndex) {
+            if (styleIndex < 0 || styles == null) {
+                return;
+            }
+            ExcelHelper.applyStyle(record, field, styles.resolve(styleIndex));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.common.util;
+
+import com.example.demo.settlement.dto.SettlementExportRow;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * 结账导出的流式写入（SXSSF，内存中只保留最近 windowRows 行，其余落临时文件）。
+ * <p>
+ * 行需按 归属人、分组时间、单号 排好序依次 append：不同归属人之间空 3 行，同一「时间 + 单号」分组只在首行显示时间和单号。
+ * 列宽按写入内容的最大显示宽度（全角字符计 2）在结束时设置，不使用 autoSizeColumn。
+ */
+public final class SettlementExcelWriter implements Closeable {
+
+    private static final String[] HEADERS = {"时间", "订单号", "商品名", "SN/条码", "价格", "备注", " ", " ", " ", "归属人", "提交人"};
+    private static final String BLANK = "    ";
+    private static final int OWNER_GAP_ROWS = 3;
+    private static final int MAX_WIDTH_CHARS = 255;
+
+    private final SXSSFWorkbook workbook;
+    private final Sheet sheet;
+    private final int[] widths = new int[HEADERS.length];
+
+    private int rowIndex = 1;
+    private boolean started;
+    private String currentOwner;
+    private String currentTracking;
+    private LocalDateTime currentTime;
+    private long rows;
+
+    public SettlementExcelWriter(int windowRows) {
+        this.workbook = new SXSSFWorkbook(Math.max(1, windowRows));
+        this.workbook.setCompressTempFiles(true);
+        this.sheet = workbook.createSheet("待结账");
+        Row header = sheet.createRow(0);
+        for (int c = 0; c < HEADERS.length; c++) {
+            setText(header, c, HEADERS[c]);
+        }
+    }
+
+    /**
+     * 追加一行；model、amount 为补全后的展示值
+     */
+    public void append(SettlementExportRow r) {
+        String owner = safe(r.getOwnerKey());
+        if (started && !owner.equals(currentOwner)) {
+            // 不同归属人之间留 3 行空白
+            rowIndex += OWNER_GAP_ROWS;
+            currentTracking = null;
+        }
+        boolean firstInGroup = !started
+            || !owner.equals(currentOwner)
+            || !r.getTrackingKey().equals(currentTracking)
+            || !Objects.equals(r.getGroupTime(), currentTime);
+        started = true;
+        currentOwner = owner;
+        currentTracking = r.getTrackingKey();
+        currentTime = r.getGroupTime();
+
+        Row row = sheet.createRow(rowIndex++);
+        if (firstInGroup) {
+            setText(row, 0, ExcelDateTimeParser.formatExport(r.getGroupTime()));
+            setText(row, 1, r.getTrackingKey());
+        } else {
+            setText(row, 0, "");
+            setText(row, 1, "");
+        }
+        setText(row, 2, safe(r.getModel()));
+        setText(row, 3, safe(r.getOrderSn()));
+        BigDecimal amount = r.getAmount() == null ? BigDecimal.ZERO : r.getAmount();
+        row.createCell(4).setCellValue(amount.doubleValue());
+        track(4, amount.stripTrailingZeros().toPlainString());
+        setText(row, 5, safe(r.getRemark()));
+        setText(row, 6, BLANK);
+        setText(row, 7, BLANK);
+        setText(row, 8, BLANK);
+        setText(row, 9, owner);
+        setText(row, 10, safe(r.getSubmitterUsername()));
+        rows++;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    /**
+     * 设置列宽并写出整个文件
+     */
+    public void finish(OutputStream out) throws IOException {
+        for (int c = 0; c < widths.length; c++) {
+            sheet.setColumnWidth(c, Math.min(MAX_WIDTH_CHARS, widths[c] + 2) * 256);
+        }
+        workbook.write(out);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // 删除 SXSSF 的临时文件
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private void setText(Row row, int column, String value) {
+        row.createCell(column).setCellValue(value);
+        track(column, value);
+    }
+
+    private void track(int column, String value) {
+        int width = 0;
+        for (int i = 0; i < value.length(); i++) {
+            width += value.charAt(i) > 0xFF ? 2 : 1;
+        }
+        if (width > widths[column]) {
+            widths[column] = width;
+        }
+    }
+
+    private static String safe(String input) {
+        return input == null ? "" : input;
+    }
+}
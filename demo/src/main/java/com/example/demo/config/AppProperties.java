@@ -11,6 +11,13 @@ public class AppProperties {
 
     private Settlement settlement = new Settlement();
     private Export export = new Export();
+    private ImportJob importJob = new ImportJob();
+    private ImportSnapshot importSnapshot = new ImportSnapshot();
+    private DuplicateUpload duplicateUpload = new DuplicateUpload();
+    private OrderPageCache orderPageCache = new OrderPageCache();
+    private OrderSearchIndex orderSearchIndex = new OrderSearchIndex();
+    private HardwarePriceIndex hardwarePriceIndex = new HardwarePriceIndex();
+    private SettlementRepricing settlementRepricing = new SettlementRepricing();
 
     @Data
     public static class Settlement {
@@ -19,6 +26,94 @@ public class AppProperties {
 
     @Data
     public static class Export {
-        private int maxRows = 10000;
+        /** 结账导出 SXSSF 在内存中保留的行数，其余写入临时文件 */
+        private int windowRows = 200;
+    }
+
+    @Data
+    public static class ImportJob {
+        /** 全局同时执行的导入数（同步导入、预览、提交预览与后台任务合计，每个占用一个数据库连接） */
+        private int maxConcurrentJobs = 3;
+        /** 单个用户排队 + 执行中的导入上限（含同步导入） */
+        private int maxJobsPerUser = 1;
+        /** 等待队列长度，超出后拒绝提交 */
+        private int queueCapacity = 20;
+        /** 已结束任务（含报告）的保留时间 */
+        private long retentionMinutes = 120;
+        /** 导入写入阶段每个事务提交的行数，<=0 表示整份文件一个事务 */
+        private int chunkSize = 1000;
+        /** 匹配阶段是否按匹配键分区并行执行，排查问题时可设为 false 强制顺序执行 */
+        private boolean parallelMatch = true;
+        /** 并行匹配的线程数，<=0 表示 CPU 核数 */
+        private int matchParallelism = 0;
+        /** 行数低于该值时顺序匹配（并行调度开销大于收益） */
+        private int parallelMatchMinRows = 2000;
+        /** 导入预览结果（写入计划）的保留时间，期内提交同一文件直接复用 */
+        private long previewTtlMinutes = 10;
+        /** 缓存中所有预览计划的总行数上限，超出后淘汰最久未用的 */
+        private long previewMaxRows = 200000;
+    }
+
+    @Data
+    public static class ImportSnapshot {
+        /** 所有用户导入快照合计的估算内存上限，超出后按最近最少使用淘汰 */
+        private long maxMegabytes = 64;
+        /** 快照未被访问超过该时长后清理 */
+        private long ttlMinutes = 120;
+    }
+
+    @Data
+    public static class DuplicateUpload {
+        /** 同一用户重复上传相同文件时是否直接返回上次的导入报告 */
+        private boolean enabled = true;
+        /** 上次导入报告的保留时间，超过后重复上传会重新导入 */
+        private long windowMinutes = 5;
+        /** 本地缓存保留的 (导入类型, 用户) 条目数上限 */
+        private long maxEntries = 1000;
+    }
+
+    @Data
+    public static class OrderPageCache {
+        private boolean enabled = true;
+        /** 缓存页在本地与 Redis 中的保留时间；归属用户来自提交记录，提交变更不会使缓存失效，依赖该时长刷新 */
+        private long ttlMinutes = 10;
+        /** 本地一级缓存的分页结果条数上限（Redis 中按 ttl-minutes 过期） */
+        private long maxPages = 2000;
+        /** 本地一级缓存的筛选总数条数上限 */
+        private long maxCounts = 5000;
+        /** 只缓存前 N 页（更深的页命中率低） */
+        private int maxCachedPage = 3;
+        /** 日期范围不超过该天数时按天分区校验版本，否则（含未限定日期）使用全局版本 */
+        private int maxRangeDays = 93;
+    }
+
+    @Data
+    public static class OrderSearchIndex {
+        /** 是否启用进程内检索索引（关闭后关键字查询全部走 SQL）；索引只能看到本实例的写入，多实例部署必须关闭 */
+        private boolean enabled = true;
+        /** 候选ID超过该数量时回退到 SQL（IN 列表过长反而更慢） */
+        private int maxCandidates = 5000;
+        /** 订单数超过该值时不加载索引 */
+        private int maxDocs = 2000000;
+    }
+
+    @Data
+    public static class HardwarePriceIndex {
+        /** 最多保留多少个日期的价格索引 */
+        private long maxDates = 400;
+        /** 索引过期重建的时间（价格写入会立即失效对应日期，这里只兜底直接改库的情况） */
+        private long expireMinutes = 30;
+    }
+
+    @Data
+    public static class SettlementRepricing {
+        /** 关闭后列表查询仍展示匹配到的价格，但不再回写 */
+        private boolean enabled = true;
+        /** 每个事务回写的结账记录数 */
+        private int batchSize = 200;
+        /** 后台回写的间隔 */
+        private long intervalMillis = 2000;
+        /** 待回写队列上限，超出的记录丢弃（下次被查询到时会重新入队） */
+        private int maxPending = 100000;
     }
 }
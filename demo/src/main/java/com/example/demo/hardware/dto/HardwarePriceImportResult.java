@@ -19,6 +19,8 @@ public class HardwarePriceImportResult {
     private int skippedCount;
     private int totalRows;
     private long durationMillis;
+    /** 是否为重复上传（直接返回上次导入结果，未重新导入） */
+    private boolean duplicate;
     private List<String> errors = new ArrayList<>();
     private List<HardwarePrice> records = new ArrayList<>();
 }
@@ -0,0 +1,284 @@
+package com.example.demo.hardware.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.demo.config.AppProperties;
+import com.example.demo.hardware.entity.HardwarePrice;
+import com.example.demo.hardware.mapper.HardwarePriceMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+/**
+ * 按日期的硬件价格匹配索引（结账按订单型号取价）。
+ * <p>
+ * 匹配规则与原逐行扫描一致：型号与价格表名称都去掉字母、数字、汉字以外的字符并转大写，按 id 升序取第一条满足
+ * 「相等 / 型号包含名称 / 名称包含型号」的记录，返回其价格（可能为空）。
+ * 每个日期建一次索引：名称的 Aho-Corasick 自动机找出型号中出现的所有名称，名称拼接串的后缀数组找出包含型号的名称，
+ * 两者取 id 最小的一条，单次匹配与价格条数无关。
+ * <p>
+ * 价格的新增、修改、删除、导入后调用 invalidate，该日期的索引在下次匹配时重新加载；另按 expire-minutes 过期兜底
+ * （绕过服务直接改库的情况）。
+ */
+@Component
+public class HardwarePriceIndex {
+
+    private final HardwarePriceMapper hardwarePriceMapper;
+    private final Cache<LocalDate, DatePrices> byDate;
+
+    public HardwarePriceIndex(HardwarePriceMapper hardwarePriceMapper, AppProperties appProperties) {
+        AppProperties.HardwarePriceIndex cfg = appProperties.getHardwarePriceIndex();
+        this.hardwarePriceMapper = hardwarePriceMapper;
+        this.byDate = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, cfg.getMaxDates()))
+                .expireAfterWrite(Duration.ofMinutes(Math.max(1, cfg.getExpireMinutes())))
+                .build();
+    }
+
+    /**
+     * 型号在该日期的价格；没有匹配或匹配到的记录价格为空时返回 null
+     */
+    public BigDecimal resolve(LocalDate date, String model) {
+        String target = normalize(model);
+        if (date == null || !StringUtils.hasText(target)) {
+            return null;
+        }
+        return byDate.get(date, this::load).match(target);
+    }
+
+    /**
+     * 这些日期的价格已变化；在事务中调用时提交后再失效一次，避免提交前重新加载到旧数据
+     */
+    public void invalidate(Collection<LocalDate> dates) {
+        Set<LocalDate> distinct = new HashSet<>(dates);
+        distinct.remove(null);
+        if (distinct.isEmpty()) {
+            return;
+        }
+        byDate.invalidateAll(distinct);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    byDate.invalidateAll(distinct);
+                }
+            });
+        }
+    }
+
+    public void invalidate(LocalDate date) {
+        invalidate(Arrays.asList(date));
+    }
+
+    /**
+     * 匹配用的名称规范化：只保留字母、数字、汉字并转大写
+     */
+    public static String normalize(String raw) {
+        if (!StringUtils.hasText(raw)) {
+            return null;
+        }
+        String cleaned = raw
+            .replace('\u00A0', ' ')
+            .replaceAll("[^\\p{IsAlphabetic}\\p{IsDigit}\\u4e00-\\u9fa5]", "")
+            .toUpperCase();
+        return cleaned.trim();
+    }
+
+    private DatePrices load(LocalDate date) {
+        LambdaQueryWrapper<HardwarePrice> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(HardwarePrice::getId, HardwarePrice::getItemName, HardwarePrice::getPrice)
+                .eq(HardwarePrice::getPriceDate, date)
+                .orderByAsc(HardwarePrice::getId);
+        List<String> names = new ArrayList<>();
+        List<BigDecimal> prices = new ArrayList<>();
+        for (HardwarePrice price : hardwarePriceMapper.selectList(wrapper)) {
+            String name = normalize(price.getItemName());
+            if (StringUtils.hasText(name)) {
+                names.add(name);
+                prices.add(price.getPrice());
+            }
+        }
+        return new DatePrices(names, prices);
+    }
+
+    /**
+     * 某一天的价格索引（构建后只读）。名称按 id 升序编号，编号越小越优先。
+     */
+    static final class DatePrices {
+
+        private final BigDecimal[] prices;
+
+        // Aho-Corasick：goto 边、失败指针、以该状态结尾的名称（含后缀链上的）中的最小编号
+        private final List<Map<Character, Integer>> edges = new ArrayList<>();
+        private int[] fail;
+        private int[] bestOut;
+
+        // 后缀数组：所有名称以 \0 分隔拼接，suffixes 为按字典序排列的起始位置，owner 为每个位置所属名称编号
+        private final String text;
+        private final int[] suffixes;
+        private final int[] owner;
+
+        DatePrices(List<String> names, List<BigDecimal> prices) {
+            this.prices = prices.toArray(new BigDecimal[0]);
+            buildAutomaton(names);
+
+            StringBuilder sb = new StringBuilder();
+            List<Integer> owners = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                sb.append(name).append('\0');
+                for (int j = 0; j <= name.length(); j++) {
+                    owners.add(i);
+                }
+            }
+            this.text = sb.toString();
+            this.owner = owners.stream().mapToInt(Integer::intValue).toArray();
+            Integer[] order = new Integer[text.length()];
+            int n = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) != '\0') {
+                    order[n++] = i;
+                }
+            }
+            Arrays.sort(order, 0, n, this::compareSuffixes);
+            this.suffixes = new int[n];
+            for (int i = 0; i < n; i++) {
+                suffixes[i] = order[i];
+            }
+        }
+
+        BigDecimal match(String target) {
+            int best = Math.min(containedIn(target), containing(target));
+            return best == Integer.MAX_VALUE ? null : prices[best];
+        }
+
+        /**
+         * 型号中出现的名称（含与型号相等）中的最小编号
+         */
+        private int containedIn(String target) {
+            int best = Integer.MAX_VALUE;
+            int state = 0;
+            for (int i = 0; i < target.length(); i++) {
+                char c = target.charAt(i);
+                Integer next = edges.get(state).get(c);
+                while (next == null && state != 0) {
+                    state = fail[state];
+                    next = edges.get(state).get(c);
+                }
+                state = next == null ? 0 : next;
+                best = Math.min(best, bestOut[state]);
+            }
+            return best;
+        }
+
+        /**
+         * 包含型号的名称中的最小编号：后缀数组中以型号为前缀的一段
+         */
+        private int containing(String target) {
+            int lo = 0;
+            int hi = suffixes.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compareWithPrefix(suffixes[mid], target) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            int best = Integer.MAX_VALUE;
+            for (int i = lo; i < suffixes.length && text.startsWith(target, suffixes[i]); i++) {
+                best = Math.min(best, owner[suffixes[i]]);
+            }
+            return best;
+        }
+
+        private void buildAutomaton(List<String> names) {
+            List<Integer> own = new ArrayList<>();
+            edges.add(new HashMap<>());
+            own.add(Integer.MAX_VALUE);
+            for (int i = 0; i < names.size(); i++) {
+                int state = 0;
+                for (char c : names.get(i).toCharArray()) {
+                    Integer next = edges.get(state).get(c);
+                    if (next == null) {
+                        next = edges.size();
+                        edges.add(new HashMap<>());
+                        own.add(Integer.MAX_VALUE);
+                        edges.get(state).put(c, next);
+                    }
+                    state = next;
+                }
+                own.set(state, Math.min(own.get(state), i));
+            }
+            fail = new int[edges.size()];
+            bestOut = new int[edges.size()];
+            bestOut[0] = own.get(0);
+            // 按 BFS 顺序计算失败指针，父状态的 bestOut 先于子状态确定
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int child : edges.get(0).values()) {
+                fail[child] = 0;
+                bestOut[child] = own.get(child);
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (Map.Entry<Character, Integer> e : edges.get(state).entrySet()) {
+                    int child = e.getValue();
+                    int f = fail[state];
+                    Integer next = edges.get(f).get(e.getKey());
+                    while (next == null && f != 0) {
+                        f = fail[f];
+                        next = edges.get(f).get(e.getKey());
+                    }
+                    fail[child] = next == null ? 0 : next;
+                    bestOut[child] = Math.min(own.get(child), bestOut[fail[child]]);
+                    queue.add(child);
+                }
+            }
+        }
+
+        private int compareSuffixes(int a, int b) {
+            int n = text.length();
+            while (a < n && b < n) {
+                char ca = text.charAt(a++);
+                char cb = text.charAt(b++);
+                if (ca != cb) {
+                    return Character.compare(ca, cb);
+                }
+                if (ca == '\0') {
+                    // 两个后缀同时到达名称末尾：视为相等，顺序无关
+                    return 0;
+                }
+            }
+            return Integer.compare(n - a, n - b);
+        }
+
+        /**
+         * 后缀与 target 比较，target 为该后缀前缀时返回 0
+         */
+        private int compareWithPrefix(int start, String target) {
+            for (int i = 0; i < target.length(); i++) {
+                int p = start + i;
+                char c = p < text.length() ? text.charAt(p) : '\0';
+                if (c != target.charAt(i)) {
+                    return Character.compare(c, target.charAt(i));
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -1,15 +1,18 @@
 package com.example.demo.hardware.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.demo.common.cache.DuplicateUploadCache;
 import com.example.demo.common.exception.BusinessException;
 import com.example.demo.common.exception.ErrorCode;
 import com.example.demo.common.util.ExcelHelper;
+import com.example.demo.common.util.FileHashUtil;
 import com.example.demo.hardware.dto.HardwarePriceExcelParseResult;
 import com.example.demo.hardware.dto.HardwarePriceImportResult;
 import com.example.demo.hardware.dto.HardwarePriceQuery;
 import com.example.demo.hardware.dto.HardwarePriceRequest;
 import com.example.demo.hardware.entity.HardwarePrice;
 import com.example.demo.hardware.mapper.HardwarePriceMapper;
+import com.example.demo.hardware.service.HardwarePriceIndex;
 import com.example.demo.hardware.service.HardwarePriceService;
 import java.io.IOException;
 import java.time.LocalDate;
@@ -22,6 +25,7 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
@@ -29,6 +33,7 @@ import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class HardwarePriceServiceImpl implements HardwarePriceService {
@@ -38,7 +43,8 @@ public class HardwarePriceServiceImpl implements HardwarePriceService {
 
     private final HardwarePriceMapper hardwarePriceMapper;
     private final TransactionTemplate transactionTemplate;
-    private final com.example.demo.settlement.service.SettlementCacheService settlementCacheService;
+    private final DuplicateUploadCache duplicateUploadCache;
+    private final HardwarePriceIndex hardwarePriceIndex;
 
     @Override
     public List<HardwarePrice> list(HardwarePriceQuery query) {
@@ -65,6 +71,7 @@ public class HardwarePriceServiceImpl implements HardwarePriceService {
         HardwarePrice price = toEntity(request);
         price.setCreatedBy(operator);
         hardwarePriceMapper.insert(price);
+        hardwarePriceIndex.invalidate(price.getPriceDate());
         return price;
     }
 
@@ -76,13 +83,13 @@ public class HardwarePriceServiceImpl implements HardwarePriceService {
             throw new BusinessException(ErrorCode.NOT_FOUND, "记录不存在");
         }
         validateUnique(request.getPriceDate(), request.getItemName(), id);
+        // 改日期时改前、改后两天的价格索引都要失效
+        hardwarePriceIndex.invalidate(existed.getPriceDate());
         existed.setPriceDate(request.getPriceDate());
         existed.setItemName(normalizeItemName(request.getItemName()));
         existed.setPrice(request.getPrice());
         hardwarePriceMapper.updateById(existed);
-
-        // 清除结算模块中可能存在的旧价格缓存
-        settlementCacheService.evictHardwarePrice(normalizeItemName(request.getItemName()), request.getPriceDate());
+        hardwarePriceIndex.invalidate(existed.getPriceDate());
 
         return existed;
     }
@@ -90,13 +97,12 @@ public class HardwarePriceServiceImpl implements HardwarePriceService {
     @Override
     @Transactional
     public void delete(Long id) {
-        // 先查询出实体，以便获取清除缓存所需的信息
+        // 先查询出实体，以便获取需要失效的价格日期
         HardwarePrice price = hardwarePriceMapper.selectById(id);
         if (price != null) {
             // 从数据库中删除
             hardwarePriceMapper.deleteById(id);
-            // 清除结算模块中可能存在的缓存
-            settlementCacheService.evictHardwarePrice(normalizeItemName(price.getItemName()), price.getPriceDate());
+            hardwarePriceIndex.invalidate(price.getPriceDate());
         }
     }
 
@@ -114,6 +120,7 @@ public class HardwarePriceServiceImpl implements HardwarePriceService {
             hardwarePriceMapper.insert(price);
             created.add(price);
         }
+        hardwarePriceIndex.invalidate(created.stream().map(HardwarePrice::getPriceDate).toList());
         return created;
     }
 
@@ -144,22 +151,57 @@ public class HardwarePriceServiceImpl implements HardwarePriceService {
         }
 
         List<HardwarePriceImportResult> results = new ArrayList<>();
+        // 本批成功导入（含重复上传复用）的文件，替换该用户上一批的记录
+        Map<String, HardwarePriceImportResult> succeededByHash = new LinkedHashMap<>();
         for (MultipartFile file : files) {
             if (file == null || file.isEmpty()) {
                 results.add(failureResult(file, "文件为空，已跳过"));
                 continue;
             }
+            String fileHash = hashOf(file);
+            HardwarePriceImportResult previous = duplicateUploadCache.find(
+                DuplicateUploadCache.KIND_HARDWARE_PRICE, operator, fileHash, HardwarePriceImportResult.class);
+            if (previous != null) {
+                // 窗口内重复上传同一文件：直接返回上次结果，不再解析和写库
+                log.info("硬件价格重复上传，返回上次结果: operator={}, file={}", operator, previous.getFileName());
+                previous.setFileName(extractFileName(file));
+                previous.setDuplicate(true);
+                results.add(previous);
+                succeededByHash.put(fileHash, previous);
+                continue;
+            }
+            HardwarePriceImportResult result;
             try {
-                results.add(doImport(null, file, operator, false, false));
+                result = doImport(null, file, operator, false, false);
             } catch (BusinessException ex) {
-                results.add(failureResult(file, ex.getMessage()));
+                result = failureResult(file, ex.getMessage());
             } catch (Exception ex) {
-                results.add(failureResult(file, "导入失败，请检查文件格式或重试"));
+                result = failureResult(file, "导入失败，请检查文件格式或重试");
             }
+            results.add(result);
+            if (result.isSuccess() && fileHash != null) {
+                succeededByHash.put(fileHash, result);
+            }
+        }
+        if (succeededByHash.isEmpty()) {
+            duplicateUploadCache.forget(DuplicateUploadCache.KIND_HARDWARE_PRICE, operator);
+        } else {
+            duplicateUploadCache.remember(DuplicateUploadCache.KIND_HARDWARE_PRICE, operator, succeededByHash);
         }
         return results;
     }
 
+    /**
+     * 文件内容哈希，读取失败返回 null（按新文件导入，由后续解析报告错误）
+     */
+    private String hashOf(MultipartFile file) {
+        try {
+            return FileHashUtil.sha256Hex(file);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
     private HardwarePriceImportResult doImport(LocalDate priceDate, MultipartFile file, String operator, boolean rethrowOnError, boolean includeRecords) {
         long start = System.currentTimeMillis();
         validateExcelFile(file);
@@ -246,6 +288,7 @@ public class HardwarePriceServiceImpl implements HardwarePriceService {
                 inserted++;
             }
         }
+        hardwarePriceIndex.invalidate(priceDate);
         HardwarePriceImportResult importResult = new HardwarePriceImportResult();
         importResult.setPriceDate(priceDate);
         importResult.setRecords(result);
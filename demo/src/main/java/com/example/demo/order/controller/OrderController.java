@@ -8,12 +8,23 @@ import com.example.demo.common.annotation.LogOperation;
 import com.example.demo.common.response.ApiResponse;
 import com.example.demo.common.response.PageResponse;
 import com.example.demo.order.dto.BatchFetchRequest;
+import com.example.demo.order.dto.ImportPreviewView;
+import com.example.demo.order.dto.ImportSnapshotStats;
 import com.example.demo.order.dto.OrderCategoryStats;
 import com.example.demo.order.dto.OrderCreateRequest;
+import com.example.demo.order.dto.OrderCursorPage;
+import com.example.demo.order.dto.OrderCursorRequest;
 import com.example.demo.order.dto.OrderFilterRequest;
+import com.example.demo.order.dto.OrderImportJobView;
+import com.example.demo.order.dto.OrderPageCacheStats;
+import com.example.demo.order.dto.OrderSearchIndexStats;
 import com.example.demo.order.dto.OrderAmountRequest;
 import com.example.demo.order.dto.OrderUpdateRequest;
 import com.example.demo.order.entity.OrderRecord;
+import com.example.demo.order.service.ImportSnapshotStore;
+import com.example.demo.order.service.OrderPageCache;
+import com.example.demo.order.service.OrderSearchIndex;
+import com.example.demo.order.service.OrderImportJobService;
 import com.example.demo.order.service.OrderService;
 import com.example.demo.order.dto.OrderSearchRequest;
 import io.swagger.v3.oas.annotations.Operation;
@@ -34,6 +45,10 @@ import org.springframework.web.multipart.MultipartFile;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderImportJobService orderImportJobService;
+    private final ImportSnapshotStore importSnapshotStore;
+    private final OrderPageCache orderPageCache;
+    private final OrderSearchIndex orderSearchIndex;
 
     @GetMapping
     @SaCheckLogin
@@ -50,6 +65,16 @@ public class OrderController {
         return ApiResponse.ok(PageResponse.from(page));
     }
 
+    @GetMapping("/cursor")
+    @SaCheckLogin
+    @Operation(summary = "游标分页查询订单", description = "筛选与排序同分页查询，传入上一页的 nextCursor 获取下一页，深度分页不受页数影响")
+    public ApiResponse<OrderCursorPage> pageByCursor(OrderCursorRequest request) {
+        if (request.getSize() <= 0 || request.getSize() > 1000) {
+            request.setSize(50);
+        }
+        return ApiResponse.ok(orderService.queryByCursor(request));
+    }
+
     @PostMapping
     @SaCheckLogin
     @LogOperation("新增物流单号")
@@ -69,6 +94,85 @@ public class OrderController {
         return ApiResponse.ok(report);
     }
 
+    @PostMapping("/import/jobs")
+    @SaCheckLogin
+    @LogOperation("提交异步导入任务")
+    @Operation(summary = "异步批量导入", description = "上传 Excel 后立即返回任务ID，后台执行导入，可轮询进度与结果")
+    public ApiResponse<OrderImportJobView> submitImportJob(
+        @Parameter(description = "包含订单明细的 Excel 文件", required = true)
+        @RequestParam("file") MultipartFile file) {
+        return ApiResponse.ok(orderImportJobService.submit(file, StpUtil.getLoginIdAsString()));
+    }
+
+    @GetMapping("/import/jobs/{jobId}")
+    @SaCheckLogin
+    @Operation(summary = "查询导入任务进度", description = "返回任务状态及已解析/已匹配/已写入行数")
+    public ApiResponse<OrderImportJobView> importJobStatus(
+        @Parameter(description = "导入任务ID", required = true) @PathVariable String jobId) {
+        return ApiResponse.ok(orderImportJobService.getJob(jobId, StpUtil.getLoginIdAsString(), StpUtil.hasRole("ADMIN")));
+    }
+
+    @GetMapping("/import/jobs/{jobId}/report")
+    @SaCheckLogin
+    @Operation(summary = "获取导入任务结果", description = "任务完成后返回与同步导入一致的导入报告")
+    public ApiResponse<Map<String, Object>> importJobReport(
+        @Parameter(description = "导入任务ID", required = true) @PathVariable String jobId) {
+        return ApiResponse.ok(orderImportJobService.getReport(jobId, StpUtil.getLoginIdAsString(), StpUtil.hasRole("ADMIN")));
+    }
+
+    @PostMapping("/import/preview")
+    @SaCheckLogin
+    @Operation(summary = "导入预览", description = "只读解析并与数据库匹配，返回新增/变化/未变化/删除统计及分页差异，不写入任何数据")
+    public ApiResponse<ImportPreviewView> previewImport(
+        @Parameter(description = "包含订单明细的 Excel 文件", required = true)
+        @RequestParam("file") MultipartFile file,
+        @Parameter(description = "差异类型：NEW / CHANGED / UNCHANGED / DELETED，为空表示全部") @RequestParam(required = false) String type,
+        @RequestParam(defaultValue = "1") int page,
+        @RequestParam(defaultValue = "50") int size) {
+        return ApiResponse.ok(orderService.previewImport(file, StpUtil.getLoginIdAsString(), type, page, size));
+    }
+
+    @GetMapping("/import/preview/{previewId}")
+    @SaCheckLogin
+    @Operation(summary = "导入预览分页", description = "按差异类型翻页查看已生成的导入预览")
+    public ApiResponse<ImportPreviewView> importPreview(
+        @Parameter(description = "预览ID", required = true) @PathVariable String previewId,
+        @RequestParam(required = false) String type,
+        @RequestParam(defaultValue = "1") int page,
+        @RequestParam(defaultValue = "50") int size) {
+        return ApiResponse.ok(orderService.getImportPreview(previewId, StpUtil.getLoginIdAsString(), StpUtil.hasRole("ADMIN"), type, page, size));
+    }
+
+    @PostMapping("/import/preview/{previewId}/commit")
+    @SaCheckLogin
+    @LogOperation("提交导入预览")
+    @Operation(summary = "提交导入预览", description = "按预览时的匹配结果写入，返回与同步导入一致的导入报告")
+    public ApiResponse<Map<String, Object>> commitImportPreview(
+        @Parameter(description = "预览ID", required = true) @PathVariable String previewId) {
+        return ApiResponse.ok(orderService.commitImportPreview(previewId, StpUtil.getLoginIdAsString(), StpUtil.hasRole("ADMIN")));
+    }
+
+    @GetMapping("/import/snapshot-stats")
+    @SaCheckRole("ADMIN")
+    @Operation(summary = "导入快照内存统计", description = "返回各用户导入会话快照的行数、估算内存占用及淘汰次数")
+    public ApiResponse<ImportSnapshotStats> importSnapshotStats() {
+        return ApiResponse.ok(importSnapshotStore.stats());
+    }
+
+    @GetMapping("/cache-stats")
+    @SaCheckRole("ADMIN")
+    @Operation(summary = "订单列表缓存统计", description = "返回分页结果与总数缓存的命中、未命中、淘汰次数及分区版本提升次数")
+    public ApiResponse<OrderPageCacheStats> cacheStats() {
+        return ApiResponse.ok(orderPageCache.stats());
+    }
+
+    @GetMapping("/search-index/stats")
+    @SaCheckRole("ADMIN")
+    @Operation(summary = "订单检索索引状态", description = "返回运单号/SN/型号进程内索引的加载状态、文档数、三元组数与重建次数")
+    public ApiResponse<OrderSearchIndexStats> searchIndexStats() {
+        return ApiResponse.ok(orderSearchIndex.stats());
+    }
+
     @PostMapping("/fetch")
     @SaCheckRole("ADMIN")
     @LogOperation("批量抓取物流单")
@@ -0,0 +1,36 @@
+package com.example.demo.order.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * 导入预览中的一行差异
+ */
+@Data
+public class ImportPreviewItem {
+    /** NEW / CHANGED / UNCHANGED / DELETED */
+    private String type;
+    /** Excel 行号（DELETED 为 null） */
+    private Integer excelRow;
+    /** 匹配到的数据库记录ID（NEW 为 null） */
+    private Long id;
+    private String trackingNumber;
+    private String sn;
+    private String model;
+    private BigDecimal amount;
+    /** CHANGED：发生变化的列（tracking/model/sn/remark/amount），按列顺序 */
+    private List<String> changedFields;
+    /** CHANGED：第一个变化列的 from/to */
+    private String field;
+    private String fromText;
+    private String toText;
+    private String fromBg;
+    private String toBg;
+    private String fromFont;
+    private String toFont;
+    private Boolean fromStrike;
+    private Boolean toStrike;
+    private Boolean fromBold;
+    private Boolean toBold;
+}
@@ -0,0 +1,26 @@
+package com.example.demo.order.dto;
+
+import com.example.demo.common.response.PageResponse;
+import java.time.LocalDateTime;
+import lombok.Data;
+
+/**
+ * 导入预览结果：只读匹配后的统计与分页差异，在有效期内可直接提交
+ */
+@Data
+public class ImportPreviewView {
+    private String previewId;
+    private String fileName;
+    /** 文件内容 SHA-256，有效期内再次上传同一文件会复用本次匹配结果 */
+    private String fileHash;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+    private int parsed;
+    private int newCount;
+    private int changedCount;
+    private int unchangedCount;
+    private int deletedCount;
+    /** 当前分页的差异类型筛选，为空表示全部 */
+    private String type;
+    private PageResponse<ImportPreviewItem> items;
+}
@@ -0,0 +1,34 @@
+package com.example.demo.order.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * 导入会话快照占用情况（管理员监控接口返回）
+ */
+@Data
+public class ImportSnapshotStats {
+    private int users;
+    /** 各用户基线行数合计 */
+    private long rows;
+    /** 估算占用字节数 */
+    private long estimatedBytes;
+    /** 内存上限（字节），超出后按最近最少使用淘汰整个用户的快照 */
+    private long budgetBytes;
+    /** 因超出内存上限被淘汰的用户快照次数 */
+    private long budgetEvictions;
+    /** 因过期被清理的用户快照次数 */
+    private long expiredEvictions;
+    /** 全局颜色字典大小 */
+    private int colors;
+    private List<UserEntry> perUser;
+
+    @Data
+    public static class UserEntry {
+        private String username;
+        private int rows;
+        private long estimatedBytes;
+        private LocalDateTime lastAccess;
+    }
+}
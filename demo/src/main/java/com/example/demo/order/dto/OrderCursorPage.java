@@ -0,0 +1,21 @@
+package com.example.demo.order.dto;
+
+import com.example.demo.order.entity.OrderRecord;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * 订单游标分页结果
+ */
+@Data
+public class OrderCursorPage {
+    private List<OrderRecord> records;
+    private long size;
+    /** 下一页游标，没有更多数据时为 null */
+    private String nextCursor;
+    private boolean hasMore;
+    /** 符合筛选条件的总数，未请求时为 null */
+    private Long total;
+    /** 总数是否取自缓存（订单写入会清空缓存，因此仍是最新值） */
+    private boolean totalCached;
+}
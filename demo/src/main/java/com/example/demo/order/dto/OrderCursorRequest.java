@@ -0,0 +1,17 @@
+package com.example.demo.order.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 订单游标分页请求：筛选与排序同 OrderFilterRequest（page 不生效），
+ * cursor 为上一页返回的 nextCursor，首页留空
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class OrderCursorRequest extends OrderFilterRequest {
+
+    private String cursor;
+    /** 是否返回总数；为空时仅首页返回。总数按筛选条件缓存，订单变更时失效 */
+    private Boolean withTotal;
+}
@@ -0,0 +1,27 @@
+package com.example.demo.order.dto;
+
+import java.time.LocalDateTime;
+import lombok.Data;
+
+/**
+ * 异步导入任务状态（轮询接口返回）
+ */
+@Data
+public class OrderImportJobView {
+    private String jobId;
+    /** QUEUED / RUNNING / SUCCEEDED / FAILED */
+    private String status;
+    /** 当前阶段：QUEUED / PARSING / MATCHING / WRITING / DONE */
+    private String phase;
+    private String fileName;
+    private long fileSize;
+    private String operator;
+    private int rowsParsed;
+    private int rowsMatched;
+    private int rowsWritten;
+    private String error;
+    private boolean reportReady;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,34 @@
+package com.example.demo.order.dto;
+
+import java.util.List;
+import lombok.Data;
+
+/**
+ * 订单分页缓存命中情况（管理员监控接口返回，统计值为本实例）
+ */
+@Data
+public class OrderPageCacheStats {
+    private boolean enabled;
+    /** 本实例写操作提升的分区版本次数 */
+    private long versionBumps;
+    /** 本实例无法定位分区的写操作（按型号/SN 批量改价等）使全部缓存失效的次数 */
+    private long fullInvalidations;
+    /** 读写 Redis（版本或缓存结果）失败的次数 */
+    private long sharedFailures;
+    private List<Family> families;
+
+    @Data
+    public static class Family {
+        /** page：分页结果；count：游标分页总数 */
+        private String family;
+        private long size;
+        /** 本地缓存命中 */
+        private long hits;
+        /** 本地未命中、Redis 命中 */
+        private long sharedHits;
+        private long misses;
+        private double hitRate;
+        /** 因容量或过期被淘汰的条数（版本失效的条目不会再被访问，随后按容量/过期淘汰） */
+        private long evictions;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.order.dto;
+
+import java.time.LocalDateTime;
+import lombok.Data;
+
+/**
+ * 订单检索索引状态（管理员监控接口返回）
+ */
+@Data
+public class OrderSearchIndexStats {
+    /** 是否已加载完成（未完成时查询回退到 SQL） */
+    private boolean ready;
+    /** 是否已停用（配置关闭、加载失败或超出上限） */
+    private boolean disabled;
+    private int docs;
+    /** 含失效槽位的总槽位数，失效超过四分之一时重建 */
+    private int slots;
+    private int trigrams;
+    private int distinctTracking;
+    private int distinctSn;
+    private long rebuilds;
+    private LocalDateTime loadedAt;
+    private long loadMillis;
+}
@@ -1,5 +1,6 @@
 package com.example.demo.order.entity;
 
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
 import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
@@ -41,6 +42,13 @@ public class OrderRecord {
     @TableLogic
     private Integer deleted;
 
+    /**
+     * 导入内容+样式指纹（见 OrderRowFingerprint）。默认不查询；任何未显式赋值的 updateById 都会把它写成 NULL，
+     * 使导入以外的修改自动让指纹失效，下次导入回退到逐字段比较。
+     */
+    @TableField(select = false, updateStrategy = FieldStrategy.ALWAYS)
+    private Long rowFingerprint;
+
     @TableField(exist = false)
     private boolean inCurrentSettlement;
 
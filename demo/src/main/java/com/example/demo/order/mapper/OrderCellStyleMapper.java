@@ -2,9 +2,31 @@ package com.example.demo.order.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.demo.order.entity.OrderCellStyle;
+import java.util.List;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 @Mapper
 public interface OrderCellStyleMapper extends BaseMapper<OrderCellStyle> {
-}
 
+    /**
+     * 多行写入样式，依赖 uk_style_order_field(order_id, field) 合并已有记录：
+     * 颜色为 NULL 时保留旧值（调用方需把空白颜色传为 NULL），删除线/加粗只会由 0 变 1。
+     */
+    @Insert("""
+            <script>
+            INSERT INTO order_cell_style (order_id, field, bg_color, font_color, strike, bold)
+            VALUES
+            <foreach collection="styles" item="s" separator=",">
+                (#{s.orderId}, #{s.field}, #{s.bgColor}, #{s.fontColor}, #{s.strike}, #{s.bold})
+            </foreach>
+            ON DUPLICATE KEY UPDATE
+                bg_color = COALESCE(VALUES(bg_color), bg_color),
+                font_color = COALESCE(VALUES(font_color), font_color),
+                strike = GREATEST(strike, VALUES(strike)),
+                bold = GREATEST(bold, VALUES(bold))
+            </script>
+            """)
+    int upsertBatch(@Param("styles") List<OrderCellStyle> styles);
+}
@@ -2,8 +2,44 @@ package com.example.demo.order.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.demo.order.entity.OrderRecord;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
 @Mapper
 public interface OrderRecordMapper extends BaseMapper<OrderRecord> {
+
+    /**
+     * 仅回填导入指纹，不递增 version（用于未变化行的补算）
+     */
+    @Update("UPDATE order_record SET row_fingerprint = #{fingerprint} WHERE id = #{id} AND deleted = 0")
+    int updateFingerprint(@Param("id") Long id, @Param("fingerprint") Long fingerprint);
+
+    /**
+     * 结账确认：这些结账记录关联（order_id）的订单中尚未 PAID 的改为 PAID，并记录状态变更与付款时间
+     */
+    @Update("""
+            <script>
+            UPDATE order_record o JOIN settlement_record s ON s.order_id = o.id
+            SET o.status = 'PAID', o.status_changed_at = #{now}, o.paid_at = #{now}
+            WHERE o.deleted = 0 AND (o.status IS NULL OR o.status &lt;&gt; 'PAID') AND s.id IN
+            <foreach collection="settlementIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    int markPaidBySettlements(@Param("settlementIds") Collection<Long> settlementIds, @Param("now") LocalDateTime now);
+
+    /**
+     * 结账确认：这些结账记录关联（order_id）的订单金额改为结账金额，version 递增
+     */
+    @Update("""
+            <script>
+            UPDATE order_record o JOIN settlement_record s ON s.order_id = o.id
+            SET o.amount = s.amount, o.row_fingerprint = NULL, o.version = o.version + 1
+            WHERE o.deleted = 0 AND s.id IN
+            <foreach collection="settlementIds" item="id" open="(" separator="," close=")">#{id}</foreach>
+            </script>
+            """)
+    int syncAmountBySettlements(@Param("settlementIds") Collection<Long> settlementIds);
 }
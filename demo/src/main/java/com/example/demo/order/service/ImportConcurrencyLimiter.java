@@ -0,0 +1,94 @@
+package com.example.demo.order.service;
+
+import com.example.demo.common.exception.BusinessException;
+import com.example.demo.common.exception.ErrorCode;
+import com.example.demo.config.AppProperties;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 订单导入并发限制，同步导入、预览、提交预览与后台导入任务共用：
+ * <ul>
+ *     <li>全局执行许可 app.import-job.max-concurrent-jobs 个，每个执行中的导入占一个（导入会长时间占用数据库连接）；</li>
+ *     <li>每个用户同时存在（排队 + 执行中）的导入不超过 app.import-job.max-jobs-per-user 个。</li>
+ * </ul>
+ * 同步请求拿不到名额立即返回繁忙，不排队；后台任务在提交时占用户名额，在工作线程中等待执行许可。
+ */
+@Component
+public class ImportConcurrencyLimiter {
+
+    private final AppProperties appProperties;
+    private final Semaphore running;
+    // 每个用户排队中 + 执行中的导入数
+    private final Map<String, Integer> activeByUser = new ConcurrentHashMap<>();
+
+    public ImportConcurrencyLimiter(AppProperties appProperties) {
+        this.appProperties = appProperties;
+        this.running = new Semaphore(Math.max(1, appProperties.getImportJob().getMaxConcurrentJobs()), true);
+    }
+
+    /**
+     * 用户名额的键（去掉首尾空白），任务归属与权限比较都应使用它
+     */
+    public static String userKey(String operator) {
+        return StringUtils.hasText(operator) ? operator.trim() : "__ANON__";
+    }
+
+    /**
+     * 同步执行一次导入：占用用户名额与执行许可，任一拿不到即抛出繁忙
+     */
+    public <T> T runNow(String operator, Supplier<T> work) {
+        String user = userKey(operator);
+        reserve(user);
+        try {
+            if (!running.tryAcquire()) {
+                throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS, "导入任务繁忙，请稍后再试");
+            }
+            try {
+                return work.get();
+            } finally {
+                running.release();
+            }
+        } finally {
+            release(user);
+        }
+    }
+
+    /**
+     * 占用一个用户名额，已达上限时抛出繁忙
+     */
+    public void reserve(String user) {
+        int perUserLimit = Math.max(1, appProperties.getImportJob().getMaxJobsPerUser());
+        boolean[] acquired = new boolean[1];
+        activeByUser.compute(user, (k, v) -> {
+            int current = v == null ? 0 : v;
+            if (current >= perUserLimit) {
+                return v;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        if (!acquired[0]) {
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS, "您已有导入任务在执行，请等待完成后再提交");
+        }
+    }
+
+    public void release(String user) {
+        activeByUser.computeIfPresent(user, (k, v) -> v <= 1 ? null : v - 1);
+    }
+
+    /**
+     * 后台任务等待执行许可
+     */
+    public void acquireSlot() throws InterruptedException {
+        running.acquire();
+    }
+
+    public void releaseSlot() {
+        running.release();
+    }
+}
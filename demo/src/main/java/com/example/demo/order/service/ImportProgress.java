@@ -0,0 +1,59 @@
+package com.example.demo.order.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 导入进度（线程安全）：由导入流程写入，导入任务查询接口读取。
+ */
+public class ImportProgress {
+
+    public static final String PHASE_QUEUED = "QUEUED";
+    public static final String PHASE_PARSING = "PARSING";
+    public static final String PHASE_MATCHING = "MATCHING";
+    public static final String PHASE_WRITING = "WRITING";
+    public static final String PHASE_DONE = "DONE";
+
+    private final AtomicInteger rowsParsed = new AtomicInteger();
+    private final AtomicInteger rowsMatched = new AtomicInteger();
+    private final AtomicInteger rowsWritten = new AtomicInteger();
+    private volatile String phase = PHASE_QUEUED;
+
+    /**
+     * 同步导入不关心进度时使用
+     */
+    public static ImportProgress none() {
+        return new ImportProgress();
+    }
+
+    public void phase(String phase) {
+        this.phase = phase;
+    }
+
+    public void parsed() {
+        rowsParsed.incrementAndGet();
+    }
+
+    public void matched() {
+        rowsMatched.incrementAndGet();
+    }
+
+    public void written() {
+        rowsWritten.incrementAndGet();
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public int getRowsParsed() {
+        return rowsParsed.get();
+    }
+
+    public int getRowsMatched() {
+        return rowsMatched.get();
+    }
+
+    public int getRowsWritten() {
+        return rowsWritten.get();
+    }
+}
@@ -0,0 +1,520 @@
+package com.example.demo.order.service;
+
+import com.example.demo.config.AppProperties;
+import com.example.demo.order.dto.ImportSnapshotStats;
+import com.example.demo.order.entity.OrderRecord;
+import com.example.demo.order.util.OrderRowFingerprint;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按用户隔离的导入会话快照（上一次导入每行的内容与样式基线）。
+ * <p>
+ * 每个用户一份紧凑行存储：每行 5 个字段，样式压成一个 long（背景色/字体色为全局颜色字典序号，
+ * 外加删除线、加粗两位），内容为 5 个字符串引用；按 key(运单号#SN)、Excel 行号、运单号三个
+ * 原始类型哈希索引指向行槽位，三种对齐方式共享同一份行数据。key 与运单号索引只存 64 位哈希，不保留原串。
+ * <p>
+ * 全局内存上限（app.import-snapshot.max-megabytes）按估算字节数控制，超出时按最近最少使用淘汰整个用户的快照；
+ * 超过 ttl-minutes 未访问的快照由后台线程清理。所有操作在同一把锁内完成，单次操作都是常数级。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ImportSnapshotStore {
+
+    /**
+     * 参与比较的字段，序号即行内偏移
+     */
+    public enum Field {
+        TRACKING("tracking"), MODEL("model"), SN("sn"), REMARK("remark"), AMOUNT("amount");
+
+        private final String key;
+
+        Field(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+    }
+
+    private static final Field[] FIELDS = Field.values();
+    private static final int WIDTH = FIELDS.length;
+
+    // 样式字：低 30 位背景色序号，其后 30 位字体色序号，再两位删除线/加粗
+    private static final int COLOR_BITS = 30;
+    private static final long COLOR_MASK = (1L << COLOR_BITS) - 1;
+    private static final long STRIKE_BIT = 1L << (COLOR_BITS * 2);
+    private static final long BOLD_BIT = 1L << (COLOR_BITS * 2 + 1);
+
+    // 估算用：对象头 + 引用等固定开销
+    private static final int STRING_OVERHEAD = 40;
+    private static final int INDEX_ENTRY_BYTES = 12;
+
+    private final AppProperties appProperties;
+
+    // 访问顺序的 LinkedHashMap，迭代顺序即 LRU 顺序
+    private final LinkedHashMap<String, UserSnapshot> users = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> colorIds = new HashMap<>();
+    private final List<String> colors = new ArrayList<>();
+    private long totalBytes;
+    private long budgetEvictions;
+    private long expiredEvictions;
+
+    private ScheduledExecutorService cleaner;
+
+    @PostConstruct
+    void startCleaner() {
+        colors.add(null);  // 序号 0 保留
+        cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-snapshot-cleaner");
+            t.setDaemon(true);
+            return t;
+        });
+        cleaner.scheduleAtFixedRate(this::cleanupExpired, 30, 30, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stopCleaner() {
+        if (cleaner != null) {
+            cleaner.shutdownNow();
+        }
+    }
+
+    /**
+     * 以记录当前内容与样式更新该用户的基线（key、行号、运单号三处同时指向新行）
+     */
+    public synchronized void put(String operator, OrderRecord r) {
+        String user = userKey(operator);
+        UserSnapshot s = users.computeIfAbsent(user, k -> new UserSnapshot());
+        s.lastAccess = System.currentTimeMillis();
+        long before = s.bytes;
+        s.put(packStyles(r), values(r), keyHash(r), r.getExcelRowIndex(), trackingHash(r));
+        totalBytes += s.bytes - before;
+        enforceBudget(user);
+    }
+
+    public synchronized Baseline findByKey(String operator, OrderRecord r) {
+        UserSnapshot s = touch(operator);
+        return s == null ? null : s.baseline(s.byKey.get(keyHash(r)));
+    }
+
+    public synchronized Baseline findByRow(String operator, int excelRowIndex) {
+        UserSnapshot s = touch(operator);
+        return s == null ? null : s.baseline(s.byRow.get(excelRowIndex));
+    }
+
+    public synchronized Baseline findByTracking(String operator, OrderRecord r) {
+        UserSnapshot s = touch(operator);
+        return s == null ? null : s.baseline(s.byTracking.get(trackingHash(r)));
+    }
+
+    /**
+     * 当前记录的比较视图（与基线同一编码，便于逐字段比较）
+     */
+    public synchronized Baseline current(OrderRecord r) {
+        return new Baseline(packStyles(r), values(r));
+    }
+
+    public synchronized ImportSnapshotStats stats() {
+        ImportSnapshotStats stats = new ImportSnapshotStats();
+        List<ImportSnapshotStats.UserEntry> perUser = new ArrayList<>();
+        long rows = 0;
+        for (Map.Entry<String, UserSnapshot> e : users.entrySet()) {
+            UserSnapshot s = e.getValue();
+            ImportSnapshotStats.UserEntry entry = new ImportSnapshotStats.UserEntry();
+            entry.setUsername(e.getKey());
+            entry.setRows(s.byKey.size());
+            entry.setEstimatedBytes(s.bytes);
+            entry.setLastAccess(LocalDateTime.ofInstant(Instant.ofEpochMilli(s.lastAccess), ZoneId.systemDefault()));
+            perUser.add(entry);
+            rows += s.byKey.size();
+        }
+        stats.setUsers(users.size());
+        stats.setRows(rows);
+        stats.setEstimatedBytes(totalBytes);
+        stats.setBudgetBytes(budgetBytes());
+        stats.setBudgetEvictions(budgetEvictions);
+        stats.setExpiredEvictions(expiredEvictions);
+        stats.setColors(colors.size() - 1);
+        stats.setPerUser(perUser);
+        return stats;
+    }
+
+    synchronized void cleanupExpired() {
+        long ttl = TimeUnit.MINUTES.toMillis(appProperties.getImportSnapshot().getTtlMinutes());
+        long now = System.currentTimeMillis();
+        Iterator<UserSnapshot> it = users.values().iterator();
+        while (it.hasNext()) {
+            UserSnapshot s = it.next();
+            if (now - s.lastAccess > ttl) {
+                totalBytes -= s.bytes;
+                expiredEvictions++;
+                it.remove();
+            }
+        }
+    }
+
+    private UserSnapshot touch(String operator) {
+        UserSnapshot s = users.get(userKey(operator));
+        if (s != null) {
+            s.lastAccess = System.currentTimeMillis();
+        }
+        return s;
+    }
+
+    private long budgetBytes() {
+        return appProperties.getImportSnapshot().getMaxMegabytes() * 1024L * 1024L;
+    }
+
+    /**
+     * 超出上限时先按 LRU 淘汰其他用户；只剩当前用户仍超限时清空其快照重新累积
+     */
+    private void enforceBudget(String current) {
+        long budget = budgetBytes();
+        if (totalBytes <= budget) {
+            return;
+        }
+        Iterator<Map.Entry<String, UserSnapshot>> it = users.entrySet().iterator();
+        while (totalBytes > budget && it.hasNext()) {
+            Map.Entry<String, UserSnapshot> e = it.next();
+            if (e.getKey().equals(current)) {
+                continue;
+            }
+            totalBytes -= e.getValue().bytes;
+            budgetEvictions++;
+            log.info("导入快照超出内存上限，淘汰用户 {} 的快照（{} 行）", e.getKey(), e.getValue().byKey.size());
+            it.remove();
+        }
+        UserSnapshot self = users.get(current);
+        if (totalBytes > budget && self != null) {
+            long before = self.bytes;
+            self.compact(true);
+            totalBytes += self.bytes - before;
+        }
+        if (totalBytes > budget) {
+            UserSnapshot s = users.remove(current);
+            if (s != null) {
+                totalBytes -= s.bytes;
+                budgetEvictions++;
+                log.warn("单个用户 {} 的导入快照超出内存上限（{} 行），已清空", current, s.byKey.size());
+            }
+        }
+    }
+
+    private static String userKey(String operator) {
+        return (operator == null || operator.isBlank()) ? "__ANON__" : operator.trim();
+    }
+
+    private long[] packStyles(OrderRecord r) {
+        long[] words = new long[WIDTH];
+        words[Field.TRACKING.ordinal()] = pack(r.getTrackingBgColor(), r.getTrackingFontColor(), r.getTrackingStrike(), r.getTrackingBold());
+        words[Field.MODEL.ordinal()] = pack(r.getModelBgColor(), r.getModelFontColor(), r.getModelStrike(), r.getModelBold());
+        words[Field.SN.ordinal()] = pack(r.getSnBgColor(), r.getSnFontColor(), r.getSnStrike(), r.getSnBold());
+        words[Field.REMARK.ordinal()] = pack(r.getRemarkBgColor(), r.getRemarkFontColor(), r.getRemarkStrike(), r.getRemarkBold());
+        words[Field.AMOUNT.ordinal()] = pack(r.getAmountBgColor(), r.getAmountFontColor(), r.getAmountStrike(), r.getAmountBold());
+        return words;
+    }
+
+    private long pack(String bg, String fg, Boolean strike, Boolean bold) {
+        long word = colorId(OrderRowFingerprint.normBg(bg)) | ((long) colorId(OrderRowFingerprint.normFg(fg)) << COLOR_BITS);
+        if (Boolean.TRUE.equals(strike)) word |= STRIKE_BIT;
+        if (Boolean.TRUE.equals(bold)) word |= BOLD_BIT;
+        return word;
+    }
+
+    private int colorId(String color) {
+        Integer id = colorIds.get(color);
+        if (id == null) {
+            id = colors.size();
+            colors.add(color);
+            colorIds.put(color, id);
+        }
+        return id;
+    }
+
+    private static String[] values(OrderRecord r) {
+        String[] v = new String[WIDTH];
+        v[Field.TRACKING.ordinal()] = trim(r.getTrackingNumber());
+        v[Field.MODEL.ordinal()] = trim(r.getModel());
+        v[Field.SN.ordinal()] = trim(r.getSn());
+        v[Field.REMARK.ordinal()] = trim(r.getRemark());
+        v[Field.AMOUNT.ordinal()] = OrderRowFingerprint.amountText(r.getAmount());
+        return v;
+    }
+
+    private static String trim(String s) {
+        if (s == null) return "";
+        String t = s.trim();
+        return t.isEmpty() ? "" : t;
+    }
+
+    // 空串统一引用常量，不计入占用
+    private static long estimate(String v) {
+        return v.isEmpty() ? 0 : STRING_OVERHEAD + v.length() * 2L;
+    }
+
+    private static long keyHash(OrderRecord r) {
+        String tracking = r.getTrackingNumber() == null ? "" : r.getTrackingNumber().toUpperCase(Locale.ROOT);
+        String sn = r.getSn() == null ? "" : r.getSn().toUpperCase(Locale.ROOT);
+        return hash64(hash64(0xcbf29ce484222325L, tracking) ^ '#', sn);
+    }
+
+    private static long trackingHash(OrderRecord r) {
+        String tracking = r.getTrackingNumber() == null ? "" : r.getTrackingNumber().toUpperCase(Locale.ROOT);
+        return hash64(0x84222325cbf29ce4L, tracking);
+    }
+
+    private static long hash64(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 一行基线的只读视图
+     */
+    public final class Baseline {
+        private final long[] styles;
+        private final String[] values;
+
+        private Baseline(long[] styles, String[] values) {
+            this.styles = styles;
+            this.values = values;
+        }
+
+        public String value(Field f) {
+            return values[f.ordinal()];
+        }
+
+        public String bg(Field f) {
+            synchronized (ImportSnapshotStore.this) {
+                return colors.get((int) (styles[f.ordinal()] & COLOR_MASK));
+            }
+        }
+
+        public String font(Field f) {
+            synchronized (ImportSnapshotStore.this) {
+                return colors.get((int) ((styles[f.ordinal()] >>> COLOR_BITS) & COLOR_MASK));
+            }
+        }
+
+        public boolean strike(Field f) {
+            return (styles[f.ordinal()] & STRIKE_BIT) != 0;
+        }
+
+        public boolean bold(Field f) {
+            return (styles[f.ordinal()] & BOLD_BIT) != 0;
+        }
+
+        /**
+         * 颜色、删除线是否一致；includeBold 为 true 时同时比较加粗
+         */
+        public boolean sameStyle(Baseline other, Field f, boolean includeBold) {
+            long mask = includeBold ? -1L : ~BOLD_BIT;
+            return (styles[f.ordinal()] & mask) == (other.styles[f.ordinal()] & mask);
+        }
+
+        public boolean sameValue(Baseline other, Field f) {
+            return values[f.ordinal()].equals(other.values[f.ordinal()]);
+        }
+    }
+
+    /**
+     * 单个用户的行存储：追加写入，索引指向最新槽位；扩容前若半数以上槽位已无索引引用则先压缩
+     */
+    private final class UserSnapshot {
+        long lastAccess = System.currentTimeMillis();
+        int size;
+        long[] styles = new long[64 * WIDTH];
+        String[] values = new String[64 * WIDTH];
+        final LongIntMap byKey = new LongIntMap();
+        final LongIntMap byRow = new LongIntMap();
+        final LongIntMap byTracking = new LongIntMap();
+        long valueBytes;
+        long bytes;
+
+        void put(long[] rowStyles, String[] rowValues, long key, Integer excelRow, long tracking) {
+            if ((size + 1) * WIDTH > styles.length) {
+                compactOrGrow();
+            }
+            int slot = size++;
+            System.arraycopy(rowStyles, 0, styles, slot * WIDTH, WIDTH);
+            for (int i = 0; i < WIDTH; i++) {
+                values[slot * WIDTH + i] = rowValues[i];
+                valueBytes += estimate(rowValues[i]);
+            }
+            byKey.put(key, slot);
+            if (excelRow != null) {
+                byRow.put(excelRow, slot);
+            }
+            byTracking.put(tracking, slot);
+            recomputeBytes();
+        }
+
+        Baseline baseline(int slot) {
+            if (slot < 0) {
+                return null;
+            }
+            return new Baseline(Arrays.copyOfRange(styles, slot * WIDTH, slot * WIDTH + WIDTH),
+                    Arrays.copyOfRange(values, slot * WIDTH, slot * WIDTH + WIDTH));
+        }
+
+        private void compactOrGrow() {
+            // 至少四分之一槽位已失效才值得压缩，保证摊还成本为常数
+            if (compact(false) && (size + 1) * WIDTH <= styles.length) {
+                return;
+            }
+            styles = Arrays.copyOf(styles, styles.length * 2);
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+
+        /**
+         * 丢弃已无索引引用的槽位（同一 key/行号/运单号被重复写入后留下的旧行）
+         *
+         * @param force 为 false 时仅在失效槽位达到四分之一时执行
+         * @return 是否执行了压缩
+         */
+        boolean compact(boolean force) {
+            boolean[] live = new boolean[size];
+            byKey.markValues(live);
+            byRow.markValues(live);
+            byTracking.markValues(live);
+            int liveCount = 0;
+            for (boolean b : live) if (b) liveCount++;
+            if (liveCount == size || (!force && liveCount * 4 > size * 3)) {
+                return false;
+            }
+            int[] mapping = new int[size];
+            int rows = Math.min(styles.length / WIDTH, Math.max(64, liveCount * 2));
+            long[] newStyles = new long[rows * WIDTH];
+            String[] newValues = new String[rows * WIDTH];
+            int next = 0;
+            valueBytes = 0;
+            for (int slot = 0; slot < size; slot++) {
+                if (!live[slot]) {
+                    mapping[slot] = -1;
+                    continue;
+                }
+                mapping[slot] = next;
+                System.arraycopy(styles, slot * WIDTH, newStyles, next * WIDTH, WIDTH);
+                for (int i = 0; i < WIDTH; i++) {
+                    String v = values[slot * WIDTH + i];
+                    newValues[next * WIDTH + i] = v;
+                    valueBytes += estimate(v);
+                }
+                next++;
+            }
+            byKey.remap(mapping);
+            byRow.remap(mapping);
+            byTracking.remap(mapping);
+            styles = newStyles;
+            values = newValues;
+            size = next;
+            recomputeBytes();
+            return true;
+        }
+
+        private void recomputeBytes() {
+            bytes = styles.length * 8L + values.length * 4L + valueBytes
+                    + (long) (byKey.capacity() + byRow.capacity() + byTracking.capacity()) * INDEX_ENTRY_BYTES;
+        }
+    }
+
+    /**
+     * long -> int 开放寻址哈希表（线性探测），值为槽位，-1 表示不存在
+     */
+    private static final class LongIntMap {
+        private long[] keys = new long[64];
+        private int[] vals = new int[64];
+        private boolean[] used = new boolean[64];
+        private int count;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask; used[i]; i = (i + 1) & mask) {
+                if (keys[i] == key) return vals[i];
+            }
+            return -1;
+        }
+
+        void put(long key, int val) {
+            if ((count + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (used[i]) {
+                if (keys[i] == key) {
+                    vals[i] = val;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            used[i] = true;
+            keys[i] = key;
+            vals[i] = val;
+            count++;
+        }
+
+        int size() {
+            return count;
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        void markValues(boolean[] live) {
+            for (int i = 0; i < keys.length; i++) {
+                if (used[i]) live[vals[i]] = true;
+            }
+        }
+
+        void remap(int[] mapping) {
+            for (int i = 0; i < keys.length; i++) {
+                if (used[i]) vals[i] = mapping[vals[i]];
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldVals = vals;
+            boolean[] oldUsed = used;
+            keys = new long[capacity];
+            vals = new int[capacity];
+            used = new boolean[capacity];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) put(oldKeys[i], oldVals[i]);
+            }
+        }
+
+        private static int mix(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.order.service;
+
+import com.example.demo.order.dto.OrderImportJobView;
+import java.util.Map;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 订单异步导入任务：上传后立即返回任务ID，由有界线程池在后台执行 importOrders。
+ */
+public interface OrderImportJobService {
+
+    OrderImportJobView submit(MultipartFile file, String operator);
+
+    OrderImportJobView getJob(String jobId, String operator, boolean admin);
+
+    /**
+     * 任务完成后返回与同步导入一致的报告
+     */
+    Map<String, Object> getReport(String jobId, String operator, boolean admin);
+}
@@ -0,0 +1,421 @@
+package com.example.demo.order.service;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.demo.config.AppProperties;
+import com.example.demo.order.dto.OrderFilterRequest;
+import com.example.demo.order.dto.OrderPageCacheStats;
+import com.example.demo.order.entity.OrderRecord;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+/**
+ * 订单列表的分区版本缓存（替代 allEntries 整体清空）。
+ * <p>
+ * 分区为「下单日期」与「下单日期+分类」，各有一个只增不减的版本号；另有一个任意写入都会提升的全局版本。
+ * 缓存键 = 规范化筛选条件 + 版本令牌：日期范围有界且不超过 max-range-days 时，令牌是范围内每天
+ * （有分类筛选时为每天+该分类）版本之和，否则为全局版本。版本只增，所以范围内任一分区被写过令牌必然变化，
+ * 旧条目不再命中，随后按过期淘汰。写操作只需说明改动了哪些订单（改前、改后的日期与分类），
+ * 在事务中调用时提交后会再提升一次，避免提交前读到的旧数据以新版本写入缓存。
+ * <p>
+ * 版本号与代数保存在 Redis（INCR / MGET），缓存结果也写入 Redis，多实例部署时任一实例的写入对所有实例立即生效。
+ * 本地 Caffeine 在前做一级缓存：键中带版本令牌，同一键的内容在各实例间相同，本地命中不会读到其他实例已失效的结果。
+ * 版本键每天、每天+分类各一个，数量很少，不设过期（过期会让令牌回退，与仍有效的旧条目撞键）；
+ * 代数键首次创建时取当前时间，Redis 清空或重启后所有令牌随之改变。
+ * Redis 不可用时不读写缓存，直接查库；提升版本失败时清空本实例的一级缓存，其他实例最多在 ttl-minutes 内读到旧结果。
+ * 归属用户取自提交记录，提交变更不提升版本，依赖 ttl-minutes 刷新。
+ */
+@Slf4j
+@Component
+public class OrderPageCache {
+
+    private static final String FAMILY_PAGE = "page";
+    private static final String FAMILY_COUNT = "count";
+
+    private static final String REDIS_PREFIX = "orders:page-cache:";
+    private static final String VERSION_PREFIX = REDIS_PREFIX + "ver:";
+    private static final String ANY_VERSION_KEY = REDIS_PREFIX + "any";
+    private static final String GENERATION_KEY = REDIS_PREFIX + "gen";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxCachedPage;
+    private final int maxRangeDays;
+    private final Duration ttl;
+    private final Cache<String, IPage<OrderRecord>> pages;
+    private final Cache<String, Long> counts;
+
+    private final AtomicLong versionBumps = new AtomicLong();
+    private final AtomicLong fullInvalidations = new AtomicLong();
+    private final AtomicLong sharedPageHits = new AtomicLong();
+    private final AtomicLong sharedCountHits = new AtomicLong();
+    private final AtomicLong sharedFailures = new AtomicLong();
+
+    public OrderPageCache(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper,
+                          AppProperties appProperties) {
+        AppProperties.OrderPageCache cfg = appProperties.getOrderPageCache();
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = cfg.isEnabled();
+        this.maxCachedPage = cfg.getMaxCachedPage();
+        this.maxRangeDays = cfg.getMaxRangeDays();
+        this.ttl = Duration.ofMinutes(Math.max(1, cfg.getTtlMinutes()));
+        this.pages = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(Math.max(1, cfg.getMaxPages()))
+                .recordStats()
+                .build();
+        this.counts = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(Math.max(1, cfg.getMaxCounts()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 分页结果的缓存键，不缓存时返回 null。必须在查询数据库之前取键：
+     * 查询期间发生的写入会提升版本，本次结果以旧键写入，不会被之后的读取命中。
+     */
+    public String pageKey(OrderFilterRequest request, String sort) {
+        if (!enabled || request.getPage() < 1 || request.getPage() > maxCachedPage) {
+            return null;
+        }
+        String token = versionToken(request);
+        return token == null ? null : filterKey(request) + "|s=" + sort + "|p=" + request.getPage()
+                + "|n=" + request.getSize() + "@" + token;
+    }
+
+    public IPage<OrderRecord> findPage(String key) {
+        if (key == null) {
+            return null;
+        }
+        IPage<OrderRecord> page = pages.getIfPresent(key);
+        if (page != null) {
+            return page;
+        }
+        String json = readShared(FAMILY_PAGE, key);
+        if (json == null) {
+            return null;
+        }
+        try {
+            SharedPage shared = objectMapper.readValue(json, SharedPage.class);
+            Page<OrderRecord> restored = Page.of(shared.current(), shared.size(), shared.total());
+            restored.setRecords(shared.records());
+            pages.put(key, restored);
+            sharedPageHits.incrementAndGet();
+            return restored;
+        } catch (JsonProcessingException e) {
+            log.warn("订单分页缓存反序列化失败，按未命中处理: {}", key, e);
+            return null;
+        }
+    }
+
+    public void putPage(String key, IPage<OrderRecord> page) {
+        if (key == null) {
+            return;
+        }
+        pages.put(key, page);
+        try {
+            writeShared(FAMILY_PAGE, key, objectMapper.writeValueAsString(
+                    new SharedPage(page.getCurrent(), page.getSize(), page.getTotal(), page.getRecords())));
+        } catch (JsonProcessingException e) {
+            log.warn("订单分页缓存序列化失败，仅保留本地缓存: {}", key, e);
+        }
+    }
+
+    /**
+     * 筛选总数的缓存键（与排序、分页无关），取键时机同 pageKey
+     */
+    public String countKey(OrderFilterRequest request) {
+        if (!enabled) {
+            return null;
+        }
+        String token = versionToken(request);
+        return token == null ? null : filterKey(request) + "@" + token;
+    }
+
+    public Long findCount(String key) {
+        if (key == null) {
+            return null;
+        }
+        Long count = counts.getIfPresent(key);
+        if (count != null) {
+            return count;
+        }
+        String value = readShared(FAMILY_COUNT, key);
+        if (value == null) {
+            return null;
+        }
+        try {
+            count = Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        counts.put(key, count);
+        sharedCountHits.incrementAndGet();
+        return count;
+    }
+
+    public void putCount(String key, long count) {
+        if (key != null) {
+            counts.put(key, count);
+            writeShared(FAMILY_COUNT, key, Long.toString(count));
+        }
+    }
+
+    /**
+     * 订单已写入（新增、修改、删除）：提升其所在分区的版本。修改了日期或分类时，改前、改后都要传入。
+     */
+    public void touch(Collection<OrderRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return;
+        }
+        Set<String> partitions = new HashSet<>();
+        for (OrderRecord r : records) {
+            if (r != null) {
+                addPartitions(partitions, r.getOrderDate(), r.getCategory());
+            }
+        }
+        bumpNowAndAfterCommit(partitions);
+    }
+
+    public void touch(OrderRecord record) {
+        touch(List.of(record));
+    }
+
+    public void touch(LocalDate orderDate, String category) {
+        Set<String> partitions = new HashSet<>();
+        addPartitions(partitions, orderDate, category);
+        bumpNowAndAfterCommit(partitions);
+    }
+
+    /**
+     * 无法确定改动了哪些订单的批量写入：提升代数使全部缓存失效
+     */
+    public void invalidateAll() {
+        fullInvalidations.incrementAndGet();
+        bumpGeneration();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpGeneration();
+                }
+            });
+        }
+    }
+
+    /**
+     * 本实例的命中情况；版本提升、全量失效次数只统计本实例发起的写入
+     */
+    public OrderPageCacheStats stats() {
+        OrderPageCacheStats stats = new OrderPageCacheStats();
+        stats.setEnabled(enabled);
+        stats.setVersionBumps(versionBumps.get());
+        stats.setFullInvalidations(fullInvalidations.get());
+        stats.setSharedFailures(sharedFailures.get());
+        List<OrderPageCacheStats.Family> families = new ArrayList<>();
+        families.add(family(FAMILY_PAGE, pages, sharedPageHits.get()));
+        families.add(family(FAMILY_COUNT, counts, sharedCountHits.get()));
+        stats.setFamilies(families);
+        return stats;
+    }
+
+    private static OrderPageCacheStats.Family family(String name, Cache<String, ?> cache, long sharedHits) {
+        CacheStats s = cache.stats();
+        OrderPageCacheStats.Family f = new OrderPageCacheStats.Family();
+        f.setFamily(name);
+        f.setSize(cache.estimatedSize());
+        f.setHits(s.hitCount());
+        f.setSharedHits(sharedHits);
+        f.setMisses(s.missCount());
+        f.setHitRate(s.hitRate());
+        f.setEvictions(s.evictionCount());
+        return f;
+    }
+
+    private void bumpNowAndAfterCommit(Set<String> partitions) {
+        bump(partitions);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(partitions);
+                }
+            });
+        }
+    }
+
+    private void bump(Set<String> partitions) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (String p : partitions) {
+                        ops.opsForValue().increment(VERSION_PREFIX + p);
+                    }
+                    // 全局版本最后提升：未限定日期的查询也覆盖日期为空的订单
+                    ops.opsForValue().increment(ANY_VERSION_KEY);
+                    return null;
+                }
+            });
+            versionBumps.addAndGet(partitions.size() + 1);
+        } catch (RuntimeException e) {
+            sharedVersionFailed("提升分区版本", e);
+        }
+    }
+
+    private void bumpGeneration() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // 先按当前时间创建代数键，避免在空库上从 1 开始计数
+            redisTemplate.opsForValue().setIfAbsent(GENERATION_KEY, System.currentTimeMillis());
+            redisTemplate.opsForValue().increment(GENERATION_KEY);
+        } catch (RuntimeException e) {
+            sharedVersionFailed("提升缓存代数", e);
+        }
+    }
+
+    /**
+     * 版本没能写入 Redis：本实例清空一级缓存，其他实例依赖过期刷新
+     */
+    private void sharedVersionFailed(String action, RuntimeException e) {
+        sharedFailures.incrementAndGet();
+        pages.invalidateAll();
+        counts.invalidateAll();
+        log.warn("订单分页缓存{}失败，已清空本地缓存，其他实例最多 {} 分钟内可能返回旧结果", action, ttl.toMinutes(), e);
+    }
+
+    private static void addPartitions(Set<String> partitions, LocalDate orderDate, String category) {
+        if (orderDate == null) {
+            // 有界日期查询不会返回日期为空的订单，只需全局版本
+            return;
+        }
+        partitions.add(orderDate.toString());
+        if (StringUtils.hasText(category)) {
+            partitions.add(orderDate + "|" + category.trim());
+        }
+    }
+
+    /**
+     * 一次 MGET 取代数与所需版本拼成令牌；Redis 不可用时返回 null（不缓存）
+     */
+    private String versionToken(OrderFilterRequest request) {
+        List<String> keys = new ArrayList<>();
+        keys.add(GENERATION_KEY);
+        LocalDate start = request.getStartDate();
+        LocalDate end = request.getEndDate();
+        boolean byDay = start != null && end != null && ChronoUnit.DAYS.between(start, end) < maxRangeDays;
+        if (byDay) {
+            String category = StringUtils.hasText(request.getCategory()) ? request.getCategory().trim() : null;
+            for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+                keys.add(VERSION_PREFIX + (category == null ? d.toString() : d + "|" + category));
+            }
+        } else {
+            keys.add(ANY_VERSION_KEY);
+        }
+        List<Object> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(keys);
+            if (values == null) {
+                return null;
+            }
+            if (values.get(0) == null) {
+                // 代数键不存在（首次使用或 Redis 已清空）：以当前时间创建，与清空前的令牌区分
+                redisTemplate.opsForValue().setIfAbsent(GENERATION_KEY, System.currentTimeMillis());
+                Object generation = redisTemplate.opsForValue().get(GENERATION_KEY);
+                if (generation == null) {
+                    return null;
+                }
+                values.set(0, generation);
+            }
+        } catch (RuntimeException e) {
+            sharedFailures.incrementAndGet();
+            log.warn("读取订单分页缓存版本失败，本次不使用缓存", e);
+            return null;
+        }
+        long sum = 0;
+        for (int i = 1; i < values.size(); i++) {
+            sum += asLong(values.get(i));
+        }
+        return asLong(values.get(0)) + "." + (byDay ? "d" : "a") + sum;
+    }
+
+    private String readShared(String family, String key) {
+        try {
+            Object value = redisTemplate.opsForValue().get(REDIS_PREFIX + family + ":" + key);
+            return value == null ? null : value.toString();
+        } catch (RuntimeException e) {
+            sharedFailures.incrementAndGet();
+            log.warn("读取 Redis 订单分页缓存失败: {}", key, e);
+            return null;
+        }
+    }
+
+    private void writeShared(String family, String key, String value) {
+        try {
+            redisTemplate.opsForValue().set(REDIS_PREFIX + family + ":" + key, value, ttl);
+        } catch (RuntimeException e) {
+            sharedFailures.incrementAndGet();
+            log.warn("订单分页缓存写入 Redis 失败，仅保留本地缓存: {}", key, e);
+        }
+    }
+
+    private static long asLong(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        return value instanceof Number n ? n.longValue() : Long.parseLong(value.toString());
+    }
+
+    /**
+     * 规范化筛选条件：只去掉查询本身也会 trim 的关键字、归属用户的首尾空白，其余按原值参与（与查询条件逐一对应）
+     */
+    private static String filterKey(OrderFilterRequest request) {
+        return "sd=" + request.getStartDate()
+                + "|ed=" + request.getEndDate()
+                + "|c=" + blankToEmpty(request.getCategory())
+                + "|st=" + blankToEmpty(request.getStatus())
+                + "|k=" + blankToEmpty(request.getKeyword()).trim()
+                + "|o=" + blankToEmpty(request.getOwnerUsername()).trim();
+    }
+
+    private static String blankToEmpty(String value) {
+        return value == null || value.isBlank() ? "" : value;
+    }
+
+    /**
+     * Redis 中保存的分页结果
+     */
+    record SharedPage(long current, long size, long total, List<OrderRecord> records) {
+    }
+}
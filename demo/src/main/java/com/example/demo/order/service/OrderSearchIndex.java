@@ -0,0 +1,521 @@
+package com.example.demo.order.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.demo.config.AppProperties;
+import com.example.demo.order.dto.OrderSearchIndexStats;
+import com.example.demo.order.entity.OrderRecord;
+import com.example.demo.order.mapper.OrderRecordMapper;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 订单运单号 / SN / 型号的进程内检索索引，返回候选订单ID，由调用方以 id IN (...) 交给 SQL 做其余筛选。
+ * <p>
+ * 每个订单占一个槽位，保存三列的大写文本（与 MySQL 不区分大小写的排序规则一致）：
+ * 运单号、SN 各有一个有序表（TreeMap）支持精确与前缀查找；三列合起来建三元组（trigram）倒排表支持任意子串查找，
+ * 倒排命中后再逐个核对原文，结果与 LIKE '%kw%' 相同。1~2 个字符的子串直接扫描全部槽位。
+ * <p>
+ * 启动后在后台线程从数据库分批加载，加载完成前所有查询返回 null（调用方回退到 SQL）；加载期间的写入先排队，加载完再重放。
+ * 修改、删除只把旧槽位标记为失效，失效槽位超过四分之一时按内存中的文本重建。写入在事务提交后才生效，回滚不会污染索引。
+ * <p>
+ * 索引只在启动时从数据库加载一次，之后只接收本实例的写入，看不到其他实例新增、修改、删除的订单，只适用于单实例部署。
+ * 多实例部署必须设置 app.order-search-index.enabled=false，否则关键字查询会漏掉或多出订单，
+ * 错误的结果还会写入各实例共享的订单分页缓存（OrderPageCache）。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSearchIndex {
+
+    private static final int LOAD_BATCH = 5000;
+
+    private final OrderRecordMapper orderRecordMapper;
+    private final AppProperties appProperties;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ===== 以下字段由 lock 保护 =====
+    private long[] slotIds = new long[1024];
+    /** 每槽位 3 列：运单号、SN、型号（大写，空列为 null） */
+    private String[] slotText = new String[1024 * 3];
+    private int slotCount;
+    private final BitSet live = new BitSet();
+    private int liveCount;
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final TreeMap<String, IntList> byTracking = new TreeMap<>();
+    private final TreeMap<String, IntList> bySn = new TreeMap<>();
+    private final Map<Long, IntList> grams = new HashMap<>();
+    private boolean ready;
+    private boolean disabled;
+    /** 加载期间到达的写入：OrderRecord 为新增/修改，Long 为删除 */
+    private List<Object> pendingDuringLoad = new ArrayList<>();
+    private long rebuilds;
+    private LocalDateTime loadedAt;
+    private long loadMillis;
+
+    private volatile Thread loader;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        if (!appProperties.getOrderSearchIndex().isEnabled()) {
+            disable("已关闭（app.order-search-index.enabled=false）");
+            return;
+        }
+        Thread t = new Thread(this::load, "order-search-index-loader");
+        t.setDaemon(true);
+        loader = t;
+        t.start();
+    }
+
+    @PreDestroy
+    void stopLoading() {
+        Thread t = loader;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    /**
+     * 从数据库按 id 分批加载全部有效订单的三列文本
+     */
+    void load() {
+        long start = System.currentTimeMillis();
+        int maxDocs = appProperties.getOrderSearchIndex().getMaxDocs();
+        List<OrderRecord> all = new ArrayList<>();
+        try {
+            long lastId = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                LambdaQueryWrapper<OrderRecord> wrapper = new LambdaQueryWrapper<>();
+                wrapper.select(OrderRecord::getId, OrderRecord::getTrackingNumber, OrderRecord::getSn, OrderRecord::getModel)
+                        .gt(OrderRecord::getId, lastId)
+                        .orderByAsc(OrderRecord::getId)
+                        .last("LIMIT " + LOAD_BATCH);
+                List<OrderRecord> batch = orderRecordMapper.selectList(wrapper);
+                all.addAll(batch);
+                if (all.size() > maxDocs) {
+                    disable("订单数超过 app.order-search-index.max-docs=" + maxDocs);
+                    return;
+                }
+                if (batch.size() < LOAD_BATCH) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } catch (RuntimeException e) {
+            disable("加载失败: " + e.getMessage());
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (OrderRecord r : all) {
+                upsertLocked(r.getId(), r.getTrackingNumber(), r.getSn(), r.getModel());
+            }
+            for (Object op : pendingDuringLoad) {
+                if (op instanceof OrderRecord r) {
+                    upsertLocked(r.getId(), r.getTrackingNumber(), r.getSn(), r.getModel());
+                } else {
+                    removeLocked((Long) op);
+                }
+            }
+            pendingDuringLoad = null;
+            ready = true;
+            loadedAt = LocalDateTime.now();
+            loadMillis = System.currentTimeMillis() - start;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("订单检索索引加载完成: docs={}, trigrams={}, {}ms", liveCount, grams.size(), loadMillis);
+    }
+
+    private void disable(String reason) {
+        lock.writeLock().lock();
+        try {
+            disabled = true;
+            pendingDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.warn("订单检索索引不可用，查询回退到 SQL: {}", reason);
+    }
+
+    // ===================== 写入 =====================
+
+    /**
+     * 订单新增或修改了运单号/SN/型号；在事务中调用时提交后生效
+     */
+    public void upsert(Collection<OrderRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return;
+        }
+        List<OrderRecord> copies = new ArrayList<>(records.size());
+        for (OrderRecord r : records) {
+            if (r != null && r.getId() != null) {
+                // 复制三列：提交前调用方可能继续修改对象
+                OrderRecord c = new OrderRecord();
+                c.setId(r.getId());
+                c.setTrackingNumber(r.getTrackingNumber());
+                c.setSn(r.getSn());
+                c.setModel(r.getModel());
+                copies.add(c);
+            }
+        }
+        afterCommit(() -> apply(copies));
+    }
+
+    public void upsert(OrderRecord record) {
+        upsert(List.of(record));
+    }
+
+    /**
+     * 订单已删除；在事务中调用时提交后生效
+     */
+    public void remove(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        List<Object> ops = new ArrayList<>(ids);
+        afterCommit(() -> apply(ops));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void apply(List<?> ops) {
+        lock.writeLock().lock();
+        try {
+            if (disabled) {
+                return;
+            }
+            if (!ready) {
+                if (pendingDuringLoad != null) {
+                    pendingDuringLoad.addAll(ops);
+                    if (pendingDuringLoad.size() > appProperties.getOrderSearchIndex().getMaxDocs()) {
+                        disabled = true;
+                        pendingDuringLoad = null;
+                        log.warn("订单检索索引加载期间积压写入过多，停用索引");
+                    }
+                }
+                return;
+            }
+            for (Object op : ops) {
+                if (op instanceof OrderRecord r) {
+                    upsertLocked(r.getId(), r.getTrackingNumber(), r.getSn(), r.getModel());
+                } else {
+                    removeLocked((Long) op);
+                }
+            }
+            if (slotCount - liveCount > Math.max(1024, liveCount / 4)) {
+                rebuildLocked();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsertLocked(Long id, String tracking, String sn, String model) {
+        String t = stored(tracking);
+        String s = stored(sn);
+        String m = stored(model);
+        Integer old = slotById.get(id);
+        if (old != null) {
+            int base = old * 3;
+            if (live.get(old) && Objects.equals(slotText[base], t)
+                    && Objects.equals(slotText[base + 1], s) && Objects.equals(slotText[base + 2], m)) {
+                return;
+            }
+            kill(old);
+        }
+        int slot = slotCount++;
+        if (slot == slotIds.length) {
+            slotIds = Arrays.copyOf(slotIds, slot * 2);
+            slotText = Arrays.copyOf(slotText, slot * 2 * 3);
+        }
+        slotIds[slot] = id;
+        slotText[slot * 3] = t;
+        slotText[slot * 3 + 1] = s;
+        slotText[slot * 3 + 2] = m;
+        live.set(slot);
+        liveCount++;
+        slotById.put(id, slot);
+        indexSlot(slot);
+    }
+
+    private void removeLocked(Long id) {
+        Integer old = slotById.remove(id);
+        if (old != null) {
+            kill(old);
+        }
+    }
+
+    private void kill(int slot) {
+        if (live.get(slot)) {
+            live.clear(slot);
+            liveCount--;
+        }
+    }
+
+    private void indexSlot(int slot) {
+        int base = slot * 3;
+        if (slotText[base] != null) {
+            byTracking.computeIfAbsent(slotText[base], k -> new IntList()).add(slot);
+        }
+        if (slotText[base + 1] != null) {
+            bySn.computeIfAbsent(slotText[base + 1], k -> new IntList()).add(slot);
+        }
+        Set<Long> seen = new HashSet<>();
+        for (int f = 0; f < 3; f++) {
+            String text = slotText[base + f];
+            if (text == null) {
+                continue;
+            }
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                long g = gram(text, i);
+                if (seen.add(g)) {
+                    grams.computeIfAbsent(g, k -> new IntList()).add(slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * 丢弃失效槽位，按存活槽位的文本重新编号并重建全部倒排（不访问数据库）
+     */
+    private void rebuildLocked() {
+        long[] oldIds = slotIds;
+        String[] oldText = slotText;
+        int oldCount = slotCount;
+        BitSet oldLive = (BitSet) live.clone();
+        int capacity = Math.max(1024, Integer.highestOneBit(Math.max(1, liveCount)) * 2);
+        slotIds = new long[capacity];
+        slotText = new String[capacity * 3];
+        slotCount = 0;
+        live.clear();
+        liveCount = 0;
+        slotById.clear();
+        byTracking.clear();
+        bySn.clear();
+        grams.clear();
+        for (int s = oldLive.nextSetBit(0); s >= 0 && s < oldCount; s = oldLive.nextSetBit(s + 1)) {
+            int slot = slotCount++;
+            slotIds[slot] = oldIds[s];
+            System.arraycopy(oldText, s * 3, slotText, slot * 3, 3);
+            live.set(slot);
+            liveCount++;
+            slotById.put(oldIds[s], slot);
+            indexSlot(slot);
+        }
+        rebuilds++;
+    }
+
+    // ===================== 查询 =====================
+
+    /**
+     * 三列任一包含 keyword（不区分大小写）的订单ID；索引未就绪、关键字含 LIKE 通配符或候选超过上限时返回 null，调用方回退到 SQL
+     */
+    public Set<Long> findContaining(String keyword) {
+        String k = normalize(keyword);
+        if (k == null || k.indexOf('%') >= 0 || k.indexOf('_') >= 0) {
+            return null;
+        }
+        int limit = appProperties.getOrderSearchIndex().getMaxCandidates();
+        lock.readLock().lock();
+        try {
+            if (!ready || disabled) {
+                return null;
+            }
+            Set<Long> result = new LinkedHashSet<>();
+            if (k.length() < 3) {
+                for (int s = live.nextSetBit(0); s >= 0; s = live.nextSetBit(s + 1)) {
+                    if (containsIn(s, k) && !addLimited(result, slotIds[s], limit)) {
+                        return null;
+                    }
+                }
+                return result;
+            }
+            IntList[] lists = new IntList[k.length() - 2];
+            for (int i = 0; i < lists.length; i++) {
+                IntList list = grams.get(gram(k, i));
+                if (list == null) {
+                    return result;
+                }
+                lists[i] = list;
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            IntList smallest = lists[0];
+            for (int i = 0; i < smallest.size; i++) {
+                int s = smallest.values[i];
+                if (!live.get(s)) {
+                    continue;
+                }
+                boolean all = true;
+                for (int j = 1; j < lists.length && all; j++) {
+                    all = lists[j].contains(s);
+                }
+                if (all && containsIn(s, k) && !addLimited(result, slotIds[s], limit)) {
+                    return null;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 运单号或 SN 等于任一关键字、或运单号以「前缀-」开头的订单ID（对应 search 的 SQL 条件）；不可用时返回 null
+     */
+    public Set<Long> findByTrackingOrSn(Collection<String> exact, Collection<String> trackingPrefixes) {
+        int limit = appProperties.getOrderSearchIndex().getMaxCandidates();
+        lock.readLock().lock();
+        try {
+            if (!ready || disabled) {
+                return null;
+            }
+            Set<Long> result = new LinkedHashSet<>();
+            for (String key : exact) {
+                String k = normalize(key);
+                if (k == null) {
+                    continue;
+                }
+                if (!collect(byTracking.get(k), result, limit) || !collect(bySn.get(k), result, limit)) {
+                    return null;
+                }
+            }
+            for (String prefix : trackingPrefixes) {
+                String p = normalize(prefix);
+                if (p == null || p.indexOf('%') >= 0 || p.indexOf('_') >= 0) {
+                    return null;
+                }
+                for (IntList list : byTracking.subMap(p, true, p + Character.MAX_VALUE, false).values()) {
+                    if (!collect(list, result, limit)) {
+                        return null;
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public OrderSearchIndexStats stats() {
+        lock.readLock().lock();
+        try {
+            OrderSearchIndexStats stats = new OrderSearchIndexStats();
+            stats.setReady(ready);
+            stats.setDisabled(disabled);
+            stats.setDocs(liveCount);
+            stats.setSlots(slotCount);
+            stats.setTrigrams(grams.size());
+            stats.setDistinctTracking(byTracking.size());
+            stats.setDistinctSn(bySn.size());
+            stats.setRebuilds(rebuilds);
+            stats.setLoadedAt(loadedAt);
+            stats.setLoadMillis(loadMillis);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean collect(IntList list, Set<Long> result, int limit) {
+        if (list == null) {
+            return true;
+        }
+        for (int i = 0; i < list.size; i++) {
+            int s = list.values[i];
+            if (live.get(s) && !addLimited(result, slotIds[s], limit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean addLimited(Set<Long> result, long id, int limit) {
+        result.add(id);
+        return result.size() <= limit;
+    }
+
+    private boolean containsIn(int slot, String k) {
+        int base = slot * 3;
+        for (int f = 0; f < 3; f++) {
+            String text = slotText[base + f];
+            if (text != null && text.contains(k)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 入库文本只转大写不 trim：精确匹配与 SQL 的 = 一致（NO PAD 排序规则下尾随空格也参与比较）
+     */
+    private static String stored(String value) {
+        return value == null || value.isEmpty() ? null : value.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 查询关键字：与 SQL 路径一样先 trim
+     */
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String v = value.trim();
+        return v.isEmpty() ? null : v.toUpperCase(Locale.ROOT);
+    }
+
+    private static long gram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /**
+     * 递增追加的槽位列表（槽位只增，天然有序，可二分查找）
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = v;
+        }
+
+        boolean contains(int v) {
+            return Arrays.binarySearch(values, 0, size, v) >= 0;
+        }
+    }
+}
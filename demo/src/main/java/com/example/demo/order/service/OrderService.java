@@ -2,12 +2,17 @@ package com.example.demo.order.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.example.demo.order.dto.BatchFetchRequest;
+import com.example.demo.order.dto.ImportPreviewView;
 import com.example.demo.order.dto.OrderAmountRequest;
 import com.example.demo.order.dto.OrderCategoryStats;
 import com.example.demo.order.dto.OrderCreateRequest;
+import com.example.demo.order.dto.OrderCursorPage;
+import com.example.demo.order.dto.OrderCursorRequest;
 import com.example.demo.order.dto.OrderFilterRequest;
 import com.example.demo.order.dto.OrderUpdateRequest;
 import com.example.demo.order.entity.OrderRecord;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -17,8 +22,37 @@ public interface OrderService {
 
     Map<String, Object> importOrders(MultipartFile file, String operator);
 
+    /**
+     * 从输入流导入订单，并把解析/匹配/写入进度写入 progress；.xlsx 会整体读入内存，有文件时应使用文件重载
+     */
+    Map<String, Object> importOrders(InputStream inputStream, String operator, ImportProgress progress);
+
+    /**
+     * 从本地文件导入订单（异步导入任务的临时文件），进度写入 progress 供轮询
+     */
+    Map<String, Object> importOrders(Path file, String operator, ImportProgress progress);
+
+    /**
+     * 导入预览（只读）：解析并匹配，返回新增/变化/未变化/删除统计与分页差异，结果短期缓存供提交复用
+     *
+     * @param type 差异类型筛选（NEW / CHANGED / UNCHANGED / DELETED），为空表示全部
+     */
+    ImportPreviewView previewImport(MultipartFile file, String operator, String type, int page, int size);
+
+    ImportPreviewView getImportPreview(String previewId, String operator, boolean admin, String type, int page, int size);
+
+    /**
+     * 按预览时的匹配结果写入（每份预览只能提交一次），返回与导入一致的报告
+     */
+    Map<String, Object> commitImportPreview(String previewId, String operator, boolean admin);
+
     IPage<OrderRecord> query(OrderFilterRequest request);
 
+    /**
+     * 游标分页：排序与筛选同 query，按上一页末尾的 (排序字段, id) 继续，不受页深影响
+     */
+    OrderCursorPage queryByCursor(OrderCursorRequest request);
+
     OrderRecord create(OrderCreateRequest request, String operator);
 
     void updateStatus(Long id, String status);
@@ -0,0 +1,69 @@
+package com.example.demo.order.service.impl;
+
+import com.example.demo.order.entity.OrderRecord;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 一次导入的匹配结果（写入计划）：解析出的行（已设置匹配到的 id/version）、预加载视图、逐行匹配结果。
+ * 由预览生成并短期缓存，提交同一文件时不再重新解析；写入前重新预加载核对，相关记录有变化时重新匹配。
+ * 写入会修改行对象，计划只能执行一次。
+ */
+final class ImportPlan {
+
+    static final String TYPE_NEW = "NEW";
+    static final String TYPE_CHANGED = "CHANGED";
+    static final String TYPE_UNCHANGED = "UNCHANGED";
+    static final String TYPE_DELETED = "DELETED";
+
+    final String id = UUID.randomUUID().toString().replace("-", "");
+    final String operator;
+    final String fileName;
+    final String fileHash;
+    final LocalDateTime createdAt = LocalDateTime.now();
+    final List<OrderRecord> records;
+    final ImportPreloadContext preload;
+    final OrderServiceImpl.MatchOutcome outcome;
+    /** 数据库有但本次 Excel 没有的记录（匹配完成时确定） */
+    final List<OrderRecord> deleted;
+    /** 每行的差异类型，匹配完成时确定（写入会回填新行 id，不能事后推断） */
+    private final String[] types;
+    final int newCount;
+    final int changedCount;
+
+    ImportPlan(String operator, String fileName, String fileHash, List<OrderRecord> records,
+               ImportPreloadContext preload, OrderServiceImpl.MatchOutcome outcome, List<OrderRecord> deleted) {
+        this.operator = operator;
+        this.fileName = fileName;
+        this.fileHash = fileHash;
+        this.records = records;
+        this.preload = preload;
+        this.outcome = outcome;
+        this.deleted = deleted;
+        this.types = new String[records.size()];
+        int created = 0;
+        int changed = 0;
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).getId() == null) {
+                types[i] = TYPE_NEW;
+                created++;
+            } else if (outcome.changed[i]) {
+                types[i] = TYPE_CHANGED;
+                changed++;
+            } else {
+                types[i] = TYPE_UNCHANGED;
+            }
+        }
+        this.newCount = created;
+        this.changedCount = changed;
+    }
+
+    String type(int index) {
+        return types[index];
+    }
+
+    int unchangedCount() {
+        return records.size() - newCount - changedCount;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.order.service.impl;
+
+import com.example.demo.config.AppProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import org.springframework.stereotype.Component;
+
+/**
+ * 导入预览生成的写入计划缓存：按预览ID存放，写入后 app.import-job.preview-ttl-minutes 过期；
+ * 按计划行数计权重，总行数超过 preview-max-rows 时淘汰最久未用的计划。
+ * 计划数量很少（每个用户通常只有一两份），按 (用户, 文件哈希) 查找时直接遍历。
+ */
+@Component
+class ImportPlanCache {
+
+    private final Cache<String, ImportPlan> plans;
+    private final long ttlMinutes;
+
+    ImportPlanCache(AppProperties appProperties) {
+        AppProperties.ImportJob cfg = appProperties.getImportJob();
+        this.ttlMinutes = cfg.getPreviewTtlMinutes();
+        this.plans = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .maximumWeight(Math.max(1, cfg.getPreviewMaxRows()))
+                .<String, ImportPlan>weigher((id, plan) -> Math.max(1, plan.records.size() + plan.deleted.size()))
+                .build();
+    }
+
+    void put(ImportPlan plan) {
+        plans.put(plan.id, plan);
+    }
+
+    ImportPlan get(String previewId) {
+        return previewId == null ? null : plans.getIfPresent(previewId);
+    }
+
+    ImportPlan find(String operator, String fileHash) {
+        for (ImportPlan plan : plans.asMap().values()) {
+            if (plan.fileHash.equals(fileHash) && Objects.equals(plan.operator, operator)) {
+                return plan;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 取出并移除计划；并发提交同一计划时只有一方能取到
+     */
+    ImportPlan take(ImportPlan plan) {
+        return plans.asMap().remove(plan.id, plan) ? plan : null;
+    }
+
+    boolean hasPlans(String operator) {
+        for (ImportPlan plan : plans.asMap().values()) {
+            if (Objects.equals(plan.operator, operator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    LocalDateTime expiresAt(ImportPlan plan) {
+        return plan.createdAt.plusMinutes(ttlMinutes);
+    }
+}
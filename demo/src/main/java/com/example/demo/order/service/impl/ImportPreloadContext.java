@@ -0,0 +1,118 @@
+package com.example.demo.order.service.impl;
+
+import com.example.demo.order.entity.OrderCellStyle;
+import com.example.demo.order.entity.OrderRecord;
+import com.example.demo.order.util.OrderMatchShape;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一次导入共享的数据库预加载视图：匹配、写入、删除检测都基于同一次读取的结果，
+ * 整个导入只查询一次 order_record / order_cell_style，各阶段看到的数据一致。
+ * 加载完成后各索引只读；已匹配集合为并发集合，供按匹配键分区的并行匹配共用。
+ */
+final class ImportPreloadContext {
+
+    /** 匹配键(物流单号|SN|型号) -> 数据库记录，组内按 ID 升序 */
+    private final Map<String, List<OrderRecord>> recordsByKey = new LinkedHashMap<>();
+    /** 匹配键#行指纹 -> 数据库记录，组内按 ID 升序（仅含已有指纹的记录） */
+    private final Map<String, List<OrderRecord>> recordsByFingerprint = new HashMap<>();
+    private final Map<Long, OrderRecord> recordsById = new HashMap<>();
+    private final Map<Long, List<OrderCellStyle>> stylesByOrderId = new HashMap<>();
+    /** 数据库记录的定长比较表示，与 Excel 行共用同一字典 */
+    private final Map<Long, OrderMatchShape> shapesById = new HashMap<>();
+    private final OrderMatchShape.Dictionary dictionary = new OrderMatchShape.Dictionary();
+    /** 已被 Excel 行占用的数据库记录 ID，避免一条记录被重复匹配 */
+    private final Set<Long> matchedIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 按 ID 升序追加一条数据库记录
+     */
+    void addRecord(String matchKey, OrderRecord db) {
+        recordsByKey.computeIfAbsent(matchKey, k -> new ArrayList<>()).add(db);
+        recordsById.put(db.getId(), db);
+        if (db.getRowFingerprint() != null) {
+            recordsByFingerprint.computeIfAbsent(matchKey + "#" + db.getRowFingerprint(), k -> new ArrayList<>()).add(db);
+        }
+    }
+
+    void addStyles(Map<Long, List<OrderCellStyle>> grouped) {
+        stylesByOrderId.putAll(grouped);
+    }
+
+    /**
+     * 记录与样式加载完成后调用：为每条数据库记录构建比较表示
+     */
+    void buildShapes() {
+        recordsById.forEach((id, db) -> shapesById.put(id, OrderMatchShape.ofStored(db, stylesByOrderId.get(id), dictionary)));
+    }
+
+    OrderMatchShape shape(Long id) {
+        return shapesById.get(id);
+    }
+
+    OrderMatchShape.Dictionary dictionary() {
+        return dictionary;
+    }
+
+    List<OrderRecord> candidates(String matchKey) {
+        return recordsByKey.get(matchKey);
+    }
+
+    List<OrderRecord> fingerprintCandidates(String matchKey, long fingerprint) {
+        return recordsByFingerprint.isEmpty() ? null : recordsByFingerprint.get(matchKey + "#" + fingerprint);
+    }
+
+    OrderRecord record(Long id) {
+        return recordsById.get(id);
+    }
+
+    List<OrderCellStyle> styles(Long orderId) {
+        return stylesByOrderId.get(orderId);
+    }
+
+    Map<Long, List<OrderCellStyle>> stylesByOrderId() {
+        return stylesByOrderId;
+    }
+
+    Set<Long> matchedIds() {
+        return matchedIds;
+    }
+
+    /**
+     * 两次预加载读到的记录集合及各自 version 是否完全相同（记录的任何写入都会提升 version）
+     */
+    boolean sameVersionsAs(ImportPreloadContext other) {
+        if (recordsById.size() != other.recordsById.size()) {
+            return false;
+        }
+        for (Map.Entry<Long, OrderRecord> e : recordsById.entrySet()) {
+            OrderRecord o = other.recordsById.get(e.getKey());
+            if (o == null || !Objects.equals(o.getVersion(), e.getValue().getVersion())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 未被本次 Excel 任何一行匹配的数据库记录（即 Excel 中已删除的记录），按匹配键分组顺序、组内 ID 升序
+     */
+    List<OrderRecord> unmatched() {
+        List<OrderRecord> result = new ArrayList<>();
+        for (List<OrderRecord> group : recordsByKey.values()) {
+            for (OrderRecord db : group) {
+                if (!matchedIds.contains(db.getId())) {
+                    result.add(db);
+                }
+            }
+        }
+        return result;
+    }
+}
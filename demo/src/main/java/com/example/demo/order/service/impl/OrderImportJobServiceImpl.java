@@ -0,0 +1,264 @@
+package com.example.demo.order.service.impl;
+
+import com.example.demo.common.cache.DuplicateUploadCache;
+import com.example.demo.common.exception.BusinessException;
+import com.example.demo.common.exception.ErrorCode;
+import com.example.demo.config.AppProperties;
+import com.example.demo.order.dto.OrderImportJobView;
+import com.example.demo.order.service.ImportConcurrencyLimiter;
+import com.example.demo.order.service.ImportProgress;
+import com.example.demo.order.service.OrderImportJobService;
+import com.example.demo.order.service.OrderService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderImportJobServiceImpl implements OrderImportJobService {
+
+    private static final String STATUS_QUEUED = "QUEUED";
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_SUCCEEDED = "SUCCEEDED";
+    private static final String STATUS_FAILED = "FAILED";
+
+    private final OrderService orderService;
+    private final AppProperties appProperties;
+    private final DuplicateUploadCache duplicateUploadCache;
+    private final ImportConcurrencyLimiter importConcurrencyLimiter;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor workers;
+    private ScheduledExecutorService jobCleaner;
+
+    private static class ImportJob {
+        final String id = UUID.randomUUID().toString().replace("-", "");
+        // 即用户名额的键（已去除首尾空白）
+        final String operator;
+        final String fileName;
+        final long fileSize;
+        final Path tempFile;
+        final ImportProgress progress = new ImportProgress();
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile String status = STATUS_QUEUED;
+        volatile String error;
+        volatile Map<String, Object> report;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+
+        ImportJob(String operator, String fileName, long fileSize, Path tempFile) {
+            this.operator = operator;
+            this.fileName = fileName;
+            this.fileSize = fileSize;
+            this.tempFile = tempFile;
+        }
+    }
+
+    @PostConstruct
+    private void start() {
+        AppProperties.ImportJob cfg = appProperties.getImportJob();
+        int threads = Math.max(1, cfg.getMaxConcurrentJobs());
+        AtomicInteger seq = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, cfg.getQueueCapacity())), r -> {
+                    Thread t = new Thread(r, "order-import-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        jobCleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-import-job-cleaner");
+            t.setDaemon(true);
+            return t;
+        });
+        jobCleaner.scheduleAtFixedRate(this::cleanupFinishedJobs, 10, 10, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 工作线程中执行的任务；停机时据此清理仍在排队的任务
+     */
+    private final class JobTask implements Runnable {
+        final ImportJob job;
+
+        JobTask(ImportJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            runJob(job);
+        }
+    }
+
+    @PreDestroy
+    private void stop() {
+        if (jobCleaner != null) {
+            jobCleaner.shutdownNow();
+        }
+        if (workers != null) {
+            // 排队中的任务不会再执行：释放名额并删除其临时文件（执行中的任务在 runJob 的 finally 中清理）
+            List<Runnable> queued = workers.shutdownNow();
+            for (Runnable task : queued) {
+                if (task instanceof JobTask jobTask) {
+                    ImportJob job = jobTask.job;
+                    job.error = "服务停止，任务未执行";
+                    job.status = STATUS_FAILED;
+                    job.finishedAt = LocalDateTime.now();
+                    importConcurrencyLimiter.release(job.operator);
+                    deleteQuietly(job.tempFile);
+                }
+            }
+            if (!queued.isEmpty()) {
+                log.info("服务停止，丢弃排队中的导入任务{}个", queued.size());
+            }
+        }
+    }
+
+    @Override
+    public OrderImportJobView submit(MultipartFile file, String operator) {
+        if (file == null || file.isEmpty()) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "请选择要导入的文件");
+        }
+        String user = ImportConcurrencyLimiter.userKey(operator);
+        importConcurrencyLimiter.reserve(user);
+
+        ImportJob job;
+        try {
+            // 请求结束后上传的临时文件会被容器清理，先落到独立临时文件
+            Path temp = Files.createTempFile("order-import-", ".tmp");
+            file.transferTo(temp);
+            job = new ImportJob(user, file.getOriginalFilename(), file.getSize(), temp);
+        } catch (IOException e) {
+            importConcurrencyLimiter.release(user);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存上传文件失败");
+        }
+
+        jobs.put(job.id, job);
+        try {
+            workers.execute(new JobTask(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            importConcurrencyLimiter.release(user);
+            deleteQuietly(job.tempFile);
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUESTS, "导入任务繁忙，请稍后再试");
+        }
+        log.info("订单导入任务已提交: jobId={}, operator={}, file={}, size={}", job.id, user, job.fileName, job.fileSize);
+        return toView(job);
+    }
+
+    @Override
+    public OrderImportJobView getJob(String jobId, String operator, boolean admin) {
+        return toView(requireJob(jobId, operator, admin));
+    }
+
+    @Override
+    public Map<String, Object> getReport(String jobId, String operator, boolean admin) {
+        ImportJob job = requireJob(jobId, operator, admin);
+        if (STATUS_FAILED.equals(job.status)) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "导入失败：" + job.error);
+        }
+        if (job.report == null) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "导入任务尚未完成");
+        }
+        return job.report;
+    }
+
+    private void runJob(ImportJob job) {
+        long start = System.currentTimeMillis();
+        boolean slot = false;
+        try {
+            // 与同步导入共用执行许可
+            importConcurrencyLimiter.acquireSlot();
+            slot = true;
+            job.status = STATUS_RUNNING;
+            job.startedAt = LocalDateTime.now();
+            // 后台任务不参与重复上传短路，但会改变数据：作废该用户上一次同步导入的报告
+            duplicateUploadCache.forget(DuplicateUploadCache.KIND_ORDER, job.operator);
+            // 直接按文件解析，.xlsx 不把整个压缩包读入内存
+            job.report = orderService.importOrders(job.tempFile, job.operator, job.progress);
+            job.status = STATUS_SUCCEEDED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.error = "服务停止，任务未执行";
+            job.status = STATUS_FAILED;
+        } catch (BusinessException e) {
+            job.error = e.getMessage();
+            job.status = STATUS_FAILED;
+        } catch (Exception e) {
+            log.error("订单导入任务失败: jobId={}", job.id, e);
+            job.error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            job.status = STATUS_FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            job.progress.phase(ImportProgress.PHASE_DONE);
+            if (slot) {
+                importConcurrencyLimiter.releaseSlot();
+            }
+            importConcurrencyLimiter.release(job.operator);
+            deleteQuietly(job.tempFile);
+            log.info("订单导入任务结束: jobId={}, status={}, 耗时={}ms", job.id, job.status, System.currentTimeMillis() - start);
+        }
+    }
+
+    private ImportJob requireJob(String jobId, String operator, boolean admin) {
+        ImportJob job = jobId == null ? null : jobs.get(jobId);
+        if (job == null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND, "导入任务不存在或已过期");
+        }
+        if (!admin && (operator == null || !ImportConcurrencyLimiter.userKey(operator).equals(job.operator))) {
+            throw new BusinessException(ErrorCode.FORBIDDEN);
+        }
+        return job;
+    }
+
+    private void cleanupFinishedJobs() {
+        LocalDateTime expireBefore = LocalDateTime.now().minusMinutes(appProperties.getImportJob().getRetentionMinutes());
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(expireBefore));
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除导入临时文件失败: {}", path);
+        }
+    }
+
+    private OrderImportJobView toView(ImportJob job) {
+        OrderImportJobView view = new OrderImportJobView();
+        view.setJobId(job.id);
+        view.setStatus(job.status);
+        view.setPhase(job.progress.getPhase());
+        view.setFileName(job.fileName);
+        view.setFileSize(job.fileSize);
+        view.setOperator(job.operator);
+        view.setRowsParsed(job.progress.getRowsParsed());
+        view.setRowsMatched(job.progress.getRowsMatched());
+        view.setRowsWritten(job.progress.getRowsWritten());
+        view.setError(job.error);
+        view.setReportReady(job.report != null);
+        view.setCreatedAt(job.createdAt);
+        view.setStartedAt(job.startedAt);
+        view.setFinishedAt(job.finishedAt);
+        return view;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.order.service.impl;
+
+import com.baomidou.mybatisplus.core.batch.BatchMethod;
+import com.baomidou.mybatisplus.core.batch.MybatisBatch;
+import com.example.demo.order.entity.OrderRecord;
+import com.example.demo.order.mapper.OrderRecordMapper;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.MyBatisExceptionTranslator;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * 订单批量写入：基于 MyBatis BATCH 执行器，配合连接串上的 rewriteBatchedStatements=true，
+ * 批量 insert 会被驱动改写为多行 INSERT 并回填自增主键；批量 updateById 仍经过乐观锁拦截器，
+ * 带上 version 条件，按每条语句的影响行数识别冲突。
+ * 使用 Spring 管理的连接，调用方需自行开启事务。
+ */
+@Component
+@RequiredArgsConstructor
+class OrderRecordBatchWriter {
+
+    // 每批一条多行 INSERT；1000 行远小于 max_allowed_packet，驱动不会再拆分，整批成功或整批失败
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final MybatisBatch.Method<OrderRecord> method = new MybatisBatch.Method<>(OrderRecordMapper.class);
+
+    private volatile MyBatisExceptionTranslator exceptionTranslator;
+
+    /**
+     * 批量插入，执行后每条记录的 id 已回填。
+     * 按 INSERT_BATCH_SIZE 行一批执行；某批被唯一约束拒绝时整批未写入，只把这一批逐行重试，
+     * 之前的批次已写入、之后的批次照常批量执行。
+     *
+     * @return 逐行重试时仍因唯一约束插入失败的记录（id 为 null）
+     */
+    List<OrderRecord> insertAll(List<OrderRecord> records) {
+        if (CollectionUtils.isEmpty(records)) {
+            return List.of();
+        }
+        List<OrderRecord> duplicates = new ArrayList<>();
+        for (int from = 0; from < records.size(); from += INSERT_BATCH_SIZE) {
+            List<OrderRecord> batch = records.subList(from, Math.min(records.size(), from + INSERT_BATCH_SIZE));
+            try {
+                execute(batch, method.insert());
+            } catch (DuplicateKeyException e) {
+                for (OrderRecord record : batch) {
+                    record.setId(null);
+                    try {
+                        execute(List.of(record), method.insert());
+                    } catch (DuplicateKeyException rowError) {
+                        record.setId(null);
+                        duplicates.add(record);
+                    }
+                }
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * 批量按 ID 更新（带 version 条件）。
+     *
+     * @return 影响行数为 0 的记录：已被他人修改（version 不一致）或已被删除
+     */
+    List<OrderRecord> updateAllById(List<OrderRecord> records) {
+        if (CollectionUtils.isEmpty(records)) {
+            return List.of();
+        }
+        List<BatchResult> results = execute(records, method.updateById());
+        List<OrderRecord> conflicts = new ArrayList<>();
+        int offset = 0;
+        for (BatchResult result : results) {
+            int[] counts = result.getUpdateCounts();
+            for (int i = 0; i < counts.length; i++) {
+                // 驱动改写为多语句时可能返回 SUCCESS_NO_INFO，视为成功
+                if (counts[i] == 0) {
+                    conflicts.add(records.get(offset + i));
+                }
+            }
+            offset += counts.length;
+        }
+        return conflicts;
+    }
+
+    /**
+     * 批量回填导入指纹（取记录上的 rowFingerprint），不经过乐观锁。
+     */
+    void updateFingerprints(List<OrderRecord> records) {
+        if (CollectionUtils.isEmpty(records)) {
+            return;
+        }
+        execute(records, method.get("updateFingerprint", r -> {
+            Map<String, Object> param = new HashMap<>();
+            param.put("id", r.getId());
+            param.put("fingerprint", r.getRowFingerprint());
+            return param;
+        }));
+    }
+
+    /**
+     * 批量会话绕过了 SqlSessionTemplate，这里按同样的规则把 MyBatis 异常翻译为 Spring 的 DataAccessException，
+     * 便于调用方按 DuplicateKeyException 等类型处理。
+     */
+    private List<BatchResult> execute(List<OrderRecord> records, BatchMethod<OrderRecord> batchMethod) {
+        try {
+            return new MybatisBatch<>(sqlSessionFactory, records).execute(batchMethod);
+        } catch (PersistenceException e) {
+            if (exceptionTranslator == null) {
+                exceptionTranslator = new MyBatisExceptionTranslator(
+                        sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(), true);
+            }
+            DataAccessException translated = exceptionTranslator.translateExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        }
+    }
+}
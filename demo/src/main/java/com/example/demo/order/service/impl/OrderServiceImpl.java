@@ -3,42 +3,62 @@ package com.example.demo.order.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.demo.common.cache.DuplicateUploadCache;
 import com.example.demo.common.exception.BusinessException;
 import com.example.demo.common.exception.ErrorCode;
+import com.example.demo.common.response.PageResponse;
 import com.example.demo.common.util.ExcelHelper;
+import com.example.demo.common.util.FileHashUtil;
+import com.example.demo.config.AppProperties;
 import com.example.demo.order.dto.BatchFetchRequest;
+import com.example.demo.order.dto.ImportPreviewItem;
+import com.example.demo.order.dto.ImportPreviewView;
 import com.example.demo.order.dto.OrderAmountRequest;
 import com.example.demo.order.dto.OrderCategoryStats;
 import com.example.demo.order.dto.OrderCreateRequest;
+import com.example.demo.order.dto.OrderCursorPage;
+import com.example.demo.order.dto.OrderCursorRequest;
 import com.example.demo.order.dto.OrderFilterRequest;
 import com.example.demo.order.dto.OrderUpdateRequest;
 import com.example.demo.order.entity.OrderRecord;
 import com.example.demo.order.entity.OrderCellStyle;
 import com.example.demo.order.mapper.OrderCellStyleMapper;
 import com.example.demo.order.mapper.OrderRecordMapper;
+import com.example.demo.order.util.OrderMatchShape;
+import com.example.demo.order.util.OrderRowFingerprint;
 import com.example.demo.order.util.TrackingCategoryUtil;
+import com.example.demo.order.service.ImportConcurrencyLimiter;
+import com.example.demo.order.service.ImportProgress;
+import com.example.demo.order.service.ImportSnapshotStore;
+import com.example.demo.order.service.OrderPageCache;
+import com.example.demo.order.service.OrderSearchIndex;
 import com.example.demo.order.service.OrderService;
 import com.example.demo.settlement.service.SettlementService;
 import com.example.demo.submission.entity.UserSubmission;
+import com.example.demo.submission.service.CurrentOwnerProjection;
+import com.example.demo.submission.service.SubmissionPresenceResolver;
 import com.example.demo.submission.mapper.UserSubmissionMapper;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import lombok.Data;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
@@ -48,52 +68,6 @@ import org.springframework.web.multipart.MultipartFile;
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
-    // 会话级快照采用“按用户隔离”的方式，避免多用户串数据
-    private static final Map<String, Snapshot> SNAPSHOT_BY_USER = new ConcurrentHashMap<>();
-
-    private static class Snapshot {
-        volatile long lastAccess = System.currentTimeMillis();
-        final Map<String, Map<String, CellStyleSnap>> LAST_IMPORT_SNAPSHOT = new ConcurrentHashMap<>();
-        final Map<String, Map<String, String>> LAST_VALUE_SNAPSHOT = new ConcurrentHashMap<>();
-        final Map<Integer, Map<String, CellStyleSnap>> LAST_STYLE_BY_ROW = new ConcurrentHashMap<>();
-        final Map<Integer, Map<String, String>> LAST_VALUE_BY_ROW = new ConcurrentHashMap<>();
-        final Map<String, Map<String, CellStyleSnap>> LAST_STYLE_BY_TRACKING = new ConcurrentHashMap<>();
-        final Map<String, Map<String, String>> LAST_VALUE_BY_TRACKING = new ConcurrentHashMap<>();
-        void touch() { this.lastAccess = System.currentTimeMillis(); }
-    }
-
-    private static Snapshot snaps(String operator) {
-        String key = (operator == null || operator.isBlank()) ? "__ANON__" : operator.trim();
-        Snapshot s = SNAPSHOT_BY_USER.computeIfAbsent(key, k -> new Snapshot());
-        s.touch();
-        return s;
-    }
-
-    private static final long SNAPSHOT_TTL_MILLIS = TimeUnit.HOURS.toMillis(2);
-    private ScheduledExecutorService snapshotCleaner;
-
-    @PostConstruct
-    private void startSnapshotCleaner() {
-        snapshotCleaner = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "order-snapshot-cleaner");
-            t.setDaemon(true);
-            return t;
-        });
-        snapshotCleaner.scheduleAtFixedRate(this::cleanupSnapshots, 30, 30, TimeUnit.MINUTES);
-    }
-
-    @PreDestroy
-    private void stopSnapshotCleaner() {
-        if (snapshotCleaner != null) {
-            snapshotCleaner.shutdownNow();
-        }
-    }
-
-    private void cleanupSnapshots() {
-        long now = System.currentTimeMillis();
-        SNAPSHOT_BY_USER.entrySet().removeIf(entry -> now - entry.getValue().lastAccess > SNAPSHOT_TTL_MILLIS);
-    }
-
     @Data
     private static class CellStyleSnap {
         private String bg;
@@ -109,11 +83,6 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
-    private String styleKey(OrderRecord r) {
-        return ((r.getTrackingNumber() == null ? "" : r.getTrackingNumber()).toUpperCase(Locale.ROOT)) + "#" +
-                ((r.getSn() == null ? "" : r.getSn()).toUpperCase(Locale.ROOT));
-    }
-
     private Map<String, CellStyleSnap> buildStyleMap(OrderRecord r) {
         Map<String, CellStyleSnap> m = new HashMap<>();
         m.put("tracking", new CellStyleSnap(normBg(r.getTrackingBgColor()), normFg(r.getTrackingFontColor()), bool(r.getTrackingStrike()), bool(r.getTrackingBold())));
@@ -179,140 +148,74 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * 标准化背景色：null / 空 / 白色 统一为 #FFFFFF
+     * 标准化背景色：null / 空 / 白色 统一为 #FFFFFF（与行指纹口径一致）
      */
     private String normBg(String c) {
-        if (c == null) return "#FFFFFF";
-        String s = c.trim();
-        if (s.isEmpty()) return "#FFFFFF";
-        s = s.toUpperCase(Locale.ROOT);
-        if ("#FFF".equals(s)) return "#FFFFFF";
-        if ("#FFFFFF".equals(s)) return "#FFFFFF";
-        return s;
+        return OrderRowFingerprint.normBg(c);
     }
 
     /**
-     * 标准化字体颜色：null / 空 / 黑色 统一为 #000000
+     * 标准化字体颜色：null / 空 / 黑色 统一为 #000000（与行指纹口径一致）
      */
     private String normFg(String c) {
-        if (c == null) return "#000000";
-        String s = c.trim();
-        if (s.isEmpty()) return "#000000";
-        s = s.toUpperCase(Locale.ROOT);
-        if ("#000".equals(s)) return "#000000";
-        if ("#000000".equals(s)) return "#000000";
-        // 自动颜色（某些Excel会用 #000008 或类似深色表示默认黑色）
-        if (s.matches("#00000[0-9A-F]")) return "#000000";
-        return s;
-    }
-
-    /**
-     * 兼容旧逻辑的标准化方法（用于背景色）
-     */
-    private String norm(String c) {
-        return normBg(c);
+        return OrderRowFingerprint.normFg(c);
     }
 
     // 与上一次导入快照对比（混合对齐：先 key(运单号+SN)，未命中则按行号），
     // 只返回一条记录级提示（选择第一个发生变化的列）；比较“格式变化 或 内容变化”。
     private Optional<Map<String, Object>> compareWithSessionSnapshot(OrderRecord r, String operator) {
-        Snapshot s = snaps(operator);
-        String key = styleKey(r);
-        Map<String, CellStyleSnap> curStyle = buildStyleMap(r);
-        Map<String, String> curValue = buildValueMap(r);
-
-        List<String> order = Arrays.asList("tracking","model","sn","remark","amount");
+        ImportSnapshotStore.Baseline prev = importSnapshotStore.findByKey(operator, r);
 
-        Map<String, CellStyleSnap> prevStyle = s.LAST_IMPORT_SNAPSHOT.get(key);
-        Map<String, String> prevValue = s.LAST_VALUE_SNAPSHOT.get(key);
-        boolean keyMatched = prevStyle != null && prevValue != null;
-
-        if (!keyMatched && r.getExcelRowIndex() != null) {
+        if (prev == null && r.getExcelRowIndex() != null) {
             // 先尝试精确行号
-            prevStyle = s.LAST_STYLE_BY_ROW.get(r.getExcelRowIndex());
-            prevValue = s.LAST_VALUE_BY_ROW.get(r.getExcelRowIndex());
-            keyMatched = prevStyle != null && prevValue != null;
+            prev = importSnapshotStore.findByRow(operator, r.getExcelRowIndex());
             // 再尝试邻近行窗口（±2），抵抗小幅漂移
-            if (!keyMatched) {
-                for (int d = 1; d <= 2; d++) {
-                    int up = r.getExcelRowIndex() - d;
-                    int down = r.getExcelRowIndex() + d;
-                    if (!keyMatched && up >= 0) {
-                        prevStyle = s.LAST_STYLE_BY_ROW.get(up);
-                        prevValue = s.LAST_VALUE_BY_ROW.get(up);
-                        keyMatched = prevStyle != null && prevValue != null;
-                    }
-                    if (!keyMatched && down >= 0) {
-                        prevStyle = s.LAST_STYLE_BY_ROW.get(down);
-                        prevValue = s.LAST_VALUE_BY_ROW.get(down);
-                        keyMatched = prevStyle != null && prevValue != null;
-                    }
-                    if (keyMatched) break;
+            for (int d = 1; d <= 2 && prev == null; d++) {
+                int up = r.getExcelRowIndex() - d;
+                int down = r.getExcelRowIndex() + d;
+                if (up >= 0) {
+                    prev = importSnapshotStore.findByRow(operator, up);
+                }
+                if (prev == null && down >= 0) {
+                    prev = importSnapshotStore.findByRow(operator, down);
                 }
             }
         }
-        if (!keyMatched) {
-            String tKey = (r.getTrackingNumber() == null ? "" : r.getTrackingNumber().toUpperCase(Locale.ROOT));
-            prevStyle = s.LAST_STYLE_BY_TRACKING.get(tKey);
-            prevValue = s.LAST_VALUE_BY_TRACKING.get(tKey);
+        if (prev == null) {
+            prev = importSnapshotStore.findByTracking(operator, r);
         }
 
-        if (prevStyle == null || prevValue == null || prevStyle.isEmpty()) {
-            // 首次：建立基线，不提示
-            s.LAST_IMPORT_SNAPSHOT.put(key, curStyle);
-            s.LAST_VALUE_SNAPSHOT.put(key, curValue);
-            if (r.getExcelRowIndex() != null) {
-                s.LAST_STYLE_BY_ROW.put(r.getExcelRowIndex(), curStyle);
-                s.LAST_VALUE_BY_ROW.put(r.getExcelRowIndex(), curValue);
-            }
-            String tKey = (r.getTrackingNumber() == null ? "" : r.getTrackingNumber().toUpperCase(Locale.ROOT));
-            s.LAST_STYLE_BY_TRACKING.put(tKey, curStyle);
-            s.LAST_VALUE_BY_TRACKING.put(tKey, curValue);
+        // 更新基线为本次（首次出现时仅建立基线，不提示）
+        importSnapshotStore.put(operator, r);
+        if (prev == null) {
             return Optional.empty();
         }
 
-        String changedField = null;
-        for (String f : order) {
-            CellStyleSnap a = prevStyle.get(f);
-            CellStyleSnap b = curStyle.get(f);
-            boolean styleChanged = !Objects.equals(a == null ? null : a.getBg(),   b == null ? null : b.getBg())
-                    || !Objects.equals(a == null ? null : a.getFont(), b == null ? null : b.getFont())
-                    || !Objects.equals(a == null ? Boolean.FALSE : a.getStrike(), b == null ? Boolean.FALSE : b.getStrike());
-            String va = prevValue.get(f);
-            String vb = curValue.get(f);
-            boolean valueChanged = !Objects.equals(va, vb);
-            if (styleChanged || valueChanged) { changedField = f; break; }
-        }
-
-        // 更新基线为本次
-        s.LAST_IMPORT_SNAPSHOT.put(key, curStyle);
-        s.LAST_VALUE_SNAPSHOT.put(key, curValue);
-        if (r.getExcelRowIndex() != null) {
-            s.LAST_STYLE_BY_ROW.put(r.getExcelRowIndex(), curStyle);
-            s.LAST_VALUE_BY_ROW.put(r.getExcelRowIndex(), curValue);
+        ImportSnapshotStore.Baseline cur = importSnapshotStore.current(r);
+        ImportSnapshotStore.Field changedField = null;
+        for (ImportSnapshotStore.Field f : ImportSnapshotStore.Field.values()) {
+            // 会话提示只关注颜色与删除线，不比较加粗
+            if (!prev.sameStyle(cur, f, false) || !prev.sameValue(cur, f)) {
+                changedField = f;
+                break;
+            }
         }
-        // 同步 tracking 兜底映射（避免下一次按 tracking 兜底对齐缺失）
-        String tKey2 = (r.getTrackingNumber() == null ? "" : r.getTrackingNumber().toUpperCase(Locale.ROOT));
-        s.LAST_STYLE_BY_TRACKING.put(tKey2, curStyle);
-        s.LAST_VALUE_BY_TRACKING.put(tKey2, curValue);
 
         if (changedField == null) return Optional.empty();
         Map<String, Object> row = new HashMap<>();
         row.put("trackingNumber", r.getTrackingNumber());
         row.put("sn", r.getSn());
-        row.put("field", changedField);
+        row.put("field", changedField.key());
         // 样式 from/to
-        CellStyleSnap a = prevStyle.get(changedField);
-        CellStyleSnap b = curStyle.get(changedField);
-        row.put("fromBg", a == null ? null : a.getBg());
-        row.put("toBg",   b == null ? null : b.getBg());
-        row.put("fromFont", a == null ? null : a.getFont());
-        row.put("toFont",   b == null ? null : b.getFont());
-        row.put("fromStrike", a == null ? Boolean.FALSE : a.getStrike());
-        row.put("toStrike",   b == null ? Boolean.FALSE : b.getStrike());
+        row.put("fromBg", prev.bg(changedField));
+        row.put("toBg",   cur.bg(changedField));
+        row.put("fromFont", prev.font(changedField));
+        row.put("toFont",   cur.font(changedField));
+        row.put("fromStrike", prev.strike(changedField));
+        row.put("toStrike",   cur.strike(changedField));
         // 内容 from/to
-        row.put("fromText", prevValue.get(changedField));
-        row.put("toText",   curValue.get(changedField));
+        row.put("fromText", prev.value(changedField));
+        row.put("toText",   cur.value(changedField));
         return Optional.of(row);
     }
 
@@ -322,316 +225,896 @@ public class OrderServiceImpl implements OrderService {
         m.put("model",    safeStr(r.getModel()));
         m.put("sn",       safeStr(r.getSn()));
         m.put("remark",   safeStr(r.getRemark()));
-        m.put("amount",   r.getAmount() == null ? "" : r.getAmount().stripTrailingZeros().toPlainString());
+        m.put("amount",   OrderRowFingerprint.amountText(r.getAmount()));
         return m;
     }
 
     private String safeStr(String s) { return s == null ? "" : s.trim(); }
 
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(OrderServiceImpl.class);
+
+    private final OrderRecordMapper orderRecordMapper;
+    private final SettlementService settlementService;
+    private final UserSubmissionMapper userSubmissionMapper;
+    private final OrderCellStyleMapper orderCellStyleMapper;
+    private final com.example.demo.settlement.mapper.SettlementRecordMapper settlementRecordMapper;
+    private final AppProperties appProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderRecordBatchWriter orderRecordBatchWriter;
+    private final SubmissionPresenceResolver submissionPresenceResolver;
+    private final ImportSnapshotStore importSnapshotStore;
+    private final ImportPlanCache importPlanCache;
+    private final DuplicateUploadCache duplicateUploadCache;
+    private final OrderPageCache orderPageCache;
+    private final OrderSearchIndex orderSearchIndex;
+    private final CurrentOwnerProjection currentOwnerProjection;
+    private final ImportConcurrencyLimiter importConcurrencyLimiter;
+
+    // 匹配阶段并行池，首次并行导入时创建
+    private volatile ForkJoinPool matchPool;
+
     /**
-     * 基于 Excel 行号检测是否发生变化（仅行号对齐，不使用SN/运单号）
-     * 比较内容与样式（颜色/加删除线）。
-     * 同时更新该行的基线快照。
-     * 返回：true 表示发生变化；false 表示未变化。
+     * 导入分三段：解析 -> 内存匹配（只读预加载）-> 按块写入。
+     * 写入阶段每 app.import-job.chunk-size 行一个独立事务：块内订单、样式、待结算记录一起提交或一起回滚，
+     * 某块失败只回滚该块并记入报告，其余块照常提交，避免一行坏数据回滚整份文件、长时间持有大量行锁。
+     * 与后台导入任务共用并发名额，名额已满时直接返回繁忙。
      */
-    private boolean isRowChangedAndUpdateBaseline(OrderRecord r, String operator) { Snapshot s = snaps(operator);
-        Integer row = r.getExcelRowIndex();
-        Map<String, CellStyleSnap> curStyle = buildStyleMap(r);
-        Map<String, String> curValue = buildValueMap(r);
-        // 没有行号时，视为发生变化（无法判断），同时不写入行号快照
-        if (row == null) {
-            return true;
-        }
-        Map<String, CellStyleSnap> prevStyle = s.LAST_STYLE_BY_ROW.get(row);
-        Map<String, String> prevValue = s.LAST_VALUE_BY_ROW.get(row);
-        boolean changed = false;
-        if (prevStyle == null || prevValue == null) {
-            changed = true; // 首次出现，视为变化
-        } else {
-            // 字段顺序与 buildMap 保持一致
-            List<String> order = Arrays.asList("tracking","model","sn","remark","amount");
-            for (String f : order) {
-                CellStyleSnap a = prevStyle.get(f);
-                CellStyleSnap b = curStyle.get(f);
-                boolean styleChanged = !Objects.equals(a == null ? null : a.getBg(),   b == null ? null : b.getBg())
-                        || !Objects.equals(a == null ? null : a.getFont(), b == null ? null : b.getFont())
-                        || !Objects.equals(a == null ? Boolean.FALSE : a.getStrike(), b == null ? Boolean.FALSE : b.getStrike())
-                        || !Objects.equals(a == null ? Boolean.FALSE : a.getBold(), b == null ? Boolean.FALSE : b.getBold());
-                String va = prevValue.get(f);
-                String vb = curValue.get(f);
-                boolean valueChanged = !Objects.equals(va, vb);
-                if (styleChanged || valueChanged) { changed = true; break; }
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> importOrders(MultipartFile file, String operator) {
+        String fileHash = hashOf(file);
+        // 窗口内重复上传同一文件（如浏览器重试）：直接返回上次的报告，不再解析和匹配
+        Map<String, Object> previous = duplicateUploadCache.find(DuplicateUploadCache.KIND_ORDER, operator, fileHash, Map.class);
+        if (previous != null) {
+            log.info("订单导入重复上传，返回上次报告: operator={}, file={}", operator, file.getOriginalFilename());
+            // 返回副本，不改动缓存层交出的报告
+            Map<String, Object> duplicate = new LinkedHashMap<>(previous);
+            duplicate.put("duplicateUpload", true);
+            return duplicate;
+        }
+        Map<String, Object> report = importConcurrencyLimiter.runNow(operator, () -> {
+            // 刚预览过同一文件：直接按预览算好的计划写入，不再解析和匹配
+            if (importPlanCache.hasPlans(operator)) {
+                ImportPlan plan = importPlanCache.find(operator, fileHash);
+                if (plan != null && importPlanCache.take(plan) != null) {
+                    log.info("订单导入复用预览计划: previewId={}, operator={}, rows={}", plan.id, operator, plan.records.size());
+                    return executePreviewPlan(plan, operator);
+                }
+            }
+            try (InputStream in = file.getInputStream()) {
+                return importOrders(in, operator, ImportProgress.none());
+            } catch (IOException e) {
+                throw new BusinessException(ErrorCode.BAD_REQUEST, "Excel 解析失败");
             }
+        });
+        rememberImportReport(operator, fileHash, report);
+        return report;
+    }
+
+    @Override
+    public Map<String, Object> importOrders(InputStream inputStream, String operator, ImportProgress progress) {
+        try {
+            return executePlan(planImport(sink -> ExcelHelper.streamOrders(inputStream, operator, sink),
+                    operator, progress, null, null), operator, progress);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "Excel 解析失败");
         }
-        // 更新该行的基线
-        s.LAST_STYLE_BY_ROW.put(row, curStyle);
-        s.LAST_VALUE_BY_ROW.put(row, curValue);
-        return changed;
     }
 
-    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(OrderServiceImpl.class);
+    @Override
+    public Map<String, Object> importOrders(Path file, String operator, ImportProgress progress) {
+        try {
+            return executePlan(planImport(sink -> ExcelHelper.streamOrders(file, operator, sink),
+                    operator, progress, null, null), operator, progress);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "Excel 解析失败");
+        }
+    }
 
-    private boolean isChangedAndUpdateBaseline(OrderRecord r, String operator) {
-        Snapshot s = snaps(operator);
-        // 通过 时间+物流单号+SN 匹配数据库记录
-        OrderRecord dbLatest = null;
-        List<OrderCellStyle> dbStyles = null;
-
-        // 如果 SN 或物流单号包含中文，不做匹配，直接作为新记录插入
-        boolean containsChinese = containsChinese(r.getSn()) || containsChinese(r.getTrackingNumber());
-
-        if (!containsChinese && StringUtils.hasText(r.getSn()) && StringUtils.hasText(r.getTrackingNumber())) {
-            LambdaQueryWrapper<OrderRecord> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(OrderRecord::getSn, r.getSn().trim())
-                   .eq(OrderRecord::getTrackingNumber, r.getTrackingNumber().trim());
-            // 不再使用 orderTime 作为匹配条件，因为 Excel 导入的时间格式可能不一致
-            // tracking_number + sn 组合已足够唯一标识记录
-            wrapper.orderByDesc(OrderRecord::getCreatedAt)
-                   .last("LIMIT 1");
-            dbLatest = orderRecordMapper.selectOne(wrapper);
-            if (dbLatest != null) {
-                // 找到匹配的记录，使用数据库的ID
-                r.setId(dbLatest.getId());
-                dbStyles = orderCellStyleMapper.selectList(
-                        new QueryWrapper<OrderCellStyle>().lambda()
-                                .eq(OrderCellStyle::getOrderId, dbLatest.getId())
-                );
+    /**
+     * 导入预览：解析并与数据库只读匹配，不写库、不更新会话快照、不开启事务。
+     * 结果按 (用户, 文件哈希) 缓存，有效期内再次预览同一文件直接分页，提交时复用匹配结果。
+     */
+    @Override
+    public ImportPreviewView previewImport(MultipartFile file, String operator, String type, int page, int size) {
+        if (file == null || file.isEmpty()) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "请选择要导入的文件");
+        }
+        String fileHash = hashOf(file);
+        ImportPlan plan = importPlanCache.find(operator, fileHash);
+        if (plan == null) {
+            // 解析与匹配同样占用数据库连接，与导入共用并发名额
+            plan = importConcurrencyLimiter.runNow(operator, () -> {
+                try (InputStream in = file.getInputStream()) {
+                    return planImport(sink -> ExcelHelper.streamOrders(in, operator, sink), operator,
+                            ImportProgress.none(), file.getOriginalFilename(), fileHash);
+                } catch (IOException e) {
+                    throw new BusinessException(ErrorCode.BAD_REQUEST, "Excel 解析失败");
+                }
+            });
+            importPlanCache.put(plan);
+            log.info("订单导入预览: previewId={}, operator={}, rows={}, new={}, changed={}, deleted={}",
+                    plan.id, operator, plan.records.size(), plan.newCount, plan.changedCount, plan.deleted.size());
+        }
+        return toPreviewView(plan, type, page, size);
+    }
+
+    @Override
+    public ImportPreviewView getImportPreview(String previewId, String operator, boolean admin, String type, int page, int size) {
+        return toPreviewView(requirePlan(previewId, operator, admin), type, page, size);
+    }
+
+    @Override
+    public Map<String, Object> commitImportPreview(String previewId, String operator, boolean admin) {
+        ImportPlan pending = requirePlan(previewId, operator, admin);
+        // 拿到并发名额后再取出计划，繁忙时预览仍保留，可稍后重新提交
+        return importConcurrencyLimiter.runNow(operator, () -> {
+            ImportPlan plan = importPlanCache.take(pending);
+            if (plan == null) {
+                throw new BusinessException(ErrorCode.NOT_FOUND, "导入预览不存在或已提交");
             }
+            log.info("提交订单导入预览: previewId={}, operator={}, rows={}", plan.id, operator, plan.records.size());
+            Map<String, Object> report = executePreviewPlan(plan, plan.operator);
+            rememberImportReport(plan.operator, plan.fileHash, report);
+            return report;
+        });
+    }
+
+    /**
+     * 记住本次导入报告供重复上传短路；有失败块或版本冲突时不记，重新上传应当重试这些行
+     */
+    private void rememberImportReport(String operator, String fileHash, Map<String, Object> report) {
+        report.put("duplicateUpload", false);
+        if ((Integer) report.get("failedCount") == 0 && (Integer) report.get("conflictCount") == 0) {
+            duplicateUploadCache.remember(DuplicateUploadCache.KIND_ORDER, operator, Map.of(fileHash, report));
+        } else {
+            duplicateUploadCache.forget(DuplicateUploadCache.KIND_ORDER, operator);
+        }
+    }
+
+    private ImportPlan requirePlan(String previewId, String operator, boolean admin) {
+        ImportPlan plan = importPlanCache.get(previewId);
+        if (plan == null) {
+            throw new BusinessException(ErrorCode.NOT_FOUND, "导入预览不存在或已过期");
+        }
+        if (!admin && !Objects.equals(operator, plan.operator)) {
+            throw new BusinessException(ErrorCode.FORBIDDEN);
         }
+        return plan;
+    }
+
+    private static final List<String> PREVIEW_FIELDS = List.of("tracking", "model", "sn", "remark", "amount");
 
-        // 2. 如果数据库中存在记录，进行比较
-        if (dbLatest != null) {
-            Map<String, CellStyleSnap> curStyle = buildStyleMap(r);
-            Map<String, String> curValue = buildValueMap(r);
-
-            // 从数据库记录构建样式和内容
-            Map<String, CellStyleSnap> dbStyleMap = buildStyleMapFromDb(dbLatest, dbStyles);
-            Map<String, String> dbValueMap = buildValueMap(dbLatest);
-
-            List<String> order = Arrays.asList("tracking","model","sn","remark","amount");
-            boolean changed = false;
-            String changedField = null;
-
-            for (String f : order) {
-                CellStyleSnap a = dbStyleMap.get(f);
-                CellStyleSnap b = curStyle.get(f);
-                boolean styleChanged = !Objects.equals(a == null ? null : a.getBg(),   b == null ? null : b.getBg())
-                        || !Objects.equals(a == null ? null : a.getFont(), b == null ? null : b.getFont())
-                        || !Objects.equals(a == null ? Boolean.FALSE : a.getStrike(), b == null ? Boolean.FALSE : b.getStrike())
-                        || !Objects.equals(a == null ? Boolean.FALSE : a.getBold(), b == null ? Boolean.FALSE : b.getBold());
-                String va = dbValueMap.get(f);
-                String vb = curValue.get(f);
-                boolean valueChanged = !Objects.equals(va, vb);
-                if (styleChanged || valueChanged) {
-                    changed = true;
-                    changedField = f;
-                    break;
+    /**
+     * 按差异类型筛选并分页；差异明细只为当前页的行构建
+     */
+    private ImportPreviewView toPreviewView(ImportPlan plan, String type, int page, int size) {
+        String filter = StringUtils.hasText(type) ? type.trim().toUpperCase(Locale.ROOT) : null;
+        if (filter != null && !List.of(ImportPlan.TYPE_NEW, ImportPlan.TYPE_CHANGED, ImportPlan.TYPE_UNCHANGED, ImportPlan.TYPE_DELETED).contains(filter)) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "差异类型只能是 NEW / CHANGED / UNCHANGED / DELETED");
+        }
+        int pageNo = Math.max(page, 1);
+        int pageSize = size <= 0 || size > 500 ? 50 : size;
+        long from = (long) (pageNo - 1) * pageSize;
+
+        // 先 Excel 行（按行序），后删除的记录
+        List<ImportPreviewItem> items = new ArrayList<>();
+        long total = 0;
+        for (int i = 0; i < plan.records.size(); i++) {
+            if (filter != null && !filter.equals(plan.type(i))) continue;
+            if (total >= from && items.size() < pageSize) {
+                items.add(toPreviewItem(plan, i));
+            }
+            total++;
+        }
+        if (filter == null || ImportPlan.TYPE_DELETED.equals(filter)) {
+            for (OrderRecord db : plan.deleted) {
+                if (total >= from && items.size() < pageSize) {
+                    ImportPreviewItem item = new ImportPreviewItem();
+                    item.setType(ImportPlan.TYPE_DELETED);
+                    fillPreviewItem(item, db);
+                    items.add(item);
                 }
+                total++;
             }
+        }
+
+        PageResponse<ImportPreviewItem> pageResponse = new PageResponse<>();
+        pageResponse.setTotal(total);
+        pageResponse.setPage(pageNo);
+        pageResponse.setSize(pageSize);
+        pageResponse.setRecords(items);
+
+        ImportPreviewView view = new ImportPreviewView();
+        view.setPreviewId(plan.id);
+        view.setFileName(plan.fileName);
+        view.setFileHash(plan.fileHash);
+        view.setCreatedAt(plan.createdAt);
+        view.setExpiresAt(importPlanCache.expiresAt(plan));
+        view.setParsed(plan.records.size());
+        view.setNewCount(plan.newCount);
+        view.setChangedCount(plan.changedCount);
+        view.setUnchangedCount(plan.unchangedCount());
+        view.setDeletedCount(plan.deleted.size());
+        view.setType(filter);
+        view.setItems(pageResponse);
+        return view;
+    }
 
-            // 仍然更新内存快照（用于会话内的快速比较）
-            String key = styleKey(r);
-            s.LAST_IMPORT_SNAPSHOT.put(key, curStyle);
-            s.LAST_VALUE_SNAPSHOT.put(key, curValue);
-            if (r.getExcelRowIndex() != null) {
-                s.LAST_STYLE_BY_ROW.put(r.getExcelRowIndex(), curStyle);
-                s.LAST_VALUE_BY_ROW.put(r.getExcelRowIndex(), curValue);
+    private ImportPreviewItem toPreviewItem(ImportPlan plan, int index) {
+        OrderRecord r = plan.records.get(index);
+        ImportPreviewItem item = new ImportPreviewItem();
+        item.setType(plan.type(index));
+        item.setExcelRow(r.getExcelRowIndex());
+        fillPreviewItem(item, r);
+        if (!ImportPlan.TYPE_CHANGED.equals(item.getType())) {
+            return item;
+        }
+        // 与 compareWithSessionSnapshot 相同的 from/to 结构，基线为匹配到的数据库记录及其样式
+        OrderRecord db = plan.preload.record(r.getId());
+        Map<String, CellStyleSnap> fromStyle = buildStyleMapFromDb(db, plan.preload.styles(db.getId()));
+        Map<String, String> fromValue = buildValueMap(db);
+        Map<String, CellStyleSnap> toStyle = buildStyleMap(r);
+        Map<String, String> toValue = buildValueMap(r);
+        List<String> changedFields = new ArrayList<>();
+        for (String f : PREVIEW_FIELDS) {
+            if (!Objects.equals(fromStyle.get(f), toStyle.get(f)) || !Objects.equals(fromValue.get(f), toValue.get(f))) {
+                changedFields.add(f);
             }
-            String tKey = (r.getTrackingNumber() == null ? "" : r.getTrackingNumber().toUpperCase(Locale.ROOT));
-            s.LAST_STYLE_BY_TRACKING.put(tKey, curStyle);
-            s.LAST_VALUE_BY_TRACKING.put(tKey, curValue);
+        }
+        item.setChangedFields(changedFields);
+        if (!changedFields.isEmpty()) {
+            String f = changedFields.get(0);
+            CellStyleSnap a = fromStyle.get(f);
+            CellStyleSnap b = toStyle.get(f);
+            item.setField(f);
+            item.setFromText(fromValue.get(f));
+            item.setToText(toValue.get(f));
+            item.setFromBg(a.getBg());
+            item.setToBg(b.getBg());
+            item.setFromFont(a.getFont());
+            item.setToFont(b.getFont());
+            item.setFromStrike(a.getStrike());
+            item.setToStrike(b.getStrike());
+            item.setFromBold(a.getBold());
+            item.setToBold(b.getBold());
+        }
+        return item;
+    }
+
+    private void fillPreviewItem(ImportPreviewItem item, OrderRecord r) {
+        item.setId(r.getId());
+        item.setTrackingNumber(r.getTrackingNumber());
+        item.setSn(r.getSn());
+        item.setModel(r.getModel());
+        item.setAmount(r.getAmount());
+    }
+
+    private String hashOf(MultipartFile file) {
+        try {
+            return FileHashUtil.sha256Hex(file);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "读取上传文件失败");
+        }
+    }
+
+    /**
+     * 解析出的订单行（来自上传流或本地文件）
+     */
+    @FunctionalInterface
+    private interface OrderRowSource {
+        void forEach(Consumer<OrderRecord> sink) throws IOException;
+    }
+
+    /**
+     * 解析 + 预加载 + 匹配，生成写入计划（只读，不修改数据库与会话快照）
+     */
+    private ImportPlan planImport(OrderRowSource source, String operator, ImportProgress progress,
+                                  String fileName, String fileHash) throws IOException {
+        progress.phase(ImportProgress.PHASE_PARSING);
+        List<OrderRecord> records = new ArrayList<>();
+        source.forEach(r -> {
+            records.add(r);
+            progress.parsed();
+        });
+
+        progress.phase(ImportProgress.PHASE_MATCHING);
+        // 预加载数据库中相关记录及样式：匹配、写入、删除检测共用这一份视图
+        ImportPreloadContext preload = preloadForImport(trackingNumbersOf(records));
+
+        // 通过SN+物流单号+Model匹配数据库记录，设置ID（用于后续更新而非插入），同时进行变更检测
+        // 使用智能匹配算法，避免删除记录导致的错位问题
+        MatchOutcome outcome = matchRecords(records, preload, progress);
+        return new ImportPlan(operator, fileName, fileHash, records, preload, outcome, detectDeletedRecords(preload));
+    }
 
-            return changed;
+    /**
+     * 收集所有物流单号（预加载的范围）
+     */
+    private static Set<String> trackingNumbersOf(List<OrderRecord> records) {
+        return records.stream()
+                .map(OrderRecord::getTrackingNumber)
+                .filter(StringUtils::hasText)
+                .map(String::trim)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 执行预览缓存的计划。计划的匹配结果（id/version、新增行）来自预览时的预加载，期间其他导入或编辑
+     * 可能已改动同一批物流单号下的记录：更新带 version 条件会被拦下，插入却没有保护，可能与期间新写入的记录重复。
+     * 因此先按同一批物流单号重新预加载，记录集合与 version 都未变时沿用计划，否则按最新数据重新匹配（不重新解析）。
+     */
+    private Map<String, Object> executePreviewPlan(ImportPlan plan, String operator) {
+        ImportPreloadContext fresh = preloadForImport(trackingNumbersOf(plan.records));
+        boolean rematched = !fresh.sameVersionsAs(plan.preload);
+        ImportPlan current = plan;
+        if (rematched) {
+            log.info("预览后相关订单已变化，按最新数据重新匹配: previewId={}, rows={}", plan.id, plan.records.size());
+            for (OrderRecord r : plan.records) {
+                r.setId(null);
+                r.setVersion(null);
+            }
+            MatchOutcome outcome = matchRecords(plan.records, fresh, ImportProgress.none());
+            current = new ImportPlan(plan.operator, plan.fileName, plan.fileHash, plan.records, fresh, outcome,
+                    detectDeletedRecords(fresh));
         }
+        Map<String, Object> report = executePlan(current, operator, ImportProgress.none());
+        report.put("previewRematched", rematched);
+        return report;
+    }
 
-        // 3. 数据库中不存在，视为首次出现，返回 true（有变化）
-        String key = styleKey(r);
-        Map<String, CellStyleSnap> curStyle = buildStyleMap(r);
-        Map<String, String> curValue = buildValueMap(r);
+    /**
+     * 按计划写入：更新会话快照、回填指纹、分块提交变化行，并生成导入报告
+     */
+    private Map<String, Object> executePlan(ImportPlan plan, String operator, ImportProgress progress) {
+        List<OrderRecord> records = plan.records;
+        ImportPreloadContext preload = plan.preload;
+        MatchOutcome outcome = plan.outcome;
+        // 按 Excel 行序更新会话快照、收集待回填指纹，与顺序匹配的结果一致
+        List<OrderRecord> fingerprintBackfill = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            importSnapshotStore.put(operator, records.get(i));
+            if (outcome.backfill[i] != null) {
+                fingerprintBackfill.add(outcome.backfill[i]);
+            }
+        }
+        int fingerprintHits = outcome.fingerprintHits();
+        backfillFingerprints(fingerprintBackfill);
+
+        progress.phase(ImportProgress.PHASE_WRITING);
+
+        int skippedUnchanged = 0;
+        List<Integer> skippedRows = new ArrayList<>();
+        List<OrderRecord> pending = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            OrderRecord record = records.get(i);
+            // 使用之前记录的变更检测结果（不再重复调用）
+            if (!outcome.changed[i]) {
+                skippedUnchanged++;
+                if (record.getExcelRowIndex() != null) skippedRows.add(record.getExcelRowIndex());
+                // 未变化：不插入、不更新样式、不生成结算待处理
+                continue;
+            }
+            pending.add(record);
+        }
+
+        // 按块提交：每块一个事务，失败的块整体回滚并记录，继续处理后续块
+        int chunkSize = appProperties.getImportJob().getChunkSize();
+        if (chunkSize <= 0) {
+            chunkSize = Math.max(pending.size(), 1);
+        }
+        List<OrderRecord> changedRecords = new ArrayList<>();
+        List<Map<String, Object>> chunkReports = new ArrayList<>();
+        List<Integer> failedRows = new ArrayList<>();
+        int failedCount = 0;
+        int conflictCount = 0;
+        int submissionQueriesSaved = 0;
+        long writeStart = System.currentTimeMillis();
+        for (int from = 0, chunkIndex = 0; from < pending.size(); from += chunkSize, chunkIndex++) {
+            List<OrderRecord> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            Map<String, Object> chunkReport = writeChunk(chunkIndex, chunk, preload, progress, changedRecords);
+            chunkReports.add(chunkReport);
+            if (!Boolean.TRUE.equals(chunkReport.get("committed"))) {
+                failedCount += chunk.size();
+                for (OrderRecord r : chunk) {
+                    if (r.getExcelRowIndex() != null) failedRows.add(r.getExcelRowIndex());
+                }
+            } else {
+                conflictCount += chunk.size() - (Integer) chunkReport.get("written");
+            }
+            submissionQueriesSaved += (Integer) chunkReport.get("submissionQueriesSaved");
+        }
+        long writeMillis = System.currentTimeMillis() - writeStart;
+        long rowsPerSecond = writeMillis == 0 ? pending.size() * 1000L : pending.size() * 1000L / writeMillis;
+        if (!pending.isEmpty()) {
+            log.info("订单导入写入完成: rows={}, chunks={}, written={}, conflicts={}, failed={}, {}ms, {} rows/s, 提交状态查询节省 {} 次",
+                    pending.size(), chunkReports.size(), changedRecords.size(), conflictCount, failedCount,
+                    writeMillis, rowsPerSecond, submissionQueriesSaved);
+        }
+        Map<String, Object> report = new HashMap<>();
+        // 统计信息：跳过未变化的行
+        report.put("skippedUnchanged", skippedUnchanged);
+        report.put("skippedRows", skippedRows);
+        report.put("importedCount", changedRecords.size());
+        // 分块提交对账：parsed = unchanged + written + conflicts + failed
+        report.put("chunkSize", chunkSize);
+        report.put("chunks", chunkReports);
+        report.put("failedCount", failedCount);
+        report.put("failedRows", failedRows);
+        report.put("conflictCount", conflictCount);
+        report.put("writeMillis", writeMillis);
+        report.put("rowsPerSecond", rowsPerSecond);
+        report.put("submissionQueriesSaved", submissionQueriesSaved);
+        report.put("fingerprintHits", fingerprintHits);
+        report.put("fingerprintBackfilled", fingerprintBackfill.size());
+        Map<String, Object> reconciliation = new LinkedHashMap<>();
+        reconciliation.put("parsed", records.size());
+        reconciliation.put("unchanged", skippedUnchanged);
+        reconciliation.put("written", changedRecords.size());
+        reconciliation.put("conflicts", conflictCount);
+        reconciliation.put("failed", failedCount);
+        reconciliation.put("balanced",
+                records.size() == skippedUnchanged + changedRecords.size() + conflictCount + failedCount);
+        report.put("reconciliation", reconciliation);
+
+        // 返回变化记录的ID列表（前端只需要对比这些ID）
+        List<Long> changedIds = changedRecords.stream()
+                .map(OrderRecord::getId)
+                .filter(Objects::nonNull)
+                .toList();
+        report.put("changedIds", changedIds);
 
-        // 更新内存快照
-        s.LAST_IMPORT_SNAPSHOT.put(key, curStyle);
-        s.LAST_VALUE_SNAPSHOT.put(key, curValue);
-        if (r.getExcelRowIndex() != null) {
-            s.LAST_STYLE_BY_ROW.put(r.getExcelRowIndex(), curStyle);
-            s.LAST_VALUE_BY_ROW.put(r.getExcelRowIndex(), curValue);
+        // 返回样式信息（仅变化的用于即时展示）
+        List<Map<String, Object>> styles = changedRecords.stream().map(r -> {
+            Map<String, Object> m = new HashMap<>();
+            m.put("id", r.getId());
+            m.put("trackingNumber", r.getTrackingNumber());
+            m.put("sn", r.getSn());
+            m.put("trackingBgColor", r.getTrackingBgColor());
+            m.put("trackingFontColor", r.getTrackingFontColor());
+            m.put("trackingStrike", r.getTrackingStrike());
+            m.put("modelBgColor", r.getModelBgColor());
+            m.put("modelFontColor", r.getModelFontColor());
+            m.put("modelStrike", r.getModelStrike());
+            m.put("snBgColor", r.getSnBgColor());
+            m.put("snFontColor", r.getSnFontColor());
+            m.put("snStrike", r.getSnStrike());
+            m.put("amountBgColor", r.getAmountBgColor());
+            m.put("amountFontColor", r.getAmountFontColor());
+            m.put("amountStrike", r.getAmountStrike());
+            m.put("remarkBgColor", r.getRemarkBgColor());
+            m.put("remarkFontColor", r.getRemarkFontColor());
+            m.put("remarkStrike", r.getRemarkStrike());
+            return m;
+        }).toList();
+        report.put("styles", styles);
+
+        // 检测删除的记录（数据库有但Excel没有）
+        List<OrderRecord> deletedRecords = plan.deleted;
+        if (!deletedRecords.isEmpty()) {
+            List<Map<String, Object>> deletedList = deletedRecords.stream().map(r -> {
+                Map<String, Object> m = new HashMap<>();
+                m.put("id", r.getId());
+                m.put("trackingNumber", r.getTrackingNumber());
+                m.put("model", r.getModel());
+                m.put("sn", r.getSn());
+                m.put("amount", r.getAmount());
+                m.put("remark", r.getRemark());
+                m.put("orderTime", r.getOrderTime());
+                return m;
+            }).toList();
+            report.put("deletedRecords", deletedList);
         }
-        String tKey = (r.getTrackingNumber() == null ? "" : r.getTrackingNumber().toUpperCase(Locale.ROOT));
-        s.LAST_STYLE_BY_TRACKING.put(tKey, curStyle);
-        s.LAST_VALUE_BY_TRACKING.put(tKey, curValue);
 
-        return true;
+        return report;
     }
 
-    private final OrderRecordMapper orderRecordMapper;
-    private final SettlementService settlementService;
-    private final UserSubmissionMapper userSubmissionMapper;
-    private final OrderCellStyleMapper orderCellStyleMapper;
-    private final com.example.demo.settlement.mapper.SettlementRecordMapper settlementRecordMapper;
+    /**
+     * 逐行匹配结果，按 Excel 行下标存放，合并顺序与行序无关
+     */
+    static final class MatchOutcome {
+        final boolean[] changed;
+        final boolean[] fingerprintHit;
+        /** 未变化但指纹缺失/过期、需回填指纹的数据库记录 */
+        final OrderRecord[] backfill;
+
+        MatchOutcome(int size) {
+            changed = new boolean[size];
+            fingerprintHit = new boolean[size];
+            backfill = new OrderRecord[size];
+        }
+
+        int fingerprintHits() {
+            int hits = 0;
+            for (boolean hit : fingerprintHit) {
+                if (hit) hits++;
+            }
+            return hits;
+        }
+    }
 
-    @Override
-    @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
-    public Map<String, Object> importOrders(MultipartFile file, String operator) {
+    /**
+     * 匹配阶段：为每行确定对应的数据库记录（设置 id/version）并判断是否变化。
+     * 不同匹配键的行不会竞争同一批候选，按匹配键分区后在 ForkJoin 池上并行处理，分区内保持 Excel 行序，
+     * 因此 ID 分配与顺序执行完全一致。app.import-job.parallel-match=false 或行数低于阈值时顺序执行。
+     */
+    private MatchOutcome matchRecords(List<OrderRecord> records, ImportPreloadContext preload, ImportProgress progress) {
+        MatchOutcome outcome = new MatchOutcome(records.size());
+        AppProperties.ImportJob cfg = appProperties.getImportJob();
+        long start = System.currentTimeMillis();
+        if (!cfg.isParallelMatch() || records.size() < cfg.getParallelMatchMinRows()) {
+            for (int i = 0; i < records.size(); i++) {
+                matchRecord(i, records.get(i), preload, outcome, progress);
+            }
+            return outcome;
+        }
+
+        Map<String, List<Integer>> partitions = new LinkedHashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            OrderRecord r = records.get(i);
+            partitions.computeIfAbsent(buildMatchKey(r.getTrackingNumber(), r.getSn(), r.getModel()), k -> new ArrayList<>()).add(i);
+        }
+        List<List<Integer>> groups = new ArrayList<>(partitions.values());
         try {
-            List<OrderRecord> records = ExcelHelper.readOrders(file.getInputStream(), operator);
-            List<OrderRecord> needSettlement = new ArrayList<>();
-
-            // === 预加载数据库记录，用于顺序匹配 ===
-            // 收集所有物流单号
-            Set<String> allTrackingNumbers = records.stream()
-                    .map(OrderRecord::getTrackingNumber)
-                    .filter(StringUtils::hasText)
-                    .map(String::trim)
-                    .collect(Collectors.toSet());
-
-            // 预加载数据库中相关记录，并一次性批量加载样式，避免导入时 N+1 查询
-            Map<String, List<OrderRecord>> dbRecordsByKey = new HashMap<>();
-            Map<String, Integer> matchCounterByKey = new HashMap<>();  // 每个key已匹配的计数
-            Map<Long, List<OrderCellStyle>> stylesByOrderId = new HashMap<>();
-            if (!allTrackingNumbers.isEmpty()) {
-                LambdaQueryWrapper<OrderRecord> preloadWrapper = new LambdaQueryWrapper<>();
-                preloadWrapper.in(OrderRecord::getTrackingNumber, allTrackingNumbers)
-                        .orderByAsc(OrderRecord::getId);  // 按ID升序，保证顺序稳定
-                List<OrderRecord> dbRecords = orderRecordMapper.selectList(preloadWrapper);
-
-                // 批量加载样式，按 orderId 分组缓存
-                List<Long> preloadIds = dbRecords.stream()
-                        .map(OrderRecord::getId)
-                        .filter(Objects::nonNull)
-                        .toList();
-                if (!preloadIds.isEmpty()) {
-                    List<OrderCellStyle> preloadStyles = orderCellStyleMapper.selectList(
-                            new QueryWrapper<OrderCellStyle>().lambda().in(OrderCellStyle::getOrderId, preloadIds)
-                    );
-                    Map<Long, List<OrderCellStyle>> grouped = preloadStyles.stream()
-                            .collect(Collectors.groupingBy(OrderCellStyle::getOrderId));
-                    stylesByOrderId.putAll(grouped);
+            matchPool().submit(() -> groups.parallelStream().forEach(group -> {
+                for (int i : group) {
+                    matchRecord(i, records.get(i), preload, outcome, progress);
                 }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "导入匹配被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "导入匹配失败");
+        }
+        log.info("订单导入并行匹配完成: rows={}, partitions={}, parallelism={}, {}ms",
+                records.size(), groups.size(), matchPool().getParallelism(), System.currentTimeMillis() - start);
+        return outcome;
+    }
 
-                // 按 tracking_number + sn + model 分组
-                for (OrderRecord db : dbRecords) {
-                    String key = buildMatchKey(db.getTrackingNumber(), db.getSn(), db.getModel());
-                    dbRecordsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(db);
-                }
+    private void matchRecord(int index, OrderRecord record, ImportPreloadContext preload,
+                             MatchOutcome outcome, ImportProgress progress) {
+        record.setImported(Boolean.TRUE);
+        if (record.getTrackingNumber() != null) {
+            record.setCategory(TrackingCategoryUtil.resolve(record.getTrackingNumber()));
+        }
+        // 先按 (匹配键, 指纹) 查找未被占用的完全相同记录：命中即未变化，无需构建比较结构
+        if (matchByFingerprint(record, preload)) {
+            outcome.fingerprintHit[index] = true;
+            progress.matched();
+            return;
+        }
+        // 未命中：调用变更检测（使用内容相似度智能匹配）
+        boolean changed = isChangedWithPreload(record, preload);
+        if (!changed && record.getId() != null) {
+            // 未变化但指纹缺失/过期（历史数据或被其它入口修改过）：补算，下次导入可直接命中
+            OrderRecord db = preload.record(record.getId());
+            long fp = OrderRowFingerprint.ofStored(db, preload.styles(db.getId()));
+            if (!Objects.equals(db.getRowFingerprint(), fp)) {
+                db.setRowFingerprint(fp);
+                outcome.backfill[index] = db;
             }
+        }
+        outcome.changed[index] = changed;
+        progress.matched();
+    }
 
-            // 通过SN+物流单号+Model匹配数据库记录，设置ID（用于后续更新而非插入），同时进行变更检测
-            // 使用智能匹配算法，避免删除记录导致的错位问题
-            Map<OrderRecord, Boolean> changeResults = new HashMap<>();
-            Set<Long> matchedDbIds = new HashSet<>();  // 记录已匹配的数据库记录ID，避免重复匹配
-            for (OrderRecord record : records) {
-                record.setImported(Boolean.TRUE);
-                if (record.getTrackingNumber() != null) {
-                    record.setCategory(TrackingCategoryUtil.resolve(record.getTrackingNumber()));
+    private ForkJoinPool matchPool() {
+        ForkJoinPool pool = matchPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = matchPool;
+                if (pool == null) {
+                    int parallelism = appProperties.getImportJob().getMatchParallelism();
+                    if (parallelism <= 0) {
+                        parallelism = Runtime.getRuntime().availableProcessors();
+                    }
+                    AtomicInteger seq = new AtomicInteger();
+                    pool = new ForkJoinPool(parallelism, p -> {
+                        ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                        t.setName("order-import-match-" + seq.incrementAndGet());
+                        return t;
+                    }, null, false);
+                    matchPool = pool;
                 }
-                // 调用变更检测（使用内容相似度智能匹配）
-                boolean changed = isChangedAndUpdateBaselineWithPreload(record, operator, dbRecordsByKey, matchCounterByKey, stylesByOrderId, matchedDbIds);
-                changeResults.put(record, changed);
             }
+        }
+        return pool;
+    }
 
-            int skippedUnchanged = 0;
-            List<Integer> skippedRows = new ArrayList<>();
-            List<OrderRecord> changedRecords = new ArrayList<>();
-            for (OrderRecord record : records) {
-                // 使用之前记录的变更检测结果（不再重复调用）
-                boolean changed = changeResults.getOrDefault(record, true);
-
-                if (!changed) {
-                    skippedUnchanged++;
-                    if (record.getExcelRowIndex() != null) skippedRows.add(record.getExcelRowIndex());
-                    // 未变化：不插入、不更新样式、不生成结算待处理
-                    continue;
-                }
+    @PreDestroy
+    private void stopMatchPool() {
+        if (matchPool != null) {
+            matchPool.shutdownNow();
+        }
+    }
 
-                // 如果record.id不为空，说明找到了匹配的旧记录，应该更新而不是插入
-                if (record.getId() != null && record.getId() > 0) {
-                    // 更新现有记录
-                    updateDirectly(record);
-                } else {
-                    // 直接插入，不做唯一性检查，允许重复数据
-                    insertDirectly(record);
+    /**
+     * 按 (匹配键, 指纹) 查找按 ID 升序的第一条未被占用的数据库记录；命中时与逐字段比较得分 100 的结果一致。
+     */
+    private boolean matchByFingerprint(OrderRecord r, ImportPreloadContext preload) {
+        List<OrderRecord> candidates = preload.fingerprintCandidates(
+                buildMatchKey(r.getTrackingNumber(), r.getSn(), r.getModel()), OrderRowFingerprint.ofRecord(r));
+        if (candidates == null) {
+            return false;
+        }
+        for (OrderRecord candidate : candidates) {
+            if (preload.matchedIds().add(candidate.getId())) {
+                r.setId(candidate.getId());
+                r.setVersion(candidate.getVersion());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 回填未变化行的指纹（独立小事务，失败只影响下次导入的命中率）
+     */
+    private void backfillFingerprints(List<OrderRecord> dbRecords) {
+        if (dbRecords.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> orderRecordBatchWriter.updateFingerprints(dbRecords));
+        } catch (RuntimeException e) {
+            log.warn("回填导入指纹失败，共 {} 条: {}", dbRecords.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 在独立事务中写入一块变更记录：订单批量 insert/update、样式、待结算记录同进同退。
+     * 更新带 version 条件，影响 0 行的记录（已被他人修改或删除）记为冲突，不写样式、不生成结算。
+     * 失败时该块回滚，块内新插入记录的 ID 复原为匹配阶段的值，返回的块报告中 committed=false。
+     *
+     * @param written 成功写入的记录追加到此列表（仅在块提交后）
+     */
+    private Map<String, Object> writeChunk(int chunkIndex, List<OrderRecord> chunk,
+                                           ImportPreloadContext preload, ImportProgress progress,
+                                           List<OrderRecord> written) {
+        long start = System.currentTimeMillis();
+        Map<String, Object> chunkReport = new LinkedHashMap<>();
+        chunkReport.put("index", chunkIndex);
+        chunkReport.put("rows", chunk.size());
+        chunkReport.put("firstRow", chunk.get(0).getExcelRowIndex());
+        chunkReport.put("lastRow", chunk.get(chunk.size() - 1).getExcelRowIndex());
+
+        List<Long> matchedIds = chunk.stream().map(OrderRecord::getId).collect(Collectors.toList());
+        List<Integer> matchedVersions = chunk.stream().map(OrderRecord::getVersion).collect(Collectors.toList());
+        AtomicInteger submissionQueriesSaved = new AtomicInteger();
+        try {
+            List<OrderRecord> applied = transactionTemplate.execute(status -> {
+                List<OrderRecord> updates = new ArrayList<>();
+                List<OrderRecord> inserts = new ArrayList<>();
+                for (OrderRecord record : chunk) {
+                    prepareForWrite(record);
+                    // 如果record.id不为空，说明找到了匹配的旧记录，应该更新而不是插入
+                    if (record.getId() != null && record.getId() > 0) {
+                        record.setRowFingerprint(OrderRowFingerprint.afterWrite(
+                                record, preload.record(record.getId()), preload.styles(record.getId())));
+                        updates.add(record);
+                    } else {
+                        record.setRowFingerprint(OrderRowFingerprint.afterWrite(record, null, null));
+                        inserts.add(record);
+                    }
+                }
+                Set<OrderRecord> conflicts = Collections.newSetFromMap(new IdentityHashMap<>());
+                conflicts.addAll(orderRecordBatchWriter.updateAllById(updates));
+                insertAll(inserts);
+
+                List<OrderRecord> ok = new ArrayList<>(chunk.size());
+                for (OrderRecord record : chunk) {
+                    if (!conflicts.contains(record) && record.getId() != null) {
+                        ok.add(record);
+                    }
                 }
                 // 持久化最新样式（B~F列）供刷新后展示
-                persistOrderStyles(record);
-                changedRecords.add(record);
-                if (hasSubmission(record.getTrackingNumber())) {
-                    needSettlement.add(record);
+                persistOrderStyles(ok);
+                // 订单列表缓存：改前、改后的日期/分类所在分区都失效
+                List<OrderRecord> touched = new ArrayList<>(ok);
+                for (OrderRecord record : ok) {
+                    OrderRecord before = preload.record(record.getId());
+                    if (before != null) {
+                        touched.add(before);
+                    }
                 }
+                orderPageCache.touch(touched);
+                orderSearchIndex.upsert(ok);
+                // 一次查询解析整块的提交状态，替代逐行 selectCount
+                SubmissionPresenceResolver.Presence presence = submissionPresenceResolver.resolve(
+                        ok.stream().map(OrderRecord::getTrackingNumber).toList());
+                submissionQueriesSaved.set(presence.queriesSaved());
+                List<OrderRecord> needSettlement = new ArrayList<>();
+                for (OrderRecord record : ok) {
+                    if (presence.has(record.getTrackingNumber())) {
+                        needSettlement.add(record);
+                    }
+                }
+                if (!needSettlement.isEmpty()) {
+                    settlementService.createPending(needSettlement, true);
+                }
+                return ok;
+            });
+            List<OrderRecord> ok = applied == null ? List.of() : applied;
+            written.addAll(ok);
+            ok.forEach(r -> progress.written());
+            if (ok.size() < chunk.size()) {
+                Set<OrderRecord> okSet = Collections.newSetFromMap(new IdentityHashMap<>());
+                okSet.addAll(ok);
+                List<Integer> conflictRows = chunk.stream()
+                        .filter(r -> !okSet.contains(r))
+                        .map(OrderRecord::getExcelRowIndex)
+                        .toList();
+                log.warn("订单导入第 {} 块有 {} 行未写入（记录已被修改/删除或插入被唯一约束拒绝），Excel 行: {}",
+                        chunkIndex, conflictRows.size(), conflictRows);
+                chunkReport.put("conflictRows", conflictRows);
             }
-            if (!needSettlement.isEmpty()) {
-                settlementService.createPending(needSettlement, true);
-            }
-            Map<String, Object> report = new HashMap<>();
-            // 统计信息：跳过未变化的行
-            report.put("skippedUnchanged", skippedUnchanged);
-            report.put("skippedRows", skippedRows);
-            report.put("importedCount", changedRecords.size());
-
-            // 返回变化记录的ID列表（前端只需要对比这些ID）
-            List<Long> changedIds = changedRecords.stream()
-                    .map(OrderRecord::getId)
-                    .filter(Objects::nonNull)
-                    .toList();
-            report.put("changedIds", changedIds);
-
-            // 返回样式信息（仅变化的用于即时展示）
-            List<Map<String, Object>> styles = changedRecords.stream().map(r -> {
-                Map<String, Object> m = new HashMap<>();
-                m.put("id", r.getId());
-                m.put("trackingNumber", r.getTrackingNumber());
-                m.put("sn", r.getSn());
-                m.put("trackingBgColor", r.getTrackingBgColor());
-                m.put("trackingFontColor", r.getTrackingFontColor());
-                m.put("trackingStrike", r.getTrackingStrike());
-                m.put("modelBgColor", r.getModelBgColor());
-                m.put("modelFontColor", r.getModelFontColor());
-                m.put("modelStrike", r.getModelStrike());
-                m.put("snBgColor", r.getSnBgColor());
-                m.put("snFontColor", r.getSnFontColor());
-                m.put("snStrike", r.getSnStrike());
-                m.put("amountBgColor", r.getAmountBgColor());
-                m.put("amountFontColor", r.getAmountFontColor());
-                m.put("amountStrike", r.getAmountStrike());
-                m.put("remarkBgColor", r.getRemarkBgColor());
-                m.put("remarkFontColor", r.getRemarkFontColor());
-                m.put("remarkStrike", r.getRemarkStrike());
-                return m;
-            }).toList();
-            report.put("styles", styles);
-
-            // 检测删除的记录（数据库有但Excel没有）
-            List<OrderRecord> deletedRecords = detectDeletedRecords(records);
-            if (!deletedRecords.isEmpty()) {
-                List<Map<String, Object>> deletedList = deletedRecords.stream().map(r -> {
-                    Map<String, Object> m = new HashMap<>();
-                    m.put("id", r.getId());
-                    m.put("trackingNumber", r.getTrackingNumber());
-                    m.put("model", r.getModel());
-                    m.put("sn", r.getSn());
-                    m.put("amount", r.getAmount());
-                    m.put("remark", r.getRemark());
-                    m.put("orderTime", r.getOrderTime());
-                    return m;
-                }).toList();
-                report.put("deletedRecords", deletedList);
+            chunkReport.put("committed", true);
+            chunkReport.put("written", ok.size());
+            chunkReport.put("submissionQueriesSaved", submissionQueriesSaved.get());
+        } catch (RuntimeException e) {
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setId(matchedIds.get(i));
+                chunk.get(i).setVersion(matchedVersions.get(i));
             }
+            log.warn("订单导入第 {} 块（Excel 行 {}~{}）写入失败，已回滚该块: {}", chunkIndex,
+                    chunkReport.get("firstRow"), chunkReport.get("lastRow"), e.getMessage());
+            chunkReport.put("committed", false);
+            chunkReport.put("written", 0);
+            chunkReport.put("submissionQueriesSaved", 0);
+            chunkReport.put("error", e instanceof BusinessException ? e.getMessage() : "写入失败：" + e.getClass().getSimpleName());
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        chunkReport.put("durationMillis", elapsed);
+        chunkReport.put("rowsPerSecond", elapsed == 0 ? chunk.size() * 1000L : chunk.size() * 1000L / elapsed);
+        return chunkReport;
+    }
 
-            return report;
-        } catch (IOException e) {
-            throw new BusinessException(ErrorCode.BAD_REQUEST, "Excel 解析失败");
+    /**
+     * 批量插入；被唯一约束拒绝的批次由写入器逐行重试，只跳过真正冲突的行，与原先逐条插入的容错行为一致。
+     */
+    private void insertAll(List<OrderRecord> inserts) {
+        // 被唯一约束拒绝的记录 id 为空，不计入写入结果（建议执行 remove_unique_constraint.sql 迁移脚本删除唯一约束）
+        for (OrderRecord skipped : orderRecordBatchWriter.insertAll(inserts)) {
+            log.warn("插入记录失败（唯一约束），跳过该记录: trackingNumber={}, sn={}",
+                    skipped.getTrackingNumber(), skipped.getSn());
         }
     }
 
     @Override
-    @Cacheable(value = "orders",
-            key = "'page1:' + #request.size + ':' + #request.startDate + ':' + #request.endDate + ':' + #request.category + ':' + #request.status + ':' + #request.keyword + ':' + #request.ownerUsername + ':' + #request.sortBy + ':' + #request.sortOrder",
-            condition = "#request.page == 1")
     public IPage<OrderRecord> query(OrderFilterRequest request) {
+        // 动态排序处理（可排序字段见 OrderSortKey，未指定时默认按日期降序）
+        OrderSortKey.Sort sort = OrderSortKey.resolve(request.getSortBy(), request.getSortOrder());
+        // 前几页走分区版本缓存：键在查询前取，查询期间的写入不会让旧结果被命中
+        String cacheKey = orderPageCache.pageKey(request, sort.key() + (sort.asc() ? ":asc" : ":desc"));
+        IPage<OrderRecord> cached = orderPageCache.findPage(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
         // 查询日志去除，减少控制台输出
         Page<OrderRecord> page = Page.of(request.getPage(), request.getSize());
         LambdaQueryWrapper<OrderRecord> wrapper = new LambdaQueryWrapper<>();
+        if (!applyFilters(wrapper, request)) {
+            orderPageCache.putPage(cacheKey, page);
+            return page;
+        }
+
+        wrapper.orderBy(true, sort.asc(), sort.key().column());
+        // 添加ID作为二级排序，确保分页稳定性（同日期数据不会跳页丢失）
+        wrapper.orderByDesc(OrderRecord::getId);
+
+        IPage<OrderRecord> result = orderRecordMapper.selectPage(page, wrapper);
+        // 关联查询归属用户信息
+        attachOwnerInfo(result.getRecords());
+        // 回填持久化样式
+        attachStyles(result.getRecords());
+        orderPageCache.putPage(cacheKey, result);
+        return result;
+    }
+
+    /**
+     * 游标分页：按 (排序字段, id) 定位上一页末尾，用 seek 条件取下一页，不做 OFFSET 扫描，
+     * 也不在每页执行 COUNT。排序规则与 query 相同：字段按请求方向、id 降序；MySQL 中 NULL 在升序最前、降序最后。
+     */
+    @Override
+    public OrderCursorPage queryByCursor(OrderCursorRequest request) {
+        OrderSortKey.Sort sort = OrderSortKey.resolve(request.getSortBy(), request.getSortOrder());
+        OrderSortKey.Cursor cursor = null;
+        if (StringUtils.hasText(request.getCursor())) {
+            cursor = OrderSortKey.decode(request.getCursor().trim());
+            if (!cursor.sort().equals(sort)) {
+                throw new BusinessException(ErrorCode.BAD_REQUEST, "分页游标与当前排序不一致，请从第一页重新查询");
+            }
+        }
+        OrderCursorPage result = new OrderCursorPage();
+        result.setSize(request.getSize());
+        result.setRecords(List.of());
+
+        LambdaQueryWrapper<OrderRecord> wrapper = new LambdaQueryWrapper<>();
+        if (!applyFilters(wrapper, request)) {
+            if (wantsTotal(request, cursor)) {
+                result.setTotal(0L);
+            }
+            return result;
+        }
+        if (wantsTotal(request, cursor)) {
+            fillCursorTotal(result, request);
+        }
+        if (cursor != null) {
+            applySeek(wrapper, cursor);
+        }
+        wrapper.orderBy(true, sort.asc(), sort.key().column());
+        wrapper.orderByDesc(OrderRecord::getId);
+        // 多取一行判断是否还有下一页
+        wrapper.last("LIMIT " + (request.getSize() + 1));
+
+        List<OrderRecord> records = orderRecordMapper.selectList(wrapper);
+        boolean hasMore = records.size() > request.getSize();
+        if (hasMore) {
+            records = new ArrayList<>(records.subList(0, (int) request.getSize()));
+            result.setNextCursor(OrderSortKey.encode(sort, records.get(records.size() - 1)));
+        }
+        result.setHasMore(hasMore);
+        attachOwnerInfo(records);
+        attachStyles(records);
+        result.setRecords(records);
+        return result;
+    }
+
+    private static boolean wantsTotal(OrderCursorRequest request, OrderSortKey.Cursor cursor) {
+        return request.getWithTotal() != null ? request.getWithTotal() : cursor == null;
+    }
+
+    /**
+     * 排在游标之后的行：(字段, id) 按 (方向, DESC) 严格大于上一页最后一行
+     */
+    private static void applySeek(LambdaQueryWrapper<OrderRecord> wrapper, OrderSortKey.Cursor cursor) {
+        SFunction<OrderRecord, ?> column = cursor.sort().key().column();
+        Object value = cursor.lastValue();
+        long lastId = cursor.lastId();
+        if (cursor.sort().asc()) {
+            if (value == null) {
+                // 升序 NULL 在前：剩余的 NULL（id 更小）及所有非 NULL
+                wrapper.and(w -> w.isNotNull(column).or(x -> x.isNull(column).lt(OrderRecord::getId, lastId)));
+            } else {
+                wrapper.and(w -> w.gt(column, value).or(x -> x.eq(column, value).lt(OrderRecord::getId, lastId)));
+            }
+        } else {
+            if (value == null) {
+                // 降序 NULL 在后：只剩 id 更小的 NULL
+                wrapper.isNull(column).lt(OrderRecord::getId, lastId);
+            } else {
+                wrapper.and(w -> w.lt(column, value).or().isNull(column)
+                        .or(x -> x.eq(column, value).lt(OrderRecord::getId, lastId)));
+            }
+        }
+    }
+
+    /**
+     * 总数按筛选条件缓存在 OrderPageCache（与分页共用分区版本），只有影响到的分区被写入后才重新统计
+     */
+    private void fillCursorTotal(OrderCursorPage result, OrderFilterRequest request) {
+        String key = orderPageCache.countKey(request);
+        Long cached = orderPageCache.findCount(key);
+        if (cached != null) {
+            result.setTotal(cached);
+            result.setTotalCached(true);
+            return;
+        }
+        LambdaQueryWrapper<OrderRecord> countWrapper = new LambdaQueryWrapper<>();
+        applyFilters(countWrapper, request);
+        long total = orderRecordMapper.selectCount(countWrapper);
+        orderPageCache.putCount(key, total);
+        result.setTotal(total);
+    }
 
+    /**
+     * 订单列表筛选条件（分页、游标分页、总数统计共用）；关键字检索索引无命中时返回 false，调用方直接返回空结果
+     */
+    private boolean applyFilters(LambdaQueryWrapper<OrderRecord> wrapper, OrderFilterRequest request) {
         if (request.getStartDate() != null) {
             wrapper.ge(OrderRecord::getOrderDate, request.getStartDate());
         }
@@ -651,9 +1134,17 @@ public class OrderServiceImpl implements OrderService {
             boolean hasChinese = keyword.chars().anyMatch(ch -> Character.UnicodeBlock.of(ch) == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS);
             // 根据关键字类型选择查询方式（内部调试日志已移除）
             if (keyword.contains("-") || hasChinese) {
-                wrapper.and(w -> w.like(OrderRecord::getTrackingNumber, keyword)
-                        .or().like(OrderRecord::getSn, keyword)
-                        .or().like(OrderRecord::getModel, keyword));
+                // 先查进程内索引得到候选ID，避免三列 '%kw%' 全表扫描；索引不可用时仍走 LIKE
+                Set<Long> candidateIds = orderSearchIndex.findContaining(keyword);
+                if (candidateIds == null) {
+                    wrapper.and(w -> w.like(OrderRecord::getTrackingNumber, keyword)
+                            .or().like(OrderRecord::getSn, keyword)
+                            .or().like(OrderRecord::getModel, keyword));
+                } else if (candidateIds.isEmpty()) {
+                    return false;
+                } else {
+                    wrapper.in(OrderRecord::getId, candidateIds);
+                }
             } else {
                 String booleanModeKeyword = Arrays.stream(keyword.split("\\s+"))
                         .filter(s -> !s.isEmpty())
@@ -664,105 +1155,12 @@ public class OrderServiceImpl implements OrderService {
             }
         }
 
-        // 归属用户筛选（基于 user_submission 最新记录的 ownerUsername/username）
+        // 归属用户筛选：当前归属人投影（每个单号最新一条提交的 ownerUsername/username），走 (owner_username, tracking_number) 索引
         if (StringUtils.hasText(request.getOwnerUsername())) {
-            String targetOwner = request.getOwnerUsername().trim();
-            // 1) 找到该用户相关的提交记录（作为 owner 或 submitter）
-            LambdaQueryWrapper<UserSubmission> first = new LambdaQueryWrapper<>();
-            first.select(UserSubmission::getTrackingNumber)
-                    .and(w -> w.eq(UserSubmission::getOwnerUsername, targetOwner).or().eq(UserSubmission::getUsername, targetOwner));
-            List<UserSubmission> ownerRelated = userSubmissionMapper.selectList(first);
-            Set<String> relatedTns = ownerRelated.stream()
-                    .map(UserSubmission::getTrackingNumber)
-                    .filter(StringUtils::hasText)
-                    .map(String::trim)
-                    .collect(Collectors.toSet());
-
-            if (relatedTns.isEmpty()) {
-                // 无匹配，直接返回空
-                return Page.of(request.getPage(), request.getSize());
-            }
-
-            // 2) 对这些运单号查询其最新的提交记录
-            LambdaQueryWrapper<UserSubmission> latestQ = new LambdaQueryWrapper<>();
-            latestQ.in(UserSubmission::getTrackingNumber, relatedTns)
-                    .select(UserSubmission::getTrackingNumber, UserSubmission::getOwnerUsername, UserSubmission::getUsername, UserSubmission::getCreatedAt);
-            List<UserSubmission> latestCandidates = userSubmissionMapper.selectList(latestQ);
-
-            Map<String, UserSubmission> latestMap = new HashMap<>();
-            for (UserSubmission sub : latestCandidates) {
-                String tn = sub.getTrackingNumber();
-                if (!StringUtils.hasText(tn)) continue;
-                UserSubmission prev = latestMap.get(tn);
-                if (prev == null || (sub.getCreatedAt() != null && (prev.getCreatedAt() == null || sub.getCreatedAt().isAfter(prev.getCreatedAt())))) {
-                    latestMap.put(tn, sub);
-                }
-            }
-
-            // 3) 仅保留“最新记录归属人 == 目标用户”的运单号
-            Set<String> finalTns = latestMap.entrySet().stream()
-                    .filter(e -> {
-                        UserSubmission s = e.getValue();
-                        String owner = StringUtils.hasText(s.getOwnerUsername()) ? s.getOwnerUsername().trim() : s.getUsername();
-                        return targetOwner.equals(owner);
-                    })
-                    .map(Map.Entry::getKey)
-                    .collect(Collectors.toSet());
-
-            if (finalTns.isEmpty()) {
-                return Page.of(request.getPage(), request.getSize());
-            }
-
-            wrapper.in(OrderRecord::getTrackingNumber, finalTns);
-        }
-
-        // 动态排序处理
-        if (StringUtils.hasText(request.getSortBy()) && StringUtils.hasText(request.getSortOrder())) {
-            boolean isAsc = "asc".equalsIgnoreCase(request.getSortOrder());
-            // 映射前端字段名到数据库字段
-            switch (request.getSortBy().toLowerCase()) {
-                case "status":
-                    if (isAsc) wrapper.orderByAsc(OrderRecord::getStatus);
-                    else wrapper.orderByDesc(OrderRecord::getStatus);
-                    break;
-                case "orderdate":
-                    if (isAsc) wrapper.orderByAsc(OrderRecord::getOrderDate);
-                    else wrapper.orderByDesc(OrderRecord::getOrderDate);
-                    break;
-                case "ordertime":
-                    if (isAsc) wrapper.orderByAsc(OrderRecord::getOrderTime);
-                    else wrapper.orderByDesc(OrderRecord::getOrderTime);
-                    break;
-                case "trackingnumber":
-                    if (isAsc) wrapper.orderByAsc(OrderRecord::getTrackingNumber);
-                    else wrapper.orderByDesc(OrderRecord::getTrackingNumber);
-                    break;
-                case "model":
-                    if (isAsc) wrapper.orderByAsc(OrderRecord::getModel);
-                    else wrapper.orderByDesc(OrderRecord::getModel);
-                    break;
-                case "sn":
-                    if (isAsc) wrapper.orderByAsc(OrderRecord::getSn);
-                    else wrapper.orderByDesc(OrderRecord::getSn);
-                    break;
-                default:
-                    // 默认按日期降序
-                    wrapper.orderByDesc(OrderRecord::getOrderDate);
-            }
-            // 添加ID作为二级排序，确保分页稳定性（同日期数据不会跳页丢失）
-            wrapper.orderByDesc(OrderRecord::getId);
-        } else {
-            // 没有指定排序时，默认按日期降序 + ID降序（确保分页稳定）
-            wrapper.orderByDesc(OrderRecord::getOrderDate);
-            wrapper.orderByDesc(OrderRecord::getId);
+            wrapper.apply("tracking_number IN (SELECT o.tracking_number FROM tracking_current_owner o WHERE o.owner_username = {0})",
+                    request.getOwnerUsername().trim());
         }
-
-        IPage<OrderRecord> result = orderRecordMapper.selectPage(page, wrapper);
-        // 关联查询归属用户信息
-        attachOwnerInfo(result.getRecords());
-        // 回填持久化样式
-        attachStyles(result.getRecords());
-        return result;
+        return true;
     }
 
     /**
@@ -785,34 +1183,13 @@ public class OrderServiceImpl implements OrderService {
             return;
         }
 
-        // 批量查询用户提交记录，获取归属用户
-        LambdaQueryWrapper<UserSubmission> wrapper = new LambdaQueryWrapper<>();
-        wrapper.in(UserSubmission::getTrackingNumber, trackingNumbers)
-                .select(UserSubmission::getTrackingNumber, UserSubmission::getOwnerUsername, UserSubmission::getUsername, UserSubmission::getCreatedAt);
-        List<UserSubmission> submissions = userSubmissionMapper.selectList(wrapper);
-
-        // 按 trackingNumber 分组，选择最新一条记录的 ownerUsername（为空则用 username）
-        Map<String, String> ownerMap = new HashMap<>();
-        Map<String, UserSubmission> latestMap = new HashMap<>();
-        for (UserSubmission sub : submissions) {
-            String tn = sub.getTrackingNumber();
-            if (!StringUtils.hasText(tn)) continue;
-            UserSubmission prev = latestMap.get(tn);
-            if (prev == null || (sub.getCreatedAt() != null && (prev.getCreatedAt() == null || sub.getCreatedAt().isAfter(prev.getCreatedAt())))) {
-                latestMap.put(tn, sub);
-            }
-        }
-        latestMap.forEach((tn, sub) -> {
-            String owner = StringUtils.hasText(sub.getOwnerUsername()) ? sub.getOwnerUsername().trim() : sub.getUsername();
-            if (StringUtils.hasText(owner)) {
-                ownerMap.put(tn, owner);
-            }
-        });
+        // 当前归属人投影：每个单号一行，无需加载全部提交再取最新
+        Map<String, String> ownerMap = currentOwnerProjection.findOwners(trackingNumbers);
 
         // 为每条订单设置归属用户
         records.forEach(record -> {
             if (StringUtils.hasText(record.getTrackingNumber())) {
-                record.setOwnerUsername(ownerMap.get(record.getTrackingNumber()));
+                record.setOwnerUsername(ownerMap.get(record.getTrackingNumber().trim()));
             }
         });
     }
@@ -820,67 +1197,49 @@ public class OrderServiceImpl implements OrderService {
     /**
      * 检测Excel中删除的记录（数据库有但Excel没有）
      * 策略：基于 物流单号+SN+Model 组合检测，支持相同key的多条记录
-     * - 收集Excel中所有物流单号
-     * - 查询数据库中这些物流单号的所有记录
-     * - 按 tracking+sn+model 分组计数，找出数据库比Excel多的记录
+     * - 预加载视图已包含Excel中所有物流单号在数据库中的记录
+     * - 匹配阶段每条Excel记录至多占用一条同key的数据库记录
+     * - 未被占用的即为数据库比Excel多出的记录；同key下数量与“数据库条数 - Excel条数”一致
      */
-    private List<OrderRecord> detectDeletedRecords(List<OrderRecord> excelRecords) {
-        if (CollectionUtils.isEmpty(excelRecords)) {
-            return List.of();
-        }
-
-        // 1. 收集Excel中所有物流单号
-        Set<String> excelTrackingNumbers = excelRecords.stream()
-                .map(OrderRecord::getTrackingNumber)
-                .filter(StringUtils::hasText)
-                .map(String::trim)
-                .collect(Collectors.toSet());
+    private List<OrderRecord> detectDeletedRecords(ImportPreloadContext preload) {
+        return preload.unmatched();
+    }
 
-        if (excelTrackingNumbers.isEmpty()) {
-            return List.of();
+    /**
+     * 按物流单号预加载数据库记录（ID 升序，含默认不查询的 row_fingerprint），并一次性批量加载样式，避免导入时 N+1 查询
+     */
+    private ImportPreloadContext preloadForImport(Set<String> trackingNumbers) {
+        ImportPreloadContext preload = new ImportPreloadContext();
+        if (trackingNumbers.isEmpty()) {
+            return preload;
         }
-
-        // 2. 按 tracking+sn+model 统计Excel中每个key的数量
-        Map<String, Long> excelCountByKey = excelRecords.stream()
-                .filter(r -> StringUtils.hasText(r.getTrackingNumber()))
-                .collect(Collectors.groupingBy(
-                        r -> buildMatchKey(r.getTrackingNumber(), r.getSn(), r.getModel()),
-                        Collectors.counting()
-                ));
-
-        // 3. 查询数据库中这些物流单号的所有记录
-        LambdaQueryWrapper<OrderRecord> wrapper = new LambdaQueryWrapper<>();
-        wrapper.in(OrderRecord::getTrackingNumber, excelTrackingNumbers)
-                .orderByAsc(OrderRecord::getId);  // 按ID排序，确保稳定顺序
-        List<OrderRecord> dbRecords = orderRecordMapper.selectList(wrapper);
-
-        if (CollectionUtils.isEmpty(dbRecords)) {
-            return List.of();
+        LambdaQueryWrapper<OrderRecord> preloadWrapper = new LambdaQueryWrapper<>();
+        preloadWrapper.select(OrderRecord.class, f -> true)
+                .in(OrderRecord::getTrackingNumber, trackingNumbers)
+                .orderByAsc(OrderRecord::getId);  // 按ID升序，保证顺序稳定
+        List<OrderRecord> dbRecords = orderRecordMapper.selectList(preloadWrapper);
+        if (dbRecords.isEmpty()) {
+            return preload;
         }
 
-        // 4. 按 tracking+sn+model 分组数据库记录
-        Map<String, List<OrderRecord>> dbRecordsByKey = dbRecords.stream()
-                .collect(Collectors.groupingBy(
-                        r -> buildMatchKey(r.getTrackingNumber(), r.getSn(), r.getModel())
-                ));
-
-        // 5. 找出数据库比Excel多的记录（即被删除的记录）
-        List<OrderRecord> deletedRecords = new ArrayList<>();
-        for (Map.Entry<String, List<OrderRecord>> entry : dbRecordsByKey.entrySet()) {
-            String key = entry.getKey();
-            List<OrderRecord> dbList = entry.getValue();
-            long excelCount = excelCountByKey.getOrDefault(key, 0L);
-
-            // 如果数据库中的数量 > Excel中的数量，多出来的视为被删除
-            if (dbList.size() > excelCount) {
-                // 取后面多出来的记录作为被删除的
-                for (int i = (int) excelCount; i < dbList.size(); i++) {
-                    deletedRecords.add(dbList.get(i));
-                }
-            }
+        // 按 tracking_number + sn + model 分组；已有指纹的记录同时按 (匹配键, 指纹) 建索引
+        for (OrderRecord db : dbRecords) {
+            preload.addRecord(buildMatchKey(db.getTrackingNumber(), db.getSn(), db.getModel()), db);
         }
 
-        return deletedRecords;
+        // 批量加载样式，按 orderId 分组缓存
+        List<Long> preloadIds = dbRecords.stream()
+                .map(OrderRecord::getId)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!preloadIds.isEmpty()) {
+            List<OrderCellStyle> preloadStyles = orderCellStyleMapper.selectList(
+                    new QueryWrapper<OrderCellStyle>().lambda().in(OrderCellStyle::getOrderId, preloadIds)
+            );
+            preload.addStyles(preloadStyles.stream().collect(Collectors.groupingBy(OrderCellStyle::getOrderId)));
+        }
+        preload.buildShapes();
+        return preload;
     }
 
     /**
@@ -904,234 +1263,91 @@ public class OrderServiceImpl implements OrderService {
 
     /**
      * 使用预加载数据进行变更检测（基于内容相似度匹配，解决删除/插入记录导致的错位问题）
-     * @param matchedDbIds 已经被匹配的数据库记录ID集合，避免重复匹配
-     */
-    private boolean isChangedAndUpdateBaselineWithPreload(
-            OrderRecord r,
-            String operator,
-            Map<String, List<OrderRecord>> dbRecordsByKey,
-            Map<String, Integer> matchCounterByKey,
-            Map<Long, List<OrderCellStyle>> stylesByOrderId) {
-        // 调用新的智能匹配方法，使用空的已匹配集合（兼容旧调用）
-        return isChangedAndUpdateBaselineWithPreload(r, operator, dbRecordsByKey, matchCounterByKey, stylesByOrderId, new HashSet<>());
-    }
-
-    /**
-     * 使用预加载数据进行变更检测（基于内容相似度匹配，解决删除/插入记录导致的错位问题）
-     * @param matchedDbIds 已经被匹配的数据库记录ID集合，避免重复匹配
+     * 命中的数据库记录记入 preload 的已匹配集合，避免重复匹配；只读写同一匹配键下的候选，可按匹配键并行调用。
+     * 会话快照由调用方按行序统一更新。
      */
-    private boolean isChangedAndUpdateBaselineWithPreload(
-            OrderRecord r,
-            String operator,
-            Map<String, List<OrderRecord>> dbRecordsByKey,
-            Map<String, Integer> matchCounterByKey,
-            Map<Long, List<OrderCellStyle>> stylesByOrderId,
-            Set<Long> matchedDbIds) {
-
-        Snapshot s = snaps(operator);
+    private boolean isChangedWithPreload(OrderRecord r, ImportPreloadContext preload) {
         String matchKey = buildMatchKey(r.getTrackingNumber(), r.getSn(), r.getModel());
+        List<OrderRecord> candidates = preload.candidates(matchKey);
+        if (candidates == null || candidates.isEmpty()) {
+            return true;  // 新记录视为有变化
+        }
 
-        // 构建当前 Excel 记录的样式和值，用于比较
-        Map<String, CellStyleSnap> curStyle = buildStyleMap(r);
-        Map<String, String> curValue = buildValueMap(r);
-
-        // 从预加载数据中智能匹配数据库记录
+        // 当前 Excel 行的定长比较表示，与候选逐列做整数比较打分（每列值 15 分、样式 5 分）
+        OrderMatchShape cur = OrderMatchShape.ofRecord(r, preload.dictionary());
         OrderRecord dbLatest = null;
-        List<OrderCellStyle> dbStyles = null;
         int bestMatchScore = -1;
-
-        List<OrderRecord> candidates = dbRecordsByKey.get(matchKey);
-        if (candidates != null && !candidates.isEmpty()) {
-            // 优先找完全匹配的记录（内容和样式都相同）
-            for (OrderRecord candidate : candidates) {
-                // 跳过已被其他 Excel 记录匹配的数据库记录
-                if (matchedDbIds.contains(candidate.getId())) {
-                    continue;
-                }
-
-                List<OrderCellStyle> candidateStyles = stylesByOrderId.get(candidate.getId());
-                Map<String, CellStyleSnap> dbStyleMap = buildStyleMapFromDb(candidate, candidateStyles);
-                Map<String, String> dbValueMap = buildValueMap(candidate);
-
-                // 计算相似度分数
-                int score = calculateMatchScore(curValue, curStyle, dbValueMap, dbStyleMap);
-
-                // 完全匹配（分数=100）优先
-                if (score == 100) {
-                    dbLatest = candidate;
-                    dbStyles = candidateStyles;
-                    bestMatchScore = score;
-                    break;
-                }
-
-                // 记录最佳匹配
-                if (score > bestMatchScore) {
-                    bestMatchScore = score;
-                    dbLatest = candidate;
-                    dbStyles = candidateStyles;
-                }
+        for (OrderRecord candidate : candidates) {
+            // 跳过已被其他 Excel 记录匹配的数据库记录
+            if (preload.matchedIds().contains(candidate.getId())) {
+                continue;
             }
-
-            // 如果找到匹配，标记为已使用
-            if (dbLatest != null) {
-                matchedDbIds.add(dbLatest.getId());
-                r.setId(dbLatest.getId());
+            int score = cur.score(preload.shape(candidate.getId()));
+            // 完全匹配（分数=100）优先
+            if (score == OrderMatchShape.FULL_SCORE) {
+                dbLatest = candidate;
+                bestMatchScore = score;
+                break;
             }
-        }
-
-        // 如果找到匹配的数据库记录，进行比较
-        if (dbLatest != null) {
-            Map<String, CellStyleSnap> dbStyleMap = buildStyleMapFromDb(dbLatest, dbStyles);
-            Map<String, String> dbValueMap = buildValueMap(dbLatest);
-
-            List<String> order = Arrays.asList("tracking","model","sn","remark","amount");
-            boolean changed = false;
-
-            for (String f : order) {
-                CellStyleSnap a = dbStyleMap.get(f);
-                CellStyleSnap b = curStyle.get(f);
-                boolean styleChanged = !Objects.equals(a == null ? null : a.getBg(), b == null ? null : b.getBg())
-                        || !Objects.equals(a == null ? null : a.getFont(), b == null ? null : b.getFont())
-                        || !Objects.equals(a == null ? Boolean.FALSE : a.getStrike(), b == null ? Boolean.FALSE : b.getStrike())
-                        || !Objects.equals(a == null ? Boolean.FALSE : a.getBold(), b == null ? Boolean.FALSE : b.getBold());
-                String va = dbValueMap.get(f);
-                String vb = curValue.get(f);
-                boolean valueChanged = !Objects.equals(va, vb);
-                if (styleChanged || valueChanged) {
-                    changed = true;
-                    break;
-                }
-            }
-
-            // 更新内存快照
-            String key = styleKey(r);
-            s.LAST_IMPORT_SNAPSHOT.put(key, curStyle);
-            s.LAST_VALUE_SNAPSHOT.put(key, curValue);
-            if (r.getExcelRowIndex() != null) {
-                s.LAST_STYLE_BY_ROW.put(r.getExcelRowIndex(), curStyle);
-                s.LAST_VALUE_BY_ROW.put(r.getExcelRowIndex(), curValue);
+            // 记录最佳匹配
+            if (score > bestMatchScore) {
+                bestMatchScore = score;
+                dbLatest = candidate;
             }
-            String tKey = (r.getTrackingNumber() == null ? "" : r.getTrackingNumber().toUpperCase(Locale.ROOT));
-            s.LAST_STYLE_BY_TRACKING.put(tKey, curStyle);
-            s.LAST_VALUE_BY_TRACKING.put(tKey, curValue);
-
-            return changed;
         }
-
-        // 数据库中不存在，视为新记录
-        String key = styleKey(r);
-        s.LAST_IMPORT_SNAPSHOT.put(key, curStyle);
-        s.LAST_VALUE_SNAPSHOT.put(key, curValue);
-        if (r.getExcelRowIndex() != null) {
-            s.LAST_STYLE_BY_ROW.put(r.getExcelRowIndex(), curStyle);
-            s.LAST_VALUE_BY_ROW.put(r.getExcelRowIndex(), curValue);
+        if (dbLatest == null) {
+            return true;
         }
-        String tKey = (r.getTrackingNumber() == null ? "" : r.getTrackingNumber().toUpperCase(Locale.ROOT));
-        s.LAST_STYLE_BY_TRACKING.put(tKey, curStyle);
-        s.LAST_VALUE_BY_TRACKING.put(tKey, curValue);
 
-        return true;  // 新记录视为有变化
+        // 找到匹配，标记为已使用
+        preload.matchedIds().add(dbLatest.getId());
+        r.setId(dbLatest.getId());
+        // 携带预加载时的版本号，写入时由乐观锁拦截器校验
+        r.setVersion(dbLatest.getVersion());
+        // 满分即内容与样式（含加粗）全部相同
+        return bestMatchScore != OrderMatchShape.FULL_SCORE;
     }
 
-    /**
-     * 计算 Excel 记录与数据库记录的匹配分数（0-100）
-     * 100 = 完全匹配（值和样式都相同）
-     * 越高越相似
-     */
-    private int calculateMatchScore(
-            Map<String, String> excelValue, Map<String, CellStyleSnap> excelStyle,
-            Map<String, String> dbValue, Map<String, CellStyleSnap> dbStyle) {
-
-        int score = 0;
-        List<String> fields = Arrays.asList("tracking", "model", "sn", "remark", "amount");
-
-        for (String f : fields) {
-            // 值匹配（每个字段15分，共75分）
-            String ev = excelValue.get(f);
-            String dv = dbValue.get(f);
-            if (Objects.equals(ev, dv)) {
-                score += 15;
-            }
-
-            // 样式匹配（每个字段5分，共25分）
-            CellStyleSnap es = excelStyle.get(f);
-            CellStyleSnap ds = dbStyle.get(f);
-            if (es != null && ds != null) {
-                boolean bgMatch = Objects.equals(es.getBg(), ds.getBg());
-                boolean fgMatch = Objects.equals(es.getFont(), ds.getFont());
-                boolean strikeMatch = Objects.equals(es.getStrike(), ds.getStrike());
-                boolean boldMatch = Objects.equals(es.getBold(), ds.getBold());
-                if (bgMatch && fgMatch && strikeMatch && boldMatch) {
-                    score += 5;
-                }
-            }
-        }
-
-        return score;
-    }
+    private static final int STYLE_UPSERT_BATCH = 1000;
 
     /**
-     * 检查字符串是否包含中文字符
+     * 批量持久化一块记录的样式（B~F列），一条多行 INSERT ... ON DUPLICATE KEY UPDATE 完成合并：
+     * - bg/fg：新值非空则覆盖；否则保留旧值
+     * - strike/bold：只有新值为 true 才覆盖为 true；否则保留旧值（避免无意清空旧的删除线/加粗）
+     * - 某字段新值全为空/false 时不写该行：原本有记录则保持不变，原本没有则不新增
      */
-    private boolean containsChinese(String str) {
-        if (str == null || str.isEmpty()) {
-            return false;
+    private void persistOrderStyles(List<OrderRecord> records) {
+        List<OrderCellStyle> rows = new ArrayList<>();
+        for (OrderRecord r : records) {
+            if (r.getId() == null) continue;
+            addStyleRow(rows, r.getId(), "tracking", r.getTrackingBgColor(), r.getTrackingFontColor(), r.getTrackingStrike(), r.getTrackingBold());
+            addStyleRow(rows, r.getId(), "model",    r.getModelBgColor(),    r.getModelFontColor(),    r.getModelStrike(),    r.getModelBold());
+            addStyleRow(rows, r.getId(), "sn",       r.getSnBgColor(),       r.getSnFontColor(),       r.getSnStrike(),       r.getSnBold());
+            addStyleRow(rows, r.getId(), "amount",   r.getAmountBgColor(),   r.getAmountFontColor(),   r.getAmountStrike(),   r.getAmountBold());
+            addStyleRow(rows, r.getId(), "remark",   r.getRemarkBgColor(),   r.getRemarkFontColor(),   r.getRemarkStrike(),   r.getRemarkBold());
+        }
+        for (int from = 0; from < rows.size(); from += STYLE_UPSERT_BATCH) {
+            orderCellStyleMapper.upsertBatch(rows.subList(from, Math.min(from + STYLE_UPSERT_BATCH, rows.size())));
         }
-        return str.chars().anyMatch(ch -> Character.UnicodeBlock.of(ch) == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS);
-    }
-
-    private void persistOrderStyles(OrderRecord r) {
-        if (r.getId() == null) return;
-        // 读取旧样式，按字段合并：仅覆盖“新传入的非空值/显式为 true 的删除线”，其余沿用旧值
-        List<OrderCellStyle> old = orderCellStyleMapper.selectList(new QueryWrapper<OrderCellStyle>().lambda().eq(OrderCellStyle::getOrderId, r.getId()));
-        Map<String, OrderCellStyle> oldMap = new HashMap<>();
-        for (OrderCellStyle s : old) oldMap.put(s.getField(), s);
-
-        mergeStyle(r.getId(), "tracking", oldMap.get("tracking"), r.getTrackingBgColor(), r.getTrackingFontColor(), r.getTrackingStrike(), r.getTrackingBold());
-        mergeStyle(r.getId(), "model",    oldMap.get("model"),    r.getModelBgColor(),    r.getModelFontColor(),    r.getModelStrike(),    r.getModelBold());
-        mergeStyle(r.getId(), "sn",       oldMap.get("sn"),       r.getSnBgColor(),       r.getSnFontColor(),       r.getSnStrike(),       r.getSnBold());
-        mergeStyle(r.getId(), "amount",   oldMap.get("amount"),   r.getAmountBgColor(),   r.getAmountFontColor(),   r.getAmountStrike(),   r.getAmountBold());
-        mergeStyle(r.getId(), "remark",   oldMap.get("remark"),   r.getRemarkBgColor(),   r.getRemarkFontColor(),   r.getRemarkStrike(),   r.getRemarkBold());
     }
 
-    // 合并策略：
-    // - bg/fg：新值非空则覆盖；否则保留旧值
-    // - strike/bold：只有新值为 true 才覆盖为 true；否则保留旧值（避免无意清空旧的删除线/加粗）
-    // - 如果最终所有项都为空/false，则：若原本有记录则保留不变；若原本没有记录则不写入
-    private void mergeStyle(Long orderId, String field, OrderCellStyle old,
-                            String newBg, String newFg, Boolean newStrike, Boolean newBold) {
-        String bg = (newBg != null && !newBg.isBlank()) ? newBg : (old == null ? null : old.getBgColor());
-        String fg = (newFg != null && !newFg.isBlank()) ? newFg : (old == null ? null : old.getFontColor());
-        Boolean strike = (newStrike != null && newStrike) ? Boolean.TRUE : (old == null ? Boolean.FALSE : old.getStrike());
-        Boolean bold = (newBold != null && newBold) ? Boolean.TRUE : (old == null ? Boolean.FALSE : old.getBold());
-
-        boolean has = (bg != null && !bg.isBlank()) || (fg != null && !fg.isBlank()) || Boolean.TRUE.equals(strike) || Boolean.TRUE.equals(bold);
-        if (!has) {
-            // 没有任何样式：如果原来有记录，保持不动（不删除）；如果没有，什么也不做
+    private void addStyleRow(List<OrderCellStyle> rows, Long orderId, String field,
+                             String newBg, String newFg, Boolean newStrike, Boolean newBold) {
+        String bg = (newBg != null && !newBg.isBlank()) ? newBg : null;
+        String fg = (newFg != null && !newFg.isBlank()) ? newFg : null;
+        boolean strike = Boolean.TRUE.equals(newStrike);
+        boolean bold = Boolean.TRUE.equals(newBold);
+        if (bg == null && fg == null && !strike && !bold) {
             return;
         }
-        if (old == null) {
-            OrderCellStyle s = new OrderCellStyle();
-            s.setOrderId(orderId);
-            s.setField(field);
-            s.setBgColor(bg);
-            s.setFontColor(fg);
-            s.setStrike(Boolean.TRUE.equals(strike));
-            s.setBold(Boolean.TRUE.equals(bold));
-            orderCellStyleMapper.insert(s);
-        } else {
-            boolean changed = !Objects.equals(bg, old.getBgColor())
-                    || !Objects.equals(fg, old.getFontColor())
-                    || !Objects.equals(Boolean.TRUE.equals(strike), Boolean.TRUE.equals(old.getStrike()))
-                    || !Objects.equals(Boolean.TRUE.equals(bold), Boolean.TRUE.equals(old.getBold()));
-            if (changed) {
-                old.setBgColor(bg);
-                old.setFontColor(fg);
-                old.setStrike(Boolean.TRUE.equals(strike));
-                old.setBold(Boolean.TRUE.equals(bold));
-                orderCellStyleMapper.updateById(old);
-            }
-        }
+        OrderCellStyle s = new OrderCellStyle();
+        s.setOrderId(orderId);
+        s.setField(field);
+        s.setBgColor(bg);
+        s.setFontColor(fg);
+        s.setStrike(strike);
+        s.setBold(bold);
+        rows.add(s);
     }
 
     private void attachStyles(List<OrderRecord> list) {
@@ -1179,69 +1395,10 @@ public class OrderServiceImpl implements OrderService {
         });
     }
 
-    private List<Map<String, Object>> compareStyles(OrderRecord r, List<OrderCellStyle> oldStyles) {
-        // 如果没有历史样式（新建），不提示变动
-        if (oldStyles == null || oldStyles.isEmpty()) {
-            return Collections.emptyList();
-        }
-        Map<String, OrderCellStyle> oldMap = new HashMap<>();
-        for (OrderCellStyle s : oldStyles) {
-            oldMap.put(s.getField(), s);
-        }
-        // 新样式来自本次解析的 transient 字段
-        List<Map<String, Object>> diffs = new ArrayList<>();
-        compareOne(diffs, r, oldMap.get("tracking"), "tracking",
-                r.getTrackingBgColor(), r.getTrackingFontColor(), r.getTrackingStrike());
-        compareOne(diffs, r, oldMap.get("model"), "model",
-                r.getModelBgColor(), r.getModelFontColor(), r.getModelStrike());
-        compareOne(diffs, r, oldMap.get("sn"), "sn",
-                r.getSnBgColor(), r.getSnFontColor(), r.getSnStrike());
-        compareOne(diffs, r, oldMap.get("remark"), "remark",
-                r.getRemarkBgColor(), r.getRemarkFontColor(), r.getRemarkStrike());
-        compareOne(diffs, r, oldMap.get("amount"), "amount",
-                r.getAmountBgColor(), r.getAmountFontColor(), r.getAmountStrike());
-        return diffs;
-    }
-
-    private void compareOne(List<Map<String, Object>> out, OrderRecord r, OrderCellStyle oldS,
-                            String field, String newBg, String newFg, Boolean newStrike) {
-        String oldBg = oldS == null ? null : oldS.getBgColor();
-        String oldFg = oldS == null ? null : oldS.getFontColor();
-        Boolean oldSt = oldS == null ? null : oldS.getStrike();
-        boolean changed = false;
-        // 使用正确的标准化方法：背景色用 normBg，字体颜色用 normFg
-        if (!Objects.equals(normBg(oldBg), normBg(newBg))) changed = true;
-        if (!Objects.equals(normFg(oldFg), normFg(newFg))) changed = true;
-        if (!Objects.equals(bool(oldSt), bool(newStrike))) changed = true;
-        if (changed) {
-            Map<String, Object> m = new HashMap<>();
-            m.put("trackingNumber", r.getTrackingNumber());
-            m.put("sn", r.getSn());
-            m.put("field", field);
-            m.put("fromBg", normBg(oldBg));
-            m.put("toBg", normBg(newBg));
-            m.put("fromFont", normFg(oldFg));
-            m.put("toFont", normFg(newFg));
-            m.put("fromStrike", bool(oldSt));
-            m.put("toStrike", bool(newStrike));
-            out.add(m);
-        }
-    }
-
-    private String normalizeColor(String c) {
-        if (c == null) return null;
-        String s = c.trim();
-        if (s.isEmpty()) return null;
-        // 统一大写#RRGGBB
-        if (s.startsWith("#") && s.length() == 7) return s.toUpperCase(Locale.ROOT);
-        return s.toUpperCase(Locale.ROOT);
-    }
-
     private Boolean bool(Boolean b) { return b != null && b; }
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
     public OrderRecord create(OrderCreateRequest request, String operator) {
         LambdaQueryWrapper<OrderRecord> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(OrderRecord::getSn, request.getSn());
@@ -1274,7 +1431,9 @@ public class OrderServiceImpl implements OrderService {
         record.setCreatedBy(operator);
         record.setImported(Boolean.TRUE);
         orderRecordMapper.insert(record);
-        if (hasSubmission(record.getTrackingNumber())) {
+        orderPageCache.touch(record);
+        orderSearchIndex.upsert(record);
+        if (submissionPresenceResolver.resolve(Collections.singletonList(record.getTrackingNumber())).has(record.getTrackingNumber())) {
             settlementService.createPending(List.of(record), true);
         }
         return record;
@@ -1282,10 +1441,7 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     @Transactional
-    @org.springframework.cache.annotation.Caching(evict = {
-        @CacheEvict(value = "orders", allEntries = true),
-        @CacheEvict(value = "settlements", allEntries = true)
-    })
+    @CacheEvict(value = "settlements", allEntries = true)
     public void updateStatus(Long id, String status) {
         OrderRecord record = orderRecordMapper.selectById(id);
         if (record == null) {
@@ -1298,6 +1454,7 @@ public class OrderServiceImpl implements OrderService {
         if (updated == 0) {
             throw new BusinessException(ErrorCode.OPTIMISTIC_LOCK_CONFLICT);
         }
+        orderPageCache.touch(record);
 
         // 同步更新关联的结账记录状态
         com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<com.example.demo.settlement.entity.SettlementRecord> wrapper =
@@ -1312,7 +1469,6 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
     public void updateAmount(Long id, OrderAmountRequest request) {
         OrderRecord record = orderRecordMapper.selectById(id);
         if (record == null) {
@@ -1329,6 +1485,7 @@ public class OrderServiceImpl implements OrderService {
         if (updated == 0) {
             throw new BusinessException(ErrorCode.OPTIMISTIC_LOCK_CONFLICT);
         }
+        orderPageCache.touch(record);
     }
 
     @Override
@@ -1370,10 +1527,20 @@ public class OrderServiceImpl implements OrderService {
                 .filter(str -> !str.contains("-"))
                 .toList();
         LambdaQueryWrapper<OrderRecord> wrapper = new LambdaQueryWrapper<>();
-        wrapper.and(w -> w.in(OrderRecord::getTrackingNumber, unique)
-                .or()
-                .in(OrderRecord::getSn, unique));
-        if (!prefixes.isEmpty()) {
+        // 索引可用时直接得到命中ID，按主键取数
+        Set<Long> candidateIds = orderSearchIndex.findByTrackingOrSn(unique,
+                prefixes.stream().map(prefix -> prefix + "-").toList());
+        if (candidateIds != null) {
+            if (candidateIds.isEmpty()) {
+                return List.of();
+            }
+            wrapper.in(OrderRecord::getId, candidateIds);
+        } else {
+            wrapper.and(w -> w.in(OrderRecord::getTrackingNumber, unique)
+                    .or()
+                    .in(OrderRecord::getSn, unique));
+        }
+        if (candidateIds == null && !prefixes.isEmpty()) {
             wrapper.or(w -> {
                 for (int i = 0; i < prefixes.size(); i++) {
                     w.likeRight(OrderRecord::getTrackingNumber, prefixes.get(i) + "-");
@@ -1399,16 +1566,16 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    @CacheEvict(value = {"orders", "orderDetail"}, allEntries = true)
+    @CacheEvict(value = "orderDetail", allEntries = true)
     @Transactional
     public List<OrderRecord> syncFromThirdParty(BatchFetchRequest request, String operator) {
         if (request == null || CollectionUtils.isEmpty(request.getTrackingNumbers())) {
             return List.of();
         }
         List<OrderRecord> existing = findByTracking(request.getTrackingNumbers());
-        List<String> existNumbers = existing.stream()
+        Set<String> existNumbers = existing.stream()
                 .map(OrderRecord::getTrackingNumber)
-                .collect(Collectors.toList());
+                .collect(Collectors.toCollection(HashSet::new));
 
         List<OrderRecord> created = new ArrayList<>();
         for (String tracking : request.getTrackingNumbers()) {
@@ -1433,6 +1600,8 @@ public class OrderServiceImpl implements OrderService {
             created.add(record);
         }
         if (!created.isEmpty()) {
+            orderPageCache.touch(created);
+            orderSearchIndex.upsert(created);
             settlementService.createPending(created, true);
         }
         return created;
@@ -1440,12 +1609,13 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
     public OrderRecord update(Long id, OrderUpdateRequest request) {
         OrderRecord record = orderRecordMapper.selectById(id);
         if (record == null) {
             throw new BusinessException(ErrorCode.NOT_FOUND, "订单不存在");
         }
+        // 修改运单号会重算分类，改前的分区也要失效
+        orderPageCache.touch(record.getOrderDate(), record.getCategory());
         if (StringUtils.hasText(request.getTrackingNumber())) {
             record.setTrackingNumber(request.getTrackingNumber().trim());
             record.setCategory(TrackingCategoryUtil.resolve(record.getTrackingNumber()));
@@ -1483,6 +1653,8 @@ public class OrderServiceImpl implements OrderService {
         if (updated == 0) {
             throw new BusinessException(ErrorCode.OPTIMISTIC_LOCK_CONFLICT);
         }
+        orderPageCache.touch(record);
+        orderSearchIndex.upsert(record);
         settlementService.syncFromOrder(record);
         return record;
     }
@@ -1521,74 +1693,9 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * 更新订单记录（通过ID匹配）
-     * 如果ID对应的记录不存在，则清空ID并插入新记录
-     */
-    private void updateDirectly(OrderRecord incoming) {
-        if (incoming.getId() == null || incoming.getId() <= 0) {
-            throw new BusinessException(ErrorCode.BAD_REQUEST, "更新记录时ID不能为空");
-        }
-
-        // 先检查记录是否存在
-        OrderRecord existing = orderRecordMapper.selectById(incoming.getId());
-        if (existing == null) {
-            // 记录不存在，清空ID，改为插入新记录
-            log.warn("ID={} 的记录不存在于数据库，将作为新记录插入", incoming.getId());
-            incoming.setId(null);
-            insertDirectly(incoming);
-            return;
-        }
-
-        // 处理日期和时间
-        if (incoming.getOrderDate() == null && incoming.getOrderTime() != null) {
-            incoming.setOrderDate(incoming.getOrderTime().toLocalDate());
-        }
-        if (incoming.getOrderTime() == null && incoming.getOrderDate() != null) {
-            incoming.setOrderTime(incoming.getOrderDate().atStartOfDay());
-        }
-
-        // 截断过长的字段，防止数据库错误
-        if (StringUtils.hasText(incoming.getModel()) && incoming.getModel().length() > 50) {
-            incoming.setModel(incoming.getModel().substring(0, 50));
-        }
-        if (StringUtils.hasText(incoming.getTrackingNumber()) && incoming.getTrackingNumber().length() > 64) {
-            incoming.setTrackingNumber(incoming.getTrackingNumber().substring(0, 64));
-        }
-        if (StringUtils.hasText(incoming.getRemark()) && incoming.getRemark().length() > 255) {
-            incoming.setRemark(incoming.getRemark().substring(0, 255));
-        }
-
-        // 设置默认值
-        if (incoming.getStatus() == null) {
-            incoming.setStatus("UNPAID");
-        }
-        if (incoming.getCurrency() == null) {
-            incoming.setCurrency("CNY");
-        }
-        if (incoming.getImported() == null) {
-            incoming.setImported(Boolean.TRUE);
-        }
-
-        // 通过ID更新记录
-        try {
-            int updatedRows = orderRecordMapper.updateById(incoming);
-            if (updatedRows == 0) {
-                log.warn("更新记录失败，没有行被更新。ID={}, trackingNumber={}, sn={}",
-                        incoming.getId(), incoming.getTrackingNumber(), incoming.getSn());
-            }
-        } catch (Exception e) {
-            log.warn("更新记录时发生异常，ID={}, trackingNumber={}, sn={}, 错误: {}",
-                    incoming.getId(), incoming.getTrackingNumber(), incoming.getSn(), e.getMessage());
-            throw e;
-        }
-    }
-
-    /**
-     * 直接插入订单记录，不做任何唯一性检查
-     * 允许相同 SN 或 trackingNumber 的多条记录存在
-     * 如果数据库仍有唯一约束导致插入失败，会捕获异常并继续处理
+     * 写入前的规整：补全日期/时间、截断过长字段、设置默认值（插入与更新共用）
      */
-    private void insertDirectly(OrderRecord incoming) {
+    private void prepareForWrite(OrderRecord incoming) {
         // 处理日期和时间
         if (incoming.getOrderDate() == null && incoming.getOrderTime() != null) {
             incoming.setOrderDate(incoming.getOrderTime().toLocalDate());
@@ -1618,70 +1725,10 @@ public class OrderServiceImpl implements OrderService {
         if (incoming.getImported() == null) {
             incoming.setImported(Boolean.TRUE);
         }
-
-        // 直接插入，不做任何去重检查
-        // 如果数据库仍有唯一约束，捕获异常并继续处理（不中断导入流程）
-        try {
-            orderRecordMapper.insert(incoming);
-        } catch (org.springframework.dao.DuplicateKeyException e) {
-            // 如果数据库仍有唯一约束导致插入失败，记录日志但继续处理
-            // 建议执行 remove_unique_constraint.sql 迁移脚本删除唯一约束
-            log.warn("插入记录失败（可能因唯一约束），跳过该记录: trackingNumber={}, sn={}, 错误: {}",
-                    incoming.getTrackingNumber(), incoming.getSn(), e.getMessage());
-            // 不抛出异常，继续处理下一条记录
-        }
-    }
-
-    /**
-     * 根据 SN 和 trackingNumber 进行 upsert（保留此方法供其他场景使用，但导入不再使用）
-     * @deprecated 导入功能已改为直接插入，不再使用此方法
-     */
-    @Deprecated
-    private void upsertBySn(OrderRecord incoming) {
-        LambdaQueryWrapper<OrderRecord> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(OrderRecord::getSn, incoming.getSn())
-                .eq(StringUtils.hasText(incoming.getTrackingNumber()), OrderRecord::getTrackingNumber, incoming.getTrackingNumber());
-        OrderRecord existed = orderRecordMapper.selectOne(wrapper);
-        if (incoming.getOrderDate() == null && incoming.getOrderTime() != null) {
-            incoming.setOrderDate(incoming.getOrderTime().toLocalDate());
-        }
-        if (incoming.getOrderTime() == null && incoming.getOrderDate() != null) {
-            incoming.setOrderTime(incoming.getOrderDate().atStartOfDay());
-        }
-
-        // 截断过长的字段，防止数据库错误
-        if (StringUtils.hasText(incoming.getModel()) && incoming.getModel().length() > 50) {
-            incoming.setModel(incoming.getModel().substring(0, 50));
-        }
-        if (StringUtils.hasText(incoming.getTrackingNumber()) && incoming.getTrackingNumber().length() > 64) {
-            incoming.setTrackingNumber(incoming.getTrackingNumber().substring(0, 64));
-        }
-        if (StringUtils.hasText(incoming.getRemark()) && incoming.getRemark().length() > 255) {
-            incoming.setRemark(incoming.getRemark().substring(0, 255));
-        }
-
-        incoming.setImported(Boolean.TRUE);
-        if (existed == null) {
-            orderRecordMapper.insert(incoming);
-        } else {
-            incoming.setId(existed.getId());
-            orderRecordMapper.updateById(incoming);
-        }
-    }
-
-    private boolean hasSubmission(String trackingNumber) {
-        if (!StringUtils.hasText(trackingNumber)) {
-            return false;
-        }
-        LambdaQueryWrapper<UserSubmission> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(UserSubmission::getTrackingNumber, trackingNumber.trim())
-                .ne(UserSubmission::getStatus, "COMPLETED");
-        return userSubmissionMapper.selectCount(wrapper) > 0;
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
     public void deleteWithRelations(Long id) {
         if (id == null || id <= 0) {
             throw new BusinessException(ErrorCode.BAD_REQUEST, "无效的订单ID");
@@ -1711,15 +1758,17 @@ public class OrderServiceImpl implements OrderService {
                     new QueryWrapper<UserSubmission>().lambda()
                             .eq(UserSubmission::getTrackingNumber, order.getTrackingNumber())
             );
+            currentOwnerProjection.refresh(List.of(order.getTrackingNumber()));
         }
 
         // 4. 删除订单记录
         orderRecordMapper.deleteById(id);
+        orderPageCache.touch(order);
+        orderSearchIndex.remove(List.of(id));
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
     public void batchDeleteWithRelations(List<Long> ids) {
         if (CollectionUtils.isEmpty(ids)) {
             return;
@@ -1759,9 +1808,12 @@ public class OrderServiceImpl implements OrderService {
                     new QueryWrapper<UserSubmission>().lambda()
                             .in(UserSubmission::getTrackingNumber, trackingNumbers)
             );
+            currentOwnerProjection.refresh(trackingNumbers);
         }
 
         // 4. 批量删除订单记录
         orderRecordMapper.deleteBatchIds(validIds);
+        orderPageCache.touch(orders);
+        orderSearchIndex.remove(validIds);
     }
 }
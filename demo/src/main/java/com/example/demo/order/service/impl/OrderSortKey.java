@@ -0,0 +1,111 @@
+package com.example.demo.order.service.impl;
+
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.example.demo.common.exception.BusinessException;
+import com.example.demo.common.exception.ErrorCode;
+import com.example.demo.order.entity.OrderRecord;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.function.Function;
+import org.springframework.util.StringUtils;
+
+/**
+ * 订单列表可排序的字段（偏移分页与游标分页共用）。排序总是 (字段 方向, id DESC)，
+ * 未指定或无法识别时按 orderDate DESC。
+ * 游标为 Base64URL 编码的 "版本|字段|方向|id|值"，值为空时记为 N，否则为 V + 文本。
+ */
+enum OrderSortKey {
+
+    STATUS("status", OrderRecord::getStatus, s -> s),
+    ORDER_DATE("orderdate", OrderRecord::getOrderDate, LocalDate::parse),
+    ORDER_TIME("ordertime", OrderRecord::getOrderTime, LocalDateTime::parse),
+    TRACKING_NUMBER("trackingnumber", OrderRecord::getTrackingNumber, s -> s),
+    MODEL("model", OrderRecord::getModel, s -> s),
+    SN("sn", OrderRecord::getSn, s -> s);
+
+    private static final String CURSOR_VERSION = "1";
+
+    private final String name;
+    private final SFunction<OrderRecord, ?> column;
+    private final Function<String, Object> parser;
+
+    OrderSortKey(String name, SFunction<OrderRecord, ?> column, Function<String, Object> parser) {
+        this.name = name;
+        this.column = column;
+        this.parser = parser;
+    }
+
+    SFunction<OrderRecord, ?> column() {
+        return column;
+    }
+
+    Object valueOf(OrderRecord record) {
+        return column.apply(record);
+    }
+
+    /**
+     * 解析后的排序：字段 + 方向
+     */
+    record Sort(OrderSortKey key, boolean asc) {
+    }
+
+    /**
+     * 与原 query 中的 switch 一致：sortBy 与 sortOrder 都有值才生效，未知字段回退 orderDate DESC
+     */
+    static Sort resolve(String sortBy, String sortOrder) {
+        if (StringUtils.hasText(sortBy) && StringUtils.hasText(sortOrder)) {
+            String lower = sortBy.toLowerCase();
+            for (OrderSortKey key : values()) {
+                if (key.name.equals(lower)) {
+                    return new Sort(key, "asc".equalsIgnoreCase(sortOrder));
+                }
+            }
+        }
+        return new Sort(ORDER_DATE, false);
+    }
+
+    /**
+     * 游标解码结果：上一页最后一行的排序值与 id
+     */
+    record Cursor(Sort sort, long lastId, Object lastValue) {
+    }
+
+    static String encode(Sort sort, OrderRecord last) {
+        Object value = sort.key().valueOf(last);
+        String raw = String.join("|", CURSOR_VERSION, sort.key().name, sort.asc() ? "a" : "d",
+                String.valueOf(last.getId()), value == null ? "N" : "V" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 5);
+            if (parts.length != 5 || !CURSOR_VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException(raw);
+            }
+            OrderSortKey key = null;
+            for (OrderSortKey k : values()) {
+                if (k.name.equals(parts[1])) {
+                    key = k;
+                }
+            }
+            if (key == null || !(parts[2].equals("a") || parts[2].equals("d"))) {
+                throw new IllegalArgumentException(raw);
+            }
+            Object value;
+            if (parts[4].equals("N")) {
+                value = null;
+            } else if (parts[4].startsWith("V")) {
+                value = key.parser.apply(parts[4].substring(1));
+            } else {
+                throw new IllegalArgumentException(raw);
+            }
+            return new Cursor(new Sort(key, parts[2].equals("a")), Long.parseLong(parts[3]), value);
+        } catch (RuntimeException e) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "无效的分页游标");
+        }
+    }
+}
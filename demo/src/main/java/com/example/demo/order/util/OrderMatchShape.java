@@ -0,0 +1,133 @@
+package com.example.demo.order.util;
+
+import com.example.demo.order.entity.OrderCellStyle;
+import com.example.demo.order.entity.OrderRecord;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 导入匹配用的定长行表示：物流单号/型号/SN/备注/金额 五列，每列一个值序号和一个样式字。
+ * 值（trim、金额去尾零）与颜色（归一化）经同一次导入共享的 {@link Dictionary} 转为序号，
+ * 样式字 = 背景色序号 | 字体色序号 << 30 | 删除线 << 60 | 加粗 << 61。
+ * 构建时做一次归一化，之后打分与变化判断只做整数比较，不再分配对象；序号精确对应字符串，没有哈希碰撞。
+ * 归一化口径与 {@link OrderRowFingerprint} 一致。
+ */
+public final class OrderMatchShape {
+
+    /** 每列值相同得 15 分，样式（背景/字体/删除线/加粗）全部相同得 5 分，满分 100 */
+    public static final int FULL_SCORE = 100;
+    private static final int VALUE_SCORE = 15;
+    private static final int STYLE_SCORE = 5;
+
+    private static final int FIELDS = 5;
+    private static final int COLOR_BITS = 30;
+    private static final long STRIKE_BIT = 1L << (COLOR_BITS * 2);
+    private static final long BOLD_BIT = 1L << (COLOR_BITS * 2 + 1);
+
+    private final int[] values = new int[FIELDS];
+    private final long[] styles = new long[FIELDS];
+
+    private OrderMatchShape() {
+    }
+
+    /**
+     * Excel 行（值与样式都取自记录本身）
+     */
+    public static OrderMatchShape ofRecord(OrderRecord r, Dictionary dict) {
+        OrderMatchShape shape = new OrderMatchShape();
+        shape.set(0, dict, r.getTrackingNumber(), r.getTrackingBgColor(), r.getTrackingFontColor(), r.getTrackingStrike(), r.getTrackingBold());
+        shape.set(1, dict, r.getModel(), r.getModelBgColor(), r.getModelFontColor(), r.getModelStrike(), r.getModelBold());
+        shape.set(2, dict, r.getSn(), r.getSnBgColor(), r.getSnFontColor(), r.getSnStrike(), r.getSnBold());
+        shape.set(3, dict, r.getRemark(), r.getRemarkBgColor(), r.getRemarkFontColor(), r.getRemarkStrike(), r.getRemarkBold());
+        shape.set(4, dict, OrderRowFingerprint.amountText(r.getAmount()), r.getAmountBgColor(), r.getAmountFontColor(), r.getAmountStrike(), r.getAmountBold());
+        return shape;
+    }
+
+    /**
+     * 数据库中的行（值取自记录，样式取自 order_cell_style，缺失的列按默认样式；同列多条时以后者为准）
+     */
+    public static OrderMatchShape ofStored(OrderRecord r, List<OrderCellStyle> cellStyles, Dictionary dict) {
+        OrderCellStyle[] byField = new OrderCellStyle[FIELDS];
+        if (cellStyles != null) {
+            for (OrderCellStyle s : cellStyles) {
+                int idx = fieldIndex(s.getField());
+                if (idx >= 0) byField[idx] = s;
+            }
+        }
+        OrderMatchShape shape = new OrderMatchShape();
+        shape.setStored(0, dict, r.getTrackingNumber(), byField[0]);
+        shape.setStored(1, dict, r.getModel(), byField[1]);
+        shape.setStored(2, dict, r.getSn(), byField[2]);
+        shape.setStored(3, dict, r.getRemark(), byField[3]);
+        shape.setStored(4, dict, OrderRowFingerprint.amountText(r.getAmount()), byField[4]);
+        return shape;
+    }
+
+    /**
+     * 相似度分数（0-100），100 表示内容和样式完全相同
+     */
+    public int score(OrderMatchShape other) {
+        int score = 0;
+        for (int i = 0; i < FIELDS; i++) {
+            if (values[i] == other.values[i]) score += VALUE_SCORE;
+            if (styles[i] == other.styles[i]) score += STYLE_SCORE;
+        }
+        return score;
+    }
+
+    /**
+     * 内容与样式完全相同（等价于 score == 100）
+     */
+    public boolean sameAs(OrderMatchShape other) {
+        for (int i = 0; i < FIELDS; i++) {
+            if (values[i] != other.values[i] || styles[i] != other.styles[i]) return false;
+        }
+        return true;
+    }
+
+    private void setStored(int i, Dictionary dict, String value, OrderCellStyle style) {
+        if (style == null) {
+            set(i, dict, value, null, null, null, null);
+        } else {
+            set(i, dict, value, style.getBgColor(), style.getFontColor(), style.getStrike(), style.getBold());
+        }
+    }
+
+    private void set(int i, Dictionary dict, String value, String bg, String fg, Boolean strike, Boolean bold) {
+        values[i] = dict.id(value == null ? "" : value.trim());
+        long word = dict.id(OrderRowFingerprint.normBg(bg)) | ((long) dict.id(OrderRowFingerprint.normFg(fg)) << COLOR_BITS);
+        if (Boolean.TRUE.equals(strike)) word |= STRIKE_BIT;
+        if (Boolean.TRUE.equals(bold)) word |= BOLD_BIT;
+        styles[i] = word;
+    }
+
+    private static int fieldIndex(String field) {
+        if (field == null) return -1;
+        return switch (field) {
+            case "tracking" -> 0;
+            case "model" -> 1;
+            case "sn" -> 2;
+            case "remark" -> 3;
+            case "amount" -> 4;
+            default -> -1;
+        };
+    }
+
+    /**
+     * 字符串 -> 序号字典，同一次导入内共享（线程安全，可在并行匹配中使用）
+     */
+    public static final class Dictionary {
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final AtomicInteger next = new AtomicInteger();
+
+        int id(String s) {
+            return ids.computeIfAbsent(s, k -> next.getAndIncrement());
+        }
+
+        public int size() {
+            return ids.size();
+        }
+    }
+}
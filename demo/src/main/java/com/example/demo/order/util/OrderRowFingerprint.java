@@ -0,0 +1,182 @@
+package com.example.demo.order.util;
+
+import com.example.demo.order.entity.OrderCellStyle;
+import com.example.demo.order.entity.OrderRecord;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 订单行指纹（64 位）：覆盖导入变更检测比较的全部内容——
+ * 物流单号/型号/SN/备注/金额 五列的值（trim、金额去尾零）以及各列的背景色、字体色（归一化）、删除线、加粗。
+ * 两行在导入比较中“无变化”当且仅当指纹相同（不计哈希碰撞），用于重复导入时跳过未变化行。
+ * 归一化规则同时供导入比较使用，保证两边口径一致。
+ */
+public final class OrderRowFingerprint {
+
+    // 与 order_record.amount DECIMAL(15,2) 一致
+    private static final int AMOUNT_SCALE = 2;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private OrderRowFingerprint() {
+    }
+
+    /**
+     * Excel 行（值与样式都取自记录本身）
+     */
+    public static long ofRecord(OrderRecord r) {
+        long h = FNV_OFFSET;
+        h = field(h, r.getTrackingNumber(), r.getTrackingBgColor(), r.getTrackingFontColor(), r.getTrackingStrike(), r.getTrackingBold());
+        h = field(h, r.getModel(), r.getModelBgColor(), r.getModelFontColor(), r.getModelStrike(), r.getModelBold());
+        h = field(h, r.getSn(), r.getSnBgColor(), r.getSnFontColor(), r.getSnStrike(), r.getSnBold());
+        h = field(h, r.getRemark(), r.getRemarkBgColor(), r.getRemarkFontColor(), r.getRemarkStrike(), r.getRemarkBold());
+        h = field(h, amountText(r.getAmount()), r.getAmountBgColor(), r.getAmountFontColor(), r.getAmountStrike(), r.getAmountBold());
+        return finish(h);
+    }
+
+    /**
+     * 数据库中的行（值取自记录，样式取自 order_cell_style，缺失的列按默认样式）
+     */
+    public static long ofStored(OrderRecord r, List<OrderCellStyle> styles) {
+        return merged(r, null, styles, false);
+    }
+
+    /**
+     * 导入写入后的数据库状态：值为写入值（金额按列精度舍入），样式按导入的合并规则叠加在旧样式上
+     * （新颜色非空则覆盖，删除线/加粗只会由 false 变 true）。
+     * 更新按非空字段写入，写入值为 null 的列保留数据库原值，因此这些列取 stored（新插入时为 null）。
+     */
+    public static long afterWrite(OrderRecord incoming, OrderRecord stored, List<OrderCellStyle> oldStyles) {
+        return merged(incoming, stored, oldStyles, true);
+    }
+
+    /**
+     * 标准化背景色：null / 空 / 白色 统一为 #FFFFFF
+     */
+    public static String normBg(String c) {
+        if (c == null) return "#FFFFFF";
+        String s = c.trim();
+        if (s.isEmpty()) return "#FFFFFF";
+        s = s.toUpperCase(Locale.ROOT);
+        if ("#FFF".equals(s)) return "#FFFFFF";
+        return s;
+    }
+
+    /**
+     * 标准化字体颜色：null / 空 / 黑色 统一为 #000000
+     */
+    public static String normFg(String c) {
+        if (c == null) return "#000000";
+        String s = c.trim();
+        if (s.isEmpty()) return "#000000";
+        s = s.toUpperCase(Locale.ROOT);
+        if ("#000".equals(s)) return "#000000";
+        // 自动颜色（某些Excel会用 #000008 或类似深色表示默认黑色）
+        if (s.length() == 7 && s.startsWith("#00000") && isHexDigit(s.charAt(6))) return "#000000";
+        return s;
+    }
+
+    public static String amountText(BigDecimal amount) {
+        return amount == null ? "" : amount.stripTrailingZeros().toPlainString();
+    }
+
+    private static long merged(OrderRecord r, OrderRecord stored, List<OrderCellStyle> styles, boolean mergeIncoming) {
+        OrderCellStyle[] old = new OrderCellStyle[5];
+        if (styles != null) {
+            for (OrderCellStyle s : styles) {
+                int idx = fieldIndex(s.getField());
+                if (idx >= 0) old[idx] = s;
+            }
+        }
+        BigDecimal amount = r.getAmount();
+        if (mergeIncoming && amount != null) {
+            amount = amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP);
+        }
+        long h = FNV_OFFSET;
+        if (mergeIncoming) {
+            if (amount == null && stored != null) {
+                amount = stored.getAmount();
+            }
+            h = mergedField(h, written(r.getTrackingNumber(), stored == null ? null : stored.getTrackingNumber()), old[0],
+                r.getTrackingBgColor(), r.getTrackingFontColor(), r.getTrackingStrike(), r.getTrackingBold());
+            h = mergedField(h, written(r.getModel(), stored == null ? null : stored.getModel()), old[1],
+                r.getModelBgColor(), r.getModelFontColor(), r.getModelStrike(), r.getModelBold());
+            h = mergedField(h, written(r.getSn(), stored == null ? null : stored.getSn()), old[2],
+                r.getSnBgColor(), r.getSnFontColor(), r.getSnStrike(), r.getSnBold());
+            h = mergedField(h, written(r.getRemark(), stored == null ? null : stored.getRemark()), old[3],
+                r.getRemarkBgColor(), r.getRemarkFontColor(), r.getRemarkStrike(), r.getRemarkBold());
+            h = mergedField(h, amountText(amount), old[4], r.getAmountBgColor(), r.getAmountFontColor(), r.getAmountStrike(), r.getAmountBold());
+        } else {
+            h = mergedField(h, r.getTrackingNumber(), old[0], null, null, null, null);
+            h = mergedField(h, r.getModel(), old[1], null, null, null, null);
+            h = mergedField(h, r.getSn(), old[2], null, null, null, null);
+            h = mergedField(h, r.getRemark(), old[3], null, null, null, null);
+            h = mergedField(h, amountText(amount), old[4], null, null, null, null);
+        }
+        return finish(h);
+    }
+
+    // 非空字段才会写入，null 保留原值
+    private static String written(String incoming, String stored) {
+        return incoming != null ? incoming : stored;
+    }
+
+    private static long mergedField(long h, String value, OrderCellStyle old,
+                                    String newBg, String newFg, Boolean newStrike, Boolean newBold) {
+        String bg = (newBg != null && !newBg.isBlank()) ? newBg : (old == null ? null : old.getBgColor());
+        String fg = (newFg != null && !newFg.isBlank()) ? newFg : (old == null ? null : old.getFontColor());
+        boolean strike = Boolean.TRUE.equals(newStrike) || (old != null && Boolean.TRUE.equals(old.getStrike()));
+        boolean bold = Boolean.TRUE.equals(newBold) || (old != null && Boolean.TRUE.equals(old.getBold()));
+        return field(h, value, bg, fg, strike, bold);
+    }
+
+    private static int fieldIndex(String field) {
+        if (field == null) return -1;
+        return switch (field) {
+            case "tracking" -> 0;
+            case "model" -> 1;
+            case "sn" -> 2;
+            case "remark" -> 3;
+            case "amount" -> 4;
+            default -> -1;
+        };
+    }
+
+    private static long field(long h, String value, String bg, String fg, Boolean strike, Boolean bold) {
+        h = text(h, value == null ? "" : value.trim());
+        h = text(h, normBg(bg));
+        h = text(h, normFg(fg));
+        h = mix(h, Boolean.TRUE.equals(strike) ? 1 : 0);
+        h = mix(h, Boolean.TRUE.equals(bold) ? 1 : 0);
+        return h;
+    }
+
+    // FNV-1a 按 UTF-16 字符累加，末尾追加分隔符避免字段拼接歧义
+    private static long text(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h = mix(h, s.charAt(i));
+        }
+        return mix(h, 0xFFFF);
+    }
+
+    private static long mix(long h, int v) {
+        return (h ^ v) * FNV_PRIME;
+    }
+
+    // 末端扰动（MurmurHash3 fmix64），让低位分布更均匀
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static boolean isHexDigit(char ch) {
+        return (ch >= '0' && ch <= '9') || (ch >= 'A' && ch <= 'F');
+    }
+}
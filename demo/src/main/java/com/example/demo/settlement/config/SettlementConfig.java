@@ -1,11 +1,16 @@
 package com.example.demo.settlement.config;
 
 import com.example.demo.config.AppProperties;
-import com.example.demo.hardware.mapper.HardwarePriceMapper;
+import com.example.demo.hardware.service.HardwarePriceIndex;
 import com.example.demo.order.mapper.OrderRecordMapper;
 import com.example.demo.order.mapper.OrderCellStyleMapper;
+import com.example.demo.order.service.OrderPageCache;
 import com.example.demo.settlement.mapper.SettlementRecordMapper;
+import com.example.demo.settlement.service.SettlementBatchWriter;
 import com.example.demo.settlement.service.SettlementCacheService;
+import com.example.demo.settlement.service.SettlementConfirmEngine;
+import com.example.demo.settlement.service.SettlementExportReader;
+import com.example.demo.settlement.service.SettlementRepricingQueue;
 import com.example.demo.settlement.service.SettlementService;
 import com.example.demo.settlement.service.impl.SettlementServiceImpl;
 import com.example.demo.submission.mapper.UserSubmissionMapper;
@@ -20,19 +25,29 @@ public class SettlementConfig {
     @ConditionalOnMissingBean(SettlementService.class)
     public SettlementService settlementService(SettlementRecordMapper settlementRecordMapper,
                                                OrderRecordMapper orderRecordMapper,
-                                               HardwarePriceMapper hardwarePriceMapper,
+                                               HardwarePriceIndex hardwarePriceIndex,
                                                UserSubmissionMapper userSubmissionMapper,
                                                AppProperties appProperties,
                                                SettlementCacheService settlementCacheService,
-                                               OrderCellStyleMapper orderCellStyleMapper) {
+                                               OrderCellStyleMapper orderCellStyleMapper,
+                                               OrderPageCache orderPageCache,
+                                               SettlementBatchWriter settlementBatchWriter,
+                                               SettlementRepricingQueue settlementRepricingQueue,
+                                               SettlementConfirmEngine settlementConfirmEngine,
+                                               SettlementExportReader settlementExportReader) {
         return new SettlementServiceImpl(
             settlementRecordMapper,
             orderRecordMapper,
-            hardwarePriceMapper,
+            hardwarePriceIndex,
             userSubmissionMapper,
             appProperties,
             settlementCacheService,
-            orderCellStyleMapper
+            orderCellStyleMapper,
+            orderPageCache,
+            settlementBatchWriter,
+            settlementRepricingQueue,
+            settlementConfirmEngine,
+            settlementExportReader
         );
     }
 }
@@ -16,6 +16,7 @@ import com.example.demo.settlement.dto.SettlementBatchPriceRequest;
 import com.example.demo.settlement.dto.SettlementBatchSnPriceRequest;
 import com.example.demo.settlement.dto.SettlementBatchSnPriceResponse;
 import com.example.demo.settlement.dto.SettlementConfirmRequest;
+import com.example.demo.settlement.dto.SettlementConfirmResult;
 import com.example.demo.settlement.dto.SettlementCursorRequest;
 import com.example.demo.settlement.dto.SettlementExportRequest;
 import com.example.demo.settlement.dto.SettlementFilterRequest;
@@ -24,12 +25,13 @@ import com.example.demo.settlement.service.SettlementService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -120,20 +122,20 @@ public class SettlementController {
     @SaCheckRole("ADMIN")
     @LogOperation("批量确认结账")
     @Operation(summary = "批量确认", description = "批量确认所选结算记录，金额可选统一设置")
-    public ApiResponse<Void> confirmBatch(@Valid @RequestBody SettlementBatchConfirmRequest request) {
-        settlementService.confirmBatch(request, StpUtil.getLoginIdAsString());
-        return ApiResponse.ok();
+    public ApiResponse<SettlementConfirmResult> confirmBatch(@Valid @RequestBody SettlementBatchConfirmRequest request) {
+        SettlementConfirmResult result = settlementService.confirmBatch(request, StpUtil.getLoginIdAsString());
+        return ApiResponse.ok(result);
     }
 
     @PutMapping("/confirm-all")
     @SaCheckRole("ADMIN")
     @LogOperation("确认全部查询结果")
     @Operation(summary = "确认全部查询结果", description = "根据当前筛选条件，确认所有待结账的记录")
-    public ApiResponse<Integer> confirmAll(@RequestBody SettlementFilterRequest request) {
+    public ApiResponse<SettlementConfirmResult> confirmAll(@RequestBody SettlementFilterRequest request) {
         String username = StpUtil.getLoginIdAsString();
         String role = "ADMIN"; // confirmAll 只有管理员可以调用
-        int count = settlementService.confirmAll(request, username, username, role);
-        return ApiResponse.ok(count);
+        SettlementConfirmResult result = settlementService.confirmAll(request, username, username, role);
+        return ApiResponse.ok(result);
     }
 
     @DeleteMapping
@@ -162,14 +164,13 @@ public class SettlementController {
     @SaCheckLogin
     @LogOperation("导出结账数据")
     @Operation(summary = "导出结算数据", description = "将筛选结果导出为 Excel 文件")
-    public ResponseEntity<byte[]> export(SettlementExportRequest request) {
+    public void export(SettlementExportRequest request, HttpServletResponse response) throws IOException {
         String username = StpUtil.getLoginIdAsString();
         String role = getUserRole(username);
-        byte[] bytes = settlementService.export(request, username, role);
-        return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=settlements.xlsx")
-            .contentType(MediaType.APPLICATION_OCTET_STREAM)
-            .body(bytes);
+        // 直接写入响应流，不在内存中生成整个文件
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=settlements.xlsx");
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        settlementService.export(request, username, role, response.getOutputStream());
     }
 
     @PutMapping("/move-to-draft")
@@ -0,0 +1,34 @@
+package com.example.demo.settlement.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * 批量确认结果：成功条数与逐条未确认原因
+ */
+@Data
+public class SettlementConfirmResult {
+
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String NO_AMOUNT = "NO_AMOUNT";
+
+    /** 参与确认的记录数 */
+    private int requested;
+    private int confirmed;
+    private List<Conflict> conflicts = new ArrayList<>();
+
+    @Data
+    public static class Conflict {
+        private Long id;
+        private String trackingNumber;
+        /** NOT_FOUND：记录不存在或已删除；NO_AMOUNT：没有可用金额 */
+        private String reason;
+
+        public Conflict(Long id, String trackingNumber, String reason) {
+            this.id = id;
+            this.trackingNumber = trackingNumber;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.settlement.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.Data;
+
+/**
+ * 导出流式读取的一行：结账记录 + 关联订单的展示字段，以及 SQL 中算好的分组键
+ */
+@Data
+public class SettlementExportRow {
+    private Long id;
+    /** 归属人：记录自身 → 单号当前归属人 → 订单创建人，与列表展示一致 */
+    private String ownerKey;
+    /** 分组时间：记录下单时间 → 订单下单时间 → 确认/创建/更新时间 */
+    private LocalDateTime groupTime;
+    /** 去首尾空格的单号 */
+    private String trackingKey;
+    private String model;
+    private BigDecimal amount;
+    private Boolean manualInput;
+    private String remark;
+    private String submitterUsername;
+    /** 关联订单，未关联或已删除时为空 */
+    private Long linkedOrderId;
+    private String orderModel;
+    private String orderSn;
+    private LocalDate orderDate;
+    private LocalDateTime orderTime;
+}
@@ -1,9 +1,46 @@
 package com.example.demo.settlement.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.example.demo.settlement.dto.SettlementExportRow;
 import com.example.demo.settlement.entity.SettlementRecord;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 @Mapper
 public interface SettlementRecordMapper extends BaseMapper<SettlementRecord> {
+
+    /**
+     * 导出用流式读取（MySQL 逐行返回）。游标须在独立会话中遍历、调用方不能处于事务中，见 SettlementExportReader。
+     * 条件作用于结账记录本身（需自带 deleted = 0），
+     * 跳过单号为空的记录；按 归属人、分组时间、单号（均按二进制比较，与 Java 字符串排序一致）、id 排序，
+     * 同一归属人、同一「时间 + 单号」分组的记录连续输出。
+     */
+    @Select("""
+            <script>
+            SELECT x.* FROM (
+              SELECT s.id, s.model, s.amount, s.manual_input, s.remark, s.submitter_username,
+                     CASE WHEN TRIM(s.owner_username) &lt;&gt; '' THEN s.owner_username
+                          WHEN TRIM(c.owner_username) &lt;&gt; '' THEN c.owner_username
+                          WHEN o.id IS NOT NULL THEN COALESCE(o.created_by, '')
+                          ELSE COALESCE(s.owner_username, '') END AS owner_key,
+                     COALESCE(s.order_time, o.order_time, s.confirmed_at, s.created_at, s.updated_at) AS group_time,
+                     TRIM(s.tracking_number) AS tracking_key,
+                     o.id AS linked_order_id, o.model AS order_model, o.sn AS order_sn,
+                     o.order_date, o.order_time
+              FROM (SELECT * FROM settlement_record ${ew.customSqlSegment}) s
+              LEFT JOIN order_record o ON o.id = s.order_id AND o.deleted = 0
+              LEFT JOIN tracking_current_owner c ON c.tracking_number = s.tracking_number
+              WHERE TRIM(s.tracking_number) &lt;&gt; ''
+            ) x
+            ORDER BY CAST(x.owner_key AS BINARY), x.group_time, CAST(x.tracking_key AS BINARY), x.id
+            </script>
+            """)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<SettlementExportRow> streamExportRows(@Param(Constants.WRAPPER) Wrapper<SettlementRecord> wrapper);
 }
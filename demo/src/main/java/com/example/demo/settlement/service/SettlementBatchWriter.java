@@ -0,0 +1,117 @@
+package com.example.demo.settlement.service;
+
+import com.baomidou.mybatisplus.core.batch.BatchMethod;
+import com.baomidou.mybatisplus.core.batch.MybatisBatch;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.example.demo.order.entity.OrderRecord;
+import com.example.demo.order.mapper.OrderRecordMapper;
+import com.example.demo.settlement.entity.SettlementRecord;
+import com.example.demo.settlement.mapper.SettlementRecordMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.MyBatisExceptionTranslator;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * 结账批量写入（createPending、后台补价用）：与订单导入的批量写入相同，基于 MyBatis BATCH 执行器，
+ * 配合连接串上的 rewriteBatchedStatements=true，批量 insert 改写为多行 INSERT 并回填自增主键，
+ * 批量 updateById 仍带 version 条件。使用 Spring 管理的连接，调用方需自行开启事务。
+ */
+@Component
+public class SettlementBatchWriter {
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final MybatisBatch.Method<SettlementRecord> settlementMethod = new MybatisBatch.Method<>(SettlementRecordMapper.class);
+    private final MybatisBatch.Method<OrderRecord> orderMethod = new MybatisBatch.Method<>(OrderRecordMapper.class);
+
+    private volatile MyBatisExceptionTranslator exceptionTranslator;
+
+    public SettlementBatchWriter(SqlSessionFactory sqlSessionFactory) {
+        this.sqlSessionFactory = sqlSessionFactory;
+    }
+
+    /**
+     * 批量插入结账记录，执行后每条记录的 id 已回填
+     */
+    public void insertSettlements(List<SettlementRecord> records) {
+        if (CollectionUtils.isEmpty(records)) {
+            return;
+        }
+        execute(records, settlementMethod.insert());
+    }
+
+    /**
+     * 批量按 ID 更新订单（带 version 条件）
+     *
+     * @return 影响行数为 0 的订单：已被他人修改（version 不一致）或已被删除
+     */
+    public List<OrderRecord> updateOrdersById(List<OrderRecord> orders) {
+        if (CollectionUtils.isEmpty(orders)) {
+            return List.of();
+        }
+        return unaffected(orders, execute(orders, orderMethod.updateById()));
+    }
+
+    /**
+     * 按条件批量更新结账记录，每个元素生成一条 UPDATE
+     *
+     * @return 影响行数为 0 的元素（条件不再满足）
+     */
+    public <E> List<E> updateSettlements(List<E> items, Function<E, Wrapper<SettlementRecord>> wrapper) {
+        if (CollectionUtils.isEmpty(items)) {
+            return List.of();
+        }
+        return unaffected(items, execute(items, settlementMethod.update(wrapper)));
+    }
+
+    /**
+     * 按条件批量更新订单，每个元素生成一条 UPDATE
+     *
+     * @return 影响行数为 0 的元素（条件不再满足）
+     */
+    public <E> List<E> updateOrders(List<E> items, Function<E, Wrapper<OrderRecord>> wrapper) {
+        if (CollectionUtils.isEmpty(items)) {
+            return List.of();
+        }
+        return unaffected(items, execute(items, orderMethod.update(wrapper)));
+    }
+
+    private static <E> List<E> unaffected(List<E> items, List<BatchResult> results) {
+        List<E> misses = new ArrayList<>();
+        int offset = 0;
+        for (BatchResult result : results) {
+            int[] counts = result.getUpdateCounts();
+            for (int i = 0; i < counts.length; i++) {
+                // 驱动改写为多语句时可能返回 SUCCESS_NO_INFO，视为成功
+                if (counts[i] == 0) {
+                    misses.add(items.get(offset + i));
+                }
+            }
+            offset += counts.length;
+        }
+        return misses;
+    }
+
+    /**
+     * 批量会话绕过了 SqlSessionTemplate，这里按同样的规则翻译 MyBatis 异常
+     */
+    private <T> List<BatchResult> execute(List<T> records, BatchMethod<T> batchMethod) {
+        try {
+            return new MybatisBatch<>(sqlSessionFactory, records).execute(batchMethod);
+        } catch (PersistenceException e) {
+            if (exceptionTranslator == null) {
+                exceptionTranslator = new MyBatisExceptionTranslator(
+                        sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(), true);
+            }
+            DataAccessException translated = exceptionTranslator.translateExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        }
+    }
+}
@@ -5,9 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.time.Duration;
-import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -25,11 +23,9 @@ public class SettlementCacheService {
     private final RedisTemplate<String, Object> redisTemplate;
 
     private static final String OWNER_CACHE_PREFIX = "settlement:owner:";
-    private static final String PRICE_CACHE_PREFIX = "settlement:price:";
     private static final String ORDER_INFO_CACHE_PREFIX = "settlement:order:";
 
     private static final Duration OWNER_CACHE_TTL = Duration.ofHours(6);
-    private static final Duration PRICE_CACHE_TTL = Duration.ofDays(1);
     private static final Duration ORDER_INFO_CACHE_TTL = Duration.ofMinutes(30);
 
     /**
@@ -116,34 +112,6 @@ public class SettlementCacheService {
         log.debug("批量缓存写入 - 归属用户: {} 条", ownerMap.size());
     }
 
-    /**
-     * 获取硬件价格（从缓存）
-     */
-    public BigDecimal getHardwarePrice(String model, LocalDate date) {
-        if (model == null || model.isBlank() || date == null) {
-            return null;
-        }
-        String key = PRICE_CACHE_PREFIX + model + ":" + date;
-        Object value = redisTemplate.opsForValue().get(key);
-        if (value != null) {
-            log.debug("缓存命中 - 硬件价格: {} @ {}", model, date);
-            return (BigDecimal) value;
-        }
-        return null;
-    }
-
-    /**
-     * 缓存硬件价格
-     */
-    public void cacheHardwarePrice(String model, LocalDate date, BigDecimal price) {
-        if (model == null || model.isBlank() || date == null || price == null) {
-            return;
-        }
-        String key = PRICE_CACHE_PREFIX + model + ":" + date;
-        redisTemplate.opsForValue().set(key, price, PRICE_CACHE_TTL);
-        log.debug("缓存写入 - 硬件价格: {} @ {} -> {}", model, date, price);
-    }
-
     /**
      * 清除归属用户缓存
      */
@@ -155,17 +123,6 @@ public class SettlementCacheService {
         }
     }
 
-    /**
-     * 清除硬件价格缓存
-     */
-    public void evictHardwarePrice(String model, LocalDate date) {
-        if (model != null && !model.isBlank() && date != null) {
-            String key = PRICE_CACHE_PREFIX + model + ":" + date;
-            redisTemplate.delete(key);
-            log.debug("缓存清除 - 硬件价格: {} @ {}", model, date);
-        }
-    }
-
     /**
      * 清除所有归属用户缓存
      */
@@ -176,15 +133,4 @@ public class SettlementCacheService {
             log.info("批量缓存清除 - 归属用户: {} 条", keys.size());
         }
     }
-
-    /**
-     * 清除所有硬件价格缓存
-     */
-    public void evictAllPriceCache() {
-        Set<String> keys = redisTemplate.keys(PRICE_CACHE_PREFIX + "*");
-        if (keys != null && !keys.isEmpty()) {
-            redisTemplate.delete(keys);
-            log.info("批量缓存清除 - 硬件价格: {} 条", keys.size());
-        }
-    }
 }
@@ -0,0 +1,242 @@
+package com.example.demo.settlement.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.example.demo.order.entity.OrderRecord;
+import com.example.demo.order.mapper.OrderRecordMapper;
+import com.example.demo.order.service.OrderPageCache;
+import com.example.demo.settlement.dto.SettlementConfirmResult;
+import com.example.demo.settlement.entity.SettlementRecord;
+import com.example.demo.settlement.mapper.SettlementRecordMapper;
+import com.example.demo.submission.mapper.UserSubmissionMapper;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 批量确认结账（confirmBatch / confirmAll 共用），规则与单条确认一致，按 1000 条一段集合化执行：
+ * <ol>
+ *   <li>FOR UPDATE 读取本段记录（只取 id、订单、单号、金额），不存在或没有金额的记为冲突；</li>
+ *   <li>一条 UPDATE 写入状态、批次、确认人、金额（统一金额时）并 version + 1（行已加锁，不需要再按 version 校验）；</li>
+ *   <li>有 order_id 的记录用两条关联 UPDATE 把订单改为 PAID 并同步金额；没有或订单已删除的按单号取最新订单批量回写；</li>
+ *   <li>一条 UPDATE 将这些单号下已全部确认的提交记录标记为 COMPLETED。</li>
+ * </ol>
+ * 调用方需在事务中调用。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SettlementConfirmEngine {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    // 与按单号取订单的 ORDER BY order_time DESC, created_at DESC 一致（空值排在最后）
+    private static final Comparator<OrderRecord> LATEST_ORDER = Comparator
+        .comparing(OrderRecord::getOrderTime, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+        .thenComparing(OrderRecord::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()));
+
+    private final SettlementRecordMapper settlementRecordMapper;
+    private final OrderRecordMapper orderRecordMapper;
+    private final UserSubmissionMapper userSubmissionMapper;
+    private final SettlementBatchWriter settlementBatchWriter;
+    private final OrderPageCache orderPageCache;
+
+    /**
+     * @param amount 统一确认金额，为空时使用各记录自身金额
+     * @param remark 备注，为空时不修改
+     */
+    public SettlementConfirmResult confirm(Collection<Long> ids, BigDecimal amount, String remark, String operator) {
+        SettlementConfirmResult result = new SettlementConfirmResult();
+        List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        result.setRequested(distinct.size());
+        LocalDateTime now = LocalDateTime.now();
+        String batch = "BATCH-" + now.toLocalDate();
+        for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size()));
+            List<SettlementRecord> confirmed = confirmSettlements(chunk, amount, remark, operator, now, batch, result);
+            if (!confirmed.isEmpty()) {
+                propagateToOrders(confirmed, now);
+                completeSubmissions(confirmed, now);
+                result.setConfirmed(result.getConfirmed() + confirmed.size());
+            }
+        }
+        if (!result.getConflicts().isEmpty()) {
+            log.warn("批量确认: 共{}条, 确认{}条, 未确认{}条", result.getRequested(), result.getConfirmed(), result.getConflicts().size());
+        }
+        return result;
+    }
+
+    private List<SettlementRecord> confirmSettlements(List<Long> ids, BigDecimal amount, String remark, String operator,
+                                                      LocalDateTime now, String batch, SettlementConfirmResult result) {
+        LambdaQueryWrapper<SettlementRecord> query = new LambdaQueryWrapper<>();
+        query.select(
+            SettlementRecord::getId,
+            SettlementRecord::getOrderId,
+            SettlementRecord::getTrackingNumber,
+            SettlementRecord::getAmount
+        ).in(SettlementRecord::getId, ids).last("FOR UPDATE");
+        Map<Long, SettlementRecord> rows = settlementRecordMapper.selectList(query).stream()
+            .collect(Collectors.toMap(SettlementRecord::getId, r -> r));
+
+        List<SettlementRecord> confirmed = new ArrayList<>();
+        for (Long id : ids) {
+            SettlementRecord record = rows.get(id);
+            if (record == null) {
+                result.getConflicts().add(new SettlementConfirmResult.Conflict(id, null, SettlementConfirmResult.NOT_FOUND));
+                continue;
+            }
+            BigDecimal target = amount != null ? amount : record.getAmount();
+            if (target == null) {
+                result.getConflicts().add(new SettlementConfirmResult.Conflict(id, record.getTrackingNumber(), SettlementConfirmResult.NO_AMOUNT));
+                continue;
+            }
+            record.setAmount(target);
+            confirmed.add(record);
+        }
+        if (confirmed.isEmpty()) {
+            return confirmed;
+        }
+
+        LambdaUpdateWrapper<SettlementRecord> update = Wrappers.lambdaUpdate();
+        update.in(SettlementRecord::getId, confirmed.stream().map(SettlementRecord::getId).collect(Collectors.toList()))
+            .set(SettlementRecord::getStatus, "CONFIRMED")
+            .set(SettlementRecord::getSettleBatch, batch)
+            .set(SettlementRecord::getConfirmedBy, operator)
+            .set(SettlementRecord::getConfirmedAt, now)
+            // 提交人改为当前确认操作的用户
+            .set(SettlementRecord::getSubmitterUsername, operator);
+        if (amount != null) {
+            update.set(SettlementRecord::getAmount, amount);
+        }
+        if (remark != null) {
+            update.set(SettlementRecord::getRemark, remark);
+        }
+        update.setSql("version = version + 1");
+        settlementRecordMapper.update(null, update);
+        return confirmed;
+    }
+
+    /**
+     * 订单改为 PAID（已是 PAID 的不改状态时间）并同步结账金额
+     */
+    private void propagateToOrders(List<SettlementRecord> confirmed, LocalDateTime now) {
+        List<Long> orderIds = confirmed.stream()
+            .map(SettlementRecord::getOrderId)
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList());
+        Map<Long, OrderRecord> linked = new LinkedHashMap<>();
+        if (!orderIds.isEmpty()) {
+            LambdaQueryWrapper<OrderRecord> query = new LambdaQueryWrapper<>();
+            query.select(OrderRecord::getId, OrderRecord::getOrderDate, OrderRecord::getCategory)
+                .in(OrderRecord::getId, orderIds);
+            orderRecordMapper.selectList(query).forEach(o -> linked.put(o.getId(), o));
+        }
+
+        List<Long> joinIds = new ArrayList<>();
+        List<SettlementRecord> unlinked = new ArrayList<>();
+        for (SettlementRecord record : confirmed) {
+            if (record.getOrderId() != null && linked.containsKey(record.getOrderId())) {
+                joinIds.add(record.getId());
+            } else if (StringUtils.hasText(record.getTrackingNumber())) {
+                unlinked.add(record);
+            }
+        }
+        if (!joinIds.isEmpty()) {
+            orderRecordMapper.markPaidBySettlements(joinIds, now);
+            orderRecordMapper.syncAmountBySettlements(joinIds);
+        }
+
+        List<OrderRecord> touched = new ArrayList<>(linked.values());
+        touched.addAll(updateOrdersByTracking(unlinked, now));
+        orderPageCache.touch(touched);
+    }
+
+    /**
+     * 没有关联订单（或订单已删除）的记录：按单号取最新一条订单回写
+     */
+    private List<OrderRecord> updateOrdersByTracking(List<SettlementRecord> records, LocalDateTime now) {
+        if (records.isEmpty()) {
+            return List.of();
+        }
+        Set<String> trackingNumbers = records.stream()
+            .map(r -> r.getTrackingNumber().trim())
+            .collect(Collectors.toSet());
+        LambdaQueryWrapper<OrderRecord> query = new LambdaQueryWrapper<>();
+        query.select(
+            OrderRecord::getId,
+            OrderRecord::getTrackingNumber,
+            OrderRecord::getStatus,
+            OrderRecord::getOrderTime,
+            OrderRecord::getCreatedAt,
+            OrderRecord::getOrderDate,
+            OrderRecord::getCategory,
+            OrderRecord::getVersion
+        ).in(OrderRecord::getTrackingNumber, trackingNumbers);
+        // 单号比较沿用列的排序规则（不区分大小写）
+        Map<String, OrderRecord> latest = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (OrderRecord order : orderRecordMapper.selectList(query)) {
+            if (order.getTrackingNumber() != null) {
+                latest.merge(order.getTrackingNumber().trim(), order,
+                    (a, b) -> LATEST_ORDER.compare(a, b) >= 0 ? a : b);
+            }
+        }
+
+        // 同一订单对应多条记录时以最后一条的金额为准（与逐条确认一致）
+        Map<Long, OrderRecord> targets = new LinkedHashMap<>();
+        for (SettlementRecord record : records) {
+            OrderRecord order = latest.get(record.getTrackingNumber().trim());
+            if (order != null) {
+                order.setAmount(record.getAmount());
+                targets.put(order.getId(), order);
+            }
+        }
+        List<OrderRecord> orders = new ArrayList<>(targets.values());
+        List<OrderRecord> conflicts = settlementBatchWriter.updateOrders(orders, o -> {
+            LambdaUpdateWrapper<OrderRecord> update = Wrappers.lambdaUpdate();
+            update.eq(OrderRecord::getId, o.getId())
+                .eq(OrderRecord::getVersion, o.getVersion())
+                .set(OrderRecord::getAmount, o.getAmount())
+                .set(OrderRecord::getRowFingerprint, null);
+            if (!"PAID".equals(o.getStatus())) {
+                update.set(OrderRecord::getStatus, "PAID")
+                    .set(OrderRecord::getStatusChangedAt, now)
+                    .set(OrderRecord::getPaidAt, now);
+            }
+            update.setSql("version = version + 1");
+            return update;
+        });
+        if (!conflicts.isEmpty()) {
+            log.warn("批量确认回写订单时检测到乐观锁冲突, 跳过{}条", conflicts.size());
+        }
+        return orders;
+    }
+
+    /**
+     * 单号下的结账记录全部确认后，提交记录标记为 COMPLETED
+     */
+    private void completeSubmissions(List<SettlementRecord> confirmed, LocalDateTime now) {
+        List<String> trackingNumbers = confirmed.stream()
+            .map(SettlementRecord::getTrackingNumber)
+            .filter(StringUtils::hasText)
+            .distinct()
+            .collect(Collectors.toList());
+        if (!trackingNumbers.isEmpty()) {
+            userSubmissionMapper.completeSettled(trackingNumbers, now);
+        }
+    }
+}
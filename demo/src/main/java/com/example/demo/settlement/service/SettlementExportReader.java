@@ -0,0 +1,51 @@
+package com.example.demo.settlement.service;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.example.demo.settlement.dto.SettlementExportRow;
+import com.example.demo.settlement.entity.SettlementRecord;
+import com.example.demo.settlement.mapper.SettlementRecordMapper;
+import java.io.IOException;
+import java.util.function.Consumer;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.MyBatisExceptionTranslator;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * 结账导出的流式读取。MySQL 流式结果集未读完前同一连接不能执行其他语句，而逐行处理时可能需要查库
+ * （价格索引按日期加载），所以游标使用单独的会话。会话经 Spring 取连接，调用方不能处于事务中，
+ * 否则会与事务共用同一连接。
+ */
+@Component
+public class SettlementExportReader {
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private volatile MyBatisExceptionTranslator exceptionTranslator;
+
+    public SettlementExportReader(SqlSessionFactory sqlSessionFactory) {
+        this.sqlSessionFactory = sqlSessionFactory;
+    }
+
+    /**
+     * 按导出顺序逐行回调，读完或回调抛出异常后关闭游标与连接
+     */
+    public void forEach(Wrapper<SettlementRecord> wrapper, Consumer<SettlementExportRow> action) {
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<SettlementExportRow> cursor = session.getMapper(SettlementRecordMapper.class).streamExportRows(wrapper)) {
+            cursor.forEach(action);
+        } catch (PersistenceException e) {
+            if (exceptionTranslator == null) {
+                exceptionTranslator = new MyBatisExceptionTranslator(
+                        sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(), true);
+            }
+            DataAccessException translated = exceptionTranslator.translateExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        } catch (IOException e) {
+            throw new IllegalStateException("关闭导出游标失败", e);
+        }
+    }
+}
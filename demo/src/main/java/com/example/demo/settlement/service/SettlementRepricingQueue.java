@@ -0,0 +1,238 @@
+package com.example.demo.settlement.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.example.demo.config.AppProperties;
+import com.example.demo.hardware.service.HardwarePriceIndex;
+import com.example.demo.order.entity.OrderRecord;
+import com.example.demo.order.mapper.OrderRecordMapper;
+import com.example.demo.order.service.OrderPageCache;
+import com.example.demo.settlement.entity.SettlementRecord;
+import com.example.demo.settlement.mapper.SettlementRecordMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * 结账记录缺价回写队列。
+ * <p>
+ * 列表查询只在内存中为未手工录入、金额为空或 0 的记录填上匹配到的硬件价格，并把记录 id 放入本队列；
+ * 后台单线程按 batch-size 分批，每批一个事务：重新读取记录与订单、重新匹配价格（期间价格可能已变化），
+ * 以「金额仍为空或 0 且 version 未变」为条件批量回写结账记录，再按 version 回写订单金额，并提升订单列表缓存版本。
+ * 条件不满足（已被他人修改、手工录入或删除）的记录直接跳过，下次被查询到仍缺价时会重新入队。
+ * <p>
+ * 队列为进程内去重集合，重启丢失不影响正确性；超过 max-pending 的入队请求丢弃。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SettlementRepricingQueue {
+
+    private final SettlementRecordMapper settlementRecordMapper;
+    private final OrderRecordMapper orderRecordMapper;
+    private final HardwarePriceIndex hardwarePriceIndex;
+    private final SettlementBatchWriter settlementBatchWriter;
+    private final OrderPageCache orderPageCache;
+    private final TransactionTemplate transactionTemplate;
+    private final AppProperties appProperties;
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private ScheduledExecutorService worker;
+
+    @PostConstruct
+    void startWorker() {
+        AppProperties.SettlementRepricing cfg = appProperties.getSettlementRepricing();
+        if (!cfg.isEnabled()) {
+            return;
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "settlement-repricing");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(100, cfg.getIntervalMillis());
+        worker.scheduleWithFixedDelay(this::drain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stopWorker() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * 这些结账记录缺价，等待后台回写；在事务中调用时提交后再入队（记录可能尚未提交）
+     */
+    public void enqueue(Collection<Long> settlementIds) {
+        if (worker == null || CollectionUtils.isEmpty(settlementIds)) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(settlementIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(ids);
+                }
+            });
+        } else {
+            offer(ids);
+        }
+    }
+
+    private void offer(List<Long> ids) {
+        int maxPending = appProperties.getSettlementRepricing().getMaxPending();
+        long rejected = 0;
+        for (Long id : ids) {
+            if (id == null) {
+                continue;
+            }
+            if (pending.size() >= maxPending && !pending.contains(id)) {
+                rejected++;
+                continue;
+            }
+            pending.add(id);
+        }
+        if (rejected > 0) {
+            log.warn("结账补价队列已满({}), 丢弃{}条, 累计丢弃{}", maxPending, rejected, dropped.addAndGet(rejected));
+        }
+    }
+
+    private void drain() {
+        int batchSize = Math.max(1, appProperties.getSettlementRepricing().getBatchSize());
+        while (!pending.isEmpty() && !Thread.currentThread().isInterrupted()) {
+            List<Long> batch = new ArrayList<>(batchSize);
+            Iterator<Long> it = pending.iterator();
+            while (it.hasNext() && batch.size() < batchSize) {
+                batch.add(it.next());
+                it.remove();
+            }
+            try {
+                long start = System.currentTimeMillis();
+                int[] counts = transactionTemplate.execute(status -> reprice(batch));
+                log.info("结账补价: 记录={}, 回写结账={}, 回写订单={}, 跳过={}, 耗时={}ms",
+                    batch.size(), counts[0], counts[1], batch.size() - counts[0], System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                // 本批丢弃，记录下次被查询到时会重新入队
+                log.error("结账补价失败, 本批{}条已丢弃", batch.size(), e);
+            }
+        }
+    }
+
+    /**
+     * @return [回写的结账记录数, 回写的订单数]
+     */
+    private int[] reprice(List<Long> ids) {
+        LambdaQueryWrapper<SettlementRecord> recordWrapper = new LambdaQueryWrapper<>();
+        recordWrapper.select(
+            SettlementRecord::getId,
+            SettlementRecord::getOrderId,
+            SettlementRecord::getAmount,
+            SettlementRecord::getManualInput,
+            SettlementRecord::getVersion
+        ).in(SettlementRecord::getId, ids);
+        List<SettlementRecord> records = settlementRecordMapper.selectList(recordWrapper).stream()
+            .filter(r -> r.getOrderId() != null && !Boolean.TRUE.equals(r.getManualInput()))
+            .filter(r -> r.getAmount() == null || BigDecimal.ZERO.compareTo(r.getAmount()) == 0)
+            .collect(Collectors.toList());
+        if (records.isEmpty()) {
+            return new int[] {0, 0};
+        }
+
+        LambdaQueryWrapper<OrderRecord> orderWrapper = new LambdaQueryWrapper<>();
+        orderWrapper.select(
+            OrderRecord::getId,
+            OrderRecord::getModel,
+            OrderRecord::getOrderDate,
+            OrderRecord::getOrderTime,
+            OrderRecord::getCategory,
+            OrderRecord::getVersion
+        ).in(OrderRecord::getId, records.stream().map(SettlementRecord::getOrderId).distinct().collect(Collectors.toList()));
+        Map<Long, OrderRecord> orders = orderRecordMapper.selectList(orderWrapper).stream()
+            .collect(Collectors.toMap(OrderRecord::getId, o -> o));
+
+        List<SettlementRecord> priced = new ArrayList<>();
+        for (SettlementRecord record : records) {
+            OrderRecord order = orders.get(record.getOrderId());
+            BigDecimal price = order == null ? null : resolvePrice(order);
+            if (price != null) {
+                record.setAmount(price);
+                priced.add(record);
+            }
+        }
+        List<SettlementRecord> skipped = settlementBatchWriter.updateSettlements(priced, r -> {
+            LambdaUpdateWrapper<SettlementRecord> update = Wrappers.lambdaUpdate();
+            update.eq(SettlementRecord::getId, r.getId())
+                .eq(SettlementRecord::getVersion, r.getVersion())
+                .and(w -> w.isNull(SettlementRecord::getAmount).or().eq(SettlementRecord::getAmount, BigDecimal.ZERO))
+                .set(SettlementRecord::getAmount, r.getAmount())
+                .setSql("version = version + 1");
+            return update;
+        });
+        priced.removeAll(skipped);
+
+        // 同一订单可能对应多条结账记录，按订单去重后回写
+        Map<Long, OrderRecord> touched = new LinkedHashMap<>();
+        for (SettlementRecord record : priced) {
+            OrderRecord order = orders.get(record.getOrderId());
+            order.setAmount(record.getAmount());
+            touched.put(order.getId(), order);
+        }
+        List<OrderRecord> orderList = new ArrayList<>(touched.values());
+        List<OrderRecord> conflicts = settlementBatchWriter.updateOrders(orderList, o -> {
+            LambdaUpdateWrapper<OrderRecord> update = Wrappers.lambdaUpdate();
+            update.eq(OrderRecord::getId, o.getId())
+                .eq(OrderRecord::getVersion, o.getVersion())
+                .set(OrderRecord::getAmount, o.getAmount())
+                .set(OrderRecord::getRowFingerprint, null)
+                .setSql("version = version + 1");
+            return update;
+        });
+        if (!conflicts.isEmpty()) {
+            log.warn("结账补价回写订单金额时检测到乐观锁冲突, 跳过{}条", conflicts.size());
+            orderList.removeAll(conflicts);
+        }
+        orderPageCache.touch(orderList);
+        return new int[] {priced.size(), orderList.size()};
+    }
+
+    /**
+     * 与结账创建时的取价规则一致：按下单日期（为空时取下单时间的日期）匹配型号
+     */
+    private BigDecimal resolvePrice(OrderRecord order) {
+        if (!StringUtils.hasText(order.getModel())) {
+            return null;
+        }
+        LocalDate date = order.getOrderDate();
+        if (date == null && order.getOrderTime() != null) {
+            date = order.getOrderTime().toLocalDate();
+        }
+        return date == null ? null : hardwarePriceIndex.resolve(date, order.getModel());
+    }
+}
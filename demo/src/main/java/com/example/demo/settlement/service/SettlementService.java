@@ -8,10 +8,12 @@ import com.example.demo.settlement.dto.SettlementBatchPriceRequest;
 import com.example.demo.settlement.dto.SettlementBatchSnPriceRequest;
 import com.example.demo.settlement.dto.SettlementBatchSnPriceResponse;
 import com.example.demo.settlement.dto.SettlementConfirmRequest;
+import com.example.demo.settlement.dto.SettlementConfirmResult;
 import com.example.demo.settlement.dto.SettlementCursorRequest;
 import com.example.demo.settlement.dto.SettlementExportRequest;
 import com.example.demo.settlement.dto.SettlementFilterRequest;
 import com.example.demo.settlement.entity.SettlementRecord;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface SettlementService {
@@ -24,7 +26,7 @@ public interface SettlementService {
 
     void confirm(Long id, SettlementConfirmRequest request, String operator);
 
-    byte[] export(SettlementExportRequest request, String username, String role);
+    void export(SettlementExportRequest request, String username, String role, OutputStream out);
 
     void delete(List<Long> ids);
 
@@ -32,7 +34,7 @@ public interface SettlementService {
 
     int updateAmountByModel(SettlementBatchPriceRequest request);
 
-    void confirmBatch(SettlementBatchConfirmRequest request, String operator);
+    SettlementConfirmResult confirmBatch(SettlementBatchConfirmRequest request, String operator);
 
     void updateAmount(Long id, SettlementAmountRequest request);
 
@@ -40,7 +42,7 @@ public interface SettlementService {
 
     int deleteConfirmed(String username, String role);
 
-    int confirmAll(SettlementFilterRequest request, String operator, String username, String role);
+    SettlementConfirmResult confirmAll(SettlementFilterRequest request, String operator, String username, String role);
 
     int moveToDraft(List<Long> ids);
 
@@ -7,12 +7,12 @@ import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.demo.common.exception.BusinessException;
 import com.example.demo.common.exception.ErrorCode;
-import com.example.demo.common.util.ExcelHelper;
+import com.example.demo.common.util.SettlementExcelWriter;
 import com.example.demo.config.AppProperties;
-import com.example.demo.hardware.entity.HardwarePrice;
-import com.example.demo.hardware.mapper.HardwarePriceMapper;
+import com.example.demo.hardware.service.HardwarePriceIndex;
 import com.example.demo.order.entity.OrderRecord;
 import com.example.demo.order.mapper.OrderRecordMapper;
+import com.example.demo.order.service.OrderPageCache;
 import com.example.demo.order.entity.OrderCellStyle;
 import com.example.demo.order.mapper.OrderCellStyleMapper;
 import com.example.demo.submission.entity.UserSubmission;
@@ -22,15 +22,22 @@ import com.example.demo.settlement.dto.SettlementBatchConfirmRequest;
 import com.example.demo.settlement.dto.SettlementBatchPriceRequest;
 import com.example.demo.settlement.dto.SettlementBatchSnPriceRequest;
 import com.example.demo.settlement.dto.SettlementBatchSnPriceResponse;
+import com.example.demo.settlement.dto.SettlementConfirmResult;
 import com.example.demo.settlement.dto.SettlementConfirmRequest;
 import com.example.demo.settlement.dto.SettlementCursorRequest;
 import com.example.demo.settlement.dto.SettlementExportRequest;
+import com.example.demo.settlement.dto.SettlementExportRow;
 import com.example.demo.settlement.dto.SettlementFilterRequest;
 import com.example.demo.settlement.entity.SettlementRecord;
 import com.example.demo.settlement.mapper.SettlementRecordMapper;
+import com.example.demo.settlement.service.SettlementBatchWriter;
+import com.example.demo.settlement.service.SettlementConfirmEngine;
+import com.example.demo.settlement.service.SettlementExportReader;
+import com.example.demo.settlement.service.SettlementRepricingQueue;
 import com.example.demo.settlement.service.SettlementCacheService;
 import com.example.demo.settlement.service.SettlementService;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -38,7 +45,6 @@ import java.util.*;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -51,11 +57,19 @@ public class SettlementServiceImpl implements SettlementService {
 
     private final SettlementRecordMapper settlementRecordMapper;
     private final OrderRecordMapper orderRecordMapper;
-    private final HardwarePriceMapper hardwarePriceMapper;
+    private final HardwarePriceIndex hardwarePriceIndex;
     private final UserSubmissionMapper userSubmissionMapper;
     private final AppProperties appProperties;
     private final SettlementCacheService cacheService;
     private final OrderCellStyleMapper orderCellStyleMapper;
+    private final OrderPageCache orderPageCache;
+    private final SettlementBatchWriter settlementBatchWriter;
+    private final SettlementRepricingQueue settlementRepricingQueue;
+    private final SettlementConfirmEngine settlementConfirmEngine;
+    private final SettlementExportReader settlementExportReader;
+
+    // createPending 一次处理的订单数达到该值时输出分阶段耗时
+    private static final int CREATE_PENDING_LOG_THRESHOLD = 50;
 
     // 内部类：保存提交人和归属人信息
     private static class SubmissionInfo {
@@ -74,6 +88,7 @@ public class SettlementServiceImpl implements SettlementService {
         if (CollectionUtils.isEmpty(orders)) {
             return List.of();
         }
+        long start = System.currentTimeMillis();
         Set<String> trackingNumbers = orders.stream()
             .map(OrderRecord::getTrackingNumber)
             .collect(Collectors.toSet());
@@ -101,7 +116,12 @@ public class SettlementServiceImpl implements SettlementService {
             .collect(Collectors.toMap(SettlementRecord::getTrackingNumber, r -> r, (a, b) -> a));
         
         Map<String, SubmissionInfo> submissionInfoMap = resolveSubmissionInfo(trackingNumbers);
+        long loaded = System.currentTimeMillis();
+
+        // 1) 整批取价并组装新结账记录；已有结账记录的订单只收集需要补打警告的记录
         List<SettlementRecord> created = new ArrayList<>();
+        List<Long> warnIds = new ArrayList<>();
+        List<OrderRecord> priced = new ArrayList<>();
         for (OrderRecord order : orders) {
             // 按 order_id 判断是否已存在（同一订单不重复创建）
             if (order.getId() != null && existedByOrderIdMap.containsKey(order.getId())) {
@@ -109,7 +129,7 @@ public class SettlementServiceImpl implements SettlementService {
                 SettlementRecord existedRecord = existedByOrderIdMap.get(order.getId());
                 if (warnDouble && Boolean.FALSE.equals(existedRecord.getWarning())) {
                     existedRecord.setWarning(true);
-                    settlementRecordMapper.updateById(existedRecord);
+                    warnIds.add(existedRecord.getId());
                 }
                 continue;
             }
@@ -139,7 +159,6 @@ public class SettlementServiceImpl implements SettlementService {
                 record.setSubmitterUsername(null);
             }
             record.setOrderTime(order.getOrderTime());
-            settlementRecordMapper.insert(record);
             created.add(record);
 
             if (price != null) {
@@ -147,10 +166,42 @@ public class SettlementServiceImpl implements SettlementService {
                 if (order.getCurrency() == null) {
                     order.setCurrency("CNY");
                 }
-                orderRecordMapper.updateById(order);
+                priced.add(order);
             }
         }
+        long resolved = System.currentTimeMillis();
+
+        // 2) 新结账记录多行插入（回填 id）
+        settlementBatchWriter.insertSettlements(created);
+        long inserted = System.currentTimeMillis();
+
+        // 3) 已有记录的警告标记一条 UPDATE（version 同步递增，与逐条 updateById 一致）
+        if (!warnIds.isEmpty()) {
+            LambdaUpdateWrapper<SettlementRecord> warnUpdate = Wrappers.lambdaUpdate();
+            warnUpdate.in(SettlementRecord::getId, warnIds)
+                .eq(SettlementRecord::getWarning, false)
+                .set(SettlementRecord::getWarning, true)
+                .setSql("version = version + 1");
+            settlementRecordMapper.update(null, warnUpdate);
+        }
+        long warned = System.currentTimeMillis();
+
+        // 4) 取到价格的订单批量回写金额（与原逐条 updateById 相同，带 version 条件，冲突忽略）。
+        //    导入传入的记录带着按导入内容算出的指纹，金额变了必须清空，否则下次导入会误判为未变化
+        for (OrderRecord order : priced) {
+            order.setRowFingerprint(null);
+        }
+        settlementBatchWriter.updateOrdersById(priced);
+        orderPageCache.touch(priced);
+        long repriced = System.currentTimeMillis();
+
         attachOrderInfo(created);
+        long end = System.currentTimeMillis();
+        if (orders.size() >= CREATE_PENDING_LOG_THRESHOLD) {
+            log.info("批量创建结账记录: orders={}, created={}, warned={}, repriced={}, 查询已有={}ms, 取价={}ms, 插入={}ms, 警告={}ms, 回写订单={}ms, 关联订单={}ms, 合计={}ms",
+                orders.size(), created.size(), warnIds.size(), priced.size(),
+                loaded - start, resolved - loaded, inserted - resolved, warned - inserted, repriced - warned, end - repriced, end - start);
+        }
         return created;
     }
 
@@ -165,37 +216,8 @@ public class SettlementServiceImpl implements SettlementService {
         if (date == null) {
             return null;
         }
-        String target = normalizeItemName(order.getModel());
-        if (!StringUtils.hasText(target)) {
-            return null;
-        }
-
-        // 尝试从缓存获取
-        BigDecimal cachedPrice = cacheService.getHardwarePrice(target, date);
-        if (cachedPrice != null) {
-            return cachedPrice;
-        }
-
-        // 缓存未命中，查询数据库
-        LambdaQueryWrapper<HardwarePrice> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(HardwarePrice::getPriceDate, date);
-        List<HardwarePrice> prices = hardwarePriceMapper.selectList(wrapper);
-        if (CollectionUtils.isEmpty(prices)) {
-            return null;
-        }
-        for (HardwarePrice price : prices) {
-            String name = normalizeItemName(price.getItemName());
-            if (!StringUtils.hasText(name)) {
-                continue;
-            }
-            if (target.equalsIgnoreCase(name) || target.contains(name) || name.contains(target)) {
-                BigDecimal result = price.getPrice();
-                // 写入缓存
-                cacheService.cacheHardwarePrice(target, date, result);
-                return result;
-            }
-        }
-        return null;
+        // 按日期的内存索引匹配（规则同原逐行扫描：按 id 取第一条互相包含的记录），价格写入时索引随之失效
+        return hardwarePriceIndex.resolve(date, order.getModel());
     }
 
     @Override
@@ -416,7 +438,6 @@ public class SettlementServiceImpl implements SettlementService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
     public void confirm(Long id, SettlementConfirmRequest request, String operator) {
         SettlementRecord record = settlementRecordMapper.selectById(id);
         if (record == null) {
@@ -454,7 +475,7 @@ public class SettlementServiceImpl implements SettlementService {
     }
 
     @Override
-    public byte[] export(SettlementExportRequest request, String username, String role) {
+    public void export(SettlementExportRequest request, String username, String role, OutputStream out) {
         LambdaQueryWrapper<SettlementRecord> wrapper = new LambdaQueryWrapper<>();
 
         // 权限过滤：非管理员只能导出自己提交或归属于自己的单号
@@ -489,19 +510,47 @@ public class SettlementServiceImpl implements SettlementService {
         if (!CollectionUtils.isEmpty(request.getTrackingNumbers())) {
             wrapper.in(SettlementRecord::getTrackingNumber, request.getTrackingNumbers());
         }
-        wrapper.last("LIMIT " + appProperties.getExport().getMaxRows());
-        List<SettlementRecord> records = settlementRecordMapper.selectList(wrapper);
-        attachOrderInfo(records);
-        try {
-            return ExcelHelper.writeSettlements(records);
+        wrapper.eq(SettlementRecord::getDeleted, 0);
+
+        // 流式读取 + SXSSF 写出：分组顺序由 SQL 排序保证，内存占用与导出行数无关
+        long start = System.currentTimeMillis();
+        try (SettlementExcelWriter writer = new SettlementExcelWriter(appProperties.getExport().getWindowRows())) {
+            settlementExportReader.forEach(wrapper, row -> {
+                fillExportRow(row);
+                writer.append(row);
+            });
+            writer.finish(out);
+            log.info("导出结账数据: rows={}, 耗时={}ms", writer.rows(), System.currentTimeMillis() - start);
         } catch (IOException e) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "导出失败");
         }
     }
 
+    /**
+     * 与列表展示一致的补全（只读）：型号为空时取订单型号；非手工录入且金额为空或 0 时取匹配的硬件价格
+     */
+    private void fillExportRow(SettlementExportRow row) {
+        if (row.getLinkedOrderId() == null) {
+            return;
+        }
+        if (!StringUtils.hasText(row.getModel()) && StringUtils.hasText(row.getOrderModel())) {
+            row.setModel(row.getOrderModel());
+        }
+        if ((row.getManualInput() == null || Boolean.FALSE.equals(row.getManualInput()))
+            && (row.getAmount() == null || BigDecimal.ZERO.compareTo(row.getAmount()) == 0)) {
+            OrderRecord order = new OrderRecord();
+            order.setModel(row.getOrderModel());
+            order.setOrderDate(row.getOrderDate());
+            order.setOrderTime(row.getOrderTime());
+            BigDecimal price = resolveHardwarePrice(order);
+            if (price != null) {
+                row.setAmount(price);
+            }
+        }
+    }
+
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
     public int updateAmountByModel(SettlementBatchPriceRequest request) {
         String model = request.getModel().trim();
         LambdaQueryWrapper<SettlementRecord> wrapper = new LambdaQueryWrapper<>();
@@ -525,6 +574,8 @@ public class SettlementServiceImpl implements SettlementService {
         if (records.isEmpty()) {
             return 0;
         }
+        // 按条件批量改订单金额，无法逐条定位分区：订单列表缓存整体失效
+        orderPageCache.invalidateAll();
         Set<Long> targetOrderIds = records.stream()
             .map(SettlementRecord::getOrderId)
             .filter(id -> id != null && id > 0)
@@ -533,6 +584,8 @@ public class SettlementServiceImpl implements SettlementService {
             LambdaUpdateWrapper<OrderRecord> orderUpdate = Wrappers.lambdaUpdate();
             orderUpdate.in(OrderRecord::getId, targetOrderIds);
             orderUpdate.set(OrderRecord::getAmount, request.getAmount());
+            // 金额变化后导入指纹失效
+            orderUpdate.set(OrderRecord::getRowFingerprint, null);
             orderRecordMapper.update(null, orderUpdate);
         }
         // fallback using tracking numbers without order ids
@@ -545,6 +598,8 @@ public class SettlementServiceImpl implements SettlementService {
             LambdaUpdateWrapper<OrderRecord> trackingUpdate = Wrappers.lambdaUpdate();
             trackingUpdate.in(OrderRecord::getTrackingNumber, pendingTracking);
             trackingUpdate.set(OrderRecord::getAmount, request.getAmount());
+            // 金额变化后导入指纹失效
+            trackingUpdate.set(OrderRecord::getRowFingerprint, null);
             orderRecordMapper.update(null, trackingUpdate);
         }
         int successCount = 0;
@@ -562,55 +617,16 @@ public class SettlementServiceImpl implements SettlementService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
-    public void confirmBatch(SettlementBatchConfirmRequest request, String operator) {
+    public SettlementConfirmResult confirmBatch(SettlementBatchConfirmRequest request, String operator) {
         if (CollectionUtils.isEmpty(request.getIds())) {
-            return;
-        }
-        for (Long id : request.getIds()) {
-            SettlementRecord record = settlementRecordMapper.selectById(id);
-            if (record == null) {
-                // 记录不存在，跳过本条
-                continue;
-            }
-
-            // 1) 计算目标金额：优先使用批量确认的金额，其次使用结算记录自身金额
-            BigDecimal targetAmount = request.getAmount();
-            if (targetAmount == null) {
-                targetAmount = record.getAmount();
-            }
-
-            // 2) 如果最终金额仍为空：根据需求，批量确认时跳过本条记录，不修改状态
-            if (targetAmount == null) {
-                continue;
-            }
-
-            // 3) 按单条确认的规则更新该记录及其关联订单/提交状态
-            record.setAmount(targetAmount);
-            record.setRemark(request.getRemark());
-            // 确认操作：将状态改为 CONFIRMED
-            record.setStatus("CONFIRMED");
-            record.setSettleBatch("BATCH-" + LocalDate.now());
-            record.setConfirmedBy(operator);
-            record.setConfirmedAt(LocalDateTime.now());
-            // 更新提交人为当前确认操作的用户
-            record.setSubmitterUsername(operator);
-            int updated = settlementRecordMapper.updateById(record);
-            if (updated == 0) {
-                // 批量操作中单条失败，记录日志但继续处理其他记录
-                log.warn("批量确认时检测到乐观锁冲突，跳过 settlementId={}", id);
-                continue;
-            }
-
-            // 同步订单金额与状态，并根据需要更新用户提交状态
-            updateOrderWithSettlement(record, targetAmount, null);
-            markSubmissionCompleted(record.getTrackingNumber());
+            return new SettlementConfirmResult();
         }
+        // 金额优先取批量确认的统一金额，其次取记录自身金额，都为空的跳过；逐条结果见返回的冲突列表
+        return settlementConfirmEngine.confirm(request.getIds(), request.getAmount(), request.getRemark(), operator);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
     public void updateAmount(Long id, SettlementAmountRequest request) {
         SettlementRecord record = settlementRecordMapper.selectById(id);
         if (record == null) {
@@ -678,6 +694,8 @@ public class SettlementServiceImpl implements SettlementService {
             int updated = orderRecordMapper.updateById(order);
             if (updated == 0) {
                 log.warn("同步订单金额时检测到乐观锁冲突，orderId={}", order.getId());
+            } else {
+                orderPageCache.touch(order);
             }
         }
     }
@@ -704,6 +722,7 @@ public class SettlementServiceImpl implements SettlementService {
                 OrderRecord::getSn,
                 OrderRecord::getModel,
                 OrderRecord::getOrderDate,
+                OrderRecord::getCategory,
                 OrderRecord::getCurrency
             ).in(OrderRecord::getId, orderIds);
             List<OrderRecord> orders = orderRecordMapper.selectList(orderWrapper);
@@ -775,9 +794,17 @@ public class SettlementServiceImpl implements SettlementService {
                 }
             });
         }
+        // 缺归属人的记录整页一次批量解析
+        Set<String> ownerless = records.stream()
+            .filter(r -> !StringUtils.hasText(r.getOwnerUsername()) && StringUtils.hasText(r.getTrackingNumber()))
+            .map(SettlementRecord::getTrackingNumber)
+            .collect(Collectors.toSet());
+        Map<String, String> owners = resolveOwnerByTracking(ownerless);
+        // 只读：缺价记录在内存中填上匹配价格，回写交给后台队列
+        List<Long> repriceIds = new ArrayList<>();
         records.forEach(record -> {
             if (!StringUtils.hasText(record.getOwnerUsername())) {
-                String owner = resolveOwnerByTracking(Set.of(record.getTrackingNumber())).get(record.getTrackingNumber());
+                String owner = owners.get(record.getTrackingNumber());
                 if (StringUtils.hasText(owner)) {
                     record.setOwnerUsername(owner);
                 }
@@ -801,15 +828,16 @@ public class SettlementServiceImpl implements SettlementService {
                     if (price != null) {
                         record.setAmount(price);
                         record.setOrderAmount(price);
-                        order.setAmount(price);
-                        orderRecordMapper.updateById(order);
-                        settlementRecordMapper.updateById(record);
+                        if (record.getId() != null) {
+                            repriceIds.add(record.getId());
+                        }
                     }
                 }
             }
             List<String> submissionUsers = submissionMap.get(record.getTrackingNumber());
             record.setSubmissionUsers(submissionUsers == null ? Collections.emptyList() : submissionUsers);
         });
+        settlementRepricingQueue.enqueue(repriceIds);
     }
 
     // 新方法：同时获取提交人和归属人信息
@@ -893,14 +921,6 @@ public class SettlementServiceImpl implements SettlementService {
         return empty;
     }
 
-    private byte[] emptyExport() {
-        try {
-            return ExcelHelper.writeSettlements(List.of());
-        } catch (IOException e) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "导出失败");
-        }
-    }
-
     private void updateOrderWithSettlement(SettlementRecord record, BigDecimal amount, OrderRecord existingOrder) {
         OrderRecord order = existingOrder;
         if (order == null && record.getOrderId() != null) {
@@ -928,6 +948,7 @@ public class SettlementServiceImpl implements SettlementService {
             order.setAmount(amount);
         }
         orderRecordMapper.updateById(order);
+        orderPageCache.touch(order);
     }
 
     private void updateOrderAmount(SettlementRecord record, BigDecimal amount) {
@@ -940,6 +961,7 @@ public class SettlementServiceImpl implements SettlementService {
         }
         order.setAmount(amount);
         orderRecordMapper.updateById(order);
+        orderPageCache.touch(order);
     }
 
     private OrderRecord loadOrder(SettlementRecord record) {
@@ -985,20 +1007,8 @@ public class SettlementServiceImpl implements SettlementService {
         });
     }
 
-    private String normalizeItemName(String raw) {
-        if (!StringUtils.hasText(raw)) {
-            return null;
-        }
-        String cleaned = raw
-            .replace('\u00A0', ' ')
-            .replaceAll("[^\\p{IsAlphabetic}\\p{IsDigit}\\u4e00-\\u9fa5]", "")
-            .toUpperCase();
-        return cleaned.trim();
-    }
-
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
     public SettlementBatchSnPriceResponse updateAmountBySn(SettlementBatchSnPriceRequest request) {
         if (CollectionUtils.isEmpty(request.getSns())) {
             return new SettlementBatchSnPriceResponse(0, List.of());
@@ -1071,6 +1081,7 @@ public class SettlementServiceImpl implements SettlementService {
         // 关键修复：只更新匹配输入SN的结算记录，且只更新没有价格的
         List<SettlementRecord> toUpdate = new ArrayList<>();
         Set<Long> toUpdateOrderIds = new HashSet<>();
+        List<OrderRecord> toUpdateOrders = new ArrayList<>();
         Set<String> skippedSnSet = new LinkedHashSet<>(); // 已有价格的SN，去重
 
         for (SettlementRecord settlement : allSettlements) {
@@ -1104,6 +1115,7 @@ public class SettlementServiceImpl implements SettlementService {
                         toUpdate.add(settlement);
                         if (matchedOrder.getId() != null) {
                             toUpdateOrderIds.add(matchedOrder.getId());
+                            toUpdateOrders.add(matchedOrder);
                         }
                     }
                 }
@@ -1127,7 +1139,10 @@ public class SettlementServiceImpl implements SettlementService {
             LambdaUpdateWrapper<OrderRecord> orderUpdate = Wrappers.lambdaUpdate();
             orderUpdate.in(OrderRecord::getId, toUpdateOrderIds);
             orderUpdate.set(OrderRecord::getAmount, request.getAmount());
+            // 金额变化后导入指纹失效
+            orderUpdate.set(OrderRecord::getRowFingerprint, null);
             orderRecordMapper.update(null, orderUpdate);
+            orderPageCache.touch(toUpdateOrders);
         }
 
         return new SettlementBatchSnPriceResponse(successCount, new ArrayList<>(skippedSnSet));
@@ -1161,43 +1176,21 @@ public class SettlementServiceImpl implements SettlementService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
-    public int confirmAll(SettlementFilterRequest request, String operator, String username, String role) {
-        // 使用传入的状态筛选条件（DRAFT 或 PENDING）
+    public SettlementConfirmResult confirmAll(SettlementFilterRequest request, String operator, String username, String role) {
+        // 使用传入的状态筛选条件（DRAFT 或 PENDING），只处理金额大于0的记录（金额为null或0的跳过）
         LambdaQueryWrapper<SettlementRecord> wrapper = buildQueryWrapper(request, username, role);
-
-        List<SettlementRecord> recordsToConfirm = settlementRecordMapper.selectList(wrapper);
-
-        int confirmedCount = 0;
-        for (SettlementRecord record : recordsToConfirm) {
-            // 只处理金额大于0的记录（金额为null或0的跳过）
-            if (record.getAmount() != null && record.getAmount().compareTo(BigDecimal.ZERO) > 0) {
-                // 确认操作：将状态改为 CONFIRMED
-                record.setStatus("CONFIRMED");
-                record.setSettleBatch("BATCH-" + LocalDate.now());
-                record.setConfirmedBy(operator);
-                record.setConfirmedAt(LocalDateTime.now());
-                // 更新提交人为当前确认操作的用户
-                record.setSubmitterUsername(operator);
-                int updated = settlementRecordMapper.updateById(record);
-                if (updated == 0) {
-                    // 全部确认时单条失败，记录日志但继续处理其他记录
-                    log.warn("全部确认时检测到乐观锁冲突，跳过 settlementId={}", record.getId());
-                    continue;
-                }
-
-                // 同步订单金额与状态，并根据需要更新用户提交状态
-                updateOrderWithSettlement(record, record.getAmount(), null);
-                markSubmissionCompleted(record.getTrackingNumber());
-                confirmedCount++;
-            }
+        wrapper.select(SettlementRecord::getId).gt(SettlementRecord::getAmount, BigDecimal.ZERO);
+        List<Long> ids = settlementRecordMapper.selectList(wrapper).stream()
+            .map(SettlementRecord::getId)
+            .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return new SettlementConfirmResult();
         }
-        return confirmedCount;
+        return settlementConfirmEngine.confirm(ids, null, null, operator);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
     public int moveToDraft(List<Long> ids) {
         if (CollectionUtils.isEmpty(ids)) {
             return 0;
@@ -1213,7 +1206,6 @@ public class SettlementServiceImpl implements SettlementService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "orders", allEntries = true)
     public int moveToPending(List<Long> ids) {
         if (CollectionUtils.isEmpty(ids)) {
             return 0;
@@ -6,10 +6,13 @@ import cn.dev33.satoken.stp.StpUtil;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.example.demo.common.response.ApiResponse;
 import com.example.demo.common.response.PageResponse;
+import com.example.demo.submission.dto.OwnerProjectionBackfillResult;
+import com.example.demo.submission.dto.OwnerProjectionCheckResult;
 import com.example.demo.submission.dto.UserSubmissionBatchRequest;
 import com.example.demo.submission.dto.UserSubmissionCreateRequest;
 import com.example.demo.submission.dto.UserSubmissionQueryRequest;
 import com.example.demo.submission.entity.UserSubmission;
+import com.example.demo.submission.service.CurrentOwnerProjection;
 import com.example.demo.submission.service.UserSubmissionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -23,6 +26,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import java.util.List;
 
@@ -33,6 +37,7 @@ import java.util.List;
 public class UserSubmissionController {
 
     private final UserSubmissionService userSubmissionService;
+    private final CurrentOwnerProjection currentOwnerProjection;
 
     @PostMapping
     @SaCheckLogin
@@ -82,4 +87,25 @@ public class UserSubmissionController {
         userSubmissionService.deleteOwner(ownerName);
         return ApiResponse.ok(null);
     }
+
+    @PostMapping("/owner-projection/backfill")
+    @SaCheckRole("ADMIN")
+    @Operation(summary = "回填归属人投影", description = "按提交记录分批重新计算每个单号的当前归属人，并清理已无提交的单号")
+    public ApiResponse<OwnerProjectionBackfillResult> backfillOwnerProjection() {
+        return ApiResponse.ok(currentOwnerProjection.backfill());
+    }
+
+    @GetMapping("/owner-projection/check")
+    @SaCheckRole("ADMIN")
+    @Operation(summary = "检查归属人投影", description = "列出投影与提交记录不一致的单号（只读）")
+    public ApiResponse<OwnerProjectionCheckResult> checkOwnerProjection(@RequestParam(defaultValue = "100") int limit) {
+        return ApiResponse.ok(currentOwnerProjection.check(Math.min(limit, 1000), false));
+    }
+
+    @PostMapping("/owner-projection/repair")
+    @SaCheckRole("ADMIN")
+    @Operation(summary = "修复归属人投影", description = "检查并重新计算不一致的单号，一次最多 limit 个")
+    public ApiResponse<OwnerProjectionCheckResult> repairOwnerProjection(@RequestParam(defaultValue = "100") int limit) {
+        return ApiResponse.ok(currentOwnerProjection.check(Math.min(limit, 1000), true));
+    }
 }
@@ -0,0 +1,18 @@
+package com.example.demo.submission.dto;
+
+import lombok.Data;
+
+/**
+ * 当前归属人投影回填结果
+ */
+@Data
+public class OwnerProjectionBackfillResult {
+    /** 重新计算的单号数 */
+    private int trackingNumbers;
+    /** 写入的投影行数 */
+    private int rows;
+    /** 删除的已无有效提交的投影行 */
+    private int orphansRemoved;
+    private int batches;
+    private long millis;
+}
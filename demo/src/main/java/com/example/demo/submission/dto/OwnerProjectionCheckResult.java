@@ -0,0 +1,29 @@
+package com.example.demo.submission.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * 当前归属人投影一致性检查结果
+ */
+@Data
+public class OwnerProjectionCheckResult {
+    private LocalDateTime checkedAt;
+    /** 不一致的单号（最多 limit 条，缺失/过期与悬空各自计数） */
+    private List<Mismatch> mismatches;
+    /** 是否还有未列出的不一致记录 */
+    private boolean truncated;
+    /** 本次修复（重新计算）的单号数，未要求修复时为 0 */
+    private int repaired;
+
+    @Data
+    public static class Mismatch {
+        private String trackingNumber;
+        /** 按提交记录计算的归属人，单号已无有效提交时为空 */
+        private String expectedOwner;
+        private String actualOwner;
+        private Long expectedSubmissionId;
+        private Long actualSubmissionId;
+    }
+}
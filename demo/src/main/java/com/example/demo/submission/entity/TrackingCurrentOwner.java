@@ -0,0 +1,28 @@
+package com.example.demo.submission.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.time.LocalDateTime;
+import lombok.Data;
+
+/**
+ * 单号当前归属人投影：每个单号一行，取该单号最新一条有效提交的 ownerUsername（为空时取 username）。
+ * 由提交的新增、删除维护，见 CurrentOwnerProjection。
+ */
+@Data
+@TableName("tracking_current_owner")
+public class TrackingCurrentOwner {
+
+    @TableId(type = IdType.INPUT)
+    private String trackingNumber;
+
+    private String ownerUsername;
+
+    /**
+     * 来源提交记录（该单号最新一条）
+     */
+    private Long submissionId;
+
+    private LocalDateTime updatedAt;
+}
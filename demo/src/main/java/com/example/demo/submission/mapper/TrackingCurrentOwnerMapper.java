@@ -0,0 +1,107 @@
+package com.example.demo.submission.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.demo.submission.dto.OwnerProjectionCheckResult;
+import com.example.demo.submission.entity.TrackingCurrentOwner;
+import java.util.Collection;
+import java.util.List;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+@Mapper
+public interface TrackingCurrentOwnerMapper extends BaseMapper<TrackingCurrentOwner> {
+
+    /**
+     * 每个单号最新一条有效提交（created_at 最大，相同时 id 最大）及其归属人：ownerUsername trim 后为空时取 username。
+     * 单号比较沿用列的排序规则（不区分大小写），与投影表主键一致。
+     */
+    String LATEST_SUBMISSION = """
+            SELECT s.id, s.tracking_number, COALESCE(NULLIF(TRIM(s.owner_username), ''), s.username) AS owner
+            FROM user_submission s
+            WHERE s.deleted = 0
+              AND NOT EXISTS (
+                SELECT 1 FROM user_submission n
+                WHERE n.deleted = 0
+                  AND n.tracking_number = s.tracking_number
+                  AND (n.created_at > s.created_at OR (n.created_at = s.created_at AND n.id > s.id)))
+            """;
+
+    @Delete("""
+            <script>
+            DELETE FROM tracking_current_owner WHERE tracking_number IN
+            <foreach collection="trackingNumbers" item="tn" open="(" separator="," close=")">#{tn}</foreach>
+            </script>
+            """)
+    int deleteByTrackingNumbers(@Param("trackingNumbers") Collection<String> trackingNumbers);
+
+    /**
+     * 按提交记录重新计算这些单号的当前归属人（调用前先删除旧行）
+     */
+    @Insert("""
+            <script>
+            INSERT INTO tracking_current_owner (tracking_number, owner_username, submission_id)
+            SELECT t.tracking_number, t.owner, t.id FROM (
+            """ + LATEST_SUBMISSION + """
+              AND s.tracking_number IN
+            <foreach collection="trackingNumbers" item="tn" open="(" separator="," close=")">#{tn}</foreach>
+            ) t
+            WHERE TRIM(t.owner) &lt;&gt; ''
+            </script>
+            """)
+    int insertLatest(@Param("trackingNumbers") Collection<String> trackingNumbers);
+
+    /**
+     * 回填用：按单号顺序分批列出有有效提交的单号
+     */
+    @Select("""
+            SELECT DISTINCT tracking_number FROM user_submission
+            WHERE deleted = 0 AND tracking_number > #{after}
+            ORDER BY tracking_number
+            LIMIT #{limit}
+            """)
+    List<String> selectSubmittedTrackingNumbers(@Param("after") String after, @Param("limit") int limit);
+
+    /**
+     * 回填用：删除已没有有效提交的单号
+     */
+    @Delete("""
+            DELETE FROM tracking_current_owner
+            WHERE NOT EXISTS (
+              SELECT 1 FROM user_submission s
+              WHERE s.deleted = 0 AND s.tracking_number = tracking_current_owner.tracking_number)
+            """)
+    int deleteOrphans();
+
+    /**
+     * 一致性检查：应有但缺失、归属人或来源提交不一致的单号（归属人按二进制比较，大小写变化也算不一致）
+     */
+    @Select("""
+            SELECT e.tracking_number AS trackingNumber, e.owner AS expectedOwner, p.owner_username AS actualOwner,
+                   e.id AS expectedSubmissionId, p.submission_id AS actualSubmissionId
+            FROM (
+            """ + LATEST_SUBMISSION + """
+            ) e
+            LEFT JOIN tracking_current_owner p ON p.tracking_number = e.tracking_number
+            WHERE TRIM(e.owner) <> ''
+              AND (p.tracking_number IS NULL
+                   OR CAST(p.owner_username AS BINARY) <> CAST(e.owner AS BINARY)
+                   OR p.submission_id <> e.id)
+            LIMIT #{limit}
+            """)
+    List<OwnerProjectionCheckResult.Mismatch> selectMissingOrStale(@Param("limit") int limit);
+
+    /**
+     * 一致性检查：来源提交已被删除的投影行（该单号已无提交，或应指向另一条提交）
+     */
+    @Select("""
+            SELECT p.tracking_number AS trackingNumber, p.owner_username AS actualOwner,
+                   p.submission_id AS actualSubmissionId
+            FROM tracking_current_owner p
+            WHERE NOT EXISTS (SELECT 1 FROM user_submission s WHERE s.deleted = 0 AND s.id = p.submission_id)
+            LIMIT #{limit}
+            """)
+    List<OwnerProjectionCheckResult.Mismatch> selectDangling(@Param("limit") int limit);
+}
@@ -2,8 +2,28 @@ package com.example.demo.submission.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.demo.submission.entity.UserSubmission;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
 @Mapper
 public interface UserSubmissionMapper extends BaseMapper<UserSubmission> {
+
+    /**
+     * 结账确认：这些单号下已没有未确认的结账记录时，将其提交记录标记为 COMPLETED
+     */
+    @Update("""
+            <script>
+            UPDATE user_submission us
+            SET us.status = 'COMPLETED', us.updated_at = #{now}
+            WHERE us.deleted = 0 AND us.status &lt;&gt; 'COMPLETED' AND us.tracking_number IN
+            <foreach collection="trackingNumbers" item="tn" open="(" separator="," close=")">#{tn}</foreach>
+              AND NOT EXISTS (
+                SELECT 1 FROM settlement_record s
+                WHERE s.deleted = 0 AND s.tracking_number = us.tracking_number AND s.status &lt;&gt; 'CONFIRMED')
+            </script>
+            """)
+    int completeSettled(@Param("trackingNumbers") Collection<String> trackingNumbers, @Param("now") LocalDateTime now);
 }
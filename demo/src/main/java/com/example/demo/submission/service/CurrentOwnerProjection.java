@@ -0,0 +1,36 @@
+package com.example.demo.submission.service;
+
+import com.example.demo.submission.dto.OwnerProjectionBackfillResult;
+import com.example.demo.submission.dto.OwnerProjectionCheckResult;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 单号当前归属人投影（tracking_current_owner）：订单按归属用户筛选、订单列表展示归属用户都直接读投影，
+ * 不再每次加载全部相关提交在内存中归约。
+ * <p>
+ * 归属人规则与原逻辑一致：取该单号最新一条有效提交（按 createdAt，相同时按 id）的 ownerUsername，为空时取 username。
+ * 提交新增、删除后由调用方在同一事务内调用 refresh；投影缺失或漂移时用 backfill / check 修复。
+ */
+public interface CurrentOwnerProjection {
+
+    /**
+     * 按提交记录重新计算这些单号的当前归属人（无有效提交的单号会被移除）
+     */
+    void refresh(Collection<String> trackingNumbers);
+
+    /**
+     * 单号 -> 当前归属人；返回的 Map 按单号不区分大小写查找（与数据库比较一致），无归属人的单号不在其中
+     */
+    Map<String, String> findOwners(Collection<String> trackingNumbers);
+
+    /**
+     * 全量回填：按单号分批重新计算，并删除已无有效提交的投影行
+     */
+    OwnerProjectionBackfillResult backfill();
+
+    /**
+     * 一致性检查：列出最多 limit 条不一致的单号；repair 为 true 时对列出的单号重新计算
+     */
+    OwnerProjectionCheckResult check(int limit, boolean repair);
+}
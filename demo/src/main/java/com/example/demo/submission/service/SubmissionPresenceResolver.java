@@ -0,0 +1,41 @@
+package com.example.demo.submission.service;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 批量判断单号是否存在未完成（非 COMPLETED）的用户提交，替代逐条 selectCount。
+ */
+public interface SubmissionPresenceResolver {
+
+    /**
+     * 一次查询（单号过多时按 IN 上限分片）解析一批单号。
+     *
+     * @param trackingNumbers 单号，空白会被忽略，比较前会 trim
+     */
+    Presence resolve(Collection<String> trackingNumbers);
+
+    /**
+     * @param activeTrackingNumbers 存在未完成提交的单号（trim 后转大写，与数据库不区分大小写的比较一致）
+     * @param lookups               参与判断的单号数（非空白），即逐条查询时需要的查询次数
+     * @param queries               实际发出的查询次数
+     */
+    record Presence(Set<String> activeTrackingNumbers, int lookups, int queries) {
+
+        public boolean has(String trackingNumber) {
+            return trackingNumber != null && activeTrackingNumbers.contains(normalize(trackingNumber));
+        }
+
+        public static String normalize(String trackingNumber) {
+            return trackingNumber.trim().toUpperCase(Locale.ROOT);
+        }
+
+        /**
+         * 相比逐条查询节省的查询次数
+         */
+        public int queriesSaved() {
+            return Math.max(lookups - queries, 0);
+        }
+    }
+}
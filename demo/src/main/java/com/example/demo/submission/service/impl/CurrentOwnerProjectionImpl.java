@@ -0,0 +1,128 @@
+package com.example.demo.submission.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.demo.submission.dto.OwnerProjectionBackfillResult;
+import com.example.demo.submission.dto.OwnerProjectionCheckResult;
+import com.example.demo.submission.entity.TrackingCurrentOwner;
+import com.example.demo.submission.mapper.TrackingCurrentOwnerMapper;
+import com.example.demo.submission.service.CurrentOwnerProjection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CurrentOwnerProjectionImpl implements CurrentOwnerProjection {
+
+    // 单条 IN 语句的单号上限，避免 SQL 过长
+    private static final int IN_LIMIT = 1000;
+
+    private final TrackingCurrentOwnerMapper trackingCurrentOwnerMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void refresh(Collection<String> trackingNumbers) {
+        List<String> all = new ArrayList<>(distinct(trackingNumbers));
+        for (int from = 0; from < all.size(); from += IN_LIMIT) {
+            refreshSlice(all.subList(from, Math.min(from + IN_LIMIT, all.size())));
+        }
+    }
+
+    private int refreshSlice(List<String> slice) {
+        trackingCurrentOwnerMapper.deleteByTrackingNumbers(slice);
+        return trackingCurrentOwnerMapper.insertLatest(slice);
+    }
+
+    @Override
+    public Map<String, String> findOwners(Collection<String> trackingNumbers) {
+        Map<String, String> owners = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        List<String> all = new ArrayList<>(distinct(trackingNumbers));
+        for (int from = 0; from < all.size(); from += IN_LIMIT) {
+            LambdaQueryWrapper<TrackingCurrentOwner> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(TrackingCurrentOwner::getTrackingNumber, TrackingCurrentOwner::getOwnerUsername)
+                    .in(TrackingCurrentOwner::getTrackingNumber, all.subList(from, Math.min(from + IN_LIMIT, all.size())));
+            for (TrackingCurrentOwner row : trackingCurrentOwnerMapper.selectList(wrapper)) {
+                owners.put(row.getTrackingNumber(), row.getOwnerUsername());
+            }
+        }
+        return owners;
+    }
+
+    @Override
+    public OwnerProjectionBackfillResult backfill() {
+        long start = System.currentTimeMillis();
+        OwnerProjectionBackfillResult result = new OwnerProjectionBackfillResult();
+        String after = "";
+        while (true) {
+            List<String> batch = trackingCurrentOwnerMapper.selectSubmittedTrackingNumbers(after, IN_LIMIT);
+            if (batch.isEmpty()) {
+                break;
+            }
+            // 每批单独提交，避免长事务锁住整张投影表
+            Integer rows = transactionTemplate.execute(status -> refreshSlice(batch));
+            result.setTrackingNumbers(result.getTrackingNumbers() + batch.size());
+            result.setRows(result.getRows() + (rows == null ? 0 : rows));
+            result.setBatches(result.getBatches() + 1);
+            if (batch.size() < IN_LIMIT) {
+                break;
+            }
+            after = batch.get(batch.size() - 1);
+        }
+        result.setOrphansRemoved(trackingCurrentOwnerMapper.deleteOrphans());
+        result.setMillis(System.currentTimeMillis() - start);
+        log.info("归属人投影回填完成: trackingNumbers={}, rows={}, orphansRemoved={}, {}ms",
+                result.getTrackingNumbers(), result.getRows(), result.getOrphansRemoved(), result.getMillis());
+        return result;
+    }
+
+    @Override
+    public OwnerProjectionCheckResult check(int limit, boolean repair) {
+        int max = Math.max(1, limit);
+        List<OwnerProjectionCheckResult.Mismatch> mismatches = new ArrayList<>(
+                trackingCurrentOwnerMapper.selectMissingOrStale(max + 1));
+        boolean truncated = mismatches.size() > max;
+        if (!truncated) {
+            mismatches.addAll(trackingCurrentOwnerMapper.selectDangling(max + 1 - mismatches.size()));
+            truncated = mismatches.size() > max;
+        }
+        if (truncated) {
+            mismatches = new ArrayList<>(mismatches.subList(0, max));
+        }
+        OwnerProjectionCheckResult result = new OwnerProjectionCheckResult();
+        result.setCheckedAt(LocalDateTime.now());
+        result.setMismatches(mismatches);
+        result.setTruncated(truncated);
+        if (repair && !mismatches.isEmpty()) {
+            Set<String> trackingNumbers = distinct(mismatches.stream()
+                    .map(OwnerProjectionCheckResult.Mismatch::getTrackingNumber)
+                    .toList());
+            transactionTemplate.executeWithoutResult(status -> refresh(trackingNumbers));
+            result.setRepaired(trackingNumbers.size());
+            log.warn("归属人投影不一致已修复: {} 个单号{}", trackingNumbers.size(), truncated ? "（仍有未列出的记录）" : "");
+        }
+        return result;
+    }
+
+    private static Set<String> distinct(Collection<String> trackingNumbers) {
+        Set<String> distinct = new LinkedHashSet<>();
+        if (trackingNumbers != null) {
+            for (String tn : trackingNumbers) {
+                if (StringUtils.hasText(tn)) {
+                    distinct.add(tn.trim());
+                }
+            }
+        }
+        return distinct;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.submission.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.demo.submission.entity.UserSubmission;
+import com.example.demo.submission.mapper.UserSubmissionMapper;
+import com.example.demo.submission.service.SubmissionPresenceResolver;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+@Service
+@RequiredArgsConstructor
+public class SubmissionPresenceResolverImpl implements SubmissionPresenceResolver {
+
+    // 单条 IN 查询的单号上限，避免 SQL 过长
+    private static final int IN_LIMIT = 1000;
+
+    private final UserSubmissionMapper userSubmissionMapper;
+
+    @Override
+    public Presence resolve(Collection<String> trackingNumbers) {
+        Set<String> distinct = new LinkedHashSet<>();
+        int lookups = 0;
+        if (trackingNumbers != null) {
+            for (String tn : trackingNumbers) {
+                if (StringUtils.hasText(tn)) {
+                    distinct.add(tn.trim());
+                    lookups++;
+                }
+            }
+        }
+        if (distinct.isEmpty()) {
+            return new Presence(Set.of(), 0, 0);
+        }
+        Set<String> active = new HashSet<>();
+        List<String> all = new ArrayList<>(distinct);
+        int queries = 0;
+        for (int from = 0; from < all.size(); from += IN_LIMIT) {
+            List<String> slice = all.subList(from, Math.min(from + IN_LIMIT, all.size()));
+            LambdaQueryWrapper<UserSubmission> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(UserSubmission::getTrackingNumber)
+                    .in(UserSubmission::getTrackingNumber, slice)
+                    .ne(UserSubmission::getStatus, "COMPLETED");
+            for (UserSubmission s : userSubmissionMapper.selectList(wrapper)) {
+                if (s.getTrackingNumber() != null) {
+                    active.add(Presence.normalize(s.getTrackingNumber()));
+                }
+            }
+            queries++;
+        }
+        return new Presence(active, lookups, queries);
+    }
+}
@@ -16,6 +16,7 @@ import com.example.demo.submission.dto.UserSubmissionCreateRequest;
 import com.example.demo.submission.dto.UserSubmissionQueryRequest;
 import com.example.demo.submission.entity.UserSubmission;
 import com.example.demo.submission.mapper.UserSubmissionMapper;
+import com.example.demo.submission.service.CurrentOwnerProjection;
 import com.example.demo.submission.service.TrackingOwnerService;
 import com.example.demo.submission.service.UserSubmissionLogService;
 import com.example.demo.submission.service.UserSubmissionService;
@@ -45,6 +46,7 @@ public class UserSubmissionServiceImpl implements UserSubmissionService {
     private final UserSubmissionLogService userSubmissionLogService;
     private final SysUserMapper sysUserMapper;
     private final TrackingOwnerService trackingOwnerService;
+    private final CurrentOwnerProjection currentOwnerProjection;
 
     @Override
     @Transactional
@@ -357,6 +359,7 @@ public class UserSubmissionServiceImpl implements UserSubmissionService {
         submission.setOrderDate(orderDate);
         setAmountFromOrder(submission, orderDate);
         userSubmissionMapper.insert(submission);
+        currentOwnerProjection.refresh(List.of(normalized));
         syncSettlement(normalized, orderDate);
         return submission;
     }
@@ -11,6 +11,7 @@
     DROP TABLE IF EXISTS settlement_record;
     DROP TABLE IF EXISTS order_cell_style;
     DROP TABLE IF EXISTS user_submission_log;
+    DROP TABLE IF EXISTS tracking_current_owner;
     DROP TABLE IF EXISTS user_submission;
     DROP TABLE IF EXISTS hardware_price;
     DROP TABLE IF EXISTS order_record;
@@ -52,6 +53,7 @@
                                   created_by      VARCHAR(64),
                                   updated_by      VARCHAR(64),
                                   imported        TINYINT         NOT NULL DEFAULT 1,
+                                  row_fingerprint BIGINT          NULL COMMENT '导入内容+样式指纹',
                                   created_at      DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP,
                                   updated_at      DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
                                   version         INT             NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
@@ -61,6 +63,8 @@
                                   INDEX idx_order_status(status),    -- 索引提高查询速度
                                   INDEX idx_order_sn(sn),            -- SN 查询索引
                                   INDEX idx_order_tracking(tracking_number), -- 运单号查询索引
+                                  INDEX idx_order_time(order_time),  -- 游标分页按下单时间排序
+                                  INDEX idx_order_model(model),      -- 游标分页按型号排序
                                   FULLTEXT KEY ft_order_keyword (tracking_number, sn, model) -- 全文索引用于关键字搜索
     ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
     CREATE TABLE IF NOT EXISTS order_cell_style (
@@ -101,6 +105,15 @@
                                      INDEX idx_submission_username(username)
     ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+    -- 单号当前归属人投影（最新一条有效提交的归属人，由应用维护）
+    CREATE TABLE tracking_current_owner (
+                                        tracking_number VARCHAR(64)     NOT NULL PRIMARY KEY,
+                                        owner_username  VARCHAR(64)     NOT NULL,
+                                        submission_id   BIGINT UNSIGNED NOT NULL COMMENT '来源提交记录（该单号最新一条）',
+                                        updated_at      DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                                        INDEX idx_current_owner(owner_username, tracking_number)
+    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
     -- 用户提交原文记录表
     CREATE TABLE user_submission_log (
                                         id          BIGINT UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
@@ -368,7 +368,74 @@ SET @sql := IF(@exists = 0,
 );
 PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
 
+-- =============================
+-- I. order_record 添加 row_fingerprint 字段（幂等）
+-- 导入内容+样式的 64 位指纹，重复导入时按 (匹配键, 指纹) 跳过未变化行；
+-- NULL 表示未计算或已被导入以外的修改置空，导入会回退到逐字段比较并回填
+-- =============================
+SET @need := (
+  SELECT COUNT(*) FROM information_schema.COLUMNS
+  WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'order_record'
+    AND COLUMN_NAME = 'row_fingerprint'
+);
+SET @sql := IF(@need = 0,
+  'ALTER TABLE order_record ADD COLUMN row_fingerprint BIGINT NULL COMMENT ''导入内容+样式指纹'' AFTER imported',
+  'DO 0'
+);
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- =============================
+-- J. order_record 游标分页排序索引（幂等）
+-- 游标分页按 (排序字段, id) seek；InnoDB 二级索引自带主键，单列索引即可按 (字段, id) 有序扫描。
+-- order_date / status / sn / tracking_number 已有索引，这里补齐 order_time 与 model
+-- =============================
+SET @tbl := 'order_record';
+
+SET @idx := 'idx_order_time';
+SET @exists := (SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = @tbl AND index_name = @idx);
+SET @sql := IF(@exists = 0, CONCAT('CREATE INDEX ', @idx, ' ON ', @tbl, '(order_time)'), 'DO 0');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+SET @idx := 'idx_order_model';
+SET @exists := (SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = @tbl AND index_name = @idx);
+SET @sql := IF(@exists = 0, CONCAT('CREATE INDEX ', @idx, ' ON ', @tbl, '(model)'), 'DO 0');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- =============================
+-- K. 单号当前归属人投影 tracking_current_owner（幂等）
+-- 每个单号一行：最新一条有效提交（created_at 最大，相同时 id 最大）的 owner_username，为空时取 username。
+-- 订单按归属用户筛选改为 tracking_number IN (SELECT ... WHERE owner_username = ?)，走 idx_current_owner。
+-- 仅在投影为空时回填；之后由应用在提交新增/删除时维护，漂移可调用 /api/user-submissions/owner-projection/backfill
+-- =============================
+CREATE TABLE IF NOT EXISTS tracking_current_owner (
+  tracking_number VARCHAR(64)     NOT NULL PRIMARY KEY,
+  owner_username  VARCHAR(64)     NOT NULL,
+  submission_id   BIGINT UNSIGNED NOT NULL COMMENT '来源提交记录（该单号最新一条）',
+  updated_at      DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  INDEX idx_current_owner(owner_username, tracking_number)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+SET @empty := (SELECT COUNT(*) = 0 FROM tracking_current_owner);
+SET @sql := IF(@empty,
+  'INSERT INTO tracking_current_owner (tracking_number, owner_username, submission_id)
+   SELECT t.tracking_number, t.owner, t.id FROM (
+     SELECT s.id, s.tracking_number, COALESCE(NULLIF(TRIM(s.owner_username), ''''), s.username) AS owner
+     FROM user_submission s
+     WHERE s.deleted = 0
+       AND NOT EXISTS (
+         SELECT 1 FROM user_submission n
+         WHERE n.deleted = 0
+           AND n.tracking_number = s.tracking_number
+           AND (n.created_at > s.created_at OR (n.created_at = s.created_at AND n.id > s.id)))
+   ) t
+   WHERE TRIM(t.owner) <> ''''',
+  'DO 0'
+);
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
 -- 验证（按需执行）
 -- EXPLAIN SELECT * FROM settlement_record WHERE order_id IN (SELECT id FROM order_record WHERE UPPER(sn) = 'TEST');
 -- EXPLAIN SELECT * FROM settlement_record WHERE status = 'PENDING' ORDER BY order_time DESC LIMIT 20;
 -- EXPLAIN SELECT * FROM settlement_record WHERE status = 'PENDING' AND owner_username = 'user1' LIMIT 20;
+-- EXPLAIN SELECT * FROM order_record WHERE tracking_number IN (SELECT o.tracking_number FROM tracking_current_owner o WHERE o.owner_username = 'user1');
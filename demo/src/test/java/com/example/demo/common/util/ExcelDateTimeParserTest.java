@@ -0,0 +1,144 @@
+package com.example.demo.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ExcelDateTimeParserTest {
+
+    @Test
+    void parsesSupportedShapes() {
+        LocalDateTime minute = LocalDateTime.of(2024, 3, 5, 9, 7);
+        assertEquals(minute, ExcelDateTimeParser.parse("2024-03-05 09:07"));
+        assertEquals(minute, ExcelDateTimeParser.parse("2024/03/05 09:07"));
+        assertEquals(minute, ExcelDateTimeParser.parse("2024.03.05 09:07"));
+        assertEquals(minute, ExcelDateTimeParser.parse("2024-03-05T09:07"));
+        assertEquals(minute, ExcelDateTimeParser.parse("2024年03月05日 09:07"));
+        assertEquals(minute, ExcelDateTimeParser.parse("2024年03月05日09:07"));
+        assertEquals(minute, ExcelDateTimeParser.parse("24-03-05 09:07"));
+        assertEquals(minute, ExcelDateTimeParser.parse("  2024-03-05   09:07 "));
+        assertEquals(minute.withSecond(42), ExcelDateTimeParser.parse("2024-03-05 09:07:42"));
+        assertEquals(LocalDate.of(2024, 3, 5).atStartOfDay(), ExcelDateTimeParser.parse("2024-03-05"));
+        // 以前因「日」替换后残留的空格而解析失败，现在按日期处理
+        assertEquals(LocalDate.of(2024, 3, 5).atStartOfDay(), ExcelDateTimeParser.parse("2024年03月05日"));
+    }
+
+    @Test
+    void keepsSmartResolverRules() {
+        assertEquals(LocalDate.of(2023, 2, 28).atStartOfDay(), ExcelDateTimeParser.parse("2023-02-31"));
+        assertEquals(LocalDate.of(2024, 2, 29).atStartOfDay(), ExcelDateTimeParser.parse("2024-02-30"));
+        assertEquals(LocalDate.of(2024, 3, 6).atStartOfDay(), ExcelDateTimeParser.parse("2024-03-05 24:00"));
+        assertNull(ExcelDateTimeParser.parse("2024-03-05 24:01"));
+        assertNull(ExcelDateTimeParser.parse("2024-13-05"));
+        assertNull(ExcelDateTimeParser.parse("2024-3-5"));
+        assertNull(ExcelDateTimeParser.parse("2024-03-05 9:07"));
+        assertNull(ExcelDateTimeParser.parse("2024-03-05 09:60"));
+        assertNull(ExcelDateTimeParser.parse("2024-03-05 10:00 AM"));
+        assertNull(ExcelDateTimeParser.parse("SF1234567890"));
+        assertNull(ExcelDateTimeParser.parse(""));
+        assertNull(ExcelDateTimeParser.parse("   "));
+        assertNull(ExcelDateTimeParser.parse(null));
+    }
+
+    @Test
+    void matchesLegacyParserOnGeneratedCorpus() {
+        Random random = new Random(7);
+        List<String> corpus = new ArrayList<>();
+        String[][] separators = {{"-", "-", ""}, {"/", "/", ""}, {".", ".", ""}, {"年", "月", "日"}};
+        String[] joins = {" ", "T", "  ", "\t"};
+        for (int i = 0; i < 50_000; i++) {
+            String[] sep = separators[random.nextInt(separators.length)];
+            StringBuilder sb = new StringBuilder();
+            if (random.nextInt(10) == 0) sb.append(' ');
+            sb.append(number(random, random.nextBoolean() ? 4 : 2, 2100))
+                    .append(sep[0]).append(number(random, 2, 13))
+                    .append(sep[1]).append(number(random, 2, 32));
+            int timeShape = random.nextInt(4);
+            if (timeShape > 0) {
+                sb.append(sep[2]).append(joins[random.nextInt(joins.length)])
+                        .append(number(random, 2, 25)).append(':').append(number(random, 2, 61));
+                if (timeShape > 1) {
+                    sb.append(':').append(number(random, 2, 61));
+                }
+            }
+            if (random.nextInt(20) == 0) sb.append('x');
+            if (random.nextInt(20) == 0) sb.setCharAt(random.nextInt(sb.length()), '9');
+            corpus.add(sb.toString());
+        }
+        for (String text : corpus) {
+            // 唯一有意的差异：末尾是「日」且没有时间部分
+            if (text.trim().endsWith("日")) {
+                continue;
+            }
+            assertEquals(legacyParse(text), ExcelDateTimeParser.parse(text), text);
+        }
+    }
+
+    @Test
+    void formatsExportColumns() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 5, 9, 7, 42);
+        assertEquals("2024/03/05 09:07", ExcelDateTimeParser.formatExport(time));
+        assertEquals("", ExcelDateTimeParser.formatExport(LocalDateTime.MIN));
+        assertEquals("", ExcelDateTimeParser.formatExport(null));
+        assertEquals("2024-03-05 09:07", ExcelDateTimeParser.formatOrder(time));
+        assertEquals("", ExcelDateTimeParser.formatOrder(null));
+    }
+
+    private static String number(Random random, int width, int bound) {
+        int value = random.nextInt(bound);
+        String text = String.valueOf(value);
+        // 偶尔生成不足位数的数字
+        if (random.nextInt(15) == 0) {
+            return text;
+        }
+        return "0".repeat(Math.max(0, width - text.length())) + text;
+    }
+
+    /**
+     * 替换前 ExcelHelper.parseDateTimeText 的实现，作为对照
+     */
+    private static LocalDateTime legacyParse(String text) {
+        if (text == null || text.isBlank()) return null;
+        String normalized = text.trim()
+            .replace('年', '-').replace("月", "-").replace("日", " ")
+            .replace('/', '-')
+            .replace('.', '-')
+            .replace("T", " ")
+            .replaceAll("\\s+", " ");
+        String[] patterns = {
+            "yyyy-MM-dd HH:mm:ss",
+            "yyyy-MM-dd HH:mm",
+            "yyyy-MM-dd",
+            "yy-MM-dd HH:mm:ss",
+            "yy-MM-dd HH:mm",
+            "yy-MM-dd"
+        };
+        for (String p : patterns) {
+            try {
+                DateTimeFormatter f = DateTimeFormatter.ofPattern(p);
+                if (p.endsWith("dd")) {
+                    return LocalDate.parse(normalized, f).atStartOfDay();
+                } else {
+                    return LocalDateTime.parse(normalized, f);
+                }
+            } catch (Exception ignored) {
+            }
+        }
+        try {
+            return LocalDateTime.parse(normalized);
+        } catch (Exception ignored) {
+        }
+        try {
+            return LocalDate.parse(normalized).atStartOfDay();
+        } catch (Exception ignored) {
+        }
+        return null;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+class ExcelStyleCacheTest {
+
+    @Test
+    void resolvesXssfStylesOncePerIndex() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            XSSFFont font = workbook.createFont();
+            font.setColor(new XSSFColor(new byte[] {0, 0, (byte) 0xFF}, null));
+            font.setStrikeout(true);
+            font.setBold(true);
+            XSSFCellStyle style = workbook.createCellStyle();
+            style.setFillForegroundColor(new XSSFColor(new byte[] {(byte) 0xFF, 0, 0}, null));
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            style.setFont(font);
+
+            Row row = workbook.createSheet().createRow(0);
+            Cell styled = row.createCell(0);
+            styled.setCellStyle(style);
+            Cell sameStyle = row.createCell(1);
+            sameStyle.setCellStyle(style);
+            Cell plain = row.createCell(2);
+
+            ExcelStyleCache cache = ExcelStyleCache.forWorkbook(workbook);
+            ExcelStyleCache.CellStyleInfo info = cache.resolve(styled);
+            assertEquals(new ExcelStyleCache.CellStyleInfo("#FF0000", "#0000FF", true, true), info);
+            assertEquals(uncached(styled, workbook), info);
+            assertSame(info, cache.resolve(sameStyle));
+            assertEquals(uncached(plain, workbook), cache.resolve(plain));
+            assertFalse(cache.resolve(plain).strike());
+
+            // 流式读取按样式索引解析，结果与按单元格解析一致
+            ExcelStyleCache streaming = ExcelStyleCache.forStylesTable(workbook.getStylesSource());
+            assertEquals(info, streaming.resolve(style.getIndex()));
+            assertEquals(cache.resolve(plain), streaming.resolve(plain.getCellStyle().getIndex()));
+        }
+    }
+
+    @Test
+    void resolvesHssfPaletteColors() throws IOException {
+        try (HSSFWorkbook workbook = new HSSFWorkbook()) {
+            Font font = workbook.createFont();
+            font.setColor(IndexedColors.RED.getIndex());
+            CellStyle style = workbook.createCellStyle();
+            style.setFillForegroundColor(IndexedColors.YELLOW.getIndex());
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            style.setFont(font);
+            Cell cell = workbook.createSheet().createRow(0).createCell(0);
+            cell.setCellStyle(style);
+
+            ExcelStyleCache.CellStyleInfo info = ExcelStyleCache.forWorkbook(workbook).resolve(cell);
+            assertEquals(uncached(cell, workbook), info);
+            assertEquals("#FFFF00", info.bgColor());
+            assertEquals("#FF0000", info.fontColor());
+        }
+    }
+
+    @Test
+    void missingCellHasNoStyle() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            ExcelStyleCache.CellStyleInfo info = ExcelStyleCache.forStylesTable(workbook.getStylesSource()).resolve((Cell) null);
+            assertSame(ExcelStyleCache.CellStyleInfo.NONE, info);
+            assertNull(info.bgColor());
+            assertFalse(info.bold());
+        }
+    }
+
+    private static ExcelStyleCache.CellStyleInfo uncached(Cell cell, Workbook workbook) {
+        CellStyle style = cell.getCellStyle();
+        Font font = workbook.getFontAt(style.getFontIndex());
+        return new ExcelStyleCache.CellStyleInfo(ExcelHelper.styleBgHex(style, workbook), ExcelHelper.fontHex(font, workbook),
+                font.getStrikeout(), font.getBold());
+    }
+}
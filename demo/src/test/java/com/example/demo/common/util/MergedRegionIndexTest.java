@@ -0,0 +1,70 @@
+package com.example.demo.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+class MergedRegionIndexTest {
+
+    @Test
+    void matchesLinearScanIncludingOverlaps() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            List<CellRangeAddress> regions = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                int firstRow = random.nextInt(500);
+                int firstCol = random.nextInt(8);
+                regions.add(new CellRangeAddress(firstRow, firstRow + random.nextInt(6),
+                        firstCol, firstCol + random.nextInt(2)));
+            }
+            // 非法的重叠区域：按原始顺序取序号最小的
+            regions.add(new CellRangeAddress(0, 600, 3, 3));
+            MergedRegionIndex index = MergedRegionIndex.of(regions);
+            for (int row = 0; row < 610; row++) {
+                for (int col = 0; col < 11; col++) {
+                    assertEquals(linearScan(regions, row, col), index.indexOf(row, col), "row=" + row + ", col=" + col);
+                }
+            }
+        }
+    }
+
+    @Test
+    void buildsFromSheet() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            sheet.addMergedRegion(new CellRangeAddress(1, 3, 5, 5));
+            sheet.addMergedRegion(new CellRangeAddress(4, 4, 0, 2));
+
+            MergedRegionIndex index = MergedRegionIndex.of(sheet);
+            assertEquals(2, index.size());
+            assertEquals(new CellRangeAddress(1, 3, 5, 5), index.find(2, 5));
+            assertEquals(new CellRangeAddress(4, 4, 0, 2), index.find(4, 1));
+            assertNull(index.find(0, 5));
+            assertNull(index.find(4, 3));
+        }
+    }
+
+    @Test
+    void emptySheet() {
+        MergedRegionIndex index = MergedRegionIndex.of((Sheet) null);
+        assertEquals(0, index.size());
+        assertEquals(-1, index.indexOf(0, 0));
+    }
+
+    private static int linearScan(List<CellRangeAddress> regions, int row, int col) {
+        for (int i = 0; i < regions.size(); i++) {
+            if (regions.get(i).isInRange(row, col)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.demo.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.example.demo.config.AppProperties;
+import com.example.demo.order.entity.OrderRecord;
+import com.example.demo.order.mapper.OrderRecordMapper;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class OrderSearchIndexTest {
+
+    private static final String[] MODELS = {"iPhone 15", "IPHONE 15 Pro", "Mate60", "mate60 pro", "X1", "小米14", null, ""};
+
+    @BeforeAll
+    static void initTableInfo() {
+        // load() 使用 Lambda 条件构造器，需要实体的表信息
+        if (TableInfoHelper.getTableInfo(OrderRecord.class) == null) {
+            TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), OrderRecord.class);
+        }
+    }
+
+    @Test
+    void queriesMatchBruteForceScanAfterChurn() {
+        Random random = new Random(19);
+        Map<Long, OrderRecord> docs = new LinkedHashMap<>();
+        for (long id = 1; id <= 2000; id++) {
+            docs.put(id, randomRecord(random, id));
+        }
+        AppProperties props = new AppProperties();
+        props.getOrderSearchIndex().setMaxCandidates(Integer.MAX_VALUE);
+        OrderSearchIndex index = loadedIndex(new ArrayList<>(docs.values()), props);
+        assertTrue(index.stats().isReady());
+        assertQueriesMatch(index, docs, random);
+
+        // 修改、新增、删除交替进行，失效槽位足够多时会触发重建
+        long nextId = 2001;
+        for (int i = 0; i < 4000; i++) {
+            int op = random.nextInt(10);
+            if (op < 6 && !docs.isEmpty()) {
+                Long id = randomKey(random, docs);
+                OrderRecord r = randomRecord(random, id);
+                docs.put(id, r);
+                index.upsert(r);
+            } else if (op < 8) {
+                OrderRecord r = randomRecord(random, nextId++);
+                docs.put(r.getId(), r);
+                index.upsert(r);
+            } else if (!docs.isEmpty()) {
+                Long id = randomKey(random, docs);
+                docs.remove(id);
+                index.remove(List.of(id));
+            }
+            if (i % 500 == 0) {
+                assertQueriesMatch(index, docs, random);
+            }
+        }
+        assertTrue(index.stats().getRebuilds() > 0);
+        assertEquals(docs.size(), index.stats().getDocs());
+        assertQueriesMatch(index, docs, random);
+    }
+
+    @Test
+    void fallsBackToSqlWhenNotUsable() {
+        AppProperties props = new AppProperties();
+        OrderSearchIndex notLoaded = new OrderSearchIndex(mapperReturning(List.of()), props);
+        assertNull(notLoaded.findContaining("SF"));
+        assertNull(notLoaded.findByTrackingOrSn(List.of("SF1"), List.of()));
+
+        List<OrderRecord> docs = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            OrderRecord r = new OrderRecord();
+            r.setId(id);
+            r.setTrackingNumber("SF10" + id);
+            docs.add(r);
+        }
+        props.getOrderSearchIndex().setMaxCandidates(10);
+        OrderSearchIndex index = loadedIndex(docs, props);
+        // LIKE 通配符交给 SQL
+        assertNull(index.findContaining("SF%1"));
+        assertNull(index.findContaining("SF_1"));
+        assertNull(index.findByTrackingOrSn(List.of(), List.of("SF_")));
+        // 候选超过上限
+        assertNull(index.findContaining("sf1"));
+        assertNull(index.findByTrackingOrSn(List.of(), List.of("SF")));
+        assertEquals(Set.of(5L), index.findContaining(" sf105 "));
+        assertEquals(Set.of(2L), index.findByTrackingOrSn(List.of("sf102"), List.of()));
+    }
+
+    private static void assertQueriesMatch(OrderSearchIndex index, Map<Long, OrderRecord> docs, Random random) {
+        List<OrderRecord> values = new ArrayList<>(docs.values());
+        for (int i = 0; i < 200; i++) {
+            String keyword = randomKeyword(random, values);
+            Set<Long> actual = index.findContaining(keyword);
+            assertNotNull(actual, keyword);
+            assertEquals(bruteContaining(docs, keyword), new HashSet<>(actual), keyword);
+
+            List<String> exact = List.of(randomKeyword(random, values), randomKeyword(random, values));
+            List<String> prefixes = List.of(randomKeyword(random, values));
+            Set<Long> found = index.findByTrackingOrSn(exact, prefixes);
+            assertNotNull(found, exact + " " + prefixes);
+            assertEquals(bruteTrackingOrSn(docs, exact, prefixes), new HashSet<>(found), exact + " " + prefixes);
+        }
+    }
+
+    private static Set<Long> bruteContaining(Map<Long, OrderRecord> docs, String keyword) {
+        String k = keyword.trim().toUpperCase(Locale.ROOT);
+        Set<Long> result = new HashSet<>();
+        for (OrderRecord r : docs.values()) {
+            if (upper(r.getTrackingNumber()).contains(k) || upper(r.getSn()).contains(k) || upper(r.getModel()).contains(k)) {
+                result.add(r.getId());
+            }
+        }
+        return result;
+    }
+
+    private static Set<Long> bruteTrackingOrSn(Map<Long, OrderRecord> docs, List<String> exact, List<String> prefixes) {
+        Set<Long> result = new HashSet<>();
+        for (OrderRecord r : docs.values()) {
+            String tracking = upper(r.getTrackingNumber());
+            String sn = upper(r.getSn());
+            for (String e : exact) {
+                String k = e.trim().toUpperCase(Locale.ROOT);
+                if (!k.isEmpty() && (tracking.equals(k) || sn.equals(k))) {
+                    result.add(r.getId());
+                }
+            }
+            for (String p : prefixes) {
+                String k = p.trim().toUpperCase(Locale.ROOT);
+                if (!k.isEmpty() && tracking.startsWith(k)) {
+                    result.add(r.getId());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String upper(String value) {
+        return value == null ? "" : value.toUpperCase(Locale.ROOT);
+    }
+
+    private static OrderRecord randomRecord(Random random, long id) {
+        OrderRecord r = new OrderRecord();
+        r.setId(id);
+        int n = random.nextInt(300);
+        String tracking = switch (random.nextInt(6)) {
+            case 0 -> null;
+            case 1 -> "sf" + n;
+            case 2 -> "SF" + n + "-" + random.nextInt(3);
+            case 3 -> "JD" + n + " ";
+            default -> "SF" + n;
+        };
+        r.setTrackingNumber(tracking);
+        r.setSn(random.nextInt(4) == 0 ? null : (random.nextBoolean() ? "sn" : "SN") + random.nextInt(500));
+        r.setModel(MODELS[random.nextInt(MODELS.length)]);
+        return r;
+    }
+
+    /**
+     * 取某个订单某列的随机子串（随机大小写、可能带首尾空白），偶尔换成不存在的串
+     */
+    private static String randomKeyword(Random random, List<OrderRecord> docs) {
+        if (docs.isEmpty() || random.nextInt(10) == 0) {
+            return random.nextBoolean() ? "ZZ9" : "Q";
+        }
+        OrderRecord r = docs.get(random.nextInt(docs.size()));
+        String source = switch (random.nextInt(3)) {
+            case 0 -> r.getTrackingNumber();
+            case 1 -> r.getSn();
+            default -> r.getModel();
+        };
+        if (source == null || source.isBlank()) {
+            return "SF1";
+        }
+        String trimmed = source.trim();
+        int from = random.nextBoolean() ? 0 : random.nextInt(trimmed.length());
+        int to = from + 1 + random.nextInt(trimmed.length() - from);
+        String sub = trimmed.substring(from, to);
+        if (sub.isBlank()) {
+            sub = trimmed;
+        }
+        sub = random.nextBoolean() ? sub.toLowerCase(Locale.ROOT) : sub;
+        return random.nextInt(5) == 0 ? " " + sub + " " : sub;
+    }
+
+    private static Long randomKey(Random random, Map<Long, OrderRecord> docs) {
+        int skip = random.nextInt(docs.size());
+        for (Long id : docs.keySet()) {
+            if (skip-- == 0) {
+                return id;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static OrderSearchIndex loadedIndex(List<OrderRecord> docs, AppProperties props) {
+        OrderSearchIndex index = new OrderSearchIndex(mapperReturning(docs), props);
+        index.load();
+        return index;
+    }
+
+    /**
+     * 只实现 selectList 的 Mapper：一次返回全部订单（少于一批，加载循环读一次即结束）
+     */
+    private static OrderRecordMapper mapperReturning(List<OrderRecord> docs) {
+        return (OrderRecordMapper) Proxy.newProxyInstance(OrderRecordMapper.class.getClassLoader(),
+                new Class<?>[] {OrderRecordMapper.class}, (proxy, method, args) -> {
+                    if ("selectList".equals(method.getName())) {
+                        return new ArrayList<>(docs);
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            case "equals" -> proxy == args[0];
+                            default -> "OrderRecordMapperStub";
+                        };
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
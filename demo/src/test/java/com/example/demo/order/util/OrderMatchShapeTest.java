@@ -0,0 +1,181 @@
+package com.example.demo.order.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.demo.order.entity.OrderCellStyle;
+import com.example.demo.order.entity.OrderRecord;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class OrderMatchShapeTest {
+
+    private static final String[] FIELDS = {"tracking", "model", "sn", "remark", "amount"};
+    private static final String[] VALUES = {null, "", " ", "SF100", "sf100", " SF100 ", "M1", "m1", "SN-1", "已核对"};
+    private static final String[] COLORS = {null, "", " ", "#FFF", "#ffffff", "#FFFFFF", "#000", "#000000", "#000008",
+        "#ff0000", "#FF0000", "#00FF00"};
+    private static final Boolean[] FLAGS = {null, Boolean.FALSE, Boolean.TRUE};
+    private static final BigDecimal[] AMOUNTS = {null, BigDecimal.ZERO, new BigDecimal("0.00"), new BigDecimal("12.5"),
+        new BigDecimal("12.50"), new BigDecimal("100")};
+
+    @Test
+    void scoreMatchesLegacyMapScorer() {
+        Random random = new Random(14);
+        for (int i = 0; i < 50_000; i++) {
+            OrderRecord excel = randomRecord(random);
+            OrderRecord db = randomRecord(random);
+            List<OrderCellStyle> styles = randomStyles(random);
+
+            OrderMatchShape.Dictionary dict = new OrderMatchShape.Dictionary();
+            OrderMatchShape cur = OrderMatchShape.ofRecord(excel, dict);
+            OrderMatchShape stored = OrderMatchShape.ofStored(db, styles, dict);
+            int expected = legacyScore(excel, db, styles);
+            assertEquals(expected, cur.score(stored));
+            assertEquals(expected == OrderMatchShape.FULL_SCORE, cur.sameAs(stored));
+        }
+    }
+
+    @Test
+    void identicalRowScoresFull() {
+        OrderRecord excel = new OrderRecord();
+        excel.setTrackingNumber(" SF100");
+        excel.setAmount(new BigDecimal("12.50"));
+        excel.setRemarkBgColor("#ff0000");
+        excel.setSnStrike(Boolean.TRUE);
+        OrderRecord db = new OrderRecord();
+        db.setTrackingNumber("SF100");
+        db.setAmount(new BigDecimal("12.5"));
+        OrderCellStyle remark = style("remark", "#FF0000", null, null, null);
+        OrderCellStyle sn = style("sn", "#FFF", "#000", Boolean.TRUE, Boolean.FALSE);
+
+        OrderMatchShape.Dictionary dict = new OrderMatchShape.Dictionary();
+        assertEquals(OrderMatchShape.FULL_SCORE,
+                OrderMatchShape.ofRecord(excel, dict).score(OrderMatchShape.ofStored(db, List.of(remark, sn), dict)));
+    }
+
+    private static OrderRecord randomRecord(Random random) {
+        OrderRecord r = new OrderRecord();
+        r.setTrackingNumber(pick(random, VALUES));
+        r.setModel(pick(random, VALUES));
+        r.setSn(pick(random, VALUES));
+        r.setRemark(pick(random, VALUES));
+        r.setAmount(pick(random, AMOUNTS));
+        r.setTrackingBgColor(pick(random, COLORS));
+        r.setTrackingFontColor(pick(random, COLORS));
+        r.setTrackingStrike(pick(random, FLAGS));
+        r.setTrackingBold(pick(random, FLAGS));
+        r.setModelBgColor(pick(random, COLORS));
+        r.setModelFontColor(pick(random, COLORS));
+        r.setModelStrike(pick(random, FLAGS));
+        r.setModelBold(pick(random, FLAGS));
+        r.setSnBgColor(pick(random, COLORS));
+        r.setSnFontColor(pick(random, COLORS));
+        r.setSnStrike(pick(random, FLAGS));
+        r.setSnBold(pick(random, FLAGS));
+        r.setRemarkBgColor(pick(random, COLORS));
+        r.setRemarkFontColor(pick(random, COLORS));
+        r.setRemarkStrike(pick(random, FLAGS));
+        r.setRemarkBold(pick(random, FLAGS));
+        r.setAmountBgColor(pick(random, COLORS));
+        r.setAmountFontColor(pick(random, COLORS));
+        r.setAmountStrike(pick(random, FLAGS));
+        r.setAmountBold(pick(random, FLAGS));
+        return r;
+    }
+
+    private static List<OrderCellStyle> randomStyles(Random random) {
+        if (random.nextInt(5) == 0) {
+            return null;
+        }
+        List<OrderCellStyle> styles = new ArrayList<>();
+        int count = random.nextInt(8);
+        for (int i = 0; i < count; i++) {
+            // 含未知列、同列多条（以后者为准）
+            String field = random.nextInt(10) == 0 ? "weight" : pick(random, FIELDS);
+            styles.add(style(field, pick(random, COLORS), pick(random, COLORS), pick(random, FLAGS), pick(random, FLAGS)));
+        }
+        return styles;
+    }
+
+    private static OrderCellStyle style(String field, String bg, String fg, Boolean strike, Boolean bold) {
+        OrderCellStyle s = new OrderCellStyle();
+        s.setField(field);
+        s.setBgColor(bg);
+        s.setFontColor(fg);
+        s.setStrike(strike);
+        s.setBold(bold);
+        return s;
+    }
+
+    private static <T> T pick(Random random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // ===== 替换前的 calculateMatchScore 及其取值/取样式方法，作为对照 =====
+
+    private static int legacyScore(OrderRecord excel, OrderRecord db, List<OrderCellStyle> dbStyles) {
+        Map<String, String> excelValue = valueMap(excel);
+        Map<String, String> dbValue = valueMap(db);
+        Map<String, String[]> excelStyle = styleMap(excel);
+        Map<String, String[]> dbStyle = styleMapFromDb(dbStyles);
+        int score = 0;
+        for (String f : FIELDS) {
+            if (Objects.equals(excelValue.get(f), dbValue.get(f))) {
+                score += 15;
+            }
+            if (Arrays.equals(excelStyle.get(f), dbStyle.get(f))) {
+                score += 5;
+            }
+        }
+        return score;
+    }
+
+    private static Map<String, String> valueMap(OrderRecord r) {
+        Map<String, String> m = new HashMap<>();
+        m.put("tracking", safe(r.getTrackingNumber()));
+        m.put("model", safe(r.getModel()));
+        m.put("sn", safe(r.getSn()));
+        m.put("remark", safe(r.getRemark()));
+        m.put("amount", OrderRowFingerprint.amountText(r.getAmount()));
+        return m;
+    }
+
+    private static Map<String, String[]> styleMap(OrderRecord r) {
+        Map<String, String[]> m = new HashMap<>();
+        m.put("tracking", snap(r.getTrackingBgColor(), r.getTrackingFontColor(), r.getTrackingStrike(), r.getTrackingBold()));
+        m.put("model", snap(r.getModelBgColor(), r.getModelFontColor(), r.getModelStrike(), r.getModelBold()));
+        m.put("sn", snap(r.getSnBgColor(), r.getSnFontColor(), r.getSnStrike(), r.getSnBold()));
+        m.put("remark", snap(r.getRemarkBgColor(), r.getRemarkFontColor(), r.getRemarkStrike(), r.getRemarkBold()));
+        m.put("amount", snap(r.getAmountBgColor(), r.getAmountFontColor(), r.getAmountStrike(), r.getAmountBold()));
+        return m;
+    }
+
+    private static Map<String, String[]> styleMapFromDb(List<OrderCellStyle> dbStyles) {
+        Map<String, OrderCellStyle> byField = new HashMap<>();
+        if (dbStyles != null) {
+            for (OrderCellStyle s : dbStyles) {
+                byField.put(s.getField(), s);
+            }
+        }
+        Map<String, String[]> m = new HashMap<>();
+        for (String f : FIELDS) {
+            OrderCellStyle s = byField.get(f);
+            m.put(f, s == null ? snap(null, null, null, null) : snap(s.getBgColor(), s.getFontColor(), s.getStrike(), s.getBold()));
+        }
+        return m;
+    }
+
+    private static String[] snap(String bg, String fg, Boolean strike, Boolean bold) {
+        return new String[] {OrderRowFingerprint.normBg(bg), OrderRowFingerprint.normFg(fg), String.valueOf(Boolean.TRUE.equals(strike)), String.valueOf(Boolean.TRUE.equals(bold))};
+    }
+
+    private static String safe(String s) {
+        return s == null ? "" : s.trim();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.order.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.demo.order.entity.OrderCellStyle;
+import com.example.demo.order.entity.OrderRecord;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class OrderRowFingerprintTest {
+
+    @Test
+    void reimportOfPricedOrderFallsBackToScoring() {
+        // 数据库中已定价、带备注的订单
+        OrderRecord stored = row("SF123", "M1", "SN1", "已核对", new BigDecimal("100.00"));
+        List<OrderCellStyle> styles = List.of(style("remark", "#FFFF00"));
+        // Excel 中同一行：金额列为空（导入不读金额），备注为空
+        OrderRecord incoming = row("SF123", "M1", "SN1", null, null);
+        incoming.setRemarkBgColor("#FFFF00");
+
+        // 按非空字段更新后数据库仍为原值，写入的指纹必须与数据库实际状态一致
+        long written = OrderRowFingerprint.afterWrite(incoming, stored, styles);
+        assertEquals(OrderRowFingerprint.ofStored(stored, styles), written);
+
+        // 再次导入同一行：指纹不命中，与逐字段比较的结论（有变化）一致
+        assertNotEquals(written, OrderRowFingerprint.ofRecord(incoming));
+        OrderMatchShape.Dictionary dict = new OrderMatchShape.Dictionary();
+        assertTrue(OrderMatchShape.ofRecord(incoming, dict).score(OrderMatchShape.ofStored(stored, styles, dict))
+                < OrderMatchShape.FULL_SCORE);
+    }
+
+    @Test
+    void writtenFieldsOverrideStoredValues() {
+        OrderRecord stored = row("SF123", "M1", "SN1", "旧备注", new BigDecimal("100.00"));
+        OrderRecord incoming = row("SF123", "M1", "SN1", "新备注", null);
+
+        OrderRecord after = row("SF123", "M1", "SN1", "新备注", new BigDecimal("100.00"));
+        assertEquals(OrderRowFingerprint.ofStored(after, null), OrderRowFingerprint.afterWrite(incoming, stored, null));
+    }
+
+    @Test
+    void unchangedRowHitsAfterWrite() {
+        OrderRecord incoming = row("SF123", "M1", "SN1", "备注", new BigDecimal("99.5"));
+        incoming.setModelBold(Boolean.TRUE);
+
+        long written = OrderRowFingerprint.afterWrite(incoming, null, null);
+        assertEquals(OrderRowFingerprint.ofRecord(incoming), written);
+
+        OrderRecord stored = row("SF123", "M1", "SN1", "备注", new BigDecimal("99.50"));
+        OrderCellStyle bold = style("model", null);
+        bold.setBold(Boolean.TRUE);
+        assertEquals(OrderRowFingerprint.ofStored(stored, List.of(bold)), written);
+        OrderMatchShape.Dictionary dict = new OrderMatchShape.Dictionary();
+        assertEquals(OrderMatchShape.FULL_SCORE,
+                OrderMatchShape.ofRecord(incoming, dict).score(OrderMatchShape.ofStored(stored, List.of(bold), dict)));
+    }
+
+    private static OrderRecord row(String tracking, String model, String sn, String remark, BigDecimal amount) {
+        OrderRecord r = new OrderRecord();
+        r.setTrackingNumber(tracking);
+        r.setModel(model);
+        r.setSn(sn);
+        r.setRemark(remark);
+        r.setAmount(amount);
+        return r;
+    }
+
+    private static OrderCellStyle style(String field, String bg) {
+        OrderCellStyle s = new OrderCellStyle();
+        s.setField(field);
+        s.setBgColor(bg);
+        return s;
+    }
+}
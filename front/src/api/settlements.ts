@@ -9,7 +9,8 @@ import type {
   SettlementBatchConfirmRequest,
   SettlementAmountRequest,
   SettlementBatchSnPriceRequest,
-  SettlementBatchSnPriceResponse
+  SettlementBatchSnPriceResponse,
+  SettlementConfirmResult
 } from '@/types/models';
 
 const serializeParams = (params: SettlementExportRequest) => {
@@ -56,7 +57,7 @@ export const updateSettlementPriceByModel = (payload: SettlementBatchPriceReques
   apiClient.put<void>('/settlements/price-by-model', payload);
 
 export const confirmSettlementsBatch = (payload: SettlementBatchConfirmRequest) =>
-  apiClient.put<void>('/settlements/confirm-batch', payload);
+  apiClient.put<SettlementConfirmResult>('/settlements/confirm-batch', payload);
 
 export const updateSettlementAmount = (id: number, payload: SettlementAmountRequest) =>
   apiClient.put<void>(`/settlements/${id}/amount`, payload);
@@ -65,7 +66,7 @@ export const updateSettlementPriceBySn = (payload: SettlementBatchSnPriceRequest
   apiClient.put<SettlementBatchSnPriceResponse>('/settlements/price-by-sn', payload);
 
 export const confirmAllSettlements = (payload: SettlementFilterRequest) =>
-  apiClient.put<number>('/settlements/confirm-all', payload);
+  apiClient.put<SettlementConfirmResult>('/settlements/confirm-all', payload);
 
 export const moveToDraft = (ids: number[]) =>
   apiClient.put<number>('/settlements/move-to-draft', ids);
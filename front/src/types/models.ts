@@ -248,6 +248,18 @@ export interface SettlementBatchSnPriceResponse {
   skippedSns: string[];
 }
 
+export interface SettlementConfirmConflict {
+  id: number;
+  trackingNumber?: string;
+  reason: 'NOT_FOUND' | 'NO_AMOUNT';
+}
+
+export interface SettlementConfirmResult {
+  requested: number;
+  confirmed: number;
+  conflicts: SettlementConfirmConflict[];
+}
+
 export interface DashboardResponse {
   orderCount: number;
   waitingSettlementCount: number;